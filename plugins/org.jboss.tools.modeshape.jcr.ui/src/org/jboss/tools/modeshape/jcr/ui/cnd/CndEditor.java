@@ -27,7 +27,10 @@ import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jface.action.Action;
 import org.eclipse.jface.action.ControlContribution;
+import org.eclipse.jface.action.IAction;
 import org.eclipse.jface.action.IStatusLineManager;
 import org.eclipse.jface.dialogs.ErrorDialog;
 import org.eclipse.jface.dialogs.IMessageProvider;
@@ -38,6 +41,7 @@ import org.eclipse.osgi.util.NLS;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Event;
 import org.eclipse.swt.widgets.Listener;
 import org.eclipse.swt.widgets.Shell;
@@ -63,6 +67,7 @@ import org.eclipse.ui.forms.widgets.Hyperlink;
 import org.eclipse.ui.forms.widgets.ScrolledForm;
 import org.eclipse.ui.part.FileEditorInput;
 import org.jboss.tools.modeshape.jcr.cnd.CndElement.NotationType;
+import org.jboss.tools.modeshape.jcr.cnd.CndHistory;
 import org.jboss.tools.modeshape.jcr.cnd.CndImporter;
 import org.jboss.tools.modeshape.jcr.cnd.CompactNodeTypeDefinition;
 import org.jboss.tools.modeshape.jcr.preference.JcrPreferenceConstants;
@@ -71,6 +76,7 @@ import org.jboss.tools.modeshape.jcr.ui.Activator;
 import org.jboss.tools.modeshape.jcr.ui.JcrUiConstants;
 import org.jboss.tools.modeshape.jcr.ui.JcrUiConstants.Images;
 import org.jboss.tools.modeshape.ui.UiMessages;
+import org.jboss.tools.modeshape.ui.UiUtils;
 import org.jboss.tools.modeshape.ui.forms.MessageFormDialog;
 import org.jboss.tools.modeshape.ui.forms.MessageSummaryDialog;
 
@@ -87,6 +93,16 @@ public final class CndEditor extends SharedHeaderFormEditor
 
     private final CndEditorPage formsPage;
 
+    /**
+     * The undo and redo history of the CND being edited (<code>null</code> until the CND has been loaded).
+     */
+    private CndHistory history;
+
+    /**
+     * The job loading the CND from the file (<code>null</code> if not loading). Only accessed in the UI thread.
+     */
+    private Job loadJob;
+
     private IMemento memento;
     private long modificationStamp = 0;
     private CompactNodeTypeDefinition originalCnd;
@@ -94,13 +110,43 @@ public final class CndEditor extends SharedHeaderFormEditor
     private boolean readOnly = false;
     private Listener refreshListener;
 
+    private final IAction redoAction;
     private ScrolledForm scrolledForm;
+    private final IAction undoAction;
 
     /**
      * Constructs a CND editor.
      */
     public CndEditor() {
         this.formsPage = new CndFormsEditorPage(this);
+
+        this.undoAction = new Action(CndMessages.cndEditorUndoActionText) {
+
+            /**
+             * {@inheritDoc}
+             *
+             * @see org.eclipse.jface.action.Action#run()
+             */
+            @Override
+            public void run() {
+                handleUndo();
+            }
+        };
+        this.undoAction.setEnabled(false);
+
+        this.redoAction = new Action(CndMessages.cndEditorRedoActionText) {
+
+            /**
+             * {@inheritDoc}
+             *
+             * @see org.eclipse.jface.action.Action#run()
+             */
+            @Override
+            public void run() {
+                handleRedo();
+            }
+        };
+        this.redoAction.setEnabled(false);
     }
 
     /**
@@ -112,6 +158,16 @@ public final class CndEditor extends SharedHeaderFormEditor
         return this;
     }
 
+    /**
+     * Starts recording the following changes to the CND being edited as one change that is undone and redone at once. Must be
+     * followed by a call to {@link #endCompoundChange()}.
+     */
+    void beginCompoundChange() {
+        if (this.history != null) {
+            this.history.beginCompound();
+        }
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -205,33 +261,6 @@ public final class CndEditor extends SharedHeaderFormEditor
     // this.showRegistryViewAction = new ShowModelExtensionRegistryViewAction();
     // }
 
-    private void createCnd() throws Exception {
-        final CndImporter importer = new CndImporter();
-        final List<Throwable> errors = new ArrayList<Throwable>();
-        this.originalCnd = importer.importFrom(getFile().getContents(), errors, getFile().getName());
-
-        // check for parse errors
-        if (!errors.isEmpty()) {
-            final Throwable t = errors.iterator().next();
-
-            if (t.getCause() == null) {
-                throw new RuntimeException(t);
-            }
-
-            throw new RuntimeException(t.getCause());
-        }
-
-        // unhook lstening to current CND being edited
-        if (this.cndBeingEdited != null) {
-            this.cndBeingEdited.removeListener(this);
-        }
-
-        // copy over CND
-        this.cndBeingEdited = CompactNodeTypeDefinition.copy(this.originalCnd);
-        this.cndBeingEdited.addListener(this);
-        this.formsPage.handleCndReloaded();
-    }
-
     /**
      * {@inheritDoc}
      *
@@ -295,6 +324,17 @@ public final class CndEditor extends SharedHeaderFormEditor
      */
     @Override
     public void dispose() {
+        // a CND loaded after the editor is closed is ignored
+        if (this.loadJob != null) {
+            this.loadJob.cancel();
+            this.loadJob = null;
+        }
+
+        if (this.history != null) {
+            this.history.dispose();
+            this.history = null;
+        }
+
         ResourcesPlugin.getWorkspace().removeResourceChangeListener(this);
         super.dispose();
     }
@@ -309,6 +349,18 @@ public final class CndEditor extends SharedHeaderFormEditor
         internalSave(monitor);
     }
 
+    /**
+     * Ends the compound change started by {@link #beginCompoundChange()}.
+     */
+    void endCompoundChange() {
+        if (this.history != null) {
+            this.history.endCompound();
+
+            // the compound change is only recorded once it ends
+            refreshHistoryActions();
+        }
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -363,12 +415,26 @@ public final class CndEditor extends SharedHeaderFormEditor
     }
 
     /**
-     * @return the CND being edited (never <code>null</code>)
+     * @return the CND being edited (<code>null</code> until the CND has been {@link #isCndLoaded() loaded})
      */
     CompactNodeTypeDefinition getCnd() {
         return this.cndBeingEdited;
     }
 
+    /**
+     * @return the action that redoes the last undone change to the CND being edited (never <code>null</code>)
+     */
+    IAction getRedoAction() {
+        return this.redoAction;
+    }
+
+    /**
+     * @return the action that undoes the last change to the CND being edited (never <code>null</code>)
+     */
+    IAction getUndoAction() {
+        return this.undoAction;
+    }
+
     /**
      * @return the *.cnd resource (never <code>null</code>)
      */
@@ -439,6 +505,71 @@ public final class CndEditor extends SharedHeaderFormEditor
         dialog.open();
     }
 
+    /**
+     * Called in the UI thread when a load job finishes.
+     *
+     * @param job the load job (cannot be <code>null</code>)
+     * @param cnd the CND loaded from the file (<code>null</code> if the load failed)
+     * @param cndCopy the copy of the CND that will be edited (<code>null</code> if the load failed)
+     * @param error the error that caused the load to fail (<code>null</code> if the load succeeded)
+     */
+    void handleCndLoaded( final Job job,
+                          final CompactNodeTypeDefinition cnd,
+                          final CompactNodeTypeDefinition cndCopy,
+                          final Throwable error ) {
+        // ignore if editor has been closed or the CND is being loaded again
+        if (this.loadJob != job) {
+            return;
+        }
+
+        this.loadJob = null;
+
+        if (error == null) {
+            setCnd(cnd, cndCopy);
+        } else {
+            Activator.getSharedInstance().getLog().log(new Status(IStatus.ERROR, JcrUiConstants.PLUGIN_ID, null, error));
+
+            if (isCndLoaded()) {
+                MessageFormDialog.openError(getShell(),
+                                            CndMessages.cndEditorRefreshErrorTitle,
+                                            Activator.getSharedInstance().getImage(Images.CND_EDITOR),
+                                            CndMessages.cndEditorRefreshErrorMsg);
+            } else {
+                // the parse error is wrapped and its message tells where the CND is not valid
+                final Throwable parseError = ((error.getCause() == null) ? error : error.getCause());
+                final String reason = (UiUtils.isEmpty(parseError.getLocalizedMessage()) ? parseError.toString()
+                                                                                        : parseError.getLocalizedMessage());
+                this.formsPage.handleCndLoadFailed(NLS.bind(CndMessages.errorOpeningCndEditorWithReason, reason));
+            }
+        }
+    }
+
+    /**
+     * Applies the new value of the most recently undone change.
+     */
+    void handleRedo() {
+        if ((this.history != null) && this.history.canRedo()) {
+            final Object source = this.history.getRedoSource();
+            this.formsPage.revealChangeSource(source);
+            this.history.redo();
+            this.formsPage.handleChangeApplied(source);
+            refreshDirtyState();
+        }
+    }
+
+    /**
+     * Applies the old value of the most recent change.
+     */
+    void handleUndo() {
+        if ((this.history != null) && this.history.canUndo()) {
+            final Object source = this.history.getUndoSource();
+            this.formsPage.revealChangeSource(source);
+            this.history.undo();
+            this.formsPage.handleChangeApplied(source);
+            refreshDirtyState();
+        }
+    }
+
     void handleOpenCndPreferencesPage() {
         PreferencesUtil.createPreferenceDialogOn(getShell(),
                                                  JcrUiConstants.PreferenceIds.CND_PREFERENCE_PAGE,
@@ -453,6 +584,32 @@ public final class CndEditor extends SharedHeaderFormEditor
         getContainer().addListener(SWT.Activate, this.refreshListener);
     }
 
+    /**
+     * Reads and parses a CND file. Can be called from any thread.
+     *
+     * @param file the CND file (cannot be <code>null</code>)
+     * @return the CND (never <code>null</code>)
+     * @throws Exception if the file cannot be read or has parse errors
+     */
+    static CompactNodeTypeDefinition importCnd( final IFile file ) throws Exception {
+        final CndImporter importer = new CndImporter();
+        final List<Throwable> errors = new ArrayList<Throwable>();
+        final CompactNodeTypeDefinition cnd = importer.importFrom(file.getContents(), errors, file.getName());
+
+        // check for parse errors
+        if (!errors.isEmpty()) {
+            final Throwable t = errors.iterator().next();
+
+            if (t.getCause() == null) {
+                throw new RuntimeException(t);
+            }
+
+            throw new RuntimeException(t.getCause());
+        }
+
+        return cnd;
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -464,13 +621,10 @@ public final class CndEditor extends SharedHeaderFormEditor
         super.init(site, input);
         assert (input instanceof IFileEditorInput) : "MED Editor input is not a file"; //$NON-NLS-1$
 
-        try {
-            createCnd();
-            ResourcesPlugin.getWorkspace().addResourceChangeListener(this);
-            JcrPreferenceStore.get();
-        } catch (final Exception e) {
-            throw new PartInitException(CndMessages.errorOpeningCndEditor, e);
-        }
+        // the CND is read and parsed in the background so that large CNDs do not block the workbench
+        loadCnd();
+        ResourcesPlugin.getWorkspace().addResourceChangeListener(this);
+        JcrPreferenceStore.get();
     }
 
     private void internalSave( final IProgressMonitor progressMonitor ) {
@@ -480,8 +634,8 @@ public final class CndEditor extends SharedHeaderFormEditor
             // create the new text document
             saveDocument(input, progressMonitor);
 
-            // create new original CND that that will then be copied over to the CND being edited
-            createCnd();
+            // the saved CND is the new original CND. keep editing the same CND so that its history can still be undone.
+            this.originalCnd = CompactNodeTypeDefinition.copy(this.cndBeingEdited);
         } catch (final Exception e) {
             IStatus status = null;
 
@@ -512,6 +666,13 @@ public final class CndEditor extends SharedHeaderFormEditor
         return this.dirty;
     }
 
+    /**
+     * @return <code>true</code> if the CND being edited has been loaded from the file
+     */
+    boolean isCndLoaded() {
+        return (this.cndBeingEdited != null);
+    }
+
     /**
      * @return <code>true</code> if the file is readonly
      */
@@ -526,7 +687,7 @@ public final class CndEditor extends SharedHeaderFormEditor
      */
     @Override
     public boolean isSaveAsAllowed() {
-        return true;
+        return isCndLoaded();
     }
 
     /**
@@ -537,6 +698,72 @@ public final class CndEditor extends SharedHeaderFormEditor
         return (this.modificationStamp == currentModifiedStamp);
     }
 
+    /**
+     * Reads, parses, and copies the CND in a background job. The forms page is notified in the UI thread when done. A load already
+     * in progress is canceled.
+     */
+    private void loadCnd() {
+        if (this.loadJob != null) {
+            this.loadJob.cancel();
+        }
+
+        final IFile file = getFile();
+        final Display display = getSite().getShell().getDisplay();
+
+        this.loadJob = new Job(NLS.bind(CndMessages.cndEditorLoadJobName, file.getName())) {
+
+            /**
+             * {@inheritDoc}
+             *
+             * @see org.eclipse.core.runtime.jobs.Job#run(org.eclipse.core.runtime.IProgressMonitor)
+             */
+            @Override
+            protected IStatus run( final IProgressMonitor monitor ) {
+                CompactNodeTypeDefinition cnd = null;
+                CompactNodeTypeDefinition cndCopy = null;
+                Throwable error = null;
+
+                try {
+                    cnd = importCnd(file);
+
+                    if (monitor.isCanceled()) {
+                        return Status.CANCEL_STATUS;
+                    }
+
+                    cndCopy = CompactNodeTypeDefinition.copy(cnd);
+                } catch (final Exception e) {
+                    error = e;
+                }
+
+                if (monitor.isCanceled() || display.isDisposed()) {
+                    return Status.CANCEL_STATUS;
+                }
+
+                final Job job = this;
+                final CompactNodeTypeDefinition loadedCnd = cnd;
+                final CompactNodeTypeDefinition loadedCndCopy = cndCopy;
+                final Throwable loadError = error;
+
+                display.asyncExec(new Runnable() {
+
+                    /**
+                     * {@inheritDoc}
+                     *
+                     * @see java.lang.Runnable#run()
+                     */
+                    @Override
+                    public void run() {
+                        handleCndLoaded(job, loadedCnd, loadedCndCopy, loadError);
+                    }
+                });
+
+                return Status.OK_STATUS;
+            }
+        };
+
+        this.loadJob.schedule();
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -560,7 +787,7 @@ public final class CndEditor extends SharedHeaderFormEditor
                     getFile().refreshLocal(IResource.DEPTH_ONE, null);
                     this.modificationStamp = this.documentProvider.getModificationStamp(getEditorInput());
 
-                    createCnd();
+                    loadCnd();
                 } catch (final Exception e) {
                     Activator.getSharedInstance().getLog().log(new Status(IStatus.ERROR, JcrUiConstants.PLUGIN_ID, null, e));
                     MessageFormDialog.openError(getShell(),
@@ -580,12 +807,25 @@ public final class CndEditor extends SharedHeaderFormEditor
      * Refreshes the editor's dirty state by comparing the MED being edited with the original MED.
      */
     protected void refreshDirtyState() {
+        if (!isCndLoaded()) {
+            return;
+        }
+
         final boolean newValue = !this.originalCnd.equals(this.cndBeingEdited);
 
         if (isDirty() != newValue) {
             this.dirty = newValue;
             getHeaderForm().dirtyStateChanged();
         }
+
+        // every change to the CND being edited refreshes the dirty state
+        refreshHistoryActions();
+    }
+
+    private void refreshHistoryActions() {
+        final boolean enable = (!isReadOnly() && (this.history != null));
+        this.undoAction.setEnabled(enable && this.history.canUndo());
+        this.redoAction.setEnabled(enable && this.history.canRedo());
     }
 
     /**
@@ -598,8 +838,13 @@ public final class CndEditor extends SharedHeaderFormEditor
         if (isReadOnly() != newValue) {
             this.readOnly = newValue;
 
-            this.formsPage.setResourceReadOnly(this.readOnly);
-            this.formsPage.getManagedForm().refresh();
+            // the forms page controls are not created until the CND has been loaded
+            if (isCndLoaded()) {
+                this.formsPage.setResourceReadOnly(this.readOnly);
+                this.formsPage.getManagedForm().refresh();
+            }
+
+            refreshHistoryActions();
         }
     }
 
@@ -751,6 +996,43 @@ public final class CndEditor extends SharedHeaderFormEditor
         }
     }
 
+    /**
+     * @param cnd the CND loaded from the file (cannot be <code>null</code>)
+     * @param cndCopy the copy of the CND that will be edited (cannot be <code>null</code>)
+     */
+    private void setCnd( final CompactNodeTypeDefinition cnd,
+                         final CompactNodeTypeDefinition cndCopy ) {
+        this.originalCnd = cnd;
+
+        // unhook lstening to current CND being edited
+        if (this.cndBeingEdited != null) {
+            this.cndBeingEdited.removeListener(this);
+        }
+
+        // changes to the previous CND can no longer be undone
+        if (this.history != null) {
+            this.history.dispose();
+        }
+
+        this.cndBeingEdited = cndCopy;
+
+        // history must listen before the editor so that the undo and redo actions see the recorded change
+        this.history = new CndHistory(this.cndBeingEdited);
+        this.cndBeingEdited.addListener(this);
+        this.formsPage.handleCndLoaded();
+        refreshDirtyState();
+    }
+
+    /**
+     * Starts a new change even if the next change is to the same text property as the last change. Called when a text field
+     * loses focus or the selection changes.
+     */
+    void stopMergingChanges() {
+        if (this.history != null) {
+            this.history.stopMerging();
+        }
+    }
+
     /**
      * Unregisters the editor activation listener.
      */
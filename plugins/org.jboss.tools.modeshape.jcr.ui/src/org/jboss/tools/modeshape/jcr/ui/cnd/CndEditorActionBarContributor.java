@@ -72,6 +72,18 @@ public class CndEditorActionBarContributor extends EditorActionBarContributor {
             actionBars.setGlobalActionHandler(ActionFactory.PASTE.getId(), DisabledAction.get());
             actionBars.setGlobalActionHandler(ActionFactory.DELETE.getId(), DisabledAction.get());
             actionBars.setGlobalActionHandler(ActionFactory.SELECT_ALL.getId(), DisabledAction.get());
+
+            // undo and redo changes to the CND model
+            if (targetEditor instanceof CndEditor) {
+                final CndEditor cndEditor = (CndEditor)targetEditor;
+                actionBars.setGlobalActionHandler(ActionFactory.UNDO.getId(), cndEditor.getUndoAction());
+                actionBars.setGlobalActionHandler(ActionFactory.REDO.getId(), cndEditor.getRedoAction());
+            } else {
+                actionBars.setGlobalActionHandler(ActionFactory.UNDO.getId(), DisabledAction.get());
+                actionBars.setGlobalActionHandler(ActionFactory.REDO.getId(), DisabledAction.get());
+            }
+
+            actionBars.updateActionBars();
         }
     }
 
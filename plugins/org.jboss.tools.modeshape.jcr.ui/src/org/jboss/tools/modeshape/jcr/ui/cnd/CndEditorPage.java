@@ -10,11 +10,13 @@ package org.jboss.tools.modeshape.jcr.ui.cnd;
 import java.beans.PropertyChangeEvent;
 
 import org.eclipse.core.resources.IFile;
+import org.eclipse.osgi.util.NLS;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.layout.GridData;
 import org.eclipse.swt.layout.GridLayout;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Label;
 import org.eclipse.swt.widgets.Shell;
 import org.eclipse.ui.IMemento;
 import org.eclipse.ui.IPersistableEditor;
@@ -22,6 +24,7 @@ import org.eclipse.ui.forms.IManagedForm;
 import org.eclipse.ui.forms.IMessageManager;
 import org.eclipse.ui.forms.editor.FormPage;
 import org.eclipse.ui.forms.widgets.FormToolkit;
+import org.eclipse.ui.forms.widgets.ScrolledForm;
 import org.jboss.tools.modeshape.jcr.cnd.CompactNodeTypeDefinition;
 import org.jboss.tools.modeshape.ui.forms.ErrorMessage;
 
@@ -35,6 +38,11 @@ public abstract class CndEditorPage extends FormPage implements IPersistableEdit
      */
     protected IMemento memento;
 
+    /**
+     * Shown instead of the page's controls until the CND has been loaded (<code>null</code> if not shown).
+     */
+    private Label loadingLabel;
+
     /**
      * @param cndEditor the CND editor (cannot be <code>null</code>)
      * @param id the unique page identifier (cannot be <code>null</code>)
@@ -64,7 +72,19 @@ public abstract class CndEditorPage extends FormPage implements IPersistableEdit
         body.setLayout(new GridLayout());
         body.setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, true));
 
-        createBody(body, managedForm.getToolkit());
+        if (getCndEditor().isCndLoaded()) {
+            createContent(managedForm);
+        } else {
+            // controls are created once the CND has been loaded
+            this.loadingLabel = managedForm.getToolkit().createLabel(body, NLS.bind(CndMessages.cndEditorLoadingMessage,
+                                                                                     getFile().getName()), SWT.WRAP);
+            this.loadingLabel.setLayoutData(new GridData(SWT.FILL, SWT.BEGINNING, true, false));
+            managedForm.getForm().setBusy(true);
+        }
+    }
+
+    private void createContent( final IManagedForm managedForm ) {
+        createBody(managedForm.getForm().getBody(), managedForm.getToolkit());
         setResourceReadOnly(isReadonly());
         updateAllMessages();
     }
@@ -104,16 +124,67 @@ public abstract class CndEditorPage extends FormPage implements IPersistableEdit
         return getSite().getShell();
     }
 
+    /**
+     * Called when the CND being edited has been loaded. Creates the page's controls if the page was shown while the CND was being
+     * loaded, otherwise the page reloads the CND content.
+     */
+    void handleCndLoaded() {
+        if (this.loadingLabel == null) {
+            handleCndReloaded();
+        } else if (!this.loadingLabel.isDisposed()) {
+            this.loadingLabel.dispose();
+            this.loadingLabel = null;
+
+            final ScrolledForm form = getManagedForm().getForm();
+            form.setBusy(false);
+            createContent(getManagedForm());
+            form.getBody().layout(true, true);
+            form.reflow(true);
+        }
+    }
+
+    /**
+     * Called when the CND being edited could not be loaded.
+     *
+     * @param message the error message shown instead of the page's controls (cannot be <code>null</code>)
+     */
+    void handleCndLoadFailed( final String message ) {
+        if ((this.loadingLabel != null) && !this.loadingLabel.isDisposed()) {
+            getManagedForm().getForm().setBusy(false);
+            this.loadingLabel.setText(message);
+            this.loadingLabel.getParent().layout(true, true);
+        }
+    }
+
     /**
      * The CND was changed outside of the editor. Page must reload CND content.
      */
     public abstract void handleCndReloaded();
 
+    /**
+     * Called after a change to the CND has been undone or redone. Subclasses should refresh the controls that do not listen to
+     * the changed property.
+     *
+     * @param source the CND or node type definition that was changed (cannot be <code>null</code>)
+     */
+    protected void handleChangeApplied( final Object source ) {
+        // nothing to do. subclasses can override.
+    }
+
     /**
      * @param e the property change event being handled (never <code>null</code>)
      */
     protected abstract void handlePropertyChanged( PropertyChangeEvent e );
 
+    /**
+     * Called before a change to the CND is undone or redone so that the user can see what changes.
+     *
+     * @param source the CND or node type definition that will be changed (cannot be <code>null</code>)
+     */
+    protected void revealChangeSource( final Object source ) {
+        // nothing to do. subclasses can override.
+    }
+
     /**
      * @return <code>true</code> if the editor is readonly
      */
@@ -14,9 +14,13 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jface.action.Action;
 import org.eclipse.jface.action.IAction;
 import org.eclipse.jface.action.MenuManager;
@@ -29,16 +33,12 @@ import org.eclipse.jface.viewers.ColumnViewerToolTipSupport;
 import org.eclipse.jface.viewers.DoubleClickEvent;
 import org.eclipse.jface.viewers.IDoubleClickListener;
 import org.eclipse.jface.viewers.ISelectionChangedListener;
-import org.eclipse.jface.viewers.IStructuredContentProvider;
 import org.eclipse.jface.viewers.IStructuredSelection;
 import org.eclipse.jface.viewers.LabelProvider;
 import org.eclipse.jface.viewers.SelectionChangedEvent;
-import org.eclipse.jface.viewers.StructuredSelection;
 import org.eclipse.jface.viewers.TableViewer;
 import org.eclipse.jface.viewers.TableViewerColumn;
 import org.eclipse.jface.viewers.Viewer;
-import org.eclipse.jface.viewers.ViewerFilter;
-import org.eclipse.jface.viewers.ViewerSorter;
 import org.eclipse.jface.window.Window;
 import org.eclipse.osgi.util.NLS;
 import org.eclipse.swt.SWT;
@@ -77,6 +77,7 @@ import org.eclipse.ui.forms.widgets.Section;
 import org.eclipse.ui.help.IWorkbenchHelpSystem;
 import org.jboss.tools.modeshape.jcr.ChildNodeDefinition;
 import org.jboss.tools.modeshape.jcr.ItemDefinition;
+import org.jboss.tools.modeshape.jcr.JcrModelObject;
 import org.jboss.tools.modeshape.jcr.Messages;
 import org.jboss.tools.modeshape.jcr.MultiValidationStatus;
 import org.jboss.tools.modeshape.jcr.NamespaceMapping;
@@ -85,7 +86,9 @@ import org.jboss.tools.modeshape.jcr.PropertyDefinition;
 import org.jboss.tools.modeshape.jcr.QualifiedName;
 import org.jboss.tools.modeshape.jcr.Utils;
 import org.jboss.tools.modeshape.jcr.ValidationStatus;
+import org.jboss.tools.modeshape.jcr.attributes.AttributeState.Value;
 import org.jboss.tools.modeshape.jcr.cnd.CndElement.NotationType;
+import org.jboss.tools.modeshape.jcr.cnd.CndSnapshots;
 import org.jboss.tools.modeshape.jcr.cnd.CndValidator;
 import org.jboss.tools.modeshape.jcr.cnd.CommentedCndElement;
 import org.jboss.tools.modeshape.jcr.cnd.CompactNodeTypeDefinition;
@@ -106,12 +109,23 @@ import org.jboss.tools.modeshape.ui.forms.FormUtils.Styles;
 import org.jboss.tools.modeshape.ui.forms.MessageFormDialog;
 import org.jboss.tools.modeshape.ui.graphics.GraphicsUtils;
 import org.jboss.tools.modeshape.ui.viewers.CheckBoxLabelProvider;
+import org.jboss.tools.modeshape.ui.viewers.LazyTableContentProvider;
 
 /**
  * The GUI part of the CND editor.
  */
 public class CndFormsEditorPage extends CndEditorPage implements PropertyChangeListener {
 
+    /**
+     * The number of milliseconds the node type name filter waits for typing to pause before filtering.
+     */
+    private static final long FILTER_DELAY = 200;
+
+    /**
+     * The number of milliseconds validation waits for edits to pause before validating.
+     */
+    private static final int VALIDATION_DELAY = 300;
+
     private IAction addChildNode;
     private IAction addNamespace;
     private IAction addNodeType;
@@ -128,6 +142,8 @@ public class CndFormsEditorPage extends CndEditorPage implements PropertyChangeL
     private CCombo cbxPrimaryItem;
     private Section childNodeSection;
     private MenuManager childNodeStatusBarMenuManager;
+    private LazyTableContentProvider childNodeContentProvider;
+
     private TableViewer childNodeViewer;
     private IAction deleteChildNode;
     private IAction deleteNamespace;
@@ -141,10 +157,14 @@ public class CndFormsEditorPage extends CndEditorPage implements PropertyChangeL
     private IAction editSuperType;
     private QualifiedNameEditor nameEditor;
     private Section namespaceSection;
+    private LazyTableContentProvider namespaceContentProvider;
+
     private TableViewer namespaceViewer;
     private String nodeTypeNameFilterPattern;
     private Section nodeTypeSection;
     private MenuManager nodeTypeStatusBarMenuManager;
+    private LazyTableContentProvider nodeTypeContentProvider;
+
     private TableViewer nodeTypeViewer;
     private IAction openChildNodeDeclaringNodeType;
     private IAction openPropertyDeclaringNodeType;
@@ -154,16 +174,47 @@ public class CndFormsEditorPage extends CndEditorPage implements PropertyChangeL
     private IAction pasteProperty;
     private Section propertiesSection;
     private MenuManager propertyStatusBarMenuManager;
+    private LazyTableContentProvider propertyContentProvider;
+
     private TableViewer propertyViewer;
     private NodeTypeDefinition selectedNodeType; // needed for property changes (can be null)
     private IAction showInheritedChildNodes;
     private IAction showInheritedProperties;
+    private LazyTableContentProvider superTypesContentProvider;
+
     private TableViewer superTypesViewer;
     private Text txtComment;
     private Text txtFilter;
 
     private JcrClipboard clipboard;
 
+    /**
+     * The job validating a snapshot of the CND (<code>null</code> if not validating). Only accessed in the UI thread.
+     */
+    private Job validationJob;
+
+    /**
+     * Takes the snapshots of the CND that are validated (<code>null</code> if no validation has started). Only accessed in the UI
+     * thread.
+     */
+    private CndSnapshots snapshots;
+
+    /**
+     * Starts the validation job once edits pause.
+     */
+    private final Runnable validationStarter = new Runnable() {
+
+        /**
+         * {@inheritDoc}
+         *
+         * @see java.lang.Runnable#run()
+         */
+        @Override
+        public void run() {
+            startValidation();
+        }
+    };
+
     /**
      * @param cndEditor the CND editor this page belongs to (cannot be <code>null</code>)
      */
@@ -175,7 +226,7 @@ public class CndFormsEditorPage extends CndEditorPage implements PropertyChangeL
                        final ChildNodeDefinition newChildNodeDefinition ) {
         // add and select new child node definition
         if (nodeTypeDefinition.addChildNodeDefinition(newChildNodeDefinition)) {
-            this.childNodeViewer.setSelection(new StructuredSelection(newChildNodeDefinition), true);
+            this.childNodeContentProvider.select(newChildNodeDefinition, true);
             UiUtils.pack(this.childNodeViewer);
 
             // make sure section is expanded
@@ -196,7 +247,7 @@ public class CndFormsEditorPage extends CndEditorPage implements PropertyChangeL
     void addNamespace( final NamespaceMapping newNamespaceMapping ) {
         // add and select new namespace mapping
         if (getCnd().addNamespaceMapping(newNamespaceMapping)) {
-            this.namespaceViewer.setSelection(new StructuredSelection(newNamespaceMapping), true);
+            this.namespaceContentProvider.select(newNamespaceMapping, true);
             UiUtils.pack(this.namespaceViewer);
 
             // make sure section is expanded
@@ -217,7 +268,7 @@ public class CndFormsEditorPage extends CndEditorPage implements PropertyChangeL
     void addNodeType( final NodeTypeDefinition newNodeTypeDefinition ) {
         // add and select new node type definition
         if (getCnd().addNodeTypeDefinition(newNodeTypeDefinition)) {
-            this.nodeTypeViewer.setSelection(new StructuredSelection(newNodeTypeDefinition), true);
+            this.nodeTypeContentProvider.select(newNodeTypeDefinition, true);
             UiUtils.pack(this.nodeTypeViewer);
 
             // make sure table is visible
@@ -233,7 +284,7 @@ public class CndFormsEditorPage extends CndEditorPage implements PropertyChangeL
     void addProperty( final NodeTypeDefinition nodeTypeDefinition,
                       final PropertyDefinition newPropertyDefinition ) {
         if (nodeTypeDefinition.addPropertyDefinition(newPropertyDefinition)) {
-            this.propertyViewer.setSelection(new StructuredSelection(newPropertyDefinition), true);
+            this.propertyContentProvider.select(newPropertyDefinition, true);
             UiUtils.pack(this.propertyViewer);
 
             // make sure section is expanded
@@ -251,6 +302,30 @@ public class CndFormsEditorPage extends CndEditorPage implements PropertyChangeL
         }
     }
 
+    /**
+     * Adds or removes only the row of an element when a model change adds or removes a single element.
+     *
+     * @param provider the content provider of the table showing the changed elements (cannot be <code>null</code>)
+     * @param e the model change event (cannot be <code>null</code>)
+     * @param elementType the type of the elements shown in the table (cannot be <code>null</code>)
+     * @return <code>false</code> if the change did not add or remove a single element and the table needs to be refreshed
+     */
+    private boolean addOrRemove( final LazyTableContentProvider provider,
+                                 final PropertyChangeEvent e,
+                                 final Class<?> elementType ) {
+        if ((e.getOldValue() == null) && elementType.isInstance(e.getNewValue())) {
+            provider.add(e.getNewValue());
+            return true;
+        }
+
+        if ((e.getNewValue() == null) && elementType.isInstance(e.getOldValue())) {
+            provider.remove(e.getOldValue());
+            return true;
+        }
+
+        return false;
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -496,7 +571,7 @@ public class CndFormsEditorPage extends CndEditorPage implements PropertyChangeL
         FormUtils.createToolBar(container, toolkit, new IAction[] {this.addChildNode, this.editChildNode, this.deleteChildNode,
             this.copyChildNode, this.pasteChildNode, this.showInheritedChildNodes, this.openChildNodeDeclaringNodeType}, 3, 6);
 
-        final Table table = FormUtils.createTable(toolkit, container);
+        final Table table = FormUtils.createTable(toolkit, container, SWT.VIRTUAL);
         ((GridData)table.getLayoutData()).heightHint = table.getItemHeight() * 5;
 
         // table and status bar context menus
@@ -665,25 +740,15 @@ public class CndFormsEditorPage extends CndEditorPage implements PropertyChangeL
 
         this.childNodeViewer = new TableViewer(childNodeTable);
         ColumnViewerToolTipSupport.enableFor(this.childNodeViewer);
-        this.childNodeViewer.setContentProvider(new IStructuredContentProvider() {
-
-            /**
-             * {@inheritDoc}
-             *
-             * @see org.eclipse.jface.viewers.IContentProvider#dispose()
-             */
-            @Override
-            public void dispose() {
-                // nothing to do
-            }
+        this.childNodeContentProvider = new LazyTableContentProvider(true) {
 
             /**
              * {@inheritDoc}
              *
-             * @see org.eclipse.jface.viewers.IStructuredContentProvider#getElements(java.lang.Object)
+             * @see org.jboss.tools.modeshape.ui.viewers.LazyTableContentProvider#getElements()
              */
             @Override
-            public Object[] getElements( final Object inputElement ) {
+            protected Object[] getElements() {
                 final NodeTypeDefinition nodeTypeDefinition = getSelectedNodeType();
 
                 if (nodeTypeDefinition != null) {
@@ -700,20 +765,8 @@ public class CndFormsEditorPage extends CndEditorPage implements PropertyChangeL
 
                 return Utils.EMPTY_OBJECT_ARRAY;
             }
-
-            /**
-             * {@inheritDoc}
-             *
-             * @see org.eclipse.jface.viewers.IContentProvider#inputChanged(org.eclipse.jface.viewers.Viewer, java.lang.Object,
-             *      java.lang.Object)
-             */
-            @Override
-            public void inputChanged( final Viewer viewer,
-                                      final Object oldInput,
-                                      final Object newInput ) {
-                // nothing to do
-            }
-        });
+        };
+        this.childNodeViewer.setContentProvider(this.childNodeContentProvider);
 
         // open edit child node on double click
         final IAction editAction = this.editChildNode;
@@ -806,21 +859,6 @@ public class CndFormsEditorPage extends CndEditorPage implements PropertyChangeL
                                     false,
                                     false);
         }
-
-        // this will sort by child node name
-        this.childNodeViewer.setSorter(new ViewerSorter() {
-
-            /**
-             * {@inheritDoc}
-             *
-             * @see org.eclipse.jface.viewers.ViewerComparator#sort(org.eclipse.jface.viewers.Viewer, java.lang.Object[])
-             */
-            @Override
-            public void sort( final Viewer viewer,
-                              final Object[] elements ) {
-                Arrays.sort(elements);
-            }
-        });
     }
 
     private void createDetailsSection( final IManagedForm managedForm,
@@ -866,6 +904,18 @@ public class CndFormsEditorPage extends CndEditorPage implements PropertyChangeL
                         handleNodeTypeNameChanged(e.text);
                     }
                 });
+                this.nameEditor.addListener(SWT.FocusOut, new Listener() {
+
+                    /**
+                     * {@inheritDoc}
+                     *
+                     * @see org.eclipse.swt.widgets.Listener#handleEvent(org.eclipse.swt.widgets.Event)
+                     */
+                    @Override
+                    public void handleEvent( final Event e ) {
+                        getCndEditor().stopMergingChanges();
+                    }
+                });
 
                 refreshNameControls(); // populate name editor controls
             }
@@ -1005,7 +1055,7 @@ public class CndFormsEditorPage extends CndEditorPage implements PropertyChangeL
                 toolBarManager.add(this.deleteSuperType);
                 toolBarManager.update(true);
 
-                final Table table = FormUtils.createTable(toolkit, rightContainer);
+                final Table table = FormUtils.createTable(toolkit, rightContainer, SWT.VIRTUAL);
                 table.setHeaderVisible(false);
                 table.setLinesVisible(false);
                 final GridData gd = (GridData)table.getLayoutData();
@@ -1060,6 +1110,18 @@ public class CndFormsEditorPage extends CndEditorPage implements PropertyChangeL
                     handleCommentChanged(((Text)e.widget).getText());
                 }
             });
+            this.txtComment.addListener(SWT.FocusOut, new Listener() {
+
+                /**
+                 * {@inheritDoc}
+                 *
+                 * @see org.eclipse.swt.widgets.Listener#handleEvent(org.eclipse.swt.widgets.Event)
+                 */
+                @Override
+                public void handleEvent( final Event e ) {
+                    getCndEditor().stopMergingChanges();
+                }
+            });
 
             // fill with data from CND
             refreshComments();
@@ -1188,7 +1250,7 @@ public class CndFormsEditorPage extends CndEditorPage implements PropertyChangeL
         FormUtils.createToolBar(container, toolkit, new IAction[] {this.addNamespace, this.editNamespace, this.deleteNamespace,
             this.copyNamespace, this.pasteNamespace}, 3);
 
-        final Table table = FormUtils.createTable(toolkit, container);
+        final Table table = FormUtils.createTable(toolkit, container, SWT.VIRTUAL);
         table.setLayoutData(new GridData(SWT.FILL, SWT.TOP, true, false));
         ((GridData)table.getLayoutData()).heightHint = table.getItemHeight() * 5;
         ((GridData)table.getLayoutData()).minimumHeight = table.getItemHeight() * 5;
@@ -1254,41 +1316,19 @@ public class CndFormsEditorPage extends CndEditorPage implements PropertyChangeL
 
         this.namespaceViewer = new TableViewer(namespaceTable);
         ColumnViewerToolTipSupport.enableFor(this.namespaceViewer);
-        this.namespaceViewer.setContentProvider(new IStructuredContentProvider() {
-
-            /**
-             * {@inheritDoc}
-             *
-             * @see org.eclipse.jface.viewers.IContentProvider#dispose()
-             */
-            @Override
-            public void dispose() {
-                // nothing to do
-            }
+        this.namespaceContentProvider = new LazyTableContentProvider(true) {
 
             /**
              * {@inheritDoc}
              *
-             * @see org.eclipse.jface.viewers.IStructuredContentProvider#getElements(java.lang.Object)
+             * @see org.jboss.tools.modeshape.ui.viewers.LazyTableContentProvider#getElements()
              */
             @Override
-            public Object[] getElements( final Object inputElement ) {
+            protected Object[] getElements() {
                 return getCnd().getNamespaceMappings().toArray();
             }
-
-            /**
-             * {@inheritDoc}
-             *
-             * @see org.eclipse.jface.viewers.IContentProvider#inputChanged(org.eclipse.jface.viewers.Viewer, java.lang.Object,
-             *      java.lang.Object)
-             */
-            @Override
-            public void inputChanged( final Viewer viewer,
-                                      final Object oldInput,
-                                      final Object newInput ) {
-                // nothing to do
-            }
-        });
+        };
+        this.namespaceViewer.setContentProvider(this.namespaceContentProvider);
 
         // open edit namespace on double click
         final IAction editAction = this.editNamespace;
@@ -1351,21 +1391,6 @@ public class CndFormsEditorPage extends CndEditorPage implements PropertyChangeL
                                     false,
                                     false);
         }
-
-        // this will sort by prefix
-        this.namespaceViewer.setSorter(new ViewerSorter() {
-
-            /**
-             * {@inheritDoc}
-             *
-             * @see org.eclipse.jface.viewers.ViewerComparator#sort(org.eclipse.jface.viewers.Viewer, java.lang.Object[])
-             */
-            @Override
-            public void sort( final Viewer viewer,
-                              final Object[] elements ) {
-                Arrays.sort(elements);
-            }
-        });
     }
 
     private void createNodeTypeActions() {
@@ -1493,7 +1518,7 @@ public class CndFormsEditorPage extends CndEditorPage implements PropertyChangeL
             viewerContainer.setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, true));
             toolkit.paintBordersFor(viewerContainer);
 
-            final Table table = FormUtils.createTable(toolkit, viewerContainer);
+            final Table table = FormUtils.createTable(toolkit, viewerContainer, SWT.VIRTUAL);
             table.setLinesVisible(false);
             ((GridData)table.getLayoutData()).widthHint = UiUtils.convertWidthInCharsToPixels(table, 30);
 
@@ -1601,41 +1626,62 @@ public class CndFormsEditorPage extends CndEditorPage implements PropertyChangeL
 
         this.nodeTypeViewer = new TableViewer(nodeTypeTable);
         ColumnViewerToolTipSupport.enableFor(this.nodeTypeViewer);
-        this.nodeTypeViewer.setContentProvider(new IStructuredContentProvider() {
+        this.nodeTypeContentProvider = new LazyTableContentProvider(true) {
 
             /**
              * {@inheritDoc}
              *
-             * @see org.eclipse.jface.viewers.IContentProvider#dispose()
+             * @see org.jboss.tools.modeshape.ui.viewers.LazyTableContentProvider#getElements()
              */
             @Override
-            public void dispose() {
-                // nothing to do
+            protected Object[] getElements() {
+                return getCnd().getNodeTypeDefinitions().toArray();
             }
 
             /**
              * {@inheritDoc}
              *
-             * @see org.eclipse.jface.viewers.IStructuredContentProvider#getElements(java.lang.Object)
+             * @see org.jboss.tools.modeshape.ui.viewers.LazyTableContentProvider#getFilter()
              */
             @Override
-            public Object[] getElements( final Object inputElement ) {
-                return getCnd().getNodeTypeDefinitions().toArray();
+            protected Object getFilter() {
+                final String pattern = getNodeTypeNameFilterPattern();
+                return (Utils.isEmpty(pattern) ? null : pattern);
             }
 
             /**
              * {@inheritDoc}
+             * <p>
+             * A pattern narrows all the patterns it contains, so typing more of a pattern only checks the node types already shown.
              *
-             * @see org.eclipse.jface.viewers.IContentProvider#inputChanged(org.eclipse.jface.viewers.Viewer, java.lang.Object,
-             *      java.lang.Object)
+             * @see org.jboss.tools.modeshape.ui.viewers.LazyTableContentProvider#narrows(java.lang.Object, java.lang.Object)
              */
             @Override
-            public void inputChanged( final Viewer viewer,
-                                      final Object oldInput,
-                                      final Object newInput ) {
-                // nothing to do
+            protected boolean narrows( final Object oldFilter,
+                                       final Object newFilter ) {
+                return ((String)newFilter).contains((String)oldFilter);
             }
-        });
+
+            /**
+             * {@inheritDoc}
+             *
+             * @see org.jboss.tools.modeshape.ui.viewers.LazyTableContentProvider#select(java.lang.Object, java.lang.Object)
+             */
+            @Override
+            protected boolean select( final Object element,
+                                      final Object filter ) {
+                final NodeTypeDefinition nodeTypeDefinition = (NodeTypeDefinition)element;
+                final String name = nodeTypeDefinition.getName();
+
+                // filter out node type without names if there is a pattern
+                if (Utils.isEmpty(name)) {
+                    return false;
+                }
+
+                return name.contains((String)filter);
+            }
+        };
+        this.nodeTypeViewer.setContentProvider(this.nodeTypeContentProvider);
 
         // add selection listener
         this.nodeTypeViewer.addSelectionChangedListener(new ISelectionChangedListener() {
@@ -1660,53 +1706,6 @@ public class CndFormsEditorPage extends CndEditorPage implements PropertyChangeL
                                     false,
                                     true);
         }
-
-        // sort by name
-        this.nodeTypeViewer.setSorter(new ViewerSorter() {
-
-            /**
-             * {@inheritDoc}
-             *
-             * @see org.eclipse.jface.viewers.ViewerComparator#sort(org.eclipse.jface.viewers.Viewer, java.lang.Object[])
-             */
-            @Override
-            public void sort( final Viewer viewer,
-                              final Object[] elements ) {
-                Arrays.sort(elements);
-            }
-        });
-
-        // add name filter
-        this.nodeTypeViewer.addFilter(new ViewerFilter() {
-
-            /**
-             * {@inheritDoc}
-             *
-             * @see org.eclipse.jface.viewers.ViewerFilter#select(org.eclipse.jface.viewers.Viewer, java.lang.Object,
-             *      java.lang.Object)
-             */
-            @Override
-            public boolean select( final Viewer viewer,
-                                   final Object parentElement,
-                                   final Object element ) {
-                final String pattern = getNodeTypeNameFilterPattern();
-
-                // no pattern don't filter any out
-                if (Utils.isEmpty(pattern)) {
-                    return true;
-                }
-
-                final NodeTypeDefinition nodeTypeDefinition = (NodeTypeDefinition)element;
-                final String name = nodeTypeDefinition.getName();
-
-                // filter out node type without names if there is a pattern
-                if (Utils.isEmpty(name)) {
-                    return false;
-                }
-
-                return name.contains(pattern);
-            }
-        });
     }
 
     private void createPropertyActions() {
@@ -1862,7 +1861,7 @@ public class CndFormsEditorPage extends CndEditorPage implements PropertyChangeL
         FormUtils.createToolBar(container, toolkit, new IAction[] {this.addProperty, this.editProperty, this.deleteProperty,
             this.copyProperty, this.pasteProperty, this.showInheritedProperties, this.openPropertyDeclaringNodeType}, 3, 6);
 
-        final Table table = FormUtils.createTable(toolkit, container);
+        final Table table = FormUtils.createTable(toolkit, container, SWT.VIRTUAL);
         ((GridData)table.getLayoutData()).heightHint = table.getItemHeight() * 5;
 
         // table and status bar context menus
@@ -2041,25 +2040,15 @@ public class CndFormsEditorPage extends CndEditorPage implements PropertyChangeL
 
         this.propertyViewer = new TableViewer(propertyTable);
         ColumnViewerToolTipSupport.enableFor(this.propertyViewer);
-        this.propertyViewer.setContentProvider(new IStructuredContentProvider() {
-
-            /**
-             * {@inheritDoc}
-             *
-             * @see org.eclipse.jface.viewers.IContentProvider#dispose()
-             */
-            @Override
-            public void dispose() {
-                // nothing to do
-            }
+        this.propertyContentProvider = new LazyTableContentProvider(true) {
 
             /**
              * {@inheritDoc}
              *
-             * @see org.eclipse.jface.viewers.IStructuredContentProvider#getElements(java.lang.Object)
+             * @see org.jboss.tools.modeshape.ui.viewers.LazyTableContentProvider#getElements()
              */
             @Override
-            public Object[] getElements( final Object inputElement ) {
+            protected Object[] getElements() {
                 final NodeTypeDefinition nodeTypeDefinition = getSelectedNodeType();
 
                 if (nodeTypeDefinition != null) {
@@ -2076,20 +2065,8 @@ public class CndFormsEditorPage extends CndEditorPage implements PropertyChangeL
 
                 return Utils.EMPTY_OBJECT_ARRAY;
             }
-
-            /**
-             * {@inheritDoc}
-             *
-             * @see org.eclipse.jface.viewers.IContentProvider#inputChanged(org.eclipse.jface.viewers.Viewer, java.lang.Object,
-             *      java.lang.Object)
-             */
-            @Override
-            public void inputChanged( final Viewer viewer,
-                                      final Object oldInput,
-                                      final Object newInput ) {
-                // nothing to do
-            }
-        });
+        };
+        this.propertyViewer.setContentProvider(this.propertyContentProvider);
 
         // open edit property on double click
         final IAction editAction = this.editProperty;
@@ -2192,21 +2169,6 @@ public class CndFormsEditorPage extends CndEditorPage implements PropertyChangeL
                                     false,
                                     false);
         }
-
-        // this will sort by property name
-        this.propertyViewer.setSorter(new ViewerSorter() {
-
-            /**
-             * {@inheritDoc}
-             *
-             * @see org.eclipse.jface.viewers.ViewerComparator#sort(org.eclipse.jface.viewers.Viewer, java.lang.Object[])
-             */
-            @Override
-            public void sort( final Viewer viewer,
-                              final Object[] elements ) {
-                Arrays.sort(elements);
-            }
-        });
     }
 
     private void createSuperTypesActions() {
@@ -2262,25 +2224,15 @@ public class CndFormsEditorPage extends CndEditorPage implements PropertyChangeL
     private void createSuperTypesViewer( final Table superTypesTable ) {
         this.superTypesViewer = new TableViewer(superTypesTable);
         this.superTypesViewer.setLabelProvider(new LabelProvider());
-        this.superTypesViewer.setContentProvider(new IStructuredContentProvider() {
-
-            /**
-             * {@inheritDoc}
-             *
-             * @see org.eclipse.jface.viewers.IContentProvider#dispose()
-             */
-            @Override
-            public void dispose() {
-                // nothing to do
-            }
+        this.superTypesContentProvider = new LazyTableContentProvider(false) {
 
             /**
              * {@inheritDoc}
              *
-             * @see org.eclipse.jface.viewers.IStructuredContentProvider#getElements(java.lang.Object)
+             * @see org.jboss.tools.modeshape.ui.viewers.LazyTableContentProvider#getElements()
              */
             @Override
-            public Object[] getElements( final Object inputElement ) {
+            protected Object[] getElements() {
                 final NodeTypeDefinition nodeTypeDefinition = getSelectedNodeType();
 
                 if (nodeTypeDefinition == null) {
@@ -2289,20 +2241,8 @@ public class CndFormsEditorPage extends CndEditorPage implements PropertyChangeL
 
                 return nodeTypeDefinition.getDeclaredSupertypeNames();
             }
-
-            /**
-             * {@inheritDoc}
-             *
-             * @see org.eclipse.jface.viewers.IContentProvider#inputChanged(org.eclipse.jface.viewers.Viewer, java.lang.Object,
-             *      java.lang.Object)
-             */
-            @Override
-            public void inputChanged( final Viewer viewer,
-                                      final Object oldInput,
-                                      final Object newInput ) {
-                // nothing to do
-            }
-        });
+        };
+        this.superTypesViewer.setContentProvider(this.superTypesContentProvider);
 
         final IAction editAction = this.editSuperType;
 
@@ -2414,25 +2354,7 @@ public class CndFormsEditorPage extends CndEditorPage implements PropertyChangeL
             @Override
             protected List<QualifiedName> qnameStartsWith( final String qualifier,
                                                            final String namePattern ) {
-                final List<NodeTypeDefinition> nodeTypes = getCnd().getMatchingNodeTypeDefinitions(qualifier, true);
-
-                if (nodeTypes.isEmpty()) {
-                    return Collections.emptyList();
-                }
-
-                final List<QualifiedName> matches = new ArrayList<QualifiedName>();
-                final boolean acceptAll = Utils.isEmpty(namePattern);
-
-                for (final NodeTypeDefinition nodeType : nodeTypes) {
-                    final QualifiedName qname = nodeType.getQualifiedName();
-
-                    if (acceptAll
-                        || (!Utils.isEmpty(qname.getUnqualifiedName()) && qname.getUnqualifiedName().startsWith(namePattern))) {
-                        matches.add(qname);
-                    }
-                }
-
-                return matches;
+                return getCnd().getNameIndex().findNodeTypeNames(qualifier, namePattern);
             }
         };
     }
@@ -2467,6 +2389,15 @@ public class CndFormsEditorPage extends CndEditorPage implements PropertyChangeL
         return (NamespaceMapping)selection.getFirstElement();
     }
 
+    /**
+     * @param viewer the viewer whose selected model objects are being requested (cannot be <code>null</code>)
+     * @return all the selected model objects of the viewer (never <code>null</code>)
+     */
+    private JcrModelObject[] getSelectedObjects( final TableViewer viewer ) {
+        final List<?> selection = ((IStructuredSelection)viewer.getSelection()).toList();
+        return selection.toArray(new JcrModelObject[selection.size()]);
+    }
+
     /**
      * @return the selected node type definition or <code>null</code> if the viewer has an empty selection
      */
@@ -2590,7 +2521,7 @@ public class CndFormsEditorPage extends CndEditorPage implements PropertyChangeL
 
             // add, validate, and select new supertype
             if (nodeTypeDefinition.addSuperType(newSupertype.get())) {
-                this.superTypesViewer.setSelection(new StructuredSelection(newSupertype.get()), true);
+                this.superTypesContentProvider.select(newSupertype.get(), true);
 
                 // make sure table is visible
                 FormToolkit.ensureVisible(this.superTypesViewer.getTable());
@@ -2641,6 +2572,27 @@ public class CndFormsEditorPage extends CndEditorPage implements PropertyChangeL
         }
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @see org.eclipse.ui.forms.editor.FormPage#dispose()
+     */
+    @Override
+    public void dispose() {
+        // results of a validation finishing after the editor is closed are ignored
+        if (this.validationJob != null) {
+            this.validationJob.cancel();
+            this.validationJob = null;
+        }
+
+        if (this.snapshots != null) {
+            this.snapshots.dispose();
+            this.snapshots = null;
+        }
+
+        super.dispose();
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -2655,6 +2607,21 @@ public class CndFormsEditorPage extends CndEditorPage implements PropertyChangeL
         }
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @see org.jboss.tools.modeshape.jcr.ui.cnd.CndEditorPage#handleChangeApplied(java.lang.Object)
+     */
+    @Override
+    protected void handleChangeApplied( final Object source ) {
+        // the name, attribute, and comment controls are the source of the changes they show so they do not listen to them
+        if ((this.propertyViewer != null) && (source == getSelectedNodeType())) {
+            refreshNameControls();
+            refreshAttributeControls();
+            refreshComments();
+        }
+    }
+
     void handleCommentChanged( final String newComment ) {
         final NodeTypeDefinition nodeType = getSelectedNodeType();
 
@@ -2665,8 +2632,7 @@ public class CndFormsEditorPage extends CndEditorPage implements PropertyChangeL
 
     void handleCopyChildNode() {
         assert (getSelectedChildNode() != null) : "copy child node button enabled and there is no child node selected";
-        final ChildNodeDefinition selected = getSelectedChildNode();
-        this.clipboard.setContents(selected, ChildNodeDefinitionTransfer.get());
+        this.clipboard.setContents(getSelectedObjects(this.childNodeViewer), ChildNodeDefinitionTransfer.get());
 
         if (!this.pasteChildNode.isEnabled() && !isReadonly()) {
             this.pasteChildNode.setEnabled(true);
@@ -2675,8 +2641,7 @@ public class CndFormsEditorPage extends CndEditorPage implements PropertyChangeL
 
     void handleCopyNamespace() {
         assert (getSelectedNamespace() != null) : "copy namespace button enabled and there is no namespace selected";
-        final NamespaceMapping selected = getSelectedNamespace();
-        this.clipboard.setContents(selected, NamespaceMappingTransfer.get());
+        this.clipboard.setContents(getSelectedObjects(this.namespaceViewer), NamespaceMappingTransfer.get());
 
         if (!this.pasteNamespace.isEnabled() && !isReadonly()) {
             this.pasteNamespace.setEnabled(true);
@@ -2685,8 +2650,7 @@ public class CndFormsEditorPage extends CndEditorPage implements PropertyChangeL
 
     void handleCopyNodeType() {
         assert (getSelectedNodeType() != null) : "copy node type button enabled and there is no node type selected";
-        final NodeTypeDefinition selected = getSelectedNodeType();
-        this.clipboard.setContents(selected, NodeTypeDefinitionTransfer.get());
+        this.clipboard.setContents(getSelectedObjects(this.nodeTypeViewer), NodeTypeDefinitionTransfer.get());
 
         if (!this.pasteNodeType.isEnabled() && !isReadonly()) {
             this.pasteNodeType.setEnabled(true);
@@ -2695,8 +2659,7 @@ public class CndFormsEditorPage extends CndEditorPage implements PropertyChangeL
 
     void handleCopyProperty() {
         assert (getSelectedProperty() != null) : "copy property button enabled and there is no property selected";
-        final PropertyDefinition selected = getSelectedProperty();
-        this.clipboard.setContents(selected, PropertyDefinitionTransfer.get());
+        this.clipboard.setContents(getSelectedObjects(this.propertyViewer), PropertyDefinitionTransfer.get());
 
         if (!this.pasteProperty.isEnabled() && !isReadonly()) {
             this.pasteProperty.setEnabled(true);
@@ -2848,14 +2811,21 @@ public class CndFormsEditorPage extends CndEditorPage implements PropertyChangeL
             boolean removed = false;
             boolean added = false;
 
-            if (nodeTypeDefinition.removeChildNodeDefinition(childNodeBeingEdited)) {
-                removed = true;
+            // undo and redo the edit as one change
+            getCndEditor().beginCompoundChange();
 
-                if (nodeTypeDefinition.addChildNodeDefinition(newChildNodeDefinition)) {
-                    added = true;
-                }
+            try {
+                if (nodeTypeDefinition.removeChildNodeDefinition(childNodeBeingEdited)) {
+                    removed = true;
 
-                UiUtils.pack(this.childNodeViewer);
+                    if (nodeTypeDefinition.addChildNodeDefinition(newChildNodeDefinition)) {
+                        added = true;
+                    }
+
+                    UiUtils.pack(this.childNodeViewer);
+                }
+            } finally {
+                getCndEditor().endCompoundChange();
             }
 
             if (!removed || !added) {
@@ -2881,15 +2851,21 @@ public class CndFormsEditorPage extends CndEditorPage implements PropertyChangeL
             boolean removed = false;
             boolean added = false;
 
-            // remove existing and add in new
-            if (getCnd().removeNamespaceMapping(selectedNamespace)) {
-                removed = true;
+            // remove existing and add in new, undone and redone as one change
+            getCndEditor().beginCompoundChange();
 
-                if (getCnd().addNamespaceMapping(modifiedNamespaceMapping)) {
-                    added = true;
-                }
+            try {
+                if (getCnd().removeNamespaceMapping(selectedNamespace)) {
+                    removed = true;
+
+                    if (getCnd().addNamespaceMapping(modifiedNamespaceMapping)) {
+                        added = true;
+                    }
 
-                UiUtils.pack(this.namespaceViewer);
+                    UiUtils.pack(this.namespaceViewer);
+                }
+            } finally {
+                getCndEditor().endCompoundChange();
             }
 
             if (!removed || !added) {
@@ -2919,14 +2895,21 @@ public class CndFormsEditorPage extends CndEditorPage implements PropertyChangeL
             boolean removed = false;
             boolean added = false;
 
-            if (nodeTypeDefinition.removePropertyDefinition(propertyBeingEdited)) {
-                removed = true;
+            // undo and redo the edit as one change
+            getCndEditor().beginCompoundChange();
 
-                if (nodeTypeDefinition.addPropertyDefinition(newPropertyDefinition)) {
-                    added = true;
-                }
+            try {
+                if (nodeTypeDefinition.removePropertyDefinition(propertyBeingEdited)) {
+                    removed = true;
+
+                    if (nodeTypeDefinition.addPropertyDefinition(newPropertyDefinition)) {
+                        added = true;
+                    }
 
-                UiUtils.pack(this.propertyViewer);
+                    UiUtils.pack(this.propertyViewer);
+                }
+            } finally {
+                getCndEditor().endCompoundChange();
             }
 
             if (!removed || !added) {
@@ -2957,13 +2940,19 @@ public class CndFormsEditorPage extends CndEditorPage implements PropertyChangeL
             boolean removed = false;
             boolean added = false;
 
-            // remove existing and add in new
-            if (nodeTypeDefinition.removeSuperType(selectedSupertype)) {
-                removed = true;
+            // remove existing and add in new, undone and redone as one change
+            getCndEditor().beginCompoundChange();
+
+            try {
+                if (nodeTypeDefinition.removeSuperType(selectedSupertype)) {
+                    removed = true;
 
-                if (nodeTypeDefinition.addSuperType(modifiedSuperType.get())) {
-                    added = true;
+                    if (nodeTypeDefinition.addSuperType(modifiedSuperType.get())) {
+                        added = true;
+                    }
                 }
+            } finally {
+                getCndEditor().endCompoundChange();
             }
 
             if (!removed || !added) {
@@ -3005,10 +2994,15 @@ public class CndFormsEditorPage extends CndEditorPage implements PropertyChangeL
 
     void handleNodeTypeNameFilterModified( final String namePattern ) {
         this.nodeTypeNameFilterPattern = namePattern;
-        refreshNodeTypeControls();
+
+        // node types have not changed so filter the sorted node types in the background once typing pauses
+        this.nodeTypeContentProvider.refilter(FILTER_DELAY);
     }
 
     void handleNodeTypeSelected() {
+        // typing after selecting another node type starts a new change
+        getCndEditor().stopMergingChanges();
+
         final NodeTypeDefinition prevNodeType = this.selectedNodeType;
         this.selectedNodeType = getSelectedNodeType();
         getActionContributor().setNodeType(this.selectedNodeType);
@@ -3060,35 +3054,62 @@ public class CndFormsEditorPage extends CndEditorPage implements PropertyChangeL
         assert (getSelectedNodeType() != null) : "paste child node is enabled when there is no node type selected";
 
         final NodeTypeDefinition nodeTypeDefinition = getSelectedNodeType();
-        final ChildNodeDefinition childNodeDefn = (ChildNodeDefinition)this.clipboard.getContents(ChildNodeDefinitionTransfer.get());
+        final JcrModelObject[] childNodeDefns = this.clipboard.getAllContents(ChildNodeDefinitionTransfer.get());
 
-        if (childNodeDefn == null) {
+        if (childNodeDefns.length == 0) {
             // shouldn't happen but just in case
             this.pasteChildNode.setEnabled(false);
         } else {
-            addChildNode(nodeTypeDefinition, childNodeDefn);
+            // undo and redo the paste as one change
+            getCndEditor().beginCompoundChange();
+
+            try {
+                for (final JcrModelObject childNodeDefn : childNodeDefns) {
+                    addChildNode(nodeTypeDefinition, (ChildNodeDefinition)childNodeDefn);
+                }
+            } finally {
+                getCndEditor().endCompoundChange();
+            }
         }
     }
 
     void handlePasteNamespace() {
-        final NamespaceMapping namespace = (NamespaceMapping)this.clipboard.getContents(NamespaceMappingTransfer.get());
+        final JcrModelObject[] namespaces = this.clipboard.getAllContents(NamespaceMappingTransfer.get());
 
-        if (namespace == null) {
+        if (namespaces.length == 0) {
             // shouldn't happen but just in case
             this.pasteNamespace.setEnabled(false);
         } else {
-            addNamespace(namespace);
+            // undo and redo the paste as one change
+            getCndEditor().beginCompoundChange();
+
+            try {
+                for (final JcrModelObject namespace : namespaces) {
+                    addNamespace((NamespaceMapping)namespace);
+                }
+            } finally {
+                getCndEditor().endCompoundChange();
+            }
         }
     }
 
     void handlePasteNodeType() {
-        final NodeTypeDefinition nodeTypeDefn = (NodeTypeDefinition)this.clipboard.getContents(NodeTypeDefinitionTransfer.get());
+        final JcrModelObject[] nodeTypeDefns = this.clipboard.getAllContents(NodeTypeDefinitionTransfer.get());
 
-        if (nodeTypeDefn == null) {
+        if (nodeTypeDefns.length == 0) {
             // shouldn't happen but just in case
             this.pasteNodeType.setEnabled(false);
         } else {
-            addNodeType(nodeTypeDefn);
+            // undo and redo the paste as one change
+            getCndEditor().beginCompoundChange();
+
+            try {
+                for (final JcrModelObject nodeTypeDefn : nodeTypeDefns) {
+                    addNodeType((NodeTypeDefinition)nodeTypeDefn);
+                }
+            } finally {
+                getCndEditor().endCompoundChange();
+            }
         }
     }
 
@@ -3096,13 +3117,22 @@ public class CndFormsEditorPage extends CndEditorPage implements PropertyChangeL
         assert (getSelectedNodeType() != null) : "paste property is enabled when there is no node type selected";
 
         final NodeTypeDefinition nodeTypeDefinition = getSelectedNodeType();
-        final PropertyDefinition propDefn = (PropertyDefinition)this.clipboard.getContents(PropertyDefinitionTransfer.get());
+        final JcrModelObject[] propDefns = this.clipboard.getAllContents(PropertyDefinitionTransfer.get());
 
-        if (propDefn == null) {
+        if (propDefns.length == 0) {
             // shouldn't happen but just in case
             this.pasteProperty.setEnabled(false);
         } else {
-            addProperty(nodeTypeDefinition, propDefn);
+            // undo and redo the paste as one change
+            getCndEditor().beginCompoundChange();
+
+            try {
+                for (final JcrModelObject propDefn : propDefns) {
+                    addProperty(nodeTypeDefinition, (PropertyDefinition)propDefn);
+                }
+            } finally {
+                getCndEditor().endCompoundChange();
+            }
         }
     }
 
@@ -3136,47 +3166,84 @@ public class CndFormsEditorPage extends CndEditorPage implements PropertyChangeL
                 }
             } else if (NodeTypeDefinition.PropertyName.CHILD_NODES.toString().equals(propName)) {
                 validateChildNodes();
-                this.childNodeViewer.refresh();
+
+                if (!addOrRemove(this.childNodeContentProvider, e, ChildNodeDefinition.class)) {
+                    this.childNodeContentProvider.refresh();
+                }
             } else if (NodeTypeDefinition.PropertyName.NAME.toString().equals(propName)) {
                 validateName();
-                this.nodeTypeViewer.refresh(source);
+                this.nodeTypeContentProvider.update(source);
                 UiUtils.pack(this.nodeTypeViewer);
             } else if (NodeTypeDefinition.PropertyName.PROPERTY_DEFINITIONS.toString().equals(propName)) {
                 validateProperties();
-                this.propertyViewer.refresh();
+
+                if (!addOrRemove(this.propertyContentProvider, e, PropertyDefinition.class)) {
+                    this.propertyContentProvider.refresh();
+                }
             } else if (NodeTypeDefinition.PropertyName.SUPERTYPES.toString().equals(propName)) {
                 validateSuperTypes();
-                this.superTypesViewer.refresh();
 
-                // refresh properties if showing inherited
-                if (shouldShowInheritedProperties()) {
-                    this.propertyViewer.refresh();
-                }
+                // inherited rows only change when the super type names change
+                if (superTypeNamesChanged(e)) {
+                    if (!addOrRemove(this.superTypesContentProvider, e, String.class)) {
+                        this.superTypesContentProvider.refresh();
+                    }
 
-                // refresh child nodes if showing inherited
-                if (shouldShowInheritedChildNodes()) {
-                    this.childNodeViewer.refresh();
+                    // refresh properties if showing inherited
+                    if (shouldShowInheritedProperties()) {
+                        this.propertyContentProvider.refresh();
+                    }
+
+                    // refresh child nodes if showing inherited
+                    if (shouldShowInheritedChildNodes()) {
+                        this.childNodeContentProvider.refresh();
+                    }
                 }
             }
 
             // tell editor about node type definition change
             getCndEditor().refreshDirtyState();
         } else if (source instanceof NamespaceMapping) {
-            validateNamespaces();
-            validateNodeTypes();
-            this.namespaceViewer.refresh(source);
+            scheduleValidation();
+            this.namespaceContentProvider.update(source);
             UiUtils.pack(this.namespaceViewer);
         } else if (source instanceof CompactNodeTypeDefinition) {
             if (CompactNodeTypeDefinition.PropertyName.NAMESPACE_MAPPINGS.toString().equals(propName)) {
-                validateNamespaces();
-                refreshNamespaceControls();
+                scheduleValidation();
+
+                if (!addOrRemove(this.namespaceContentProvider, e, NamespaceMapping.class)) {
+                    refreshNamespaceControls();
+                }
+
                 refreshNameControls(); // need to repopulate the node type name qualifier combo
             } else if (CompactNodeTypeDefinition.PropertyName.NODE_TYPE_DEFINITIONS.toString().equals(propName)) {
-                refreshNodeTypeControls();
+                if (!addOrRemove(this.nodeTypeContentProvider, e, NodeTypeDefinition.class)) {
+                    refreshNodeTypeControls();
+                }
             }
         }
     }
 
+    /**
+     * Called in the UI thread when a validation job finishes.
+     *
+     * @param job the validation job (cannot be <code>null</code>)
+     * @param namespaceStatus the status of the namespace mappings (cannot be <code>null</code>)
+     * @param nodeTypeStatus the status of the node type definitions (cannot be <code>null</code>)
+     */
+    void handleValidated( final Job job,
+                          final ValidationStatus namespaceStatus,
+                          final ValidationStatus nodeTypeStatus ) {
+        // ignore if a newer edit started another validation or the editor has been closed
+        if ((this.validationJob != job) || this.namespaceSection.isDisposed()) {
+            return;
+        }
+
+        this.validationJob = null;
+        updateMessage(namespaceStatus, this.namespaceSection.getDescriptionControl());
+        updateMessage(nodeTypeStatus, this.nodeTypeSection.getDescriptionControl());
+    }
+
     void handlePropertySelected() {
         // update button enablements
         final boolean enable = (getSelectedNodeType() != null);
@@ -3227,7 +3294,7 @@ public class CndFormsEditorPage extends CndEditorPage implements PropertyChangeL
         if (nodeType == null) {
 
         } else {
-            this.nodeTypeViewer.setSelection(new StructuredSelection(nodeType));
+            this.nodeTypeContentProvider.select(nodeType, false);
         }
     }
 
@@ -3261,11 +3328,8 @@ public class CndFormsEditorPage extends CndEditorPage implements PropertyChangeL
 
         // restore selected node type and node type name pattern
         if (this.memento == null) {
-            if (this.nodeTypeViewer.getTable().getItemCount() != 0) {
-                this.nodeTypeViewer.getTable().select(0);
-                final Event e = new Event();
-                e.widget = this.nodeTypeViewer.getTable();
-                this.nodeTypeViewer.getTable().notifyListeners(SWT.Selection, e);
+            if (this.nodeTypeContentProvider.getElementCount() != 0) {
+                this.nodeTypeContentProvider.select(this.nodeTypeContentProvider.getElement(0), false);
             }
         } else {
             final String nodeTypeName = this.memento.getString(MementoKeys.SELECTED_NODE_TYPE);
@@ -3273,7 +3337,7 @@ public class CndFormsEditorPage extends CndEditorPage implements PropertyChangeL
             if (!Utils.isEmpty(nodeTypeName)) {
                 for (final NodeTypeDefinition nodeTypeDefinition : getCnd().getNodeTypeDefinitions()) {
                     if (nodeTypeName.equals(nodeTypeDefinition.getName())) {
-                        this.nodeTypeViewer.setSelection(new StructuredSelection(nodeTypeDefinition));
+                        this.nodeTypeContentProvider.select(nodeTypeDefinition, false);
                         break;
                     }
                 }
@@ -3454,12 +3518,12 @@ public class CndFormsEditorPage extends CndEditorPage implements PropertyChangeL
     }
 
     private void refreshNamespaceControls() {
-        this.namespaceViewer.refresh();
+        this.namespaceContentProvider.refresh();
     }
 
     private void refreshNodeTypeControls() {
         final NodeTypeDefinition selectedNodeType = getSelectedNodeType();
-        this.nodeTypeViewer.refresh(); // this will deselect node type
+        this.nodeTypeContentProvider.refresh(); // this will deselect node type
 
         // reselect node type by name
         if (selectedNodeType != null) {
@@ -3469,7 +3533,7 @@ public class CndFormsEditorPage extends CndEditorPage implements PropertyChangeL
             if (!Utils.isEmpty(name)) {
                 for (final NodeTypeDefinition nodeType : getCnd().getNodeTypeDefinitions()) {
                     if (name.equals(nodeType.getName())) {
-                        this.nodeTypeViewer.setSelection(new StructuredSelection(nodeType));
+                        this.nodeTypeContentProvider.select(nodeType, false);
                     }
                 }
             }
@@ -3492,6 +3556,26 @@ public class CndFormsEditorPage extends CndEditorPage implements PropertyChangeL
         }
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @see org.jboss.tools.modeshape.jcr.ui.cnd.CndEditorPage#revealChangeSource(java.lang.Object)
+     */
+    @Override
+    protected void revealChangeSource( final Object source ) {
+        // make sure GUI has been constructed
+        if ((this.propertyViewer == null) || !(source instanceof NodeTypeDefinition) || (source == getSelectedNodeType())) {
+            return;
+        }
+
+        // clear the filter if it hides the node type
+        if (!this.nodeTypeContentProvider.select(source, true)) {
+            this.txtFilter.setText(Utils.EMPTY_STRING);
+            this.nodeTypeContentProvider.refilter();
+            this.nodeTypeContentProvider.select(source, true);
+        }
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -3499,6 +3583,15 @@ public class CndFormsEditorPage extends CndEditorPage implements PropertyChangeL
      */
     @Override
     public void saveState( final IMemento memento ) {
+        // GUI is not constructed if editor is closed while CND is being loaded so keep the restored state
+        if (this.propertyViewer == null) {
+            if (this.memento != null) {
+                memento.putMemento(this.memento);
+            }
+
+            return;
+        }
+
         memento.putBoolean(MementoKeys.CHILD_NODE_SECTION_EXPANDED, this.childNodeSection.isExpanded());
         memento.putBoolean(MementoKeys.NAMESPACE_SECTION_EXPANDED, this.namespaceSection.isExpanded());
         memento.putBoolean(MementoKeys.PROPERTY_SECTION_EXPANDED, this.propertiesSection.isExpanded());
@@ -3529,6 +3622,44 @@ public class CndFormsEditorPage extends CndEditorPage implements PropertyChangeL
         updateEnabledState();
     }
 
+    /**
+     * Validates the CND in a background job once edits pause. An edit made while a validation is running cancels it, so the
+     * messages always reflect the latest edit and validation cost does not slow down editing.
+     */
+    void scheduleValidation() {
+        // return if GUI hasn't been constructed yet
+        if ((this.nodeTypeViewer == null) || this.nodeTypeViewer.getTable().isDisposed()) {
+            return;
+        }
+
+        if (this.validationJob != null) {
+            this.validationJob.cancel();
+            this.validationJob = null;
+        }
+
+        // restarts the delay if already waiting
+        this.nodeTypeViewer.getTable().getDisplay().timerExec(VALIDATION_DELAY, this.validationStarter);
+    }
+
+    /**
+     * @param e the super types change event (cannot be <code>null</code>)
+     * @return <code>true</code> if the super type names changed and not just the super types attribute state
+     */
+    private boolean superTypeNamesChanged( final PropertyChangeEvent e ) {
+        final Object oldValue = e.getOldValue();
+        final Object newValue = e.getNewValue();
+
+        if ((oldValue instanceof Value) || (newValue instanceof Value)) {
+            return false;
+        }
+
+        if ((oldValue instanceof Collection) && (newValue instanceof Collection)) {
+            return !new HashSet<Object>((Collection<?>)oldValue).equals(new HashSet<Object>((Collection<?>)newValue));
+        }
+
+        return true;
+    }
+
     boolean shouldShowInheritedChildNodes() {
         return this.showInheritedChildNodes.isChecked();
     }
@@ -3544,25 +3675,7 @@ public class CndFormsEditorPage extends CndEditorPage implements PropertyChangeL
      */
     @Override
     protected void updateAllMessages() {
-        // return if GUI hasn't been constructed yet
-        if ((this.nodeTypeViewer == null) || (this.nodeTypeViewer.getTable() == null)
-            || this.nodeTypeViewer.getTable().isDisposed()) {
-            return;
-        }
-
-        this.nodeTypeViewer.getTable().getDisplay().asyncExec(new Runnable() {
-
-            /**
-             * {@inheritDoc}
-             *
-             * @see java.lang.Runnable#run()
-             */
-            @Override
-            public void run() {
-                validateNamespaces();
-                validateNodeTypes();
-            }
-        });
+        scheduleValidation();
     }
 
     void updateEnabledState() {
@@ -3787,6 +3900,77 @@ public class CndFormsEditorPage extends CndEditorPage implements PropertyChangeL
         contributor.getActionBars().getStatusLineManager().update(true);
     }
 
+    /**
+     * Validates a snapshot of the CND so that the job never sees edits made while it runs. Only the node type definitions changed
+     * since the last snapshot are copied in the UI thread.
+     */
+    void startValidation() {
+        final CompactNodeTypeDefinition cnd = getCnd();
+
+        if ((this.nodeTypeViewer == null) || this.nodeTypeViewer.getTable().isDisposed() || (cnd == null)) {
+            return;
+        }
+
+        // the editor replaces the CND when it is reloaded
+        if ((this.snapshots == null) || (this.snapshots.getCnd() != cnd)) {
+            if (this.snapshots != null) {
+                this.snapshots.dispose();
+            }
+
+            this.snapshots = new CndSnapshots(cnd);
+        }
+
+        final CompactNodeTypeDefinition snapshot = this.snapshots.take();
+        final Display display = this.nodeTypeViewer.getTable().getDisplay();
+
+        this.validationJob = new Job(NLS.bind(CndMessages.cndEditorValidationJobName, getFile().getName())) {
+
+            /**
+             * {@inheritDoc}
+             *
+             * @see org.eclipse.core.runtime.jobs.Job#run(org.eclipse.core.runtime.IProgressMonitor)
+             */
+            @Override
+            protected IStatus run( final IProgressMonitor monitor ) {
+                final ValidationStatus namespaceStatus = CndValidator.validateNamespaceMappings(snapshot.getNamespaceMappings());
+                final ValidationStatus nodeTypeStatus;
+
+                try {
+                    nodeTypeStatus = CndValidator.validateNodeTypeDefinitions(snapshot, true, monitor);
+                } catch (final OperationCanceledException e) {
+                    return Status.CANCEL_STATUS;
+                } finally {
+                    CndSnapshots.release(snapshot);
+                }
+
+                if (monitor.isCanceled() || display.isDisposed()) {
+                    return Status.CANCEL_STATUS;
+                }
+
+                final Job job = this;
+
+                display.asyncExec(new Runnable() {
+
+                    /**
+                     * {@inheritDoc}
+                     *
+                     * @see java.lang.Runnable#run()
+                     */
+                    @Override
+                    public void run() {
+                        handleValidated(job, namespaceStatus, nodeTypeStatus);
+                    }
+                });
+
+                return Status.OK_STATUS;
+            }
+        };
+
+        this.validationJob.setSystem(true);
+        this.validationJob.setPriority(Job.DECORATE);
+        this.validationJob.schedule();
+    }
+
     private void updateMessage( final ValidationStatus status,
                                 final Control control ) {
         final IMessageManager msgMgr = getCndEditor().getMessageManager();
@@ -3797,34 +3981,23 @@ public class CndFormsEditorPage extends CndEditorPage implements PropertyChangeL
     }
 
     private void validateAttributes() {
-        validateNodeTypes();
+        scheduleValidation();
     }
 
     private void validateChildNodes() {
-        validateNodeTypes();
+        scheduleValidation();
     }
 
     private void validateName() {
-        validateNodeTypes();
-    }
-
-    void validateNamespaces() {
-        final MultiValidationStatus status = CndValidator.validateNamespaceMappings(getCnd().getNamespaceMappings());
-        updateMessage(status, this.namespaceSection.getDescriptionControl());
-    }
-
-    void validateNodeTypes() {
-        final MultiValidationStatus status = new MultiValidationStatus();
-        CndValidator.validateNodeTypeDefinitions(getCnd(), true, status);
-        updateMessage(status, this.nodeTypeSection.getDescriptionControl());
+        scheduleValidation();
     }
 
     private void validateProperties() {
-        validateNodeTypes();
+        scheduleValidation();
     }
 
     private void validateSuperTypes() {
-        validateNodeTypes();
+        scheduleValidation();
     }
 
     interface ChildNodeColumnIndexes {
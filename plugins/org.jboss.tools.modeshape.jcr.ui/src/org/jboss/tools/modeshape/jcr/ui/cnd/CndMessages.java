@@ -268,6 +268,17 @@ public class CndMessages extends NLS {
      */
     public static String cndEditorInputNotAFile;
 
+    /**
+     * The name of the job that loads the CND being edited by the CND editor. One parameter, the CND file name, is required.
+     */
+    public static String cndEditorLoadJobName;
+
+    /**
+     * The message shown in the CND editor's form page while the CND is being loaded. One parameter, the CND file name, is
+     * required.
+     */
+    public static String cndEditorLoadingMessage;
+
     /**
      * The description of the namespace mappings section in the CND editor's form page.
      */
@@ -304,6 +315,11 @@ public class CndMessages extends NLS {
      */
     public static String cndEditorPropertySectionTitle;
 
+    /**
+     * The text of the CND editor action that redoes the last undone change.
+     */
+    public static String cndEditorRedoActionText;
+
     /**
      * The message of the dialog shown when refreshing the CND editor with the CND file from the file system fails.
      */
@@ -329,6 +345,16 @@ public class CndMessages extends NLS {
      */
     public static String cndEditorTitle;
 
+    /**
+     * The text of the CND editor action that undoes the last change.
+     */
+    public static String cndEditorUndoActionText;
+
+    /**
+     * The name of the job that validates the CND being edited by the CND editor. One parameter, the CND file name, is required.
+     */
+    public static String cndEditorValidationJobName;
+
     /**
      * The CND project builder error message for a CND file. One paramater, the CND file name, is required.
      */
@@ -887,6 +913,12 @@ public class CndMessages extends NLS {
      */
     public static String errorOpeningCndEditor;
 
+    /**
+     * The error message shown in the CND editor when the CND could not be parsed. One parameter, the parse error message, is
+     * required.
+     */
+    public static String errorOpeningCndEditorWithReason;
+
     /**
      * A tool tip message for the "greater than or equals to" query operator.
      */
@@ -1150,7 +1150,8 @@ final class PropertyDialog extends FormDialog {
                         MultiValidationStatus validationStatus = CndValidator.validateDefaultValues(propDefn.getName(),
                                                                                                     propDefn.getType(),
                                                                                                     currentDefaultValues,
-                                                                                                    accessExistingNamespacePrefixes());
+                                                                                                    accessExistingNamespacePrefixes(),
+                                                                                                    propDefn.getCompiledValueConstraints());
                         currentDefaultValues.remove(newValue);
                         return validationStatus;
                     }
@@ -1202,7 +1203,7 @@ final class PropertyDialog extends FormDialog {
                      */
                     @Override
                     public ValidationStatus validate( final String newValue ) {
-                        final ValidationStatus status = CndValidator.validateValueConstraint(newValue);
+                        final ValidationStatus status = CndValidator.validateValueConstraint(newValue, propDefn.getType());
 
                         if (status.isError()) {
                             return status;
@@ -1211,6 +1212,7 @@ final class PropertyDialog extends FormDialog {
                         // check for duplicate
                         currentConstraints.add(newValue);
                         MultiValidationStatus validationStatus = CndValidator.validateValueConstraints(propDefn.getName(),
+                                                                                                       propDefn.getType(),
                                                                                                        currentConstraints);
                         currentConstraints.remove(newValue);
                         return validationStatus;
@@ -1338,7 +1340,8 @@ final class PropertyDialog extends FormDialog {
                         MultiValidationStatus validationStatus = CndValidator.validateDefaultValues(propDefn.getName(),
                                                                                                     propDefn.getType(),
                                                                                                     currentDefaultValues,
-                                                                                                    accessExistingNamespacePrefixes());
+                                                                                                    accessExistingNamespacePrefixes(),
+                                                                                                    propDefn.getCompiledValueConstraints());
                         currentDefaultValues.remove(newValue);
                         return validationStatus;
                     }
@@ -1408,7 +1411,7 @@ final class PropertyDialog extends FormDialog {
                      */
                     @Override
                     public ValidationStatus validate( final String newValue ) {
-                        final ValidationStatus status = CndValidator.validateValueConstraint(newValue);
+                        final ValidationStatus status = CndValidator.validateValueConstraint(newValue, propDefn.getType());
 
                         if (status.isError()) {
                             return status;
@@ -1417,6 +1420,7 @@ final class PropertyDialog extends FormDialog {
                         // check for duplicate
                         currentConstraints.add(newValue);
                         MultiValidationStatus validationStatus = CndValidator.validateValueConstraints(propDefn.getName(),
+                                                                                                       propDefn.getType(),
                                                                                                        currentConstraints);
                         currentConstraints.remove(newValue);
                         return validationStatus;
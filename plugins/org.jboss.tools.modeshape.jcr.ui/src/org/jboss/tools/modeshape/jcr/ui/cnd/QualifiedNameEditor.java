@@ -25,6 +25,7 @@ import org.eclipse.swt.layout.GridLayout;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Event;
 import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Listener;
 import org.eclipse.swt.widgets.Text;
 import org.eclipse.ui.forms.widgets.FormToolkit;
 import org.jboss.tools.modeshape.jcr.ItemDefinition;
@@ -37,7 +38,8 @@ import org.jboss.tools.modeshape.ui.forms.FormUtils.Styles;
 /**
  * A UI container that can be used to edit or create a qualified name. To receive notification of when a change was made in the
  * editor, register using {@link #addListener(int, org.eclipse.swt.widgets.Listener)} using {@link SWT#Modify} as the event type.
- * After notification, a call to {@link #getStatus()} will have the latest validation results.
+ * After notification, a call to {@link #getStatus()} will have the latest validation results. Listeners registered for
+ * {@link SWT#FocusOut} are notified when the name field loses focus.
  */
 final class QualifiedNameEditor extends Composite {
 
@@ -161,6 +163,21 @@ final class QualifiedNameEditor extends Composite {
                     handleNameChanged(((Text)e.widget).getText());
                 }
             });
+            this.txtName.addListener(SWT.FocusOut, new Listener() {
+
+                /**
+                 * {@inheritDoc}
+                 * 
+                 * @see org.eclipse.swt.widgets.Listener#handleEvent(org.eclipse.swt.widgets.Event)
+                 */
+                @Override
+                public void handleEvent( final Event e ) {
+                    final Event event = new Event();
+                    event.widget = QualifiedNameEditor.this;
+                    event.type = SWT.FocusOut;
+                    notifyListeners(SWT.FocusOut, event);
+                }
+            });
 
             this.proposalAdapter = new ContentProposalAdapter(this.txtName,
                                                               new TextContentAdapter(),
@@ -64,8 +64,8 @@ abstract class QualifiedNameProposalProvider implements IContentProposalProvider
     /**
      * @param qualifier the qualifier to match (can be <code>null</code> or empty)
      * @param namePattern the text to match (can be <code>null</code> or empty)
-     * @return a collection of <code>QualifiedName</code>s whose qualifier matches and whose unqualified name starts with the
-     *         specified name pattern (never <code>null</code> but can be empty)
+     * @return a collection of <code>QualifiedName</code>s whose qualifier matches and whose unqualified name matches the
+     *         specified name pattern, best matches first (never <code>null</code> but can be empty)
      */
     protected abstract List<QualifiedName> qnameStartsWith( String qualifier,
                                                             String namePattern );
@@ -23,11 +23,9 @@
  */
 package org.jboss.tools.modeshape.jcr.ui.dnd;
 
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
 import org.jboss.tools.modeshape.jcr.ChildNodeDefinition;
 import org.jboss.tools.modeshape.jcr.JcrModelObject;
-import org.jboss.tools.modeshape.ui.UiUtils;
+import org.jboss.tools.modeshape.jcr.JcrTransferCodec;
 
 /**
  * A class used to read and write {@link org.jboss.tools.modeshape.jcr.ChildNodeDefinition}s to and from the system clipboard.
@@ -70,86 +68,24 @@ public final class ChildNodeDefinitionTransfer extends JcrTransfer {
     /**
      * {@inheritDoc}
      * 
-     * @see org.jboss.tools.modeshape.jcr.ui.dnd.JcrTransfer#readFromStream(java.io.DataInputStream)
+     * @see org.jboss.tools.modeshape.jcr.ui.dnd.JcrTransfer#readFromStream(
+     *      org.jboss.tools.modeshape.jcr.JcrTransferCodec.Input)
      */
     @Override
-    protected JcrModelObject readFromStream( final DataInputStream inStream ) throws Exception {
-        // owner qualified name
-        final String ownerQualifiedName = inStream.readUTF();
-        final ChildNodeDefinition childNodeDefn = new ChildNodeDefinition(new OwnerProvider(ownerQualifiedName));
-
-        // name and comments
-        childNodeDefn.setName(inStream.readUTF());
-        childNodeDefn.setComment(inStream.readUTF());
-
-        // attributes
-        childNodeDefn.setAutoCreated(inStream.readBoolean());
-        childNodeDefn.setMandatory(inStream.readBoolean());
-        childNodeDefn.setProtected(inStream.readBoolean());
-        childNodeDefn.setOnParentVersion(inStream.readInt());
-        childNodeDefn.setSameNameSiblings(inStream.readBoolean());
-
-        // default type
-        childNodeDefn.setDefaultPrimaryTypeName(inStream.readUTF());
-
-        { // required types
-            final int requiredTypesCount = inStream.readInt();
-
-            if (requiredTypesCount != 0) {
-                final String[] requiredTypes = new String[requiredTypesCount];
-
-                for (int requiredTypeIndex = 0; requiredTypeIndex < requiredTypesCount; ++requiredTypeIndex) {
-                    requiredTypes[requiredTypeIndex] = inStream.readUTF();
-                }
-
-                childNodeDefn.setRequiredPrimaryTypeNames(requiredTypes);
-            }
-        }
-
-        return childNodeDefn;
+    protected JcrModelObject readFromStream( final JcrTransferCodec.Input inStream ) throws Exception {
+        return inStream.readChildNodeDefinition();
     }
 
     /**
      * {@inheritDoc}
      * 
      * @see org.jboss.tools.modeshape.jcr.ui.dnd.JcrTransfer#writeToStream(org.jboss.tools.modeshape.jcr.JcrModelObject,
-     *      java.io.DataOutputStream)
+     *      org.jboss.tools.modeshape.jcr.JcrTransferCodec.Output)
      */
     @Override
     protected void writeToStream( final JcrModelObject jcrModelObject,
-                                  final DataOutputStream outStream ) throws Exception {
+                                  final JcrTransferCodec.Output outStream ) throws Exception {
         assert (jcrModelObject instanceof ChildNodeDefinition);
-        final ChildNodeDefinition childNodeDefn = (ChildNodeDefinition)jcrModelObject;
-
-        // owner qualified name
-        outStream.writeUTF(childNodeDefn.getQualifiedName().get());
-
-        // name and comments
-        outStream.writeUTF(UiUtils.ensureNotNull(childNodeDefn.getName()));
-        outStream.writeUTF(UiUtils.ensureNotNull(childNodeDefn.getComment()));
-
-        // attributes
-        outStream.writeBoolean(childNodeDefn.isAutoCreated());
-        outStream.writeBoolean(childNodeDefn.isMandatory());
-        outStream.writeBoolean(childNodeDefn.isProtected());
-        outStream.writeInt(childNodeDefn.getOnParentVersion());
-        outStream.writeBoolean(childNodeDefn.allowsSameNameSiblings());
-
-        // default type
-        outStream.writeUTF(UiUtils.ensureNotNull(childNodeDefn.getDefaultPrimaryTypeName()));
-
-        { // required types
-            final String[] requiredTypes = childNodeDefn.getRequiredPrimaryTypeNames();
-
-            if ((requiredTypes == null) || (requiredTypes.length == 0)) {
-                outStream.writeInt(0);
-            } else {
-                outStream.writeInt(requiredTypes.length);
-
-                for (final String requiredType : requiredTypes) {
-                    outStream.writeUTF(requiredType);
-                }
-            }
-        }
+        outStream.writeChildNodeDefinition((ChildNodeDefinition)jcrModelObject);
     }
 }
@@ -25,6 +25,7 @@ package org.jboss.tools.modeshape.jcr.ui.dnd;
 
 import org.eclipse.swt.dnd.Clipboard;
 import org.eclipse.swt.dnd.Transfer;
+import org.eclipse.swt.dnd.TransferData;
 import org.eclipse.swt.widgets.Display;
 import org.jboss.tools.modeshape.jcr.JcrModelObject;
 import org.jboss.tools.modeshape.ui.UiUtils;
@@ -61,28 +62,53 @@ public final class JcrClipboard {
     }
 
     /**
-     * Reads a single JCR model object from the system clipboard.
+     * Reads all the JCR model objects copied to the system clipboard in one payload.
      *
-     * @param jcrTransfer the object converting a native representation to a JCR model object (cannot be <code>null</code>)
-     * @return the JCR model object being read from the clipboard (can be <code>null</code>)
+     * @param jcrTransfer the object converting a native representation to JCR model objects (cannot be <code>null</code>)
+     * @return the JCR model objects being read from the clipboard (never <code>null</code> but can be empty)
      */
-    public JcrModelObject getContents( final JcrTransfer jcrTransfer ) {
+    public JcrModelObject[] getAllContents( final JcrTransfer jcrTransfer ) {
         UiUtils.verifyIsNotNull(jcrTransfer, "jcrTransfer");
         final Object contents = (this.delegate.isDisposed() ? null : this.delegate.getContents(jcrTransfer));
 
         if (contents == null) {
-            return null;
+            return new JcrModelObject[0];
         }
 
-        return (JcrModelObject)contents;
+        return (JcrModelObject[])contents;
+    }
+
+    /**
+     * Reads the first JCR model object from the system clipboard.
+     *
+     * @param jcrTransfer the object converting a native representation to a JCR model object (cannot be <code>null</code>)
+     * @return the JCR model object being read from the clipboard (can be <code>null</code>)
+     */
+    public JcrModelObject getContents( final JcrTransfer jcrTransfer ) {
+        final JcrModelObject[] contents = getAllContents(jcrTransfer);
+        return ((contents.length == 0) ? null : contents[0]);
     }
 
     /**
+     * The contents are not read so this can be called whenever the clipboard or selection changes.
+     *
      * @param jcrTransfer the transfer type (cannot be <code>null</code>)
      * @return <code>true</code> if system clipboard contains contents with the specified type
      */
     public boolean hasContents( final JcrTransfer jcrTransfer ) {
-        return (!this.delegate.isDisposed() && (getContents(jcrTransfer) != null));
+        UiUtils.verifyIsNotNull(jcrTransfer, "jcrTransfer");
+
+        if (this.delegate.isDisposed()) {
+            return false;
+        }
+
+        for (final TransferData transferData : this.delegate.getAvailableTypes()) {
+            if (jcrTransfer.isSupportedType(transferData)) {
+                return true;
+            }
+        }
+
+        return false;
     }
 
     /**
@@ -94,7 +120,24 @@ public final class JcrClipboard {
     public void setContents( final JcrModelObject jcrModelObject,
                              final JcrTransfer jcrTransfer ) {
         UiUtils.verifyIsNotNull(jcrModelObject, "jcrModelObject");
+        setContents(new JcrModelObject[] {jcrModelObject}, jcrTransfer);
+    }
+
+    /**
+     * Copies JCR model objects to the system clipboard in one payload.
+     *
+     * @param jcrModelObjects the JCR model objects being copied to the clipboard (cannot be <code>null</code> or empty)
+     * @param jcrTransfer the object converting the model objects to a native representation (cannot be <code>null</code>)
+     */
+    public void setContents( final JcrModelObject[] jcrModelObjects,
+                             final JcrTransfer jcrTransfer ) {
+        UiUtils.verifyIsNotNull(jcrModelObjects, "jcrModelObjects");
         UiUtils.verifyIsNotNull(jcrTransfer, "jcrTransfer");
-        this.delegate.setContents(new Object[] {jcrModelObject}, new Transfer[] {jcrTransfer});
+
+        if (jcrModelObjects.length == 0) {
+            throw new IllegalArgumentException();
+        }
+
+        this.delegate.setContents(new Object[] {jcrModelObjects}, new Transfer[] {jcrTransfer});
     }
 }
@@ -23,26 +23,22 @@
  */
 package org.jboss.tools.modeshape.jcr.ui.dnd;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
-import java.io.IOException;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.swt.dnd.ByteArrayTransfer;
 import org.eclipse.swt.dnd.DND;
 import org.eclipse.swt.dnd.TransferData;
-import org.jboss.tools.modeshape.jcr.ItemOwnerProvider;
 import org.jboss.tools.modeshape.jcr.JcrModelObject;
-import org.jboss.tools.modeshape.jcr.QualifiedName;
+import org.jboss.tools.modeshape.jcr.JcrTransferCodec;
 import org.jboss.tools.modeshape.jcr.ui.Activator;
 import org.jboss.tools.modeshape.jcr.ui.JcrUiConstants;
 import org.jboss.tools.modeshape.jcr.ui.cnd.CndMessages;
 import org.jboss.tools.modeshape.ui.UiUtils;
 
 /**
- * A base class for copying and pasting ModeShape JCR model objects to and from the system clipboard.
+ * A base class for copying and pasting ModeShape JCR model objects to and from the system clipboard. Either one JCR model object or
+ * an array of JCR model objects can be transferred. All the objects are written to one {@link JcrTransferCodec payload} and are
+ * always read back as an array.
  */
 abstract class JcrTransfer extends ByteArrayTransfer {
 
@@ -101,37 +97,28 @@ abstract class JcrTransfer extends ByteArrayTransfer {
         if (!validate(object)) {
             DND.error(DND.ERROR_INVALID_DATA);
         }
-        assert (object instanceof JcrModelObject);
 
-        ByteArrayOutputStream out = null;
-        DataOutputStream dataOut = null;
+        final JcrModelObject[] jcrModelObjects;
+
+        if (object instanceof JcrModelObject[]) {
+            jcrModelObjects = (JcrModelObject[])object;
+        } else {
+            jcrModelObjects = new JcrModelObject[] {(JcrModelObject)object};
+        }
 
         try {
-            out = new ByteArrayOutputStream();
-            dataOut = new DataOutputStream(out);
-            writeToStream((JcrModelObject)object, dataOut);
-            final byte[] bytes = out.toByteArray();
-            super.javaToNative(bytes, transferData);
+            final JcrTransferCodec.Output out = new JcrTransferCodec.Output();
+            out.writeHeader(jcrModelObjects.length);
+
+            for (final JcrModelObject jcrModelObject : jcrModelObjects) {
+                writeToStream(jcrModelObject, out);
+            }
+
+            super.javaToNative(out.toByteArray(), transferData);
         } catch (final Exception e) {
             Activator.getSharedInstance().getLog().log(new Status(IStatus.ERROR, JcrUiConstants.PLUGIN_ID,
                                                                   CndMessages.errorCopyingOrReadingJcrModelObjectToFromClipboard,
                                                                   e));
-
-            if (dataOut != null) {
-                try {
-                    dataOut.close();
-                } catch (final IOException e1) {
-                    // ignore
-                }
-            }
-
-            if (out != null) {
-                try {
-                    out.close();
-                } catch (final IOException e1) {
-                    // ignore
-                }
-            }
         }
     }
 
@@ -139,6 +126,7 @@ abstract class JcrTransfer extends ByteArrayTransfer {
      * {@inheritDoc}
      *
      * @see org.eclipse.swt.dnd.Transfer#nativeToJava(org.eclipse.swt.dnd.TransferData)
+     * @return the JCR model objects read (can be <code>null</code> if there are none or the payload could not be read)
      */
     @Override
     protected final Object nativeToJava( final TransferData transferData ) {
@@ -149,8 +137,14 @@ abstract class JcrTransfer extends ByteArrayTransfer {
         }
 
         try {
-            final DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
-            return readFromStream(in);
+            final JcrTransferCodec.Input in = new JcrTransferCodec.Input(bytes);
+            final JcrModelObject[] jcrModelObjects = new JcrModelObject[in.readHeader()];
+
+            for (int i = 0; i < jcrModelObjects.length; ++i) {
+                jcrModelObjects[i] = readFromStream(in);
+            }
+
+            return jcrModelObjects;
         } catch (final Exception e) {
             Activator.getSharedInstance().getLog().log(new Status(IStatus.ERROR, JcrUiConstants.PLUGIN_ID,
                                                                   CndMessages.errorCopyingOrReadingJcrModelObjectToFromClipboard,
@@ -164,7 +158,7 @@ abstract class JcrTransfer extends ByteArrayTransfer {
      * @return the JCR model object (never <code>null</code>)
      * @throws Exception if there is a problem reading the stream
      */
-    protected abstract JcrModelObject readFromStream( final DataInputStream inStream ) throws Exception;
+    protected abstract JcrModelObject readFromStream( final JcrTransferCodec.Input inStream ) throws Exception;
 
     /**
      * {@inheritDoc}
@@ -174,6 +168,23 @@ abstract class JcrTransfer extends ByteArrayTransfer {
     @Override
     protected final boolean validate( final Object object ) {
         final Class<? extends JcrModelObject> jcrModelObjectClass = getJcrModelObjectClass();
+
+        if (object instanceof JcrModelObject[]) {
+            final JcrModelObject[] jcrModelObjects = (JcrModelObject[])object;
+
+            if (jcrModelObjects.length == 0) {
+                return false;
+            }
+
+            for (final JcrModelObject jcrModelObject : jcrModelObjects) {
+                if (!jcrModelObjectClass.isInstance(jcrModelObject)) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
         return jcrModelObjectClass.isInstance(object);
     }
 
@@ -183,30 +194,5 @@ abstract class JcrTransfer extends ByteArrayTransfer {
      * @throws Exception if there is a problem writing to the stream
      */
     protected abstract void writeToStream( final JcrModelObject jcrModelObject,
-                                           final DataOutputStream outStream ) throws Exception;
-
-    /**
-     * An internal implementation of an {@link org.jboss.tools.modeshape.jcr.ItemOwnerProvider}.
-     */
-    protected class OwnerProvider implements ItemOwnerProvider {
-
-        private final QualifiedName qName;
-
-        /**
-         * @param qualifiedName a string representation of the qualified name (cannot be <code>null</code> or empty)
-         */
-        protected OwnerProvider( final String qualifiedName ) {
-            this.qName = QualifiedName.parse(qualifiedName);
-        }
-
-        /**
-         * {@inheritDoc}
-         *
-         * @see org.jboss.tools.modeshape.jcr.ItemOwnerProvider#getOwnerQualifiedName()
-         */
-        @Override
-        public QualifiedName getOwnerQualifiedName() {
-            return this.qName;
-        }
-    }
+                                           final JcrTransferCodec.Output outStream ) throws Exception;
 }
@@ -23,11 +23,9 @@
  */
 package org.jboss.tools.modeshape.jcr.ui.dnd;
 
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
 import org.jboss.tools.modeshape.jcr.JcrModelObject;
+import org.jboss.tools.modeshape.jcr.JcrTransferCodec;
 import org.jboss.tools.modeshape.jcr.NamespaceMapping;
-import org.jboss.tools.modeshape.ui.UiUtils;
 
 /**
  * A class used to read and write {@link org.jboss.tools.modeshape.jcr.NamespaceMapping}s to and from the system clipboard.
@@ -70,43 +68,24 @@ public final class NamespaceMappingTransfer extends JcrTransfer {
     /**
      * {@inheritDoc}
      * 
-     * @see org.jboss.tools.modeshape.jcr.ui.dnd.JcrTransfer#readFromStream(java.io.DataInputStream)
+     * @see org.jboss.tools.modeshape.jcr.ui.dnd.JcrTransfer#readFromStream(
+     *      org.jboss.tools.modeshape.jcr.JcrTransferCodec.Input)
      */
     @Override
-    protected JcrModelObject readFromStream( final DataInputStream inStream ) throws Exception {
-        final NamespaceMapping namespaceMapping = new NamespaceMapping();
-
-        // prefix
-        namespaceMapping.setPrefix(inStream.readUTF());
-
-        // uri
-        namespaceMapping.setUri(inStream.readUTF());
-
-        // comments
-        namespaceMapping.setComment(inStream.readUTF());
-
-        return namespaceMapping;
+    protected JcrModelObject readFromStream( final JcrTransferCodec.Input inStream ) throws Exception {
+        return inStream.readNamespaceMapping();
     }
 
     /**
      * {@inheritDoc}
      * 
      * @see org.jboss.tools.modeshape.jcr.ui.dnd.JcrTransfer#writeToStream(org.jboss.tools.modeshape.jcr.JcrModelObject,
-     *      java.io.DataOutputStream)
+     *      org.jboss.tools.modeshape.jcr.JcrTransferCodec.Output)
      */
     @Override
     protected void writeToStream( final JcrModelObject jcrModelObject,
-                                  final DataOutputStream outStream ) throws Exception {
+                                  final JcrTransferCodec.Output outStream ) throws Exception {
         assert (jcrModelObject instanceof NamespaceMapping);
-        final NamespaceMapping namespaceMapping = (NamespaceMapping)jcrModelObject;
-
-        // prefix
-        outStream.writeUTF(UiUtils.ensureNotNull(namespaceMapping.getPrefix()));
-
-        // uri
-        outStream.writeUTF(UiUtils.ensureNotNull(namespaceMapping.getUri()));
-
-        // comments
-        outStream.writeUTF(UiUtils.ensureNotNull(namespaceMapping.getComment()));
+        outStream.writeNamespaceMapping((NamespaceMapping)jcrModelObject);
     }
 }
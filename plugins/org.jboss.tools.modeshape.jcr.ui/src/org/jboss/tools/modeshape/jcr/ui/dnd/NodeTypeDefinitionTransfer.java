@@ -23,14 +23,9 @@
  */
 package org.jboss.tools.modeshape.jcr.ui.dnd;
 
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
-import java.util.List;
-import org.jboss.tools.modeshape.jcr.ChildNodeDefinition;
 import org.jboss.tools.modeshape.jcr.JcrModelObject;
+import org.jboss.tools.modeshape.jcr.JcrTransferCodec;
 import org.jboss.tools.modeshape.jcr.NodeTypeDefinition;
-import org.jboss.tools.modeshape.jcr.PropertyDefinition;
-import org.jboss.tools.modeshape.ui.UiUtils;
 
 /**
  * A class used to read and write {@link org.jboss.tools.modeshape.jcr.NodeTypeDefinition}s to and from the system clipboard.
@@ -73,131 +68,24 @@ public final class NodeTypeDefinitionTransfer extends JcrTransfer {
     /**
      * {@inheritDoc}
      * 
-     * @see org.jboss.tools.modeshape.jcr.ui.dnd.JcrTransfer#readFromStream(java.io.DataInputStream)
+     * @see org.jboss.tools.modeshape.jcr.ui.dnd.JcrTransfer#readFromStream(
+     *      org.jboss.tools.modeshape.jcr.JcrTransferCodec.Input)
      */
     @Override
-    protected JcrModelObject readFromStream( final DataInputStream inStream ) throws Exception {
-        final NodeTypeDefinition nodeTypeDefn = new NodeTypeDefinition();
-
-        // name and comments
-        nodeTypeDefn.setName(inStream.readUTF());
-        nodeTypeDefn.setComment(inStream.readUTF());
-
-        // attributes
-        nodeTypeDefn.setAbstract(inStream.readBoolean());
-        nodeTypeDefn.setMixin(inStream.readBoolean());
-        nodeTypeDefn.setOrderableChildNodes(inStream.readBoolean());
-        nodeTypeDefn.setQueryable(inStream.readBoolean());
-        nodeTypeDefn.setPrimaryItemName(inStream.readUTF());
-
-        { // supertypes
-            final int superTypesCount = inStream.readInt();
-
-            if (superTypesCount != 0) {
-                for (int superTypeIndex = 0; superTypeIndex < superTypesCount; ++superTypeIndex) {
-                    nodeTypeDefn.addSuperType(inStream.readUTF());
-                }
-            }
-        }
-
-        { // property definitions
-            final int propDefnsCount = inStream.readInt();
-
-            if (propDefnsCount != 0) {
-                final PropertyDefinitionTransfer propTransfer = PropertyDefinitionTransfer.get();
-
-                for (int propDefnIndex = 0; propDefnIndex < propDefnsCount; ++propDefnIndex) {
-                    final Object propDefn = propTransfer.readFromStream(inStream);
-                    assert (propDefn instanceof PropertyDefinition);
-                    nodeTypeDefn.addPropertyDefinition((PropertyDefinition)propDefn);
-                }
-            }
-        }
-
-        { // property definitions
-            final int childNodeDefnsCount = inStream.readInt();
-
-            if (childNodeDefnsCount != 0) {
-                final ChildNodeDefinitionTransfer propTransfer = ChildNodeDefinitionTransfer.get();
-
-                for (int childNodeDefnIndex = 0; childNodeDefnIndex < childNodeDefnsCount; ++childNodeDefnIndex) {
-                    final Object childNodeDefn = propTransfer.readFromStream(inStream);
-                    assert (childNodeDefn instanceof ChildNodeDefinition);
-                    nodeTypeDefn.addChildNodeDefinition((ChildNodeDefinition)childNodeDefn);
-                }
-            }
-        }
-
-        return nodeTypeDefn;
+    protected JcrModelObject readFromStream( final JcrTransferCodec.Input inStream ) throws Exception {
+        return inStream.readNodeTypeDefinition();
     }
 
     /**
      * {@inheritDoc}
      * 
      * @see org.jboss.tools.modeshape.jcr.ui.dnd.JcrTransfer#writeToStream(org.jboss.tools.modeshape.jcr.JcrModelObject,
-     *      java.io.DataOutputStream)
+     *      org.jboss.tools.modeshape.jcr.JcrTransferCodec.Output)
      */
     @Override
     protected void writeToStream( final JcrModelObject jcrModelObject,
-                                  final DataOutputStream outStream ) throws Exception {
+                                  final JcrTransferCodec.Output outStream ) throws Exception {
         assert (jcrModelObject instanceof NodeTypeDefinition);
-        final NodeTypeDefinition nodeTypeDefn = (NodeTypeDefinition)jcrModelObject;
-
-        // name and comments
-        outStream.writeUTF(UiUtils.ensureNotNull(nodeTypeDefn.getName()));
-        outStream.writeUTF(UiUtils.ensureNotNull(nodeTypeDefn.getComment()));
-
-        // attributes
-        outStream.writeBoolean(nodeTypeDefn.isAbstract());
-        outStream.writeBoolean(nodeTypeDefn.isMixin());
-        outStream.writeBoolean(nodeTypeDefn.hasOrderableChildNodes());
-        outStream.writeBoolean(nodeTypeDefn.isQueryable());
-        outStream.writeUTF(UiUtils.ensureNotNull(nodeTypeDefn.getPrimaryItemName()));
-
-        { // supertypes
-            final String[] superTypes = nodeTypeDefn.getDeclaredSupertypeNames();
-
-            if ((superTypes == null) || (superTypes.length == 0)) {
-                outStream.writeInt(0);
-            } else {
-                outStream.writeInt(superTypes.length);
-
-                for (final String superType : superTypes) {
-                    outStream.writeUTF(superType);
-                }
-            }
-        }
-
-        { // property definitions
-            final List<PropertyDefinition> propertyDefinitions = nodeTypeDefn.getPropertyDefinitions();
-
-            if (propertyDefinitions.isEmpty()) {
-                outStream.writeInt(0);
-            } else {
-                final PropertyDefinitionTransfer propTransfer = PropertyDefinitionTransfer.get();
-                final int length = propertyDefinitions.size();
-                outStream.writeInt(length);
-
-                for (final PropertyDefinition propDefn : propertyDefinitions) {
-                    propTransfer.writeToStream(propDefn, outStream);
-                }
-            }
-        }
-
-        { // child node definitions
-            final List<ChildNodeDefinition> childNodeDefinitions = nodeTypeDefn.getChildNodeDefinitions();
-
-            if (childNodeDefinitions.isEmpty()) {
-                outStream.writeInt(0);
-            } else {
-                final ChildNodeDefinitionTransfer childNodeTransfer = ChildNodeDefinitionTransfer.get();
-                final int length = childNodeDefinitions.size();
-                outStream.writeInt(length);
-
-                for (final ChildNodeDefinition childNodeDefn : childNodeDefinitions) {
-                    childNodeTransfer.writeToStream(childNodeDefn, outStream);
-                }
-            }
-        }
+        outStream.writeNodeTypeDefinition((NodeTypeDefinition)jcrModelObject);
     }
 }
@@ -0,0 +1,227 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ *
+ * See the LEGAL.txt file distributed with this work for information regarding copyright ownership and licensing.
+ *
+ * See the AUTHORS.txt file distributed with this work for a full listing of individual contributors.
+ */
+package org.jboss.tools.modeshape.jcr.ui.resources;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import org.jboss.tools.modeshape.jcr.Utils;
+import org.jboss.tools.modeshape.jcr.ui.resources.CndProjectBuilder.Problem;
+
+/**
+ * The content hash and last validation problems of each CND file of a project. Used by the {@link CndProjectBuilder} to skip CND
+ * files that have not changed since they were last validated. This class is not thread-safe.
+ */
+final class CndBuildState {
+
+    /**
+     * The state of one CND file.
+     */
+    static final class FileState {
+
+        final String hash;
+        final List<Problem> problems;
+        final long timeStamp;
+
+        /**
+         * @param timeStamp the local time stamp of the file when the hash was computed
+         * @param hash the content hash (cannot be <code>null</code>)
+         * @param problems the problems found the last time the file was validated (cannot be <code>null</code>)
+         */
+        FileState( final long timeStamp,
+                   final String hash,
+                   final List<Problem> problems ) {
+            this.timeStamp = timeStamp;
+            this.hash = hash;
+            this.problems = Collections.unmodifiableList(new ArrayList<Problem>(problems));
+        }
+    }
+
+    /**
+     * The first line of a persisted state. Change when the format changes.
+     */
+    static final String HEADER = "cndBuildState 1"; //$NON-NLS-1$
+
+    private static final String DELIM = "\t"; //$NON-NLS-1$
+    private static final String FILE = "cnd"; //$NON-NLS-1$
+    private static final char[] HEX = "0123456789abcdef".toCharArray(); //$NON-NLS-1$
+    private static final String PROBLEM = "p"; //$NON-NLS-1$
+
+    /**
+     * The caller is responsible for closing the stream.
+     *
+     * @param stream the contents being hashed (cannot be <code>null</code>)
+     * @return the content hash (never <code>null</code>)
+     * @throws IOException if the contents cannot be read
+     */
+    static String hash( final InputStream stream ) throws IOException {
+        final MessageDigest digest = newDigest();
+        final byte[] buffer = new byte[8192];
+        int count;
+
+        while ((count = stream.read(buffer)) != -1) {
+            digest.update(buffer, 0, count);
+        }
+
+        return toHex(digest);
+    }
+
+    /**
+     * @return a new digest used to compute content hashes (never <code>null</code>)
+     * @throws IOException if the digest algorithm is not available
+     */
+    static MessageDigest newDigest() throws IOException {
+        try {
+            return MessageDigest.getInstance("SHA-1"); //$NON-NLS-1$
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Completes the digest.
+     *
+     * @param digest the digest that all the contents have been passed to (cannot be <code>null</code>)
+     * @return the content hash as a hex string (never <code>null</code>)
+     */
+    static String toHex( final MessageDigest digest ) {
+        final byte[] bytes = digest.digest();
+        final char[] chars = new char[bytes.length * 2];
+
+        for (int i = 0; i < bytes.length; ++i) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+            chars[(i * 2) + 1] = HEX[bytes[i] & 0xF];
+        }
+
+        return new String(chars);
+    }
+
+    /**
+     * @param reader the reader of a state previously {@link #write(Writer) written} (cannot be <code>null</code>)
+     * @return the state (never <code>null</code>)
+     * @throws IOException if the state cannot be read or was written in a different format
+     */
+    static CndBuildState read( final Reader reader ) throws IOException {
+        final BufferedReader in = ((reader instanceof BufferedReader) ? (BufferedReader)reader : new BufferedReader(reader));
+
+        if (!HEADER.equals(in.readLine())) {
+            throw new IOException(HEADER);
+        }
+
+        final CndBuildState state = new CndBuildState();
+        String path = null;
+        long timeStamp = 0;
+        String hash = null;
+        List<Problem> problems = null;
+        String line;
+
+        try {
+            while ((line = in.readLine()) != null) {
+                final String[] parts = line.split(DELIM, -1);
+
+                if (FILE.equals(parts[0]) && (parts.length == 4)) {
+                    if (path != null) {
+                        state.put(path, new FileState(timeStamp, hash, problems));
+                    }
+
+                    path = Utils.unescape(parts[1]);
+                    timeStamp = Long.parseLong(parts[2]);
+                    hash = parts[3];
+                    problems = new ArrayList<Problem>();
+                } else if (PROBLEM.equals(parts[0]) && (parts.length == 6) && (problems != null)) {
+                    problems.add(new Problem(Integer.parseInt(parts[1]), Integer.parseInt(parts[2]), Utils.unescape(parts[5]),
+                                             Integer.parseInt(parts[3]), Integer.parseInt(parts[4])));
+                } else {
+                    throw new IOException(line);
+                }
+            }
+        } catch (final NumberFormatException e) {
+            throw new IOException(e);
+        }
+
+        if (path != null) {
+            state.put(path, new FileState(timeStamp, hash, problems));
+        }
+
+        return state;
+    }
+
+    /**
+     * The file states keyed by project-relative path. Sorted so that written states are stable.
+     */
+    private final Map<String, FileState> files = new TreeMap<String, FileState>();
+
+    /**
+     * Removes the state of all files.
+     */
+    void clear() {
+        this.files.clear();
+    }
+
+    /**
+     * @param path the project-relative path of the CND file (cannot be <code>null</code>)
+     * @return the file state or <code>null</code> if the file has not been validated
+     */
+    FileState get( final String path ) {
+        return this.files.get(path);
+    }
+
+    /**
+     * @return the project-relative paths of all the CND files that have a state (never <code>null</code>)
+     */
+    Set<String> getPaths() {
+        return Collections.unmodifiableSet(this.files.keySet());
+    }
+
+    /**
+     * @param path the project-relative path of the CND file (cannot be <code>null</code>)
+     * @param fileState the new file state (cannot be <code>null</code>)
+     */
+    void put( final String path,
+              final FileState fileState ) {
+        this.files.put(path, fileState);
+    }
+
+    /**
+     * @param path the project-relative path of the CND file (cannot be <code>null</code>)
+     */
+    void remove( final String path ) {
+        this.files.remove(path);
+    }
+
+    /**
+     * @param writer the writer the state is written to (cannot be <code>null</code>)
+     * @throws IOException if the state cannot be written
+     */
+    void write( final Writer writer ) throws IOException {
+        writer.write(HEADER);
+        writer.write('\n');
+
+        for (final Map.Entry<String, FileState> entry : this.files.entrySet()) {
+            final FileState fileState = entry.getValue();
+            writer.write(FILE + DELIM + Utils.escape(entry.getKey()) + DELIM + fileState.timeStamp + DELIM + fileState.hash + '\n');
+
+            for (final Problem problem : fileState.problems) {
+                writer.write(PROBLEM + DELIM + problem.severity + DELIM + problem.code + DELIM + problem.line + DELIM
+                             + problem.charStart + DELIM + Utils.escape(problem.message) + '\n');
+            }
+        }
+
+        writer.flush();
+    }
+}
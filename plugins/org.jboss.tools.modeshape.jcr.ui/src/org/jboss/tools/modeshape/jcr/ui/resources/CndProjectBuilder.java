@@ -24,42 +24,164 @@
 package org.jboss.tools.modeshape.jcr.ui.resources;
 
 import static org.jboss.tools.modeshape.jcr.ui.JcrUiConstants.PLUGIN_ID;
+import static org.jboss.tools.modeshape.jcr.ui.JcrUiConstants.FileExtensions.CND;
 import static org.jboss.tools.modeshape.jcr.ui.JcrUiConstants.WorkspaceIds.CND_PROBLEM_MARKER;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.security.DigestInputStream;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IResourceDelta;
 import org.eclipse.core.resources.IResourceDeltaVisitor;
-import org.eclipse.core.resources.IResourceVisitor;
+import org.eclipse.core.resources.IResourceProxy;
+import org.eclipse.core.resources.IResourceProxyVisitor;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRunnable;
 import org.eclipse.core.resources.IncrementalProjectBuilder;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.MultiStatus;
 import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubMonitor;
 import org.eclipse.osgi.util.NLS;
-import org.eclipse.ui.texteditor.MarkerUtilities;
 import org.jboss.tools.modeshape.jcr.MultiValidationStatus;
+import org.jboss.tools.modeshape.jcr.NodeTypeDefinition;
+import org.jboss.tools.modeshape.jcr.ParallelRunner;
+import org.jboss.tools.modeshape.jcr.QualifiedName;
+import org.jboss.tools.modeshape.jcr.Utils;
 import org.jboss.tools.modeshape.jcr.ValidationStatus;
+import org.jboss.tools.modeshape.jcr.cnd.CndDependencyGraph;
 import org.jboss.tools.modeshape.jcr.cnd.CndImporter;
+import org.jboss.tools.modeshape.jcr.cnd.CndMetrics;
 import org.jboss.tools.modeshape.jcr.cnd.CndValidator;
 import org.jboss.tools.modeshape.jcr.cnd.CompactNodeTypeDefinition;
+import org.jboss.tools.modeshape.jcr.text.ParsingException;
+import org.jboss.tools.modeshape.jcr.text.Position;
 import org.jboss.tools.modeshape.jcr.ui.Activator;
 import org.jboss.tools.modeshape.jcr.ui.JcrUiUtils;
 import org.jboss.tools.modeshape.jcr.ui.cnd.CndMessages;
+import org.jboss.tools.modeshape.jcr.ui.resources.CndBuildState.FileState;
 
 /**
  * A project builder that creates markers for CND file (*.cnd) problems.
  */
 public final class CndProjectBuilder extends IncrementalProjectBuilder {
 
+    /**
+     * The debug option that turns on tracing of each build.
+     */
+    static final String BUILDER_OPTION = PLUGIN_ID + "/debug/builder"; //$NON-NLS-1$
+
+    /**
+     * The number of builds.
+     */
+    static final String BUILD_COUNT = "builder.build.count"; //$NON-NLS-1$
+
+    /**
+     * The time spent building.
+     */
+    static final String BUILD_NANOS = "builder.build.nanos"; //$NON-NLS-1$
+
+    /**
+     * The number of CND files parsed and validated.
+     */
+    static final String FILES_BUILT = "builder.files.built"; //$NON-NLS-1$
+
+    /**
+     * The number of CND files skipped because they have not changed since they were last validated.
+     */
+    static final String FILES_SKIPPED = "builder.files.skipped"; //$NON-NLS-1$
+
+    /**
+     * The number of problem markers created.
+     */
+    static final String MARKERS_CREATED = "builder.markers.created"; //$NON-NLS-1$
+
+    /**
+     * The number of problem markers deleted.
+     */
+    static final String MARKERS_DELETED = "builder.markers.deleted"; //$NON-NLS-1$
+
+    /**
+     * The time spent updating problem markers.
+     */
+    static final String MARKERS_NANOS = "builder.markers.nanos"; //$NON-NLS-1$
+
+    /**
+     * The time spent parsing CND files, including the time spent reading them.
+     */
+    static final String PARSE_NANOS = "builder.parse.nanos"; //$NON-NLS-1$
+
+    /**
+     * The time spent validating CND files.
+     */
+    static final String VALIDATE_NANOS = "builder.validate.nanos"; //$NON-NLS-1$
+
+    /**
+     * The name of the file, in the project's working location, the build state is persisted in.
+     */
+    private static final String BUILD_STATE_FILE_NAME = "cndBuildState"; //$NON-NLS-1$
+
+    /**
+     * The marker attribute holding the validation status code of the problem.
+     */
+    static final String CODE = "code"; //$NON-NLS-1$
+
+    /**
+     * The code of problems that do not come from a validation status.
+     */
+    static final int NO_CODE = -1;
+
+    /**
+     * The name of the file, in the project's working location, the dependency graph is persisted in.
+     */
+    private static final String DEPENDENCY_GRAPH_FILE_NAME = "cndDependencies"; //$NON-NLS-1$
+
+    /**
+     * The builder argument that, when set to <code>false</code>, turns off parsing and validating CND files in parallel.
+     */
+    static final String PARALLEL_ARG = "parallel"; //$NON-NLS-1$
+
+    private static final String UTF_8 = "UTF-8"; //$NON-NLS-1$
+
+    /**
+     * The content hashes and problems of the project's CND files (<code>null</code> until the first build).
+     */
+    private CndBuildState buildState;
+
+    /**
+     * The declarations and references of the project's CND files (<code>null</code> until the first build).
+     */
+    private CndDependencyGraph dependencyGraph;
+
     /**
      * {@inheritDoc}
      *
@@ -77,108 +199,270 @@ public final class CndProjectBuilder extends IncrementalProjectBuilder {
             return null;
         }
 
+        final CndMetrics metrics = CndMetrics.get();
+        final long start = System.nanoTime();
+        final boolean stateLoaded = loadBuildState();
+        final CndDependencyGraph graph = this.dependencyGraph;
+        final CndBuildState state = this.buildState;
+        final boolean fullBuild = ((IncrementalProjectBuilder.FULL_BUILD == kind) || (getDelta(project) == null) || !stateLoaded);
         final CndVisitor visitor = new CndVisitor();
 
-        if ((IncrementalProjectBuilder.FULL_BUILD == kind) || (getDelta(project) == null)) {
-            getProject().accept(visitor); // gather all MEDs in project
+        if (fullBuild) {
+            project.accept(visitor, IResource.NONE); // gather all CNDs in project
+
+            // forget the CND files that were deleted while the builder was not running
+            final Set<String> knownPaths = new HashSet<String>(graph.getPaths());
+            knownPaths.addAll(state.getPaths());
+
+            for (final IFile cndFile : visitor.getCndFiles()) {
+                knownPaths.remove(getPath(cndFile));
+            }
+
+            visitor.getRemovedCndPaths().addAll(knownPaths);
         } else {
             final IResourceDelta delta = getDelta(project);
-            delta.accept(visitor); // gather MEDs that have changed since last build
+            delta.accept(visitor); // gather CNDs that have changed since last build
+        }
+
+        for (final String removedPath : visitor.getRemovedCndPaths()) {
+            state.remove(removedPath);
+        }
+
+        // skip the CND files whose contents are the same as when they were last validated
+        final Set<IFile> cndFilesToBuild = new LinkedHashSet<IFile>();
+        final Map<IFile, List<Problem>> unchangedProblems = new LinkedHashMap<IFile, List<Problem>>();
+        boolean stateChanged = false;
+
+        for (final IFile cndFile : visitor.getCndFiles()) {
+            final String path = getPath(cndFile);
+            final FileState fileState = state.get(path);
+
+            if (fileState == null) {
+                cndFilesToBuild.add(cndFile);
+            } else if (fileState.timeStamp == cndFile.getLocalTimeStamp()) {
+                unchangedProblems.put(cndFile, fileState.problems);
+            } else {
+                // time stamp changes without content changes happen when a file is touched or saved without edits
+                final long timeStamp = cndFile.getLocalTimeStamp();
+
+                if (fileState.hash.equals(hash(cndFile))) {
+                    state.put(path, new FileState(timeStamp, fileState.hash, fileState.problems));
+                    unchangedProblems.put(cndFile, fileState.problems);
+                    stateChanged = true;
+                } else {
+                    cndFilesToBuild.add(cndFile);
+                }
+            }
+        }
+
+        // parse the changed CND files and then update their dependencies
+        final boolean parallel = !Boolean.FALSE.toString().equalsIgnoreCase((args == null) ? null : args.get(PARALLEL_ARG));
+        final ConcurrentMap<IFile, ParsedCnd> parsedCnds = new ConcurrentHashMap<IFile, ParsedCnd>();
+        final SubMonitor progress = SubMonitor.convert(monitor, CndMessages.cndBuildTaskName, 100);
+        final int numSkipped = unchangedProblems.size();
+        final long parseStart = System.nanoTime();
+
+        runForEach(cndFilesToBuild, new CndFileTask() {
+
+            /**
+             * {@inheritDoc}
+             *
+             * @see org.jboss.tools.modeshape.jcr.ParallelRunner.Task#run(java.lang.Object)
+             */
+            @Override
+            public void run( final IFile cndFile ) {
+                parse(cndFile, parsedCnds);
+            }
+        }, parallel, progress.newChild(40));
+
+        final long parseNanos = metrics.record(PARSE_NANOS, parseStart);
+
+        final Map<String, CompactNodeTypeDefinition> changedCnds = new LinkedHashMap<String, CompactNodeTypeDefinition>();
+
+        for (final IFile cndFile : cndFilesToBuild) {
+            changedCnds.put(getPath(cndFile), parse(cndFile, parsedCnds).cnd); // already parsed
+        }
+
+        // also build the CND files that directly or indirectly depend on what changed
+        for (final String dependentPath : graph.update(changedCnds, visitor.getRemovedCndPaths())) {
+            final IFile dependent = project.getFile(dependentPath);
+
+            if (JcrUiUtils.isCndFile(dependent)) {
+                cndFilesToBuild.add(dependent);
+                unchangedProblems.remove(dependent);
+            }
         }
 
-        // collect the CND files we need to build
-        final Collection<IFile> cndFilesToBuild = visitor.getCndFiles();
-        monitor.beginTask(CndMessages.cndBuildTaskName, cndFilesToBuild.size());
+        // markers of unchanged files are only refreshed on full builds (they may have been removed by others)
+        if (!fullBuild) {
+            unchangedProblems.clear();
+        }
 
-        if (!cndFilesToBuild.isEmpty()) {
+        long validateNanos = 0;
+        long markersNanos = 0;
+
+        if (!cndFilesToBuild.isEmpty() || !unchangedProblems.isEmpty()) {
+            final long validateStart = System.nanoTime();
             final MultiStatus status = new MultiStatus(PLUGIN_ID, IStatus.OK, null, null);
+            final ConcurrentMap<IFile, List<Problem>> problems = new ConcurrentHashMap<IFile, List<Problem>>();
+            final ConcurrentMap<IFile, FileState> fileStates = new ConcurrentHashMap<IFile, FileState>();
 
-            for (final IFile cndFile : cndFilesToBuild) {
-                monitor.subTask(NLS.bind(CndMessages.cndBuildSubTaskName, cndFile.getName()));
+            // validate each CND file (the dependency graph is only read from here on)
+            runForEach(cndFilesToBuild, new CndFileTask() {
 
-                try {
-                    // clear existing markers if not already done by the clean build
-                    cndFile.deleteMarkers(null, true, IResource.DEPTH_INFINITE);
+                /**
+                 * {@inheritDoc}
+                 *
+                 * @see org.jboss.tools.modeshape.jcr.ParallelRunner.Task#run(java.lang.Object)
+                 */
+                @Override
+                public void run( final IFile cndFile ) {
+                    final List<Problem> fileProblems = new ArrayList<Problem>();
 
-                    final List<Throwable> errors = new ArrayList<Throwable>();
-                    final CompactNodeTypeDefinition cnd = new CndImporter().importFrom(cndFile.getContents(),
-                                                                                       errors,
-                                                                                       cndFile.getName());
+                    try {
+                        final ParsedCnd parsed = parse(cndFile, parsedCnds);
 
-                    if (errors.isEmpty()) {
-                        createMarkers(cndFile, CndValidator.validateCnd(cnd));
-                    } else {
-                        createMarkers(cndFile, errors);
-                    }
-                } catch (final Exception e) {
-                    final IStatus cndStatus = new Status(IStatus.ERROR, PLUGIN_ID, NLS.bind(CndMessages.cndFileParseError,
-                                                                                            cndFile.getName()), e);
-                    status.add(cndStatus);
-                } finally {
-                    if (monitor.isCanceled()) {
-                        throw new OperationCanceledException();
+                        if (!parsed.errors.isEmpty()) {
+                            collectProblems(parsed.errors, fileProblems);
+                        } else if (parsed.cnd != null) {
+                            final List<NodeTypeDefinition> externalTypes = findExternalNodeTypes(cndFile, graph, parsedCnds);
+                            parsed.cnd.getSuperTypeGraph().setExternalNodeTypeDefinitions(externalTypes);
+                            collectProblems(CndValidator.validateCnd(parsed.cnd), fileProblems);
+                        }
+
+                        // only remember the results of files that could be read
+                        if (parsed.hash != null) {
+                            fileStates.put(cndFile, new FileState(parsed.timeStamp, parsed.hash, fileProblems));
+                        }
+                    } catch (final Exception e) {
+                        final IStatus cndStatus = new Status(IStatus.ERROR, PLUGIN_ID,
+                                                             NLS.bind(CndMessages.cndFileParseError, cndFile.getName()), e);
+
+                        synchronized (status) {
+                            status.add(cndStatus);
+                        }
                     }
 
-                    monitor.worked(1);
+                    // an empty list removes the existing markers if the file could not be validated
+                    problems.put(cndFile, fileProblems);
+                }
+            }, parallel, progress.newChild(60));
+
+            validateNanos = metrics.record(VALIDATE_NANOS, validateStart);
+
+            // keep the order the files were found in
+            final Map<IFile, List<Problem>> problemsByFile = new LinkedHashMap<IFile, List<Problem>>(unchangedProblems);
+
+            for (final IFile cndFile : cndFilesToBuild) {
+                final List<Problem> fileProblems = problems.get(cndFile);
+
+                if (fileProblems != null) {
+                    problemsByFile.put(cndFile, fileProblems);
+                }
+
+                final FileState fileState = fileStates.get(cndFile);
+
+                if (fileState == null) {
+                    state.remove(getPath(cndFile));
+                } else {
+                    state.put(getPath(cndFile), fileState);
                 }
             }
 
+            // apply all marker changes as one workspace modification
+            final long markersStart = System.nanoTime();
+            project.getWorkspace().run(new IWorkspaceRunnable() {
+
+                /**
+                 * {@inheritDoc}
+                 *
+                 * @see org.eclipse.core.resources.IWorkspaceRunnable#run(org.eclipse.core.runtime.IProgressMonitor)
+                 */
+                @Override
+                public void run( final IProgressMonitor runnableMonitor ) {
+                    for (final Entry<IFile, List<Problem>> entry : problemsByFile.entrySet()) {
+                        try {
+                            updateMarkers(entry.getKey(), entry.getValue());
+                        } catch (final CoreException e) {
+                            Activator.getSharedInstance().getLog().log(new Status(IStatus.ERROR, PLUGIN_ID, null, e));
+                        }
+                    }
+                }
+            }, project, IWorkspace.AVOID_UPDATE, null);
+
+            markersNanos = metrics.record(MARKERS_NANOS, markersStart);
+
             if (!status.isOK()) {
                 Activator.getSharedInstance().getLog().log(status);
             }
         }
 
+        if (fullBuild || stateChanged || !cndFilesToBuild.isEmpty() || !visitor.getRemovedCndPaths().isEmpty()) {
+            saveBuildState();
+        }
+
+        metrics.increment(BUILD_COUNT);
+        metrics.add(FILES_BUILT, cndFilesToBuild.size());
+        metrics.add(FILES_SKIPPED, numSkipped);
+        metrics.record(BUILD_NANOS, start);
+
+        if (CndMetrics.isTracing(BUILDER_OPTION)) {
+            final String message = project.getName() + (fullBuild ? " full" : " incremental") //$NON-NLS-1$ //$NON-NLS-2$
+                                   + " build: built " + cndFilesToBuild.size() //$NON-NLS-1$
+                                   + ", skipped " + numSkipped //$NON-NLS-1$
+                                   + " CND files in " + CndMetrics.millisSince(start) //$NON-NLS-1$
+                                   + " ms (parse " + TimeUnit.NANOSECONDS.toMillis(parseNanos) //$NON-NLS-1$
+                                   + " ms, validate " + TimeUnit.NANOSECONDS.toMillis(validateNanos) //$NON-NLS-1$
+                                   + " ms, markers " + TimeUnit.NANOSECONDS.toMillis(markersNanos) + " ms)"; //$NON-NLS-1$ //$NON-NLS-2$
+            CndMetrics.trace(BUILDER_OPTION, message);
+        }
+
         // no other projects need also be rebuilt because this project was built
         return null;
     }
 
     /**
-     * @param cndFile the CND file associated with the problem marker (cannot be <code>null</code>)
-     * @param severity the marker severity
-     * @param message the marker message (cannot be <code>null</code> or empty)
+     * Dependencies have only been partially updated when a build is canceled so the next build is a full build.
+     *
+     * @throws OperationCanceledException always
      */
-    @SuppressWarnings( "unchecked" )
-    private void createMarker( final IFile cndFile,
-                               final int severity,
-                               final String message ) {
-        assert (cndFile != null) : "file is null"; //$NON-NLS-1$
-        assert ((message != null) && !message.isEmpty()) : "message is empty"; //$NON-NLS-1$
-
-        @SuppressWarnings( "rawtypes" )
-        final Map attributes = new HashMap();
-        attributes.put(IMarker.SEVERITY, severity);
-        attributes.put(IMarker.MESSAGE, message);
-
-        try {
-            MarkerUtilities.createMarker(cndFile, attributes, CND_PROBLEM_MARKER);
-        } catch (final CoreException e) {
-            Activator.getSharedInstance().getLog().log(new Status(IStatus.ERROR, PLUGIN_ID, null, e));
-        }
+    private void cancel() {
+        forgetLastBuiltState();
+        deleteBuildState();
+        throw new OperationCanceledException();
     }
 
     /**
-     * @param cndFile the CND file associated with the problem markers being created (cannot be <code>null</code>)
-     * @param errors the errors being used to create the problem markers (can be <code>null</code> or empty)
+     * @param errors the import errors being converted to problems (cannot be <code>null</code>)
+     * @param problems the collection the problems are added to (cannot be <code>null</code>)
      */
-    private void createMarkers( final IFile cndFile,
-                                final List<Throwable> errors ) {
-        assert (cndFile != null) : "file is null"; //$NON-NLS-1$
+    private void collectProblems( final List<Throwable> errors,
+                                  final List<Problem> problems ) {
+        for (final Throwable t : errors) {
+            int line = -1;
+            int charStart = -1;
 
-        if ((errors == null) || errors.isEmpty()) {
-            return;
-        }
+            if (t instanceof ParsingException) {
+                final Position position = ((ParsingException)t).getPosition();
 
-        for (final Throwable t : errors) {
-            createMarker(cndFile, IMarker.SEVERITY_ERROR, t.getLocalizedMessage());
+                if ((position != null) && (position.getIndexInContent() >= 0)) {
+                    line = position.getLine();
+                    charStart = position.getIndexInContent();
+                }
+            }
+
+            final String message = t.getLocalizedMessage();
+            problems.add(new Problem(IMarker.SEVERITY_ERROR, NO_CODE, ((message == null) ? t.toString() : message), line,
+                                     charStart));
         }
     }
 
     /**
-     * @param cndFile the CND file associated with the problem markers being created (cannot be <code>null</code>)
-     * @param status the status used to create the problem markers (can be <code>null</code>)
+     * @param status the validation status being converted to problems (can be <code>null</code>)
+     * @param problems the collection the problems are added to (cannot be <code>null</code>)
      */
-    private void createMarkers( final IFile cndFile,
-                                final MultiValidationStatus status ) {
+    private void collectProblems( final MultiValidationStatus status,
+                                  final List<Problem> problems ) {
         if ((status == null) || status.isOk()) {
             return;
         }
@@ -186,12 +470,332 @@ public final class CndProjectBuilder extends IncrementalProjectBuilder {
         for (final ValidationStatus validationStatus : status.getAll()) {
             if (!validationStatus.isOk()) {
                 if (validationStatus instanceof MultiValidationStatus) {
-                    createMarkers(cndFile, (MultiValidationStatus)validationStatus);
+                    collectProblems((MultiValidationStatus)validationStatus, problems);
                 } else {
-                    createMarker(cndFile, JcrUiUtils.getMarkerSeverity(validationStatus), validationStatus.getMessage());
+                    problems.add(new Problem(JcrUiUtils.getMarkerSeverity(validationStatus), validationStatus.getCode(),
+                                             validationStatus.getMessage(), -1, -1));
+                }
+            }
+        }
+    }
+
+    /**
+     * @param closeable the reader or writer being closed (can be <code>null</code>)
+     */
+    private void close( final Closeable closeable ) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (final IOException e) {
+                // nothing to do
+            }
+        }
+    }
+
+    /**
+     * Forgets the dependency graph and the build state so that the next build is a full build.
+     */
+    private void deleteBuildState() {
+        this.dependencyGraph = null;
+        this.buildState = null;
+
+        for (final String fileName : new String[] { DEPENDENCY_GRAPH_FILE_NAME, BUILD_STATE_FILE_NAME }) {
+            final File file = getWorkingFile(fileName);
+
+            if ((file != null) && file.exists()) {
+                file.delete();
+            }
+        }
+    }
+
+    /**
+     * Finds the node types declared in other CND files of the project that the CND's node types directly or indirectly extend or
+     * require. Safe to call from multiple threads as long as the dependency graph is not being changed.
+     *
+     * @param cndFile the CND file being built (cannot be <code>null</code>)
+     * @param graph the project's dependency graph (cannot be <code>null</code>)
+     * @param parsedCnds the CNDs parsed during this build (cannot be <code>null</code>)
+     * @return the external node types (never <code>null</code> but can be empty)
+     */
+    List<NodeTypeDefinition> findExternalNodeTypes( final IFile cndFile,
+                                                    final CndDependencyGraph graph,
+                                                    final ConcurrentMap<IFile, ParsedCnd> parsedCnds ) {
+        final String path = getPath(cndFile);
+        final List<NodeTypeDefinition> externalTypes = new ArrayList<NodeTypeDefinition>();
+        final Set<String> visited = new HashSet<String>(graph.getDeclaredNodeTypes(path));
+        final Deque<String> typeNames = new ArrayDeque<String>(graph.getReferencedNodeTypes(path));
+
+        while (!typeNames.isEmpty()) {
+            final String typeName = typeNames.pop();
+
+            if (!visited.add(typeName)) {
+                continue;
+            }
+
+            for (final String declaringPath : graph.getDeclaringPaths(typeName)) {
+                final IFile declaringFile = getProject().getFile(declaringPath);
+
+                if (declaringPath.equals(path) || !JcrUiUtils.isCndFile(declaringFile)) {
+                    continue;
+                }
+
+                final CompactNodeTypeDefinition declaringCnd = parse(declaringFile, parsedCnds).cnd;
+                final NodeTypeDefinition nodeType = ((declaringCnd == null) ? null
+                                                                           : declaringCnd.getNodeTypeDefinition(typeName));
+
+                if (nodeType != null) {
+                    externalTypes.add(nodeType);
+
+                    for (final QualifiedName superType : nodeType.getSupertypes()) {
+                        typeNames.add(superType.get());
+                    }
+
+                    break; // first declaration wins
                 }
             }
         }
+
+        return externalTypes;
+    }
+
+    /**
+     * @param cndFile the CND file whose contents are being hashed (cannot be <code>null</code>)
+     * @return the content hash or <code>null</code> if the file cannot be read
+     */
+    private String hash( final IFile cndFile ) {
+        InputStream stream = null;
+
+        try {
+            stream = cndFile.getContents();
+            return CndBuildState.hash(stream);
+        } catch (final Exception e) {
+            return null; // the file is rebuilt and the parse logs the error
+        } finally {
+            close(stream);
+        }
+    }
+
+    /**
+     * Makes sure the dependency graph and build state fields are set. They are read from the project's working location if they
+     * are not already in memory. The two are always saved together so one is never used without the other.
+     *
+     * @return <code>true</code> if an existing graph and state were found, <code>false</code> if new empty ones were created
+     */
+    private boolean loadBuildState() {
+        if ((this.dependencyGraph != null) && (this.buildState != null)) {
+            return true;
+        }
+
+        final File graphFile = getWorkingFile(DEPENDENCY_GRAPH_FILE_NAME);
+        final File stateFile = getWorkingFile(BUILD_STATE_FILE_NAME);
+
+        if ((graphFile != null) && graphFile.exists() && stateFile.exists()) {
+            Reader graphReader = null;
+            Reader stateReader = null;
+
+            try {
+                graphReader = new InputStreamReader(new FileInputStream(graphFile), UTF_8);
+                stateReader = new InputStreamReader(new FileInputStream(stateFile), UTF_8);
+                this.dependencyGraph = CndDependencyGraph.read(graphReader);
+                this.buildState = CndBuildState.read(stateReader);
+                return true;
+            } catch (final IOException e) {
+                // a full build recreates the graph and state
+                graphFile.delete();
+                stateFile.delete();
+            } finally {
+                close(graphReader);
+                close(stateReader);
+            }
+        }
+
+        this.dependencyGraph = new CndDependencyGraph();
+        this.buildState = new CndBuildState();
+        return false;
+    }
+
+    /**
+     * @param fileName the name of the file (cannot be <code>null</code>)
+     * @return the file in the project's working location (<code>null</code> if project has no working location)
+     */
+    private File getWorkingFile( final String fileName ) {
+        final IPath location = getProject().getWorkingLocation(PLUGIN_ID);
+        return ((location == null) ? null : location.append(fileName).toFile());
+    }
+
+    /**
+     * @param cndFile the CND file whose dependency graph path is being requested (cannot be <code>null</code>)
+     * @return the project-relative path (never <code>null</code>)
+     */
+    private String getPath( final IFile cndFile ) {
+        return cndFile.getProjectRelativePath().toString();
+    }
+
+    /**
+     * Parses a CND file only once per build. Safe to call from multiple threads.
+     *
+     * @param cndFile the CND file being parsed (cannot be <code>null</code>)
+     * @param parsedCnds the CNDs parsed during this build (cannot be <code>null</code>)
+     * @return the parsed CND (never <code>null</code>)
+     */
+    ParsedCnd parse( final IFile cndFile,
+                     final ConcurrentMap<IFile, ParsedCnd> parsedCnds ) {
+        final ParsedCnd existing = parsedCnds.get(cndFile);
+
+        if (existing != null) {
+            return existing;
+        }
+
+        final List<Throwable> errors = new ArrayList<Throwable>();
+        final long timeStamp = cndFile.getLocalTimeStamp(); // before reading so later changes are not missed
+        CompactNodeTypeDefinition cnd = null;
+        String hash = null;
+        DigestInputStream stream = null;
+
+        try {
+            // hash the contents while they are being read
+            stream = new DigestInputStream(cndFile.getContents(), CndBuildState.newDigest());
+            cnd = new CndImporter().importFrom(stream, errors, cndFile.getName());
+            hash = CndBuildState.toHex(stream.getMessageDigest());
+        } catch (final Exception e) {
+            Activator.getSharedInstance().getLog().log(new Status(IStatus.ERROR, PLUGIN_ID,
+                                                                  NLS.bind(CndMessages.cndFileParseError, cndFile.getName()), e));
+            errors.clear(); // no markers when the file cannot be read
+        } finally {
+            close(stream);
+        }
+
+        // another thread may have parsed the same file at the same time
+        final ParsedCnd parsed = new ParsedCnd(cnd, errors, timeStamp, hash);
+        final ParsedCnd winner = parsedCnds.putIfAbsent(cndFile, parsed);
+        return ((winner == null) ? parsed : winner);
+    }
+
+    /**
+     * Runs a task for each CND file and reports progress. When running in parallel the files are processed by a bounded group of
+     * jobs, one per available processor, while the calling thread reports progress and watches for cancellation.
+     *
+     * @param cndFiles the CND files being processed (cannot be <code>null</code>)
+     * @param task the task being run (cannot be <code>null</code>)
+     * @param parallel <code>true</code> if the files can be processed in parallel
+     * @param monitor the progress monitor (cannot be <code>null</code>)
+     * @throws CoreException if the jobs stopped before all files were processed
+     * @throws OperationCanceledException if the build is canceled
+     */
+    private void runForEach( final Collection<IFile> cndFiles,
+                             final CndFileTask task,
+                             final boolean parallel,
+                             final IProgressMonitor monitor ) throws CoreException {
+        final int maxJobs = (parallel ? Runtime.getRuntime().availableProcessors() : 1);
+
+        try {
+            ParallelRunner.run(cndFiles, task, maxJobs, CndMessages.cndBuildTaskName, monitor);
+        } catch (final OperationCanceledException e) {
+            cancel(); // all jobs have stopped
+        }
+    }
+
+    /**
+     * Writes the project's dependency graph and build state to the project's working location.
+     */
+    private void saveBuildState() {
+        final File graphFile = getWorkingFile(DEPENDENCY_GRAPH_FILE_NAME);
+        final File stateFile = getWorkingFile(BUILD_STATE_FILE_NAME);
+
+        if ((graphFile == null) || (this.dependencyGraph == null) || (this.buildState == null)) {
+            return;
+        }
+
+        Writer graphWriter = null;
+        Writer stateWriter = null;
+        boolean saved = false;
+
+        try {
+            graphWriter = new OutputStreamWriter(new FileOutputStream(graphFile), UTF_8);
+            this.dependencyGraph.write(graphWriter);
+            stateWriter = new OutputStreamWriter(new FileOutputStream(stateFile), UTF_8);
+            this.buildState.write(stateWriter);
+            saved = true;
+        } catch (final IOException e) {
+            Activator.getSharedInstance().getLog().log(new Status(IStatus.ERROR, PLUGIN_ID, null, e));
+        } finally {
+            close(graphWriter);
+            close(stateWriter);
+
+            // a full build recreates the graph and state
+            if (!saved) {
+                graphFile.delete();
+                stateFile.delete();
+            }
+        }
+    }
+
+    /**
+     * Only deletes the existing markers that are not problems anymore and only creates markers for new problems. Must be called
+     * from within a workspace runnable so that all marker changes are reported in one resource change event.
+     *
+     * @param cndFile the CND file whose problem markers are being updated (cannot be <code>null</code>)
+     * @param problems the current problems of the CND file (cannot be <code>null</code>)
+     * @throws CoreException if markers cannot be found, deleted, or created
+     */
+    void updateMarkers( final IFile cndFile,
+                        final List<Problem> problems ) throws CoreException {
+        assert (cndFile != null) : "file is null"; //$NON-NLS-1$
+
+        if (!cndFile.exists()) {
+            return;
+        }
+
+        // index existing markers by problem (there can be duplicate problems)
+        final Map<Problem, List<IMarker>> existing = new HashMap<Problem, List<IMarker>>();
+
+        for (final IMarker marker : cndFile.findMarkers(CND_PROBLEM_MARKER, true, IResource.DEPTH_ZERO)) {
+            final Problem problem = new Problem(marker.getAttribute(IMarker.SEVERITY, IMarker.SEVERITY_ERROR),
+                                                marker.getAttribute(CODE, NO_CODE),
+                                                marker.getAttribute(IMarker.MESSAGE, Utils.EMPTY_STRING),
+                                                marker.getAttribute(IMarker.LINE_NUMBER, -1),
+                                                marker.getAttribute(IMarker.CHAR_START, -1));
+            List<IMarker> markers = existing.get(problem);
+
+            if (markers == null) {
+                markers = new ArrayList<IMarker>(1);
+                existing.put(problem, markers);
+            }
+
+            markers.add(marker);
+        }
+
+        // keep markers of problems that still exist
+        final List<Problem> additions = new ArrayList<Problem>();
+
+        for (final Problem problem : problems) {
+            final List<IMarker> markers = existing.get(problem);
+
+            if ((markers == null) || markers.isEmpty()) {
+                additions.add(problem);
+            } else {
+                markers.remove(markers.size() - 1);
+            }
+        }
+
+        // remove markers of problems that no longer exist
+        final List<IMarker> removals = new ArrayList<IMarker>();
+
+        for (final List<IMarker> markers : existing.values()) {
+            removals.addAll(markers);
+        }
+
+        if (!removals.isEmpty()) {
+            cndFile.getWorkspace().deleteMarkers(removals.toArray(new IMarker[removals.size()]));
+            CndMetrics.get().add(MARKERS_DELETED, removals.size());
+        }
+
+        for (final Problem problem : additions) {
+            final IMarker marker = cndFile.createMarker(CND_PROBLEM_MARKER);
+            marker.setAttributes(problem.toAttributes());
+        }
+
+        CndMetrics.get().add(MARKERS_CREATED, additions.size());
     }
 
     /**
@@ -201,8 +805,9 @@ public final class CndProjectBuilder extends IncrementalProjectBuilder {
      */
     @Override
     protected void clean( final IProgressMonitor monitor ) throws CoreException {
+        deleteBuildState();
         final CndVisitor visitor = new CndVisitor();
-        getProject().accept(visitor); // gather all CNDs in project
+        getProject().accept(visitor, IResource.NONE); // gather all CNDs in project
 
         try {
             final Collection<IFile> cndFilesToClean = visitor.getCndFiles();
@@ -227,12 +832,142 @@ public final class CndProjectBuilder extends IncrementalProjectBuilder {
     }
 
     /**
-     * The <code>CndVisitor</code> gathers CND files that need their problem markers refreshed. A new visitor must be constructed
-     * for each build.
+     * Work done for one CND file during a build. Tasks may be run concurrently for different files.
+     */
+    abstract static class CndFileTask implements ParallelRunner.Task<IFile> {
+
+        /**
+         * {@inheritDoc}
+         *
+         * @see org.jboss.tools.modeshape.jcr.ParallelRunner.Task#getName(java.lang.Object)
+         */
+        @Override
+        public String getName( final IFile cndFile ) {
+            return NLS.bind(CndMessages.cndBuildSubTaskName, cndFile.getName());
+        }
+    }
+
+    /**
+     * The result of parsing a CND file.
+     */
+    static final class ParsedCnd {
+
+        final CompactNodeTypeDefinition cnd;
+        final List<Throwable> errors;
+        final String hash;
+        final long timeStamp;
+
+        /**
+         * @param cnd the CND or <code>null</code> if the file could not be read
+         * @param errors the parse errors (cannot be <code>null</code>)
+         * @param timeStamp the local time stamp of the file before it was read
+         * @param hash the content hash or <code>null</code> if the file could not be read
+         */
+        ParsedCnd( final CompactNodeTypeDefinition cnd,
+                   final List<Throwable> errors,
+                   final long timeStamp,
+                   final String hash ) {
+            this.cnd = cnd;
+            this.errors = errors;
+            this.timeStamp = timeStamp;
+            this.hash = hash;
+        }
+    }
+
+    /**
+     * A CND file problem. Two problems are equal if they would produce the same problem marker.
+     */
+    static final class Problem {
+
+        final int charStart;
+        final int code;
+        final int line;
+        final String message;
+        final int severity;
+
+        /**
+         * @param severity the marker severity
+         * @param code the validation status code or {@link CndProjectBuilder#NO_CODE}
+         * @param message the marker message (cannot be <code>null</code>)
+         * @param line the line number or <code>-1</code> if unknown
+         * @param charStart the index of the first character or <code>-1</code> if unknown
+         */
+        Problem( final int severity,
+                 final int code,
+                 final String message,
+                 final int line,
+                 final int charStart ) {
+            this.severity = severity;
+            this.code = code;
+            this.message = message;
+            this.line = line;
+            this.charStart = charStart;
+        }
+
+        /**
+         * {@inheritDoc}
+         *
+         * @see java.lang.Object#equals(java.lang.Object)
+         */
+        @Override
+        public boolean equals( final Object obj ) {
+            if (this == obj) {
+                return true;
+            }
+
+            if ((obj == null) || !getClass().equals(obj.getClass())) {
+                return false;
+            }
+
+            final Problem that = (Problem)obj;
+            return ((this.severity == that.severity) && (this.code == that.code) && (this.line == that.line)
+                    && (this.charStart == that.charStart) && this.message.equals(that.message));
+        }
+
+        /**
+         * {@inheritDoc}
+         *
+         * @see java.lang.Object#hashCode()
+         */
+        @Override
+        public int hashCode() {
+            return Utils.hashCode(this.severity, this.code, this.message, this.line, this.charStart);
+        }
+
+        /**
+         * @return the marker attributes (never <code>null</code>)
+         */
+        Map<String, Object> toAttributes() {
+            final Map<String, Object> attributes = new HashMap<String, Object>();
+            attributes.put(IMarker.SEVERITY, this.severity);
+            attributes.put(IMarker.MESSAGE, this.message);
+
+            if (this.code != NO_CODE) {
+                attributes.put(CODE, this.code);
+            }
+
+            if (this.line != -1) {
+                attributes.put(IMarker.LINE_NUMBER, this.line);
+            }
+
+            if (this.charStart != -1) {
+                attributes.put(IMarker.CHAR_START, this.charStart);
+                attributes.put(IMarker.CHAR_END, this.charStart + 1);
+            }
+
+            return attributes;
+        }
+    }
+
+    /**
+     * The <code>CndVisitor</code> gathers CND files that need their problem markers refreshed. Subtrees that cannot contain
+     * source CND files (derived resources, team private members, and folders whose name starts with a dot) are not visited. A new
+     * visitor must be constructed for each build.
      */
-    class CndVisitor implements IResourceDeltaVisitor, IResourceVisitor {
+    class CndVisitor implements IResourceDeltaVisitor, IResourceProxyVisitor {
 
         private final Collection<IFile> cndFiles = new ArrayList<IFile>();
+        private final Collection<String> removedCndPaths = new ArrayList<String>();
 
         /**
          * @return the CND files whose problem markers need to be refreshed (never <code>null</code>)
@@ -241,18 +976,44 @@ public final class CndProjectBuilder extends IncrementalProjectBuilder {
             return this.cndFiles;
         }
 
+        /**
+         * @return the project-relative paths of the CND files that have been deleted (never <code>null</code>)
+         */
+        public Collection<String> getRemovedCndPaths() {
+            return this.removedCndPaths;
+        }
+
+        /**
+         * @param name the folder name (cannot be <code>null</code>)
+         * @param derived <code>true</code> if the folder is derived
+         * @param teamPrivate <code>true</code> if the folder is a team private member
+         * @return <code>true</code> if the folder's members should not be visited
+         */
+        private boolean isPruned( final String name,
+                                  final boolean derived,
+                                  final boolean teamPrivate ) {
+            return (derived || teamPrivate || name.startsWith(".")); //$NON-NLS-1$
+        }
+
         /**
          * {@inheritDoc}
          *
-         * @see org.eclipse.core.resources.IResourceVisitor#visit(org.eclipse.core.resources.IResource)
+         * @see org.eclipse.core.resources.IResourceProxyVisitor#visit(org.eclipse.core.resources.IResourceProxy)
          */
         @Override
-        public boolean visit( final IResource resource ) {
-            if (JcrUiUtils.isCndFile(resource)) {
-                this.cndFiles.add((IFile)resource);
-            }
+        public boolean visit( final IResourceProxy proxy ) {
+            switch (proxy.getType()) {
+                case IResource.FILE:
+                    if (proxy.getName().endsWith('.' + CND)) {
+                        this.cndFiles.add((IFile)proxy.requestResource());
+                    }
 
-            return true; // visit resource's members
+                    return false;
+                case IResource.FOLDER:
+                    return !isPruned(proxy.getName(), proxy.isDerived(), proxy.isTeamPrivateMember());
+                default:
+                    return true; // visit project's members
+            }
         }
 
         /**
@@ -266,6 +1027,11 @@ public final class CndProjectBuilder extends IncrementalProjectBuilder {
 
             if (JcrUiUtils.isCndFile(resource)) {
                 this.cndFiles.add((IFile)resource);
+            } else if ((delta.getKind() == IResourceDelta.REMOVED) && (resource.getType() == IResource.FILE)
+                       && CND.equals(resource.getFileExtension())) {
+                this.removedCndPaths.add(resource.getProjectRelativePath().toString());
+            } else if (resource.getType() == IResource.FOLDER) {
+                return !isPruned(resource.getName(), resource.isDerived(), resource.isTeamPrivateMember());
             }
 
             return true; // visit delta's children
@@ -7,8 +7,14 @@
  */
 package org.jboss.tools.modeshape.jcr;
 
+import java.lang.management.ManagementFactory;
+import javax.management.ObjectName;
+import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Plugin;
+import org.eclipse.core.runtime.Status;
+import org.jboss.tools.modeshape.jcr.cnd.CndMetrics;
 import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceRegistration;
 
 /**
  * 
@@ -21,7 +27,14 @@ public class Activator extends Plugin {
     public static final String PLUGIN_ID = Utils.class.getPackage().getName();
 
     private static Activator _instance;
-    
+
+    /**
+     * The name the CND metrics MXBean is registered under (<code>null</code> if not registered).
+     */
+    private ObjectName metricsBeanName;
+
+    private ServiceRegistration<CndMetrics> metricsRegistration;
+
     /**
      * @return the shared instance
      */
@@ -38,5 +51,41 @@ public class Activator extends Plugin {
     public void start( BundleContext context ) throws Exception {
         super.start(context);
         _instance = this;
+        this.metricsRegistration = context.registerService(CndMetrics.class, CndMetrics.get(), null);
+
+        if (CndMetrics.isTracing(CndMetrics.JMX_OPTION)) {
+            try {
+                final ObjectName name = new ObjectName(CndMetrics.MXBEAN_NAME);
+                ManagementFactory.getPlatformMBeanServer().registerMBean(CndMetrics.get(), name);
+                this.metricsBeanName = name;
+            } catch (final Exception e) {
+                getLog().log(new Status(IStatus.ERROR, PLUGIN_ID, null, e));
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see org.eclipse.core.runtime.Plugin#stop(org.osgi.framework.BundleContext)
+     */
+    @Override
+    public void stop( BundleContext context ) throws Exception {
+        if (this.metricsBeanName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(this.metricsBeanName);
+            } catch (final Exception e) {
+                // nothing to do
+            } finally {
+                this.metricsBeanName = null;
+            }
+        }
+
+        if (this.metricsRegistration != null) {
+            this.metricsRegistration.unregister();
+            this.metricsRegistration = null;
+        }
+
+        super.stop(context);
     }
 }
@@ -0,0 +1,596 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ *
+ * See the LEGAL.txt file distributed with this work for information regarding copyright ownership and licensing.
+ *
+ * See the AUTHORS.txt file distributed with this work for a full listing of individual contributors.
+ */
+package org.jboss.tools.modeshape.jcr;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.eclipse.osgi.util.NLS;
+
+/**
+ * The binary format of the JCR model objects on the system clipboard. A payload starts with the format version and the number of
+ * objects, followed by the objects. Integers and lengths are written as variable length integers so that small values use one
+ * byte. Strings are written to a string table the first time they are used and are then written as their index in the table, so
+ * that names shared by the objects, like owner and type names, are only written once per payload.
+ */
+public final class JcrTransferCodec {
+
+    /**
+     * The version of the format written. Payloads with another version are not read.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * Don't allow construction.
+     */
+    private JcrTransferCodec() {
+        // nothing to do
+    }
+
+    /**
+     * Reads a payload written by an {@link Output}. Every size read is checked against the bytes left in the payload so that a
+     * corrupt payload fails with an {@link IOException} instead of allocating whatever length it claims. Not thread-safe.
+     */
+    public static final class Input {
+
+        private final DataInputStream in;
+
+        /**
+         * The strings read in the order they were added to the table.
+         */
+        private final List<String> strings = new ArrayList<String>();
+
+        /**
+         * @param payload the payload being read (cannot be <code>null</code>)
+         */
+        public Input( final byte[] payload ) {
+            Utils.verifyIsNotNull(payload, "payload"); //$NON-NLS-1$
+            this.in = new DataInputStream(new ByteArrayInputStream(payload));
+        }
+
+        /**
+         * @return the boolean read
+         * @throws IOException if there is a problem reading the payload
+         */
+        public boolean readBoolean() throws IOException {
+            return this.in.readBoolean();
+        }
+
+        /**
+         * @return the child node definition read (never <code>null</code>)
+         * @throws IOException if there is a problem reading the payload
+         */
+        public ChildNodeDefinition readChildNodeDefinition() throws IOException {
+            return readChildNodeDefinition(new OwnerProvider(readString()));
+        }
+
+        private ChildNodeDefinition readChildNodeDefinition( final ItemOwnerProvider ownerProvider ) throws IOException {
+            final ChildNodeDefinition childNodeDefn = new ChildNodeDefinition(ownerProvider);
+
+            // name and comments
+            childNodeDefn.setName(readString());
+            childNodeDefn.setComment(readString());
+
+            // attributes
+            childNodeDefn.setAutoCreated(readBoolean());
+            childNodeDefn.setMandatory(readBoolean());
+            childNodeDefn.setProtected(readBoolean());
+            childNodeDefn.setOnParentVersion(readInt());
+            childNodeDefn.setSameNameSiblings(readBoolean());
+
+            // default type
+            childNodeDefn.setDefaultPrimaryTypeName(readString());
+
+            { // required types
+                final String[] requiredTypes = readStrings();
+
+                if (requiredTypes.length != 0) {
+                    childNodeDefn.setRequiredPrimaryTypeNames(requiredTypes);
+                }
+            }
+
+            return childNodeDefn;
+        }
+
+        /**
+         * Reads the payload header.
+         *
+         * @return the number of objects in the payload
+         * @throws IOException if the version is not supported or there is a problem reading the payload
+         */
+        public int readHeader() throws IOException {
+            final int version = readVarInt();
+
+            if (version != VERSION) {
+                throw new IOException(NLS.bind(Messages.unsupportedTransferVersion, version));
+            }
+
+            return readSize();
+        }
+
+        /**
+         * @return the integer read
+         * @throws IOException if there is a problem reading the payload
+         */
+        public int readInt() throws IOException {
+            final int zigZag = readVarInt();
+            return ((zigZag >>> 1) ^ -(zigZag & 1));
+        }
+
+        /**
+         * @return the namespace mapping read (never <code>null</code>)
+         * @throws IOException if there is a problem reading the payload
+         */
+        public NamespaceMapping readNamespaceMapping() throws IOException {
+            final NamespaceMapping namespaceMapping = new NamespaceMapping();
+
+            // prefix
+            namespaceMapping.setPrefix(readString());
+
+            // uri
+            namespaceMapping.setUri(readString());
+
+            // comments
+            namespaceMapping.setComment(readString());
+
+            return namespaceMapping;
+        }
+
+        /**
+         * @return the node type definition, including its property and child node definitions, read (never <code>null</code>)
+         * @throws IOException if there is a problem reading the payload
+         */
+        public NodeTypeDefinition readNodeTypeDefinition() throws IOException {
+            final NodeTypeDefinition nodeTypeDefn = new NodeTypeDefinition();
+
+            // name and comments
+            nodeTypeDefn.setName(readString());
+            nodeTypeDefn.setComment(readString());
+
+            // attributes
+            nodeTypeDefn.setAbstract(readBoolean());
+            nodeTypeDefn.setMixin(readBoolean());
+            nodeTypeDefn.setOrderableChildNodes(readBoolean());
+            nodeTypeDefn.setQueryable(readBoolean());
+            nodeTypeDefn.setPrimaryItemName(readString());
+
+            // supertypes
+            for (final String superType : readStrings()) {
+                nodeTypeDefn.addSuperType(superType);
+            }
+
+            // property definitions are owned by the node type read, not by the owner name written with them
+            for (int i = readSize(); i > 0; --i) {
+                readString();
+                nodeTypeDefn.addPropertyDefinition(readPropertyDefinition(nodeTypeDefn));
+            }
+
+            // child node definitions
+            for (int i = readSize(); i > 0; --i) {
+                readString();
+                nodeTypeDefn.addChildNodeDefinition(readChildNodeDefinition(nodeTypeDefn));
+            }
+
+            return nodeTypeDefn;
+        }
+
+        /**
+         * @return the property definition read (never <code>null</code>)
+         * @throws IOException if there is a problem reading the payload
+         */
+        public PropertyDefinition readPropertyDefinition() throws IOException {
+            return readPropertyDefinition(new OwnerProvider(readString()));
+        }
+
+        private PropertyDefinition readPropertyDefinition( final ItemOwnerProvider ownerProvider ) throws IOException {
+            final PropertyDefinition propDefn = new PropertyDefinition(ownerProvider);
+
+            // name and comments
+            propDefn.setName(readString());
+            propDefn.setComment(readString());
+
+            // attributes
+            propDefn.setAutoCreated(readBoolean());
+            propDefn.setMandatory(readBoolean());
+            propDefn.setMultiple(readBoolean());
+            propDefn.setFullTextSearchable(readBoolean());
+            propDefn.setQueryOrderable(readBoolean());
+            propDefn.setProtected(readBoolean());
+            propDefn.setOnParentVersion(readInt());
+
+            { // query operators attribute
+                final String[] queryOps = readStrings();
+
+                if (queryOps.length != 0) {
+                    propDefn.setAvailableQueryOperators(queryOps);
+                }
+            }
+
+            // default values
+            for (final String defaultValue : readStrings()) {
+                propDefn.addDefaultValue(defaultValue);
+            }
+
+            // required type
+            propDefn.setRequiredType(readInt());
+
+            // value constraints
+            for (final String valueConstraint : readStrings()) {
+                propDefn.addValueConstraint(valueConstraint);
+            }
+
+            return propDefn;
+        }
+
+        /**
+         * Reads a length or a count. Every byte and every object written takes at least one byte, so a size larger than the bytes
+         * left in the payload can only come from a corrupt payload.
+         *
+         * @return the non-negative integer read
+         * @throws IOException if the integer is negative, is larger than the bytes left, or there is a problem reading the payload
+         */
+        public int readSize() throws IOException {
+            final int size = readVarInt();
+            final int remaining = this.in.available();
+
+            if ((size < 0) || (size > remaining)) {
+                throw new IOException(NLS.bind(Messages.invalidTransferSize, size, remaining));
+            }
+
+            return size;
+        }
+
+        /**
+         * @return the string read (never <code>null</code> but can be empty)
+         * @throws IOException if the string table reference is invalid or there is a problem reading the payload
+         */
+        public String readString() throws IOException {
+            final int ref = readVarInt();
+
+            if (ref == 0) {
+                return Utils.EMPTY_STRING;
+            }
+
+            final int count = this.strings.size();
+
+            if ((ref > 0) && (ref <= count)) {
+                return this.strings.get(ref - 1);
+            }
+
+            // new strings are always the next table entry
+            if (ref != (count + 1)) {
+                throw new IOException(NLS.bind(Messages.invalidTransferStringReference, ref, count));
+            }
+
+            final byte[] bytes = new byte[readSize()];
+            this.in.readFully(bytes);
+
+            final String value = new String(bytes, StandardCharsets.UTF_8);
+            this.strings.add(value);
+            return value;
+        }
+
+        /**
+         * @return the strings read (never <code>null</code>)
+         * @throws IOException if there is a problem reading the payload
+         */
+        public String[] readStrings() throws IOException {
+            final String[] values = new String[readSize()];
+
+            for (int i = 0; i < values.length; ++i) {
+                values[i] = readString();
+            }
+
+            return values;
+        }
+
+        private int readVarInt() throws IOException {
+            int value = 0;
+
+            for (int shift = 0; shift < 35; shift += 7) {
+                final int b = this.in.readUnsignedByte();
+                value |= ((b & 0x7F) << shift);
+
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+
+            throw new IOException(Messages.invalidTransferVarInt);
+        }
+    }
+
+    /**
+     * Writes a payload that can be read by an {@link Input}. Not thread-safe.
+     */
+    public static final class Output {
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(this.bytes);
+
+        /**
+         * The index in the string table, plus one, keyed by string.
+         */
+        private final Map<String, Integer> strings = new HashMap<String, Integer>();
+
+        /**
+         * @return the payload written so far (never <code>null</code>)
+         * @throws IOException if there is a problem flushing the payload
+         */
+        public byte[] toByteArray() throws IOException {
+            this.out.flush();
+            return this.bytes.toByteArray();
+        }
+
+        /**
+         * @param value the boolean being written
+         * @throws IOException if there is a problem writing to the payload
+         */
+        public void writeBoolean( final boolean value ) throws IOException {
+            this.out.writeBoolean(value);
+        }
+
+        /**
+         * @param childNodeDefn the child node definition being written (cannot be <code>null</code>)
+         * @throws IOException if there is a problem writing to the payload
+         */
+        public void writeChildNodeDefinition( final ChildNodeDefinition childNodeDefn ) throws IOException {
+            Utils.verifyIsNotNull(childNodeDefn, "childNodeDefn"); //$NON-NLS-1$
+
+            // owner qualified name
+            writeOwner(childNodeDefn.getDeclaringNodeTypeDefinitionName());
+
+            // name and comments
+            writeString(childNodeDefn.getName());
+            writeString(childNodeDefn.getComment());
+
+            // attributes
+            writeBoolean(childNodeDefn.isAutoCreated());
+            writeBoolean(childNodeDefn.isMandatory());
+            writeBoolean(childNodeDefn.isProtected());
+            writeInt(childNodeDefn.getOnParentVersion());
+            writeBoolean(childNodeDefn.allowsSameNameSiblings());
+
+            // default type
+            writeString(childNodeDefn.getDefaultPrimaryTypeName());
+
+            // required types
+            writeStrings(childNodeDefn.getRequiredPrimaryTypeNames());
+        }
+
+        /**
+         * Writes the payload header. Must be written first.
+         *
+         * @param count the number of objects in the payload
+         * @throws IOException if there is a problem writing to the payload
+         */
+        public void writeHeader( final int count ) throws IOException {
+            writeSize(VERSION);
+            writeSize(count);
+        }
+
+        /**
+         * Writes an integer that may be negative. Small negative values use as few bytes as small positive values.
+         *
+         * @param value the integer being written
+         * @throws IOException if there is a problem writing to the payload
+         */
+        public void writeInt( final int value ) throws IOException {
+            writeVarInt((value << 1) ^ (value >> 31));
+        }
+
+        /**
+         * @param namespaceMapping the namespace mapping being written (cannot be <code>null</code>)
+         * @throws IOException if there is a problem writing to the payload
+         */
+        public void writeNamespaceMapping( final NamespaceMapping namespaceMapping ) throws IOException {
+            Utils.verifyIsNotNull(namespaceMapping, "namespaceMapping"); //$NON-NLS-1$
+
+            // prefix
+            writeString(namespaceMapping.getPrefix());
+
+            // uri
+            writeString(namespaceMapping.getUri());
+
+            // comments
+            writeString(namespaceMapping.getComment());
+        }
+
+        /**
+         * @param nodeTypeDefn the node type definition, including its property and child node definitions, being written (cannot
+         *        be <code>null</code>)
+         * @throws IOException if there is a problem writing to the payload
+         */
+        public void writeNodeTypeDefinition( final NodeTypeDefinition nodeTypeDefn ) throws IOException {
+            Utils.verifyIsNotNull(nodeTypeDefn, "nodeTypeDefn"); //$NON-NLS-1$
+
+            // name and comments
+            writeString(nodeTypeDefn.getName());
+            writeString(nodeTypeDefn.getComment());
+
+            // attributes
+            writeBoolean(nodeTypeDefn.isAbstract());
+            writeBoolean(nodeTypeDefn.isMixin());
+            writeBoolean(nodeTypeDefn.hasOrderableChildNodes());
+            writeBoolean(nodeTypeDefn.isQueryable());
+            writeString(nodeTypeDefn.getPrimaryItemName());
+
+            // supertypes
+            writeStrings(nodeTypeDefn.getDeclaredSupertypeNames());
+
+            { // property definitions
+                final List<PropertyDefinition> propertyDefinitions = nodeTypeDefn.getPropertyDefinitions();
+                writeSize(propertyDefinitions.size());
+
+                for (final PropertyDefinition propDefn : propertyDefinitions) {
+                    writePropertyDefinition(propDefn);
+                }
+            }
+
+            { // child node definitions
+                final List<ChildNodeDefinition> childNodeDefinitions = nodeTypeDefn.getChildNodeDefinitions();
+                writeSize(childNodeDefinitions.size());
+
+                for (final ChildNodeDefinition childNodeDefn : childNodeDefinitions) {
+                    writeChildNodeDefinition(childNodeDefn);
+                }
+            }
+        }
+
+        private void writeOwner( final QualifiedName owner ) throws IOException {
+            writeString((owner == null) ? null : owner.get());
+        }
+
+        /**
+         * @param propDefn the property definition being written (cannot be <code>null</code>)
+         * @throws IOException if there is a problem writing to the payload
+         */
+        public void writePropertyDefinition( final PropertyDefinition propDefn ) throws IOException {
+            Utils.verifyIsNotNull(propDefn, "propDefn"); //$NON-NLS-1$
+
+            // owner qualified name
+            writeOwner(propDefn.getDeclaringNodeTypeDefinitionName());
+
+            // name and comments
+            writeString(propDefn.getName());
+            writeString(propDefn.getComment());
+
+            // attributes
+            writeBoolean(propDefn.isAutoCreated());
+            writeBoolean(propDefn.isMandatory());
+            writeBoolean(propDefn.isMultiple());
+            writeBoolean(propDefn.isFullTextSearchable());
+            writeBoolean(propDefn.isQueryOrderable());
+            writeBoolean(propDefn.isProtected());
+            writeInt(propDefn.getOnParentVersion());
+
+            // query operators attribute
+            writeStrings(propDefn.getAvailableQueryOperators());
+
+            // default values
+            writeStrings(propDefn.getDefaultValuesAsStrings());
+
+            // required type
+            writeInt(propDefn.getRequiredType());
+
+            // value constraints
+            writeStrings(propDefn.getValueConstraints());
+        }
+
+        /**
+         * @param size the non-negative integer being written
+         * @throws IOException if there is a problem writing to the payload
+         */
+        public void writeSize( final int size ) throws IOException {
+            assert (size >= 0) : "size is negative"; //$NON-NLS-1$
+            writeVarInt(size);
+        }
+
+        /**
+         * A <code>null</code> string is read as an empty string.
+         *
+         * @param value the string being written (can be <code>null</code> or empty)
+         * @throws IOException if there is a problem writing to the payload
+         */
+        public void writeString( final String value ) throws IOException {
+            if (Utils.isEmpty(value)) {
+                writeSize(0);
+                return;
+            }
+
+            final Integer ref = this.strings.get(value);
+
+            if (ref != null) {
+                writeSize(ref);
+                return;
+            }
+
+            final int newRef = (this.strings.size() + 1);
+            this.strings.put(value, newRef);
+
+            final byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeSize(newRef);
+            writeSize(utf8.length);
+            this.out.write(utf8);
+        }
+
+        /**
+         * @param values the strings being written (can be <code>null</code>)
+         * @throws IOException if there is a problem writing to the payload
+         */
+        public void writeStrings( final Collection<String> values ) throws IOException {
+            if (values == null) {
+                writeSize(0);
+            } else {
+                writeSize(values.size());
+
+                for (final String value : values) {
+                    writeString(value);
+                }
+            }
+        }
+
+        /**
+         * @param values the strings being written (can be <code>null</code>)
+         * @throws IOException if there is a problem writing to the payload
+         */
+        public void writeStrings( final String[] values ) throws IOException {
+            if (values == null) {
+                writeSize(0);
+            } else {
+                writeSize(values.length);
+
+                for (final String value : values) {
+                    writeString(value);
+                }
+            }
+        }
+
+        private void writeVarInt( int value ) throws IOException {
+            while ((value & ~0x7F) != 0) {
+                this.out.writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+
+            this.out.writeByte(value);
+        }
+    }
+
+    /**
+     * The owner of a property or child node definition read on its own, known only by its name.
+     */
+    private static class OwnerProvider implements ItemOwnerProvider {
+
+        private final QualifiedName qName;
+
+        /**
+         * @param qualifiedName a string representation of the qualified name (can be <code>null</code> or empty)
+         */
+        OwnerProvider( final String qualifiedName ) {
+            this.qName = QualifiedName.parse(qualifiedName);
+        }
+
+        /**
+         * {@inheritDoc}
+         *
+         * @see org.jboss.tools.modeshape.jcr.ItemOwnerProvider#getOwnerQualifiedName()
+         */
+        @Override
+        public QualifiedName getOwnerQualifiedName() {
+            return this.qName;
+        }
+    }
+}
@@ -46,6 +46,12 @@ public final class Messages extends NLS {
      */
     public static String defaultValue;
 
+    /**
+     * A message indicating a property definition default value does not satisfy any of the property definition's value constraints.
+     * Two parameters, the property definition name and the default value, are required.
+     */
+    public static String defaultValueDoesNotSatisfyValueConstraints;
+
     /**
      * A message indicating a property definition has default values but that property has been marked as a variant. One parameter,
      * the property definition name, is required.
@@ -250,6 +256,23 @@ public final class Messages extends NLS {
      */
     public static String invalidPrefixForBuiltInNamespaceUri;
 
+    /**
+     * A message indicating a size read from clipboard data is negative or larger than the data left. Two parameters, the size and
+     * the number of bytes left, are required.
+     */
+    public static String invalidTransferSize;
+
+    /**
+     * A message indicating clipboard data refers to a string that is neither in its string table nor the next table entry. Two
+     * parameters, the string reference and the number of strings in the table, are required.
+     */
+    public static String invalidTransferStringReference;
+
+    /**
+     * A message indicating clipboard data has a variable length integer with too many bytes.
+     */
+    public static String invalidTransferVarInt;
+
     /**
      * A message indicating an invalid URI was found. One parameter, the invalid URI, is required.
      */
@@ -261,6 +284,12 @@ public final class Messages extends NLS {
      */
     public static String invalidUriForBuiltInNamespacePrefix;
 
+    /**
+     * A message indicating a value constraint does not have a valid syntax for the property type. Two parameters, the value
+     * constraint and the property type, are required.
+     */
+    public static String invalidValueConstraint;
+
     /**
      * An error message indicating that the JSR built-ins CND could not be found in the workspace. One parameter, the path of the
      * CND file, is required.
@@ -378,6 +407,12 @@ public final class Messages extends NLS {
      */
     public static String okValidationMsg;
 
+    /**
+     * A message indicating parallel work stopped before all items were processed. Two parameters, the name of the work and the
+     * number of unprocessed items, are required.
+     */
+    public static String parallelRunIncomplete;
+
     /**
      * A message indicating a node type definition has a primary item but has been marked as a variant. One parameter, the node type
      * definition name, is required.
@@ -433,6 +468,12 @@ public final class Messages extends NLS {
      */
     public static String stringIsEmpty;
 
+    /**
+     * A message indicating a node type definition is a direct or indirect supertype of itself. Two parameters, the node type
+     * definition name and the names of the node types in the cycle, are required.
+     */
+    public static String superTypeCycle;
+
     /**
      * A message used for the required type name attribute.
      */
@@ -474,6 +515,12 @@ public final class Messages extends NLS {
      */
     public static String unexpectedTokenType;
 
+    /**
+     * A message indicating clipboard data was written in a format version that cannot be read. One parameter, the version, is
+     * required.
+     */
+    public static String unsupportedTransferVersion;
+
     /**
      * A message indicating a property definition has identified value constraints but has been marked as a variant. One parameter,
      * the property definition name, is required.
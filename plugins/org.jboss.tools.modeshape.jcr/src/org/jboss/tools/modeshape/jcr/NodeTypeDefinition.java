@@ -784,7 +784,7 @@ public class NodeTypeDefinition
      */
     @Override
     public void setDeclaredSuperTypeNames( final String[] newSuperTypes ) {
-        final List<QualifiedName> oldValue = this.superTypes.getSupportedItems();
+        final List<QualifiedName> oldValue = new ArrayList<QualifiedName>(this.superTypes.getSupportedItems());
         boolean changed = this.superTypes.clear();
 
         if (!Utils.isEmpty(newSuperTypes)) {
@@ -796,7 +796,8 @@ public class NodeTypeDefinition
         }
 
         if (changed) {
-            notifyChangeListeners(PropertyName.SUPERTYPES, oldValue, this.superTypes.getSupportedItems());
+            notifyChangeListeners(PropertyName.SUPERTYPES, oldValue,
+                                  new ArrayList<QualifiedName>(this.superTypes.getSupportedItems()));
         }
     }
 
@@ -0,0 +1,230 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ *
+ * See the LEGAL.txt file distributed with this work for information regarding copyright ownership and licensing.
+ *
+ * See the AUTHORS.txt file distributed with this work for a full listing of individual contributors.
+ */
+package org.jboss.tools.modeshape.jcr;
+
+import java.util.Collection;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.core.runtime.jobs.JobGroup;
+import org.eclipse.osgi.util.NLS;
+
+/**
+ * Runs a task for each item of a collection, either on the calling thread or in a bounded group of jobs that take items from a
+ * shared queue. Either way the calling thread reports progress once for each completed item and watches for cancellation, and
+ * the progress monitor is only used by the calling thread. When running in parallel, nothing is left running when
+ * {@link #run(Collection, Task, int, String, IProgressMonitor)} returns or throws.
+ */
+public final class ParallelRunner {
+
+    /**
+     * The number of milliseconds between progress and cancellation checks while jobs are running.
+     */
+    private static final long POLL_INTERVAL = 100;
+
+    /**
+     * Work done for one item. Tasks may be run concurrently for different items.
+     *
+     * @param <T> the type of the items
+     */
+    public interface Task<T> {
+
+        /**
+         * Called from the calling thread.
+         *
+         * @param item the item whose progress is being reported (never <code>null</code>)
+         * @return the progress sub task name shown when the item completes (can be <code>null</code>)
+         */
+        String getName( T item );
+
+        /**
+         * @param item the item being processed (never <code>null</code>)
+         */
+        void run( T item );
+    }
+
+    /**
+     * Stops the jobs and waits for the items already being processed to finish.
+     *
+     * @param group the group of jobs being stopped (cannot be <code>null</code>)
+     */
+    private static void cancel( final JobGroup group ) {
+        group.cancel();
+        boolean interrupted = false;
+
+        while (true) {
+            try {
+                group.join(0, null);
+                break;
+            } catch (final InterruptedException e) {
+                interrupted = true; // keep waiting so that no task outlives the run
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static <T> void reportCompleted( final T item,
+                                             final Task<T> task,
+                                             final SubMonitor progress ) {
+        final String name = task.getName(item);
+
+        if (name != null) {
+            progress.subTask(name);
+        }
+
+        progress.worked(1);
+    }
+
+    /**
+     * Runs the task for each item. The items are processed in parallel only when there is more than one item and more than one
+     * job is allowed. A task failure is rethrown on the calling thread once all jobs have stopped, as it would be if the items
+     * were processed on the calling thread.
+     *
+     * @param <T> the type of the items
+     * @param items the items being processed (cannot be <code>null</code>)
+     * @param task the task run for each item (cannot be <code>null</code>)
+     * @param maxJobs the maximum number of jobs processing items at the same time
+     * @param jobName the name of the jobs (cannot be <code>null</code>)
+     * @param monitor the progress monitor (can be <code>null</code>)
+     * @throws CoreException if the jobs stopped before all items were processed without being canceled by the monitor
+     * @throws OperationCanceledException if the monitor is canceled or the calling thread is interrupted
+     */
+    public static <T> void run( final Collection<T> items,
+                                final Task<T> task,
+                                final int maxJobs,
+                                final String jobName,
+                                final IProgressMonitor monitor ) throws CoreException {
+        Utils.verifyIsNotNull(items, "items"); //$NON-NLS-1$
+        Utils.verifyIsNotNull(task, "task"); //$NON-NLS-1$
+        Utils.verifyIsNotNull(jobName, "jobName"); //$NON-NLS-1$
+
+        final SubMonitor progress = SubMonitor.convert(monitor, items.size());
+        final int numJobs = Math.min(maxJobs, items.size());
+
+        if (numJobs < 2) {
+            for (final T item : items) {
+                if (progress.isCanceled()) {
+                    throw new OperationCanceledException();
+                }
+
+                task.run(item);
+                reportCompleted(item, task, progress);
+            }
+
+            return;
+        }
+
+        final Queue<T> pending = new ConcurrentLinkedQueue<T>(items);
+        final BlockingQueue<T> completed = new LinkedBlockingQueue<T>();
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        final JobGroup group = new JobGroup(jobName, numJobs, numJobs);
+
+        for (int i = 0; i < numJobs; ++i) {
+            final Job job = new Job(jobName) {
+
+                /**
+                 * {@inheritDoc}
+                 *
+                 * @see org.eclipse.core.runtime.jobs.Job#run(org.eclipse.core.runtime.IProgressMonitor)
+                 */
+                @Override
+                protected IStatus run( final IProgressMonitor jobMonitor ) {
+                    T item;
+
+                    while (!jobMonitor.isCanceled() && (failure.get() == null) && ((item = pending.poll()) != null)) {
+                        try {
+                            task.run(item);
+                        } catch (final Throwable e) {
+                            // the calling thread rethrows the first failure once all jobs have stopped
+                            failure.compareAndSet(null, e);
+                            return Status.CANCEL_STATUS;
+                        } finally {
+                            completed.add(item);
+                        }
+                    }
+
+                    return (jobMonitor.isCanceled() ? Status.CANCEL_STATUS : Status.OK_STATUS);
+                }
+            };
+
+            job.setJobGroup(group);
+            job.setSystem(true);
+            job.schedule();
+        }
+
+        int remaining = items.size();
+
+        try {
+            while (remaining > 0) {
+                if (progress.isCanceled()) {
+                    cancel(group);
+                    throw new OperationCanceledException();
+                }
+
+                final T item = completed.poll(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+
+                if (item != null) {
+                    reportCompleted(item, task, progress);
+                    --remaining;
+                } else if ((group.getState() == JobGroup.NONE) && completed.isEmpty()) {
+                    break; // all jobs stopped before all items were processed
+                }
+            }
+        } catch (final InterruptedException e) {
+            cancel(group);
+            Thread.currentThread().interrupt();
+            throw new OperationCanceledException();
+        }
+
+        // wait for the jobs to return
+        cancel(group);
+
+        // report the items that completed while the jobs were stopping
+        T item;
+
+        while ((item = completed.poll()) != null) {
+            reportCompleted(item, task, progress);
+            --remaining;
+        }
+
+        final Throwable e = failure.get();
+
+        if (e instanceof RuntimeException) {
+            throw (RuntimeException)e;
+        }
+
+        if (e instanceof Error) {
+            throw (Error)e;
+        }
+
+        if (remaining > 0) {
+            throw new CoreException(new Status(IStatus.ERROR, Activator.PLUGIN_ID, NLS.bind(Messages.parallelRunIncomplete,
+                                                                                             jobName, remaining)));
+        }
+    }
+
+    /**
+     * Don't allow construction.
+     */
+    private ParallelRunner() {
+        // nothing to do
+    }
+}
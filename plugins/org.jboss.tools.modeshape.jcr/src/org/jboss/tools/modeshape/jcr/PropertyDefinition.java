@@ -26,6 +26,7 @@ import org.jboss.tools.modeshape.jcr.attributes.PropertyAttributes;
 import org.jboss.tools.modeshape.jcr.attributes.PropertyType;
 import org.jboss.tools.modeshape.jcr.attributes.QueryOperators;
 import org.jboss.tools.modeshape.jcr.attributes.QueryOperators.QueryOperator;
+import org.jboss.tools.modeshape.jcr.attributes.ValueConstraintPredicate;
 import org.jboss.tools.modeshape.jcr.attributes.ValueConstraints;
 import org.jboss.tools.modeshape.jcr.cnd.CommentedCndElement;
 import org.jboss.tools.modeshape.jcr.preference.JcrPreferenceConstants;
@@ -531,6 +532,13 @@ public class PropertyDefinition implements ItemDefinition, PropertyDefinitionTem
         throw new IllegalArgumentException(NLS.bind(Messages.invalidGetStateRequest, propertyName));
     }
 
+    /**
+     * @return the value constraints compiled for the current property type (never <code>null</code> but can be empty)
+     */
+    public List<ValueConstraintPredicate> getCompiledValueConstraints() {
+        return this.valueConstraints.getPredicates(getType());
+    }
+
     /**
      * @return the type (never <code>null</code>)
      */
@@ -163,6 +163,32 @@ public final class Utils {
         return thisString.equals(thatString);
     }
 
+    /**
+     * @param text the text being escaped so that it fits on one line without tabs (cannot be <code>null</code>)
+     * @return the escaped text (never <code>null</code>)
+     */
+    public static String escape( final String text ) {
+        final StringBuilder builder = new StringBuilder(text.length());
+
+        for (int i = 0, length = text.length(); i < length; ++i) {
+            final char c = text.charAt(i);
+
+            if (c == '\\') {
+                builder.append("\\\\"); //$NON-NLS-1$
+            } else if (c == '\t') {
+                builder.append("\\t"); //$NON-NLS-1$
+            } else if (c == '\n') {
+                builder.append("\\n"); //$NON-NLS-1$
+            } else if (c == '\r') {
+                builder.append("\\r"); //$NON-NLS-1$
+            } else {
+                builder.append(c);
+            }
+        }
+
+        return builder.toString();
+    }
+
     /**
      * Compute a combined hash code from the supplied objects. This method always returns 0 if no objects are supplied.
      *
@@ -310,6 +336,40 @@ public final class Utils {
         return sb.toString();
     }
 
+    /**
+     * @param text the text being unescaped, as escaped by {@link #escape(String)} (cannot be <code>null</code>)
+     * @return the unescaped text (never <code>null</code>)
+     */
+    public static String unescape( final String text ) {
+        if (text.indexOf('\\') == -1) {
+            return text;
+        }
+
+        final StringBuilder builder = new StringBuilder(text.length());
+
+        for (int i = 0, length = text.length(); i < length; ++i) {
+            final char c = text.charAt(i);
+
+            if ((c == '\\') && (i + 1 < length)) {
+                final char next = text.charAt(++i);
+
+                if (next == 't') {
+                    builder.append('\t');
+                } else if (next == 'n') {
+                    builder.append('\n');
+                } else if (next == 'r') {
+                    builder.append('\r');
+                } else {
+                    builder.append(next);
+                }
+            } else {
+                builder.append(c);
+            }
+        }
+
+        return builder.toString();
+    }
+
     /**
      * @param items the items being upper-cased (cannot be <code>null</code>)
      * @return a new collection of upper-cased items
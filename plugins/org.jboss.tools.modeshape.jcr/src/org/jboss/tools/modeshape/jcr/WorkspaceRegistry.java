@@ -33,7 +33,7 @@ public class WorkspaceRegistry {
      * @return the shared instance of the workspace registry (never <code>null</code>)
      * @throws Exception if there is a problem loading the registry
      */
-    public static WorkspaceRegistry get() throws Exception {
+    public static synchronized WorkspaceRegistry get() throws Exception {
         if (_registry == null) {
             _registry = new WorkspaceRegistry();
         }
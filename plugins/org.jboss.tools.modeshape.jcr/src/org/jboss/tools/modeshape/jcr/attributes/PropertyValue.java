@@ -11,9 +11,7 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.math.BigDecimal;
-import java.text.SimpleDateFormat;
 import java.util.Calendar;
-import java.util.Date;
 import javax.jcr.Binary;
 import javax.jcr.PropertyType;
 import javax.jcr.RepositoryException;
@@ -189,11 +187,8 @@ public class PropertyValue implements Value {
     @Override
     public Calendar getDate() throws ValueFormatException {
         try {
-            // TODO how do you determine the format here
-            final SimpleDateFormat df = new SimpleDateFormat("yyyy-mm-dd hh:mm:ss"); //$NON-NLS-1$
             final Calendar cal = Calendar.getInstance();
-            final Date d1 = df.parse(this.value);
-            cal.setTime(d1);
+            cal.setTimeInMillis(ValueConstraintPredicate.parseDate(this.value));
             return cal;
         } catch (final Exception e) {
             final String from = PropertyType.nameFromValue(getType());
@@ -0,0 +1,394 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ *
+ * See the LEGAL.txt file distributed with this work for information regarding copyright ownership and licensing.
+ *
+ * See the AUTHORS.txt file distributed with this work for a full listing of individual contributors.
+ */
+package org.jboss.tools.modeshape.jcr.attributes;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import org.eclipse.osgi.util.NLS;
+import org.jboss.tools.modeshape.jcr.Messages;
+import org.jboss.tools.modeshape.jcr.QualifiedName;
+import org.jboss.tools.modeshape.jcr.Utils;
+
+/**
+ * A property definition value constraint compiled for a specific {@link PropertyType property type}. Compiling interprets the
+ * constraint text once so that checking a value does not re-parse it. Predicates are immutable and can be shared between threads.
+ * <p>
+ * The JSR-283 constraint syntax is used: a regular expression for STRING and URI, a range such as <code>[0,100)</code> for LONG,
+ * DOUBLE, DECIMAL, DATE, and BINARY (length), a name for NAME, a path optionally ending in <code>/*</code> for PATH, and
+ * <code>true</code> or <code>false</code> for BOOLEAN. REFERENCE, WEAKREFERENCE, and UNDEFINED constraints cannot be checked
+ * against a value and accept all values.
+ */
+public abstract class ValueConstraintPredicate {
+
+    private static final String ANY_DESCENDANT_SUFFIX = "/*"; //$NON-NLS-1$
+
+    private static final char EXCLUSIVE_END = ')';
+
+    private static final char EXCLUSIVE_START = '(';
+
+    private static final char INCLUSIVE_END = ']';
+
+    private static final char INCLUSIVE_START = '[';
+
+    /**
+     * The date format used by earlier versions of the editor.
+     */
+    private static final DateTimeFormatter LEGACY_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"); //$NON-NLS-1$
+
+    private static final String RANGE_DELIMITER = ","; //$NON-NLS-1$
+
+    /**
+     * @param constraint the value constraint being compiled (cannot be <code>null</code> or empty)
+     * @param propertyType the property type of the property definition owning the constraint (cannot be <code>null</code>)
+     * @return the compiled predicate (never <code>null</code>)
+     * @throws IllegalArgumentException if the constraint does not have a valid syntax for the property type
+     */
+    public static ValueConstraintPredicate compile( final String constraint,
+                                                    final PropertyType propertyType ) {
+        Utils.verifyIsNotEmpty(constraint, "constraint"); //$NON-NLS-1$
+        Utils.verifyIsNotNull(propertyType, "propertyType"); //$NON-NLS-1$
+
+        switch (propertyType) {
+            case STRING:
+            case URI:
+                return new PatternPredicate(constraint, propertyType);
+            case LONG:
+            case DOUBLE:
+            case DECIMAL:
+            case BINARY:
+            case DATE:
+                return new RangePredicate(constraint, propertyType);
+            case NAME:
+                return new NamePredicate(constraint);
+            case PATH:
+                return new PathPredicate(constraint);
+            case BOOLEAN:
+                return new BooleanPredicate(constraint);
+            default:
+                return new AcceptAllPredicate(constraint);
+        }
+    }
+
+    /**
+     * Parses a date in ISO 8601 format. A date without a time is the start of that day and a date without a time zone is in UTC.
+     * The <code>yyyy-MM-dd HH:mm:ss</code> format is also accepted.
+     *
+     * @param value the value being parsed (cannot be <code>null</code> or empty)
+     * @return the date as milliseconds since the epoch
+     * @throws IllegalArgumentException if the value is not a date
+     */
+    public static long parseDate( final String value ) {
+        Utils.verifyIsNotEmpty(value, "value"); //$NON-NLS-1$
+        final String date = value.trim();
+
+        try {
+            return OffsetDateTime.parse(date).toInstant().toEpochMilli();
+        } catch (final DateTimeParseException e) {
+            // try next format
+        }
+
+        try {
+            return LocalDateTime.parse(date).toInstant(ZoneOffset.UTC).toEpochMilli();
+        } catch (final DateTimeParseException e) {
+            // try next format
+        }
+
+        try {
+            return LocalDate.parse(date).atStartOfDay().toInstant(ZoneOffset.UTC).toEpochMilli();
+        } catch (final DateTimeParseException e) {
+            // try next format
+        }
+
+        try {
+            return LocalDateTime.parse(date, LEGACY_DATE_FORMAT).toInstant(ZoneOffset.UTC).toEpochMilli();
+        } catch (final DateTimeParseException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+
+    private final String constraint;
+
+    /**
+     * @param constraint the value constraint (cannot be <code>null</code> or empty)
+     */
+    protected ValueConstraintPredicate( final String constraint ) {
+        this.constraint = constraint;
+    }
+
+    /**
+     * @param value the value being checked (can be <code>null</code> or empty)
+     * @return <code>true</code> if the value satisfies this constraint (<code>false</code> if the value cannot be converted to the
+     *         property type)
+     */
+    public abstract boolean accepts( String value );
+
+    /**
+     * @return the value constraint this predicate was compiled from (never <code>null</code> or empty)
+     */
+    public String getConstraint() {
+        return this.constraint;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return this.constraint;
+    }
+
+    /**
+     * A constraint that cannot be checked against a value.
+     */
+    private static final class AcceptAllPredicate extends ValueConstraintPredicate {
+
+        AcceptAllPredicate( final String constraint ) {
+            super(constraint);
+        }
+
+        /**
+         * {@inheritDoc}
+         *
+         * @see org.jboss.tools.modeshape.jcr.attributes.ValueConstraintPredicate#accepts(java.lang.String)
+         */
+        @Override
+        public boolean accepts( final String value ) {
+            return true;
+        }
+    }
+
+    /**
+     * A BOOLEAN constraint.
+     */
+    private static final class BooleanPredicate extends ValueConstraintPredicate {
+
+        private final boolean expected;
+
+        BooleanPredicate( final String constraint ) {
+            super(constraint);
+            final String trimmed = constraint.trim();
+
+            if (Boolean.TRUE.toString().equalsIgnoreCase(trimmed)) {
+                this.expected = true;
+            } else if (Boolean.FALSE.toString().equalsIgnoreCase(trimmed)) {
+                this.expected = false;
+            } else {
+                throw new IllegalArgumentException(NLS.bind(Messages.invalidValueConstraint, constraint, PropertyType.BOOLEAN));
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         *
+         * @see org.jboss.tools.modeshape.jcr.attributes.ValueConstraintPredicate#accepts(java.lang.String)
+         */
+        @Override
+        public boolean accepts( final String value ) {
+            return (!Utils.isEmpty(value) && (Boolean.toString(this.expected).equalsIgnoreCase(value.trim())));
+        }
+    }
+
+    /**
+     * A NAME constraint.
+     */
+    private static final class NamePredicate extends ValueConstraintPredicate {
+
+        private final QualifiedName name;
+
+        NamePredicate( final String constraint ) {
+            super(constraint);
+            this.name = QualifiedName.parse(constraint.trim());
+        }
+
+        /**
+         * {@inheritDoc}
+         *
+         * @see org.jboss.tools.modeshape.jcr.attributes.ValueConstraintPredicate#accepts(java.lang.String)
+         */
+        @Override
+        public boolean accepts( final String value ) {
+            return (!Utils.isEmpty(value) && this.name.equals(QualifiedName.parse(value.trim())));
+        }
+    }
+
+    /**
+     * A PATH constraint. A path ending in <code>/*</code> matches the path and all its descendants.
+     */
+    private static final class PathPredicate extends ValueConstraintPredicate {
+
+        private final boolean includeDescendants;
+        private final String path;
+
+        PathPredicate( final String constraint ) {
+            super(constraint);
+            final String trimmed = constraint.trim();
+            this.includeDescendants = trimmed.endsWith(ANY_DESCENDANT_SUFFIX);
+            this.path = (this.includeDescendants ? trimmed.substring(0, trimmed.length() - ANY_DESCENDANT_SUFFIX.length()) : trimmed);
+        }
+
+        /**
+         * {@inheritDoc}
+         *
+         * @see org.jboss.tools.modeshape.jcr.attributes.ValueConstraintPredicate#accepts(java.lang.String)
+         */
+        @Override
+        public boolean accepts( final String value ) {
+            if (Utils.isEmpty(value)) {
+                return false;
+            }
+
+            final String trimmed = value.trim();
+
+            if (this.path.equals(trimmed)) {
+                return true;
+            }
+
+            return (this.includeDescendants && trimmed.startsWith(this.path) && (trimmed.length() > this.path.length())
+                    && (trimmed.charAt(this.path.length()) == '/'));
+        }
+    }
+
+    /**
+     * A STRING or URI constraint. The whole value must match the regular expression.
+     */
+    private static final class PatternPredicate extends ValueConstraintPredicate {
+
+        private final Pattern pattern;
+
+        PatternPredicate( final String constraint,
+                          final PropertyType propertyType ) {
+            super(constraint);
+
+            try {
+                this.pattern = Pattern.compile(constraint);
+            } catch (final PatternSyntaxException e) {
+                throw new IllegalArgumentException(NLS.bind(Messages.invalidValueConstraint, constraint, propertyType), e);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         *
+         * @see org.jboss.tools.modeshape.jcr.attributes.ValueConstraintPredicate#accepts(java.lang.String)
+         */
+        @Override
+        public boolean accepts( final String value ) {
+            return ((value != null) && this.pattern.matcher(value).matches());
+        }
+    }
+
+    /**
+     * A LONG, DOUBLE, DECIMAL, DATE, or BINARY range constraint. A missing bound is unbounded. BINARY ranges constrain the length of
+     * the value.
+     */
+    private static final class RangePredicate extends ValueConstraintPredicate {
+
+        private final BigDecimal lower;
+        private final boolean lowerInclusive;
+        private final PropertyType type;
+        private final BigDecimal upper;
+        private final boolean upperInclusive;
+
+        RangePredicate( final String constraint,
+                        final PropertyType propertyType ) {
+            super(constraint);
+            this.type = propertyType;
+
+            final String range = constraint.trim();
+            final int delimIndex = range.indexOf(RANGE_DELIMITER);
+
+            if ((range.length() < 3) || (delimIndex == -1) || (delimIndex != range.lastIndexOf(RANGE_DELIMITER))) {
+                throw new IllegalArgumentException(NLS.bind(Messages.invalidValueConstraint, constraint, propertyType));
+            }
+
+            final char start = range.charAt(0);
+            final char end = range.charAt(range.length() - 1);
+
+            if (((start != INCLUSIVE_START) && (start != EXCLUSIVE_START)) || ((end != INCLUSIVE_END) && (end != EXCLUSIVE_END))) {
+                throw new IllegalArgumentException(NLS.bind(Messages.invalidValueConstraint, constraint, propertyType));
+            }
+
+            this.lowerInclusive = (start == INCLUSIVE_START);
+            this.upperInclusive = (end == INCLUSIVE_END);
+
+            try {
+                this.lower = toNumber(range.substring(1, delimIndex).trim());
+                this.upper = toNumber(range.substring(delimIndex + 1, range.length() - 1).trim());
+            } catch (final RuntimeException e) {
+                throw new IllegalArgumentException(NLS.bind(Messages.invalidValueConstraint, constraint, propertyType), e);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         *
+         * @see org.jboss.tools.modeshape.jcr.attributes.ValueConstraintPredicate#accepts(java.lang.String)
+         */
+        @Override
+        public boolean accepts( final String value ) {
+            if (value == null) {
+                return false;
+            }
+
+            final BigDecimal number;
+
+            try {
+                number = ((this.type == PropertyType.BINARY) ? BigDecimal.valueOf(value.length()) : toNumber(value.trim()));
+            } catch (final RuntimeException e) {
+                return false; // not valid for type
+            }
+
+            if (number == null) {
+                return false;
+            }
+
+            if (this.lower != null) {
+                final int result = number.compareTo(this.lower);
+
+                if ((result < 0) || ((result == 0) && !this.lowerInclusive)) {
+                    return false;
+                }
+            }
+
+            if (this.upper != null) {
+                final int result = number.compareTo(this.upper);
+
+                if ((result > 0) || ((result == 0) && !this.upperInclusive)) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        /**
+         * @param text the text being converted (cannot be <code>null</code>)
+         * @return the number or <code>null</code> if the text is empty
+         */
+        private BigDecimal toNumber( final String text ) {
+            if (text.length() == 0) {
+                return null;
+            }
+
+            if (this.type == PropertyType.DATE) {
+                return BigDecimal.valueOf(parseDate(text));
+            }
+
+            return new BigDecimal(text);
+        }
+    }
+}
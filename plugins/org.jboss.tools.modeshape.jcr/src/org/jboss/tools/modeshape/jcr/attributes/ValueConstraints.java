@@ -7,9 +7,12 @@
  */
 package org.jboss.tools.modeshape.jcr.attributes;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import org.jboss.tools.modeshape.jcr.Utils;
+import org.jboss.tools.modeshape.jcr.cnd.CndMetrics;
 
 /**
  * The value constraints of a property definition.
@@ -21,6 +24,44 @@ public final class ValueConstraints extends ListAttributeState<String> {
      */
     public static final String NOTATION_PREFIX = "<"; //$NON-NLS-1$
 
+    /**
+     * The value constraints compiled for the property type they were last requested for (can be <code>null</code>). Cleared when
+     * a constraint is added or removed.
+     */
+    private volatile CompiledConstraints compiled;
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.jboss.tools.modeshape.jcr.attributes.ListAttributeState#add(java.lang.Comparable)
+     */
+    @Override
+    public boolean add( final String item ) {
+        final boolean added = super.add(item);
+
+        if (added) {
+            this.compiled = null;
+        }
+
+        return added;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.jboss.tools.modeshape.jcr.attributes.ListAttributeState#clear()
+     */
+    @Override
+    public boolean clear() {
+        final boolean cleared = super.clear();
+
+        if (cleared) {
+            this.compiled = null;
+        }
+
+        return cleared;
+    }
+
     /**
      * {@inheritDoc}
      * 
@@ -41,6 +82,55 @@ public final class ValueConstraints extends ListAttributeState<String> {
         return Utils.SINGLE_QUOTE;
     }
 
+    /**
+     * Constraints that do not have a valid syntax for the property type are not included. The compiled constraints are cached
+     * until a constraint is added or removed.
+     * 
+     * @param propertyType the property type the constraints are being compiled for (cannot be <code>null</code>)
+     * @return the compiled value constraints (never <code>null</code> but can be empty)
+     */
+    public List<ValueConstraintPredicate> getPredicates( final PropertyType propertyType ) {
+        Utils.verifyIsNotNull(propertyType, "propertyType"); //$NON-NLS-1$
+        CompiledConstraints current = this.compiled;
+
+        if ((current == null) || (current.type != propertyType)) {
+            final List<String> constraints = getSupportedItems();
+            final List<ValueConstraintPredicate> predicates = new ArrayList<ValueConstraintPredicate>(constraints.size());
+
+            for (final String constraint : constraints) {
+                try {
+                    predicates.add(ValueConstraintPredicate.compile(constraint, propertyType));
+                } catch (final IllegalArgumentException e) {
+                    // invalid syntax is reported by the validator
+                }
+            }
+
+            current = new CompiledConstraints(propertyType, Collections.unmodifiableList(predicates));
+            this.compiled = current;
+            CndMetrics.get().increment(CndMetrics.VALUE_CONSTRAINT_CACHE_MISSES);
+        } else {
+            CndMetrics.get().increment(CndMetrics.VALUE_CONSTRAINT_CACHE_HITS);
+        }
+
+        return current.predicates;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see org.jboss.tools.modeshape.jcr.attributes.ListAttributeState#remove(java.lang.Comparable)
+     */
+    @Override
+    public boolean remove( final String item ) {
+        final boolean removed = super.remove(item);
+
+        if (removed) {
+            this.compiled = null;
+        }
+
+        return removed;
+    }
+
     /**
      * @return the collection of value constraints (never <code>null</code>)
      */
@@ -61,4 +151,19 @@ public final class ValueConstraints extends ListAttributeState<String> {
         return result;
     }
 
+    /**
+     * The predicates compiled for a property type.
+     */
+    private static final class CompiledConstraints {
+
+        final List<ValueConstraintPredicate> predicates;
+        final PropertyType type;
+
+        CompiledConstraints( final PropertyType type,
+                             final List<ValueConstraintPredicate> predicates ) {
+            this.type = type;
+            this.predicates = predicates;
+        }
+    }
+
 }
@@ -0,0 +1,496 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ *
+ * See the LEGAL.txt file distributed with this work for information regarding copyright ownership and licensing.
+ *
+ * See the AUTHORS.txt file distributed with this work for a full listing of individual contributors.
+ */
+package org.jboss.tools.modeshape.jcr.cnd;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import org.jboss.tools.modeshape.jcr.ChildNodeDefinition;
+import org.jboss.tools.modeshape.jcr.NamespaceMapping;
+import org.jboss.tools.modeshape.jcr.NodeTypeDefinition;
+import org.jboss.tools.modeshape.jcr.PropertyDefinition;
+import org.jboss.tools.modeshape.jcr.QualifiedName;
+import org.jboss.tools.modeshape.jcr.Utils;
+
+/**
+ * The cross-CND dependencies of a collection of CNDs, like the CND files of a project. For each CND, identified by a path, the
+ * graph records the node types and namespace prefixes the CND declares and the ones it references but does not declare. Node
+ * types are referenced as supertypes, required types, and default types. Prefixes are referenced as qualifiers of item and type
+ * names.
+ * <p>
+ * The graph can be {@link #write(Writer) written} and {@link #read(Reader) read} so that it can be kept between sessions. Values
+ * are {@link Utils#escape(String) escaped} so that paths with tabs or line breaks survive. This class is not thread-safe.
+ */
+public final class CndDependencyGraph {
+
+    /**
+     * The first line of a persisted graph. Change when the format changes.
+     */
+    static final String HEADER = "cndDependencies 2"; //$NON-NLS-1$
+
+    private static final String DECLARED_PREFIX = "dp"; //$NON-NLS-1$
+    private static final String DECLARED_TYPE = "dt"; //$NON-NLS-1$
+    private static final String DELIM = "\t"; //$NON-NLS-1$
+    private static final String PATH = "cnd"; //$NON-NLS-1$
+    private static final String REFERENCED_PREFIX = "rp"; //$NON-NLS-1$
+    private static final String REFERENCED_TYPE = "rt"; //$NON-NLS-1$
+
+    /**
+     * @param reader the reader of a graph previously {@link #write(Writer) written} (cannot be <code>null</code>)
+     * @return the graph (never <code>null</code>)
+     * @throws IOException if the graph cannot be read or was written in a different format
+     */
+    public static CndDependencyGraph read( final Reader reader ) throws IOException {
+        Utils.verifyIsNotNull(reader, "reader"); //$NON-NLS-1$
+
+        final BufferedReader in = ((reader instanceof BufferedReader) ? (BufferedReader)reader : new BufferedReader(reader));
+
+        if (!HEADER.equals(in.readLine())) {
+            throw new IOException(HEADER);
+        }
+
+        final CndDependencyGraph graph = new CndDependencyGraph();
+        String path = null;
+        Entry entry = null;
+        String line;
+
+        while ((line = in.readLine()) != null) {
+            final int index = line.indexOf(DELIM);
+
+            if (index == -1) {
+                throw new IOException(line);
+            }
+
+            final String kind = line.substring(0, index);
+            final String value = Utils.unescape(line.substring(index + 1));
+
+            if (PATH.equals(kind)) {
+                if (path != null) {
+                    graph.put(path, entry);
+                }
+
+                path = value;
+                entry = new Entry();
+            } else if (entry == null) {
+                throw new IOException(line);
+            } else if (DECLARED_TYPE.equals(kind)) {
+                entry.declaredTypes.add(value);
+            } else if (DECLARED_PREFIX.equals(kind)) {
+                entry.declaredPrefixes.add(value);
+            } else if (REFERENCED_TYPE.equals(kind)) {
+                entry.referencedTypes.add(value);
+            } else if (REFERENCED_PREFIX.equals(kind)) {
+                entry.referencedPrefixes.add(value);
+            } else {
+                throw new IOException(line);
+            }
+        }
+
+        if (path != null) {
+            graph.put(path, entry);
+        }
+
+        return graph;
+    }
+
+    /**
+     * The entries keyed by CND path. Sorted so that written graphs are stable.
+     */
+    private final Map<String, Entry> entries = new TreeMap<String, Entry>();
+
+    /**
+     * The paths of the CNDs referencing each prefix.
+     */
+    private final Map<String, Set<String>> prefixReferencers = new HashMap<String, Set<String>>();
+
+    /**
+     * The paths of the CNDs declaring each node type.
+     */
+    private final Map<String, Set<String>> typeDeclarers = new HashMap<String, Set<String>>();
+
+    /**
+     * The paths of the CNDs referencing each node type.
+     */
+    private final Map<String, Set<String>> typeReferencers = new HashMap<String, Set<String>>();
+
+    private void addReference( final Map<String, Set<String>> index,
+                               final String key,
+                               final String path ) {
+        Set<String> paths = index.get(key);
+
+        if (paths == null) {
+            paths = new LinkedHashSet<String>();
+            index.put(key, paths);
+        }
+
+        paths.add(path);
+    }
+
+    /**
+     * Removes all CNDs from the graph.
+     */
+    public void clear() {
+        this.entries.clear();
+        this.prefixReferencers.clear();
+        this.typeDeclarers.clear();
+        this.typeReferencers.clear();
+    }
+
+    /**
+     * @param path the path of the CND being checked (cannot be <code>null</code> or empty)
+     * @return <code>true</code> if the CND is in the graph
+     */
+    public boolean contains( final String path ) {
+        Utils.verifyIsNotEmpty(path, "path"); //$NON-NLS-1$
+        return this.entries.containsKey(path);
+    }
+
+    /**
+     * @param path the path of the CND whose declared node types are being requested (cannot be <code>null</code> or empty)
+     * @return the names of the declared node types (never <code>null</code> but can be empty)
+     */
+    public Set<String> getDeclaredNodeTypes( final String path ) {
+        Utils.verifyIsNotEmpty(path, "path"); //$NON-NLS-1$
+        final Entry entry = this.entries.get(path);
+        return ((entry == null) ? Collections.<String>emptySet() : Collections.unmodifiableSet(entry.declaredTypes));
+    }
+
+    /**
+     * @param path the path of the CND whose declared prefixes are being requested (cannot be <code>null</code> or empty)
+     * @return the declared namespace prefixes (never <code>null</code> but can be empty)
+     */
+    public Set<String> getDeclaredPrefixes( final String path ) {
+        Utils.verifyIsNotEmpty(path, "path"); //$NON-NLS-1$
+        final Entry entry = this.entries.get(path);
+        return ((entry == null) ? Collections.<String>emptySet() : Collections.unmodifiableSet(entry.declaredPrefixes));
+    }
+
+    /**
+     * @param nodeTypeName the name of the node type whose declaring CNDs are being requested (cannot be <code>null</code> or empty)
+     * @return the paths of the CNDs declaring the node type (never <code>null</code> but can be empty)
+     */
+    public Set<String> getDeclaringPaths( final String nodeTypeName ) {
+        Utils.verifyIsNotEmpty(nodeTypeName, "nodeTypeName"); //$NON-NLS-1$
+        final Set<String> paths = this.typeDeclarers.get(nodeTypeName);
+        return ((paths == null) ? Collections.<String>emptySet() : Collections.unmodifiableSet(paths));
+    }
+
+    /**
+     * Finds the CNDs that directly or indirectly depend on the specified node types and prefixes. A CND depends on another CND if
+     * it references a node type or prefix the other CND declares.
+     *
+     * @param changedNodeTypes the names of the node types whose declarations have changed (can be <code>null</code> or empty)
+     * @param changedPrefixes the prefixes whose declarations have changed (can be <code>null</code> or empty)
+     * @return the paths of the dependent CNDs (never <code>null</code> but can be empty)
+     */
+    public Set<String> getDependentPaths( final Collection<String> changedNodeTypes,
+                                          final Collection<String> changedPrefixes ) {
+        final Set<String> dependents = new LinkedHashSet<String>();
+        final Deque<String> types = new ArrayDeque<String>();
+        final Deque<String> prefixes = new ArrayDeque<String>();
+        final Set<String> visitedTypes = new LinkedHashSet<String>();
+        final Set<String> visitedPrefixes = new LinkedHashSet<String>();
+
+        if (!Utils.isEmpty(changedNodeTypes)) {
+            types.addAll(changedNodeTypes);
+        }
+
+        if (!Utils.isEmpty(changedPrefixes)) {
+            prefixes.addAll(changedPrefixes);
+        }
+
+        while (!types.isEmpty() || !prefixes.isEmpty()) {
+            final Set<String> referencers;
+
+            if (types.isEmpty()) {
+                final String prefix = prefixes.pop();
+
+                if (!visitedPrefixes.add(prefix)) {
+                    continue;
+                }
+
+                referencers = this.prefixReferencers.get(prefix);
+            } else {
+                final String type = types.pop();
+
+                if (!visitedTypes.add(type)) {
+                    continue;
+                }
+
+                referencers = this.typeReferencers.get(type);
+            }
+
+            if (referencers != null) {
+                for (final String path : referencers) {
+                    if (dependents.add(path)) {
+                        // whatever the dependent declares may now be different for its own dependents
+                        final Entry entry = this.entries.get(path);
+                        types.addAll(entry.declaredTypes);
+                        prefixes.addAll(entry.declaredPrefixes);
+                    }
+                }
+            }
+        }
+
+        return dependents;
+    }
+
+    /**
+     * @return the paths of all the CNDs in the graph (never <code>null</code> but can be empty)
+     */
+    public Set<String> getPaths() {
+        return Collections.unmodifiableSet(this.entries.keySet());
+    }
+
+    /**
+     * @param path the path of the CND whose referenced node types are being requested (cannot be <code>null</code> or empty)
+     * @return the names of the node types referenced but not declared by the CND (never <code>null</code> but can be empty)
+     */
+    public Set<String> getReferencedNodeTypes( final String path ) {
+        Utils.verifyIsNotEmpty(path, "path"); //$NON-NLS-1$
+        final Entry entry = this.entries.get(path);
+        return ((entry == null) ? Collections.<String>emptySet() : Collections.unmodifiableSet(entry.referencedTypes));
+    }
+
+    private void put( final String path,
+                      final Entry entry ) {
+        this.entries.put(path, entry);
+
+        for (final String type : entry.declaredTypes) {
+            addReference(this.typeDeclarers, type, path);
+        }
+
+        for (final String type : entry.referencedTypes) {
+            addReference(this.typeReferencers, type, path);
+        }
+
+        for (final String prefix : entry.referencedPrefixes) {
+            addReference(this.prefixReferencers, prefix, path);
+        }
+    }
+
+    /**
+     * @param path the path of the CND being removed (cannot be <code>null</code> or empty)
+     * @return <code>true</code> if the CND was removed
+     */
+    public boolean remove( final String path ) {
+        Utils.verifyIsNotEmpty(path, "path"); //$NON-NLS-1$
+        final Entry entry = this.entries.remove(path);
+
+        if (entry == null) {
+            return false;
+        }
+
+        removeReferences(this.typeDeclarers, entry.declaredTypes, path);
+        removeReferences(this.typeReferencers, entry.referencedTypes, path);
+        removeReferences(this.prefixReferencers, entry.referencedPrefixes, path);
+        return true;
+    }
+
+    private void removeReferences( final Map<String, Set<String>> index,
+                                   final Set<String> keys,
+                                   final String path ) {
+        for (final String key : keys) {
+            final Set<String> paths = index.get(key);
+
+            if (paths != null) {
+                paths.remove(path);
+
+                if (paths.isEmpty()) {
+                    index.remove(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Replaces the dependencies of a CND with the ones found in the CND.
+     *
+     * @param path the path of the CND being updated (cannot be <code>null</code> or empty)
+     * @param cnd the CND (cannot be <code>null</code>)
+     */
+    public void update( final String path,
+                        final CompactNodeTypeDefinition cnd ) {
+        Utils.verifyIsNotEmpty(path, "path"); //$NON-NLS-1$
+        Utils.verifyIsNotNull(cnd, "cnd"); //$NON-NLS-1$
+
+        final Entry entry = new Entry();
+
+        for (final NamespaceMapping namespace : cnd.getNamespaceMappings()) {
+            if (!Utils.isEmpty(namespace.getPrefix())) {
+                entry.declaredPrefixes.add(namespace.getPrefix());
+            }
+        }
+
+        for (final NodeTypeDefinition nodeType : cnd.getNodeTypeDefinitions()) {
+            if (!Utils.isEmpty(nodeType.getName())) {
+                entry.declaredTypes.add(nodeType.getName());
+            }
+
+            entry.referencePrefix(nodeType.getQualifiedName());
+
+            for (final QualifiedName superType : nodeType.getSupertypes()) {
+                entry.referenceType(superType);
+            }
+
+            for (final PropertyDefinition propertyDefinition : nodeType.getPropertyDefinitions()) {
+                entry.referencePrefix(propertyDefinition.getQualifiedName());
+            }
+
+            for (final ChildNodeDefinition childNodeDefinition : nodeType.getChildNodeDefinitions()) {
+                entry.referencePrefix(childNodeDefinition.getQualifiedName());
+
+                for (final QualifiedName requiredType : childNodeDefinition.getRequiredTypes()) {
+                    entry.referenceType(requiredType);
+                }
+
+                final String defaultType = childNodeDefinition.getDefaultPrimaryTypeName();
+
+                if (!Utils.isEmpty(defaultType)) {
+                    entry.referenceType(QualifiedName.parse(defaultType));
+                }
+            }
+        }
+
+        // only record references to what is declared elsewhere
+        entry.referencedTypes.removeAll(entry.declaredTypes);
+        entry.referencedPrefixes.removeAll(entry.declaredPrefixes);
+
+        remove(path);
+        put(path, entry);
+    }
+
+    /**
+     * Applies the changes found by an incremental build and finds the CNDs that must be validated again because of them. The
+     * declarations of a changed or removed CND before the change, and of a changed CND after the change, are the declarations
+     * that may have changed.
+     *
+     * @param changedCnds the added or changed CNDs keyed by path, with a <code>null</code> CND if the CND could not be parsed (can
+     *        be <code>null</code> or empty)
+     * @param removedPaths the paths of the removed CNDs (can be <code>null</code> or empty)
+     * @return the paths of the CNDs that directly or indirectly depend on the declarations that may have changed, which can include
+     *         changed CNDs (never <code>null</code> but can be empty)
+     */
+    public Set<String> update( final Map<String, CompactNodeTypeDefinition> changedCnds,
+                               final Collection<String> removedPaths ) {
+        final Collection<String> changedTypes = new HashSet<String>();
+        final Collection<String> changedPrefixes = new HashSet<String>();
+
+        if (!Utils.isEmpty(removedPaths)) {
+            for (final String path : removedPaths) {
+                changedTypes.addAll(getDeclaredNodeTypes(path));
+                changedPrefixes.addAll(getDeclaredPrefixes(path));
+                remove(path);
+            }
+        }
+
+        if (changedCnds != null) {
+            for (final Map.Entry<String, CompactNodeTypeDefinition> changed : changedCnds.entrySet()) {
+                final String path = changed.getKey();
+                changedTypes.addAll(getDeclaredNodeTypes(path));
+                changedPrefixes.addAll(getDeclaredPrefixes(path));
+
+                if (changed.getValue() == null) {
+                    remove(path);
+                } else {
+                    update(path, changed.getValue());
+                    changedTypes.addAll(getDeclaredNodeTypes(path));
+                    changedPrefixes.addAll(getDeclaredPrefixes(path));
+                }
+            }
+        }
+
+        return getDependentPaths(changedTypes, changedPrefixes);
+    }
+
+    /**
+     * @param writer the writer the graph is written to (cannot be <code>null</code>)
+     * @throws IOException if the graph cannot be written
+     */
+    public void write( final Writer writer ) throws IOException {
+        Utils.verifyIsNotNull(writer, "writer"); //$NON-NLS-1$
+        writer.write(HEADER);
+        writer.write('\n');
+
+        for (final Map.Entry<String, Entry> pathEntry : this.entries.entrySet()) {
+            final Entry entry = pathEntry.getValue();
+            writeLine(writer, PATH, pathEntry.getKey());
+
+            for (final String type : entry.declaredTypes) {
+                writeLine(writer, DECLARED_TYPE, type);
+            }
+
+            for (final String prefix : entry.declaredPrefixes) {
+                writeLine(writer, DECLARED_PREFIX, prefix);
+            }
+
+            for (final String type : entry.referencedTypes) {
+                writeLine(writer, REFERENCED_TYPE, type);
+            }
+
+            for (final String prefix : entry.referencedPrefixes) {
+                writeLine(writer, REFERENCED_PREFIX, prefix);
+            }
+        }
+
+        writer.flush();
+    }
+
+    private void writeLine( final Writer writer,
+                            final String kind,
+                            final String value ) throws IOException {
+        writer.write(kind);
+        writer.write(DELIM);
+        writer.write(Utils.escape(value));
+        writer.write('\n');
+    }
+
+    /**
+     * The declarations and references of one CND.
+     */
+    private static final class Entry {
+
+        final Set<String> declaredPrefixes = new TreeSet<String>();
+        final Set<String> declaredTypes = new TreeSet<String>();
+        final Set<String> referencedPrefixes = new TreeSet<String>();
+        final Set<String> referencedTypes = new TreeSet<String>();
+
+        void referencePrefix( final QualifiedName name ) {
+            if (name != null) {
+                final String qualifier = name.getQualifier();
+
+                if (!Utils.isEmpty(qualifier)) {
+                    this.referencedPrefixes.add(qualifier);
+                }
+            }
+        }
+
+        void referenceType( final QualifiedName name ) {
+            if (name != null) {
+                final String type = name.get();
+
+                if (!Utils.isEmpty(type)) {
+                    this.referencedTypes.add(type);
+                    referencePrefix(name);
+                }
+            }
+        }
+    }
+}
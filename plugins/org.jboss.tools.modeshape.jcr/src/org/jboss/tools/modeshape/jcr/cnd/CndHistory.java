@@ -0,0 +1,615 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ *
+ * See the LEGAL.txt file distributed with this work for information regarding copyright ownership and licensing.
+ *
+ * See the AUTHORS.txt file distributed with this work for a full listing of individual contributors.
+ */
+package org.jboss.tools.modeshape.jcr.cnd;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import org.jboss.tools.modeshape.jcr.ChildNodeDefinition;
+import org.jboss.tools.modeshape.jcr.NamespaceMapping;
+import org.jboss.tools.modeshape.jcr.NodeTypeDefinition;
+import org.jboss.tools.modeshape.jcr.PropertyDefinition;
+import org.jboss.tools.modeshape.jcr.QualifiedName;
+import org.jboss.tools.modeshape.jcr.Utils;
+import org.jboss.tools.modeshape.jcr.attributes.AttributeState.Value;
+import org.jboss.tools.modeshape.jcr.cnd.CndElement.NotationType;
+
+/**
+ * The undo and redo history of a CND. Changes are recorded from the change events of the CND and its node type definitions as the
+ * old and new values of one property, so undoing or redoing a change only does the work of that change and never copies the
+ * CND. Consecutive changes to the same text property of the same node type definition are merged into one change, and the changes
+ * made between {@link #beginCompound()} and {@link #endCompound()} are undone and redone as one change. The history keeps at
+ * most a number of changes and an estimated number of bytes, and drops the oldest changes first. This class is not
+ * thread-safe.
+ */
+public final class CndHistory implements PropertyChangeListener {
+
+    /**
+     * The default estimated number of bytes used by the recorded changes. Value is {@value}.
+     */
+    public static final long DEFAULT_BUDGET = 4 * 1024 * 1024;
+
+    /**
+     * The default number of changes that can be undone. Value is {@value}.
+     */
+    public static final int DEFAULT_LIMIT = 1000;
+
+    /**
+     * The estimated number of bytes used by a change not counting its values.
+     */
+    private static final long CHANGE_SIZE = 48;
+
+    /**
+     * @param value the value whose size is being estimated (can be <code>null</code>)
+     * @return the estimated number of bytes used by the value
+     */
+    static long estimateSize( final Object value ) {
+        if ((value == null) || (value instanceof Value)) {
+            return 0; // shared instances
+        }
+
+        if (value instanceof String) {
+            return (2L * ((String)value).length());
+        }
+
+        if (value instanceof CndElement) {
+            return (2L * ((CndElement)value).toCndNotation(NotationType.COMPACT).length());
+        }
+
+        if (value instanceof Collection) {
+            long size = 0;
+
+            for (final Object item : (Collection<?>)value) {
+                size += estimateSize(item);
+            }
+
+            return size;
+        }
+
+        return 16;
+    }
+
+    private boolean applying = false;
+    private final long budget;
+    private final CompactNodeTypeDefinition cnd;
+
+    /**
+     * The changes recorded since the outermost {@link #beginCompound()} (<code>null</code> if not recording a compound change).
+     */
+    private List<Change> compoundChanges;
+
+    /**
+     * The number of {@link #beginCompound()} calls not yet matched by an {@link #endCompound()} call.
+     */
+    private int compoundDepth = 0;
+    private final int limit;
+
+    /**
+     * <code>true</code> if the next change can be merged into the last change.
+     */
+    private boolean mergeable = false;
+
+    /**
+     * The most recently undone change is last.
+     */
+    private final Deque<Change> redoChanges = new ArrayDeque<Change>();
+
+    /**
+     * The estimated number of bytes used by all undo and redo changes.
+     */
+    private long size = 0;
+
+    /**
+     * The most recent change is last.
+     */
+    private final Deque<Change> undoChanges = new ArrayDeque<Change>();
+
+    /**
+     * Constructs a history with the default limit and budget.
+     *
+     * @param cnd the CND whose changes are recorded (cannot be <code>null</code>)
+     */
+    public CndHistory( final CompactNodeTypeDefinition cnd ) {
+        this(cnd, DEFAULT_LIMIT, DEFAULT_BUDGET);
+    }
+
+    /**
+     * @param cnd the CND whose changes are recorded (cannot be <code>null</code>)
+     * @param limit the maximum number of changes that can be undone (must be positive)
+     * @param budget the maximum estimated number of bytes used by the recorded changes (must be positive)
+     */
+    public CndHistory( final CompactNodeTypeDefinition cnd,
+                       final int limit,
+                       final long budget ) {
+        Utils.verifyIsNotNull(cnd, "cnd"); //$NON-NLS-1$
+
+        if ((limit <= 0) || (budget <= 0)) {
+            throw new IllegalArgumentException();
+        }
+
+        this.cnd = cnd;
+        this.limit = limit;
+        this.budget = budget;
+
+        this.cnd.addListener(this);
+
+        for (final NodeTypeDefinition nodeTypeDefinition : this.cnd.getNodeTypeDefinitions()) {
+            nodeTypeDefinition.addListener(this);
+        }
+    }
+
+    /**
+     * Starts recording the following changes as one change until the matching {@link #endCompound()} is called. Calls can be
+     * nested, and only the outermost pair records a change. Callers should end the compound change in a <code>finally</code>
+     * block.
+     */
+    public void beginCompound() {
+        if (this.compoundDepth++ == 0) {
+            this.compoundChanges = new ArrayList<Change>();
+        }
+    }
+
+    /**
+     * @return <code>true</code> if there is an undone change that can be redone
+     */
+    public boolean canRedo() {
+        return !this.redoChanges.isEmpty();
+    }
+
+    /**
+     * @return <code>true</code> if there is a change that can be undone
+     */
+    public boolean canUndo() {
+        return !this.undoChanges.isEmpty();
+    }
+
+    private void clearRedo() {
+        for (final Change change : this.redoChanges) {
+            this.size -= change.size;
+        }
+
+        this.redoChanges.clear();
+    }
+
+    /**
+     * Stops recording changes and forgets all recorded changes.
+     */
+    public void dispose() {
+        this.cnd.removeListener(this);
+
+        for (final NodeTypeDefinition nodeTypeDefinition : this.cnd.getNodeTypeDefinitions()) {
+            nodeTypeDefinition.removeListener(this);
+        }
+
+        this.undoChanges.clear();
+        this.redoChanges.clear();
+        this.compoundChanges = null;
+        this.compoundDepth = 0;
+        this.size = 0;
+    }
+
+    /**
+     * Ends a compound change started by {@link #beginCompound()}. When the outermost compound change ends, the changes made since
+     * it began are recorded as one change. Nothing is recorded if no changes were made.
+     *
+     * @throws IllegalStateException if there is no compound change to end
+     */
+    public void endCompound() {
+        if (this.compoundDepth == 0) {
+            throw new IllegalStateException();
+        }
+
+        if (--this.compoundDepth != 0) {
+            return;
+        }
+
+        final List<Change> changes = this.compoundChanges;
+        this.compoundChanges = null;
+
+        if (changes.size() == 1) {
+            push(changes.get(0));
+        } else if (!changes.isEmpty()) {
+            push(new Change(changes));
+        }
+
+        // the next change must not be merged into a part of the compound change
+        this.mergeable = false;
+        trim();
+    }
+
+    /**
+     * @return the number of changes that can be redone
+     */
+    public int getRedoCount() {
+        return this.redoChanges.size();
+    }
+
+    /**
+     * @return the CND or node type definition changed by the change that would be redone (<code>null</code> if nothing can be
+     *         redone)
+     */
+    public Object getRedoSource() {
+        final Change change = this.redoChanges.peekLast();
+        return ((change == null) ? null : change.source);
+    }
+
+    /**
+     * @return the estimated number of bytes used by the recorded changes
+     */
+    public long getSize() {
+        return this.size;
+    }
+
+    /**
+     * @return the number of changes that can be undone
+     */
+    public int getUndoCount() {
+        return this.undoChanges.size();
+    }
+
+    /**
+     * @return the CND or node type definition changed by the change that would be undone (<code>null</code> if nothing can be
+     *         undone)
+     */
+    public Object getUndoSource() {
+        final Change change = this.undoChanges.peekLast();
+        return ((change == null) ? null : change.source);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see java.beans.PropertyChangeListener#propertyChange(java.beans.PropertyChangeEvent)
+     */
+    @Override
+    public void propertyChange( final PropertyChangeEvent e ) {
+        final Change change = Change.create(e);
+
+        if (change == null) {
+            return;
+        }
+
+        // keep listening to the node type definitions that are in the CND, even when they are added or removed by undo or redo
+        if (change.property == CompactNodeTypeDefinition.PropertyName.NODE_TYPE_DEFINITIONS) {
+            for (final NodeTypeDefinition nodeTypeDefinition : nodeTypeDefinitions(change.oldValue)) {
+                nodeTypeDefinition.removeListener(this);
+            }
+
+            for (final NodeTypeDefinition nodeTypeDefinition : nodeTypeDefinitions(change.newValue)) {
+                nodeTypeDefinition.addListener(this);
+            }
+        }
+
+        if (!this.applying) {
+            record(change);
+        }
+    }
+
+    private void push( final Change change ) {
+        this.undoChanges.addLast(change);
+        this.size += change.size;
+    }
+
+    private void record( final Change change ) {
+        // a new change makes the undone changes unreachable
+        clearRedo();
+
+        if (this.compoundChanges != null) {
+            this.compoundChanges.add(change);
+            return;
+        }
+
+        final Change last = this.undoChanges.peekLast();
+
+        if (this.mergeable && (last != null) && last.canMerge(change)) {
+            this.undoChanges.removeLast();
+            this.size -= last.size;
+
+            final Change merged = last.merge(change);
+
+            // nothing to undo if the merged changes restored the original value
+            if (merged == null) {
+                this.mergeable = false;
+            } else {
+                push(merged);
+            }
+        } else {
+            push(change);
+            this.mergeable = true;
+        }
+
+        trim();
+    }
+
+    /**
+     * Drops the oldest changes until the limit and budget are met.
+     */
+    private void trim() {
+        while ((this.undoChanges.size() > this.limit) || ((this.size > this.budget) && !this.undoChanges.isEmpty())) {
+            this.size -= this.undoChanges.removeFirst().size;
+        }
+    }
+
+    /**
+     * Applies the new value of the most recently undone change.
+     *
+     * @return <code>true</code> if a change was redone
+     */
+    public boolean redo() {
+        return apply(this.redoChanges, this.undoChanges, false);
+    }
+
+    private boolean apply( final Deque<Change> from,
+                           final Deque<Change> to,
+                           final boolean undo ) {
+        final Change change = from.pollLast();
+
+        if (change == null) {
+            return false;
+        }
+
+        this.applying = true;
+
+        try {
+            change.apply(undo);
+        } finally {
+            this.applying = false;
+        }
+
+        to.addLast(change);
+        this.mergeable = false;
+        return true;
+    }
+
+    /**
+     * Starts a new change even if the next change is to the same text property as the last change. Call when the user leaves a
+     * text field.
+     */
+    public void stopMerging() {
+        this.mergeable = false;
+    }
+
+    /**
+     * Applies the old value of the most recent change.
+     *
+     * @return <code>true</code> if a change was undone
+     */
+    public boolean undo() {
+        return apply(this.undoChanges, this.redoChanges, true);
+    }
+
+    /**
+     * @param value the value of a node type definitions change event (can be <code>null</code>)
+     * @return the node type definitions added or removed (never <code>null</code>)
+     */
+    private static Collection<NodeTypeDefinition> nodeTypeDefinitions( final Object value ) {
+        final Collection<NodeTypeDefinition> result = new ArrayDeque<NodeTypeDefinition>();
+
+        if (value instanceof NodeTypeDefinition) {
+            result.add((NodeTypeDefinition)value);
+        } else if (value instanceof Collection) {
+            for (final Object item : (Collection<?>)value) {
+                if (item instanceof NodeTypeDefinition) {
+                    result.add((NodeTypeDefinition)item);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * One recorded change. The values are the values sent in the change event. A compound change has no property or values and
+     * applies its parts instead.
+     */
+    static final class Change {
+
+        /**
+         * @param e the change event (cannot be <code>null</code>)
+         * @return the change or <code>null</code> if the event is not from a CND or node type definition
+         */
+        static Change create( final PropertyChangeEvent e ) {
+            final Object source = e.getSource();
+            Enum<?>[] properties = null;
+
+            if (source instanceof CompactNodeTypeDefinition) {
+                properties = CompactNodeTypeDefinition.PropertyName.values();
+            } else if (source instanceof NodeTypeDefinition) {
+                properties = NodeTypeDefinition.PropertyName.values();
+            } else {
+                return null;
+            }
+
+            for (final Enum<?> property : properties) {
+                if (property.toString().equals(e.getPropertyName())) {
+                    return new Change(source, property, e.getOldValue(), e.getNewValue());
+                }
+            }
+
+            return null;
+        }
+
+        final Object newValue;
+        final Object oldValue;
+
+        /**
+         * The changes of a compound change in the order they were made (<code>null</code> if not a compound change).
+         */
+        final List<Change> parts;
+
+        final Enum<?> property;
+        final long size;
+        final Object source;
+
+        Change( final Object source,
+                final Enum<?> property,
+                final Object oldValue,
+                final Object newValue ) {
+            this.source = source;
+            this.property = property;
+            this.oldValue = oldValue;
+            this.newValue = newValue;
+            this.parts = null;
+            this.size = (CHANGE_SIZE + estimateSize(oldValue) + estimateSize(newValue));
+        }
+
+        /**
+         * Constructs a compound change. The source is the source of the first part.
+         *
+         * @param parts the changes in the order they were made (cannot be <code>null</code> or empty)
+         */
+        Change( final List<Change> parts ) {
+            this.source = parts.get(0).source;
+            this.property = null;
+            this.oldValue = null;
+            this.newValue = null;
+            this.parts = parts;
+
+            long partsSize = 0;
+
+            for (final Change part : parts) {
+                partsSize += part.size;
+            }
+
+            this.size = partsSize;
+        }
+
+        /**
+         * @param undo <code>true</code> if the old value should be applied, <code>false</code> if the new value should be applied
+         */
+        void apply( final boolean undo ) {
+            if (this.parts != null) {
+                // undo in the reverse order the parts were made
+                for (int i = 0, n = this.parts.size(); i < n; ++i) {
+                    this.parts.get(undo ? (n - i - 1) : i).apply(undo);
+                }
+
+                return;
+            }
+
+            final Object from = (undo ? this.newValue : this.oldValue);
+            final Object to = (undo ? this.oldValue : this.newValue);
+
+            if (this.source instanceof CompactNodeTypeDefinition) {
+                final CompactNodeTypeDefinition cnd = (CompactNodeTypeDefinition)this.source;
+
+                if (this.property == CompactNodeTypeDefinition.PropertyName.NAMESPACE_MAPPINGS) {
+                    if (from instanceof NamespaceMapping) {
+                        cnd.removeNamespaceMapping((NamespaceMapping)from);
+                    } else if (from instanceof Collection) {
+                        cnd.clearNamespaceMappings();
+                    }
+
+                    if (to instanceof NamespaceMapping) {
+                        cnd.addNamespaceMapping((NamespaceMapping)to);
+                    } else if (to instanceof Collection) {
+                        for (final Object namespaceMapping : (Collection<?>)to) {
+                            cnd.addNamespaceMapping((NamespaceMapping)namespaceMapping);
+                        }
+                    }
+                } else if (this.property == CompactNodeTypeDefinition.PropertyName.NODE_TYPE_DEFINITIONS) {
+                    if (from instanceof NodeTypeDefinition) {
+                        cnd.removeNodeTypeDefinition((NodeTypeDefinition)from);
+                    } else if (from instanceof Collection) {
+                        cnd.clearNodeTypeDefinitions();
+                    }
+
+                    for (final NodeTypeDefinition nodeTypeDefinition : nodeTypeDefinitions(to)) {
+                        cnd.addNodeTypeDefinition(nodeTypeDefinition);
+                    }
+                }
+
+                return;
+            }
+
+            final NodeTypeDefinition nodeTypeDefinition = (NodeTypeDefinition)this.source;
+            final NodeTypeDefinition.PropertyName propertyName = (NodeTypeDefinition.PropertyName)this.property;
+
+            if (to instanceof Value) {
+                nodeTypeDefinition.changeState(propertyName, (Value)to);
+            } else if (propertyName == NodeTypeDefinition.PropertyName.NAME) {
+                nodeTypeDefinition.setName((String)to);
+            } else if (propertyName == NodeTypeDefinition.PropertyName.COMMENT) {
+                nodeTypeDefinition.setComment((String)to);
+            } else if (propertyName == NodeTypeDefinition.PropertyName.PRIMARY_ITEM) {
+                nodeTypeDefinition.setPrimaryItemName((String)to);
+            } else if (propertyName == NodeTypeDefinition.PropertyName.SUPERTYPES) {
+                if (to instanceof Collection) {
+                    final Collection<?> superTypes = (Collection<?>)to;
+                    final String[] names = new String[superTypes.size()];
+                    int i = 0;
+
+                    for (final Object superType : superTypes) {
+                        names[i++] = ((QualifiedName)superType).get();
+                    }
+
+                    nodeTypeDefinition.setDeclaredSuperTypeNames(names);
+                } else {
+                    if (from instanceof String) {
+                        nodeTypeDefinition.removeSuperType((String)from);
+                    }
+
+                    if (to instanceof String) {
+                        nodeTypeDefinition.addSuperType((String)to);
+                    }
+                }
+            } else if (propertyName == NodeTypeDefinition.PropertyName.CHILD_NODES) {
+                if (from instanceof ChildNodeDefinition) {
+                    nodeTypeDefinition.removeChildNodeDefinition((ChildNodeDefinition)from);
+                }
+
+                if (to instanceof ChildNodeDefinition) {
+                    nodeTypeDefinition.addChildNodeDefinition((ChildNodeDefinition)to);
+                }
+            } else if (propertyName == NodeTypeDefinition.PropertyName.PROPERTY_DEFINITIONS) {
+                if (from instanceof PropertyDefinition) {
+                    nodeTypeDefinition.removePropertyDefinition((PropertyDefinition)from);
+                }
+
+                if (to instanceof PropertyDefinition) {
+                    nodeTypeDefinition.addPropertyDefinition((PropertyDefinition)to);
+                }
+            }
+        }
+
+        /**
+         * @param next the change made right after this change (cannot be <code>null</code>)
+         * @return <code>true</code> if both changes edit the same text property of the same node type definition
+         */
+        boolean canMerge( final Change next ) {
+            return ((this.source == next.source) && (this.property == next.property) && isText() && next.isText());
+        }
+
+        private boolean isText() {
+            if ((this.property != NodeTypeDefinition.PropertyName.NAME)
+                && (this.property != NodeTypeDefinition.PropertyName.COMMENT)
+                && (this.property != NodeTypeDefinition.PropertyName.PRIMARY_ITEM)) {
+                return false;
+            }
+
+            return (!(this.oldValue instanceof Value) && !(this.newValue instanceof Value));
+        }
+
+        /**
+         * @param next the change made right after this change (cannot be <code>null</code>)
+         * @return the change from the old value of this change to the new value of the next change or <code>null</code> if the
+         *         values are the same
+         */
+        Change merge( final Change next ) {
+            if (Utils.equivalent((String)this.oldValue, (String)next.newValue)) {
+                return null;
+            }
+
+            return new Change(this.source, this.property, this.oldValue, next.newValue);
+        }
+    }
+}
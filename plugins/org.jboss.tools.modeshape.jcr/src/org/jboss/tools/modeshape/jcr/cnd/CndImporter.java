@@ -76,7 +76,10 @@ public final class CndImporter {
      */
     public CompactNodeTypeDefinition importFrom( final File file,
                                                  final Collection<Throwable> problems ) throws IOException {
-        return importFrom(Utils.read(file), problems, file.getCanonicalPath());
+        final long start = System.nanoTime();
+        final String content = Utils.read(file);
+        CndMetrics.get().record(CndMetrics.IMPORT_READ_NANOS, start);
+        return importFrom(content, problems, file.getCanonicalPath());
     }
 
     /**
@@ -92,7 +95,10 @@ public final class CndImporter {
     public CompactNodeTypeDefinition importFrom( final InputStream stream,
                                                  final Collection<Throwable> problems,
                                                  final String resourceName ) throws IOException {
-        return importFrom(Utils.read(stream), problems, resourceName);
+        final long start = System.nanoTime();
+        final String content = Utils.read(stream);
+        CndMetrics.get().record(CndMetrics.IMPORT_READ_NANOS, start);
+        return importFrom(content, problems, resourceName);
     }
 
     /**
@@ -107,10 +113,23 @@ public final class CndImporter {
     public CompactNodeTypeDefinition importFrom( final String content,
                                                  final Collection<Throwable> problems,
                                                  final String resourceName ) {
+        final CndMetrics metrics = CndMetrics.get();
+        final long start = System.nanoTime();
+        final int length = ((content == null) ? 0 : content.length());
+        metrics.increment(CndMetrics.IMPORT_COUNT);
+        metrics.add(CndMetrics.IMPORT_CHARACTERS, length);
+
         try {
             return parse(content);
         } catch (final RuntimeException e) {
+            metrics.increment(CndMetrics.IMPORT_ERRORS);
             problems.add(e);
+        } finally {
+            if (CndMetrics.isTracing(CndMetrics.IMPORTER_OPTION)) {
+                final String message = "Imported " + resourceName + " (" + length + " characters) in " //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+                                       + CndMetrics.millisSince(start) + " ms"; //$NON-NLS-1$
+                CndMetrics.trace(CndMetrics.IMPORTER_OPTION, message);
+            }
         }
 
         return null;
@@ -127,11 +146,32 @@ public final class CndImporter {
         Utils.verifyIsNotNull(content, "content is null"); //$NON-NLS-1$
 
         final CompactNodeTypeDefinition cnd = new CompactNodeTypeDefinition();
+        final CndMetrics metrics = CndMetrics.get();
+        final long start = System.nanoTime();
 
-        final Tokenizer tokenizer = new CndTokenizer();
-        final TokenStream tokens = new TokenStream(content, tokenizer, false);
-        tokens.start();
+        try {
+            final Tokenizer tokenizer = new CndTokenizer();
+            final TokenStream tokens = new TokenStream(content, tokenizer, false);
+            tokens.start();
+            metrics.record(CndMetrics.IMPORT_TOKENIZE_NANOS, start);
+            metrics.add(CndMetrics.IMPORT_TOKENS, tokens.getTokenCount());
+            parse(tokens, cnd);
+        } finally {
+            metrics.record(CndMetrics.IMPORT_PARSE_NANOS, start);
+        }
+
+        return cnd;
+    }
 
+    /**
+     * Parse the namespace mappings, node type definitions, and comments of the CND content.
+     *
+     * @param tokens the started token stream of the content (cannot be <code>null</code>)
+     * @param cnd the CND being populated (cannot be <code>null</code>)
+     * @throws ParsingException if there is a problem parsing the content
+     */
+    private void parse( final TokenStream tokens,
+                        final CompactNodeTypeDefinition cnd ) {
         while (tokens.hasNext()) {
             // Keep reading while we can recognize one of the two types of statements ...
             if (tokens.matches(NamespaceMapping.NOTATION_PREFIX,
@@ -155,8 +195,6 @@ public final class CndImporter {
                 throw new ParsingException(position, NLS.bind(Messages.expectedNamespaceOrNodeDefinition, args));
             }
         }
-
-        return cnd;
     }
 
     /**
@@ -0,0 +1,295 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ *
+ * See the LEGAL.txt file distributed with this work for information regarding copyright ownership and licensing.
+ *
+ * See the AUTHORS.txt file distributed with this work for a full listing of individual contributors.
+ */
+package org.jboss.tools.modeshape.jcr.cnd;
+
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.eclipse.core.runtime.Platform;
+
+/**
+ * Counters and timers of CND processing. Values are keyed by name and are always collected. Times are recorded in nanoseconds
+ * and their names end with {@link #NANOS_SUFFIX}. The shared instance is also registered as an OSGi service and, when the
+ * {@link #JMX_OPTION} debug option is set, as a JMX MXBean. This class is thread-safe.
+ */
+public final class CndMetrics implements CndMetricsMXBean {
+
+    /**
+     * The number of characters imported.
+     */
+    public static final String IMPORT_CHARACTERS = "cnd.import.characters"; //$NON-NLS-1$
+
+    /**
+     * The number of CNDs imported.
+     */
+    public static final String IMPORT_COUNT = "cnd.import.count"; //$NON-NLS-1$
+
+    /**
+     * The number of CND imports that failed with a parsing error.
+     */
+    public static final String IMPORT_ERRORS = "cnd.import.errors"; //$NON-NLS-1$
+
+    /**
+     * The time spent parsing imported CNDs, including the time spent tokenizing.
+     */
+    public static final String IMPORT_PARSE_NANOS = "cnd.import.parse.nanos"; //$NON-NLS-1$
+
+    /**
+     * The time spent reading the contents of imported CNDs.
+     */
+    public static final String IMPORT_READ_NANOS = "cnd.import.read.nanos"; //$NON-NLS-1$
+
+    /**
+     * The time spent tokenizing imported CNDs.
+     */
+    public static final String IMPORT_TOKENIZE_NANOS = "cnd.import.tokenize.nanos"; //$NON-NLS-1$
+
+    /**
+     * The number of tokens imported.
+     */
+    public static final String IMPORT_TOKENS = "cnd.import.tokens"; //$NON-NLS-1$
+
+    /**
+     * The debug option that turns on tracing of each CND import.
+     */
+    public static final String IMPORTER_OPTION = "org.jboss.tools.modeshape.jcr/debug/importer"; //$NON-NLS-1$
+
+    /**
+     * The debug option that registers the shared metrics as a JMX MXBean.
+     */
+    public static final String JMX_OPTION = "org.jboss.tools.modeshape.jcr/debug/metrics/jmx"; //$NON-NLS-1$
+
+    /**
+     * The name of the shared metrics JMX MXBean.
+     */
+    public static final String MXBEAN_NAME = "org.jboss.tools.modeshape.jcr:type=CndMetrics"; //$NON-NLS-1$
+
+    /**
+     * The suffix of the names of values that are times in nanoseconds.
+     */
+    public static final String NANOS_SUFFIX = ".nanos"; //$NON-NLS-1$
+
+    /**
+     * The time spent validating child node definitions.
+     */
+    public static final String VALIDATE_CHILD_NODES_NANOS = "cnd.validate.childNodes.nanos"; //$NON-NLS-1$
+
+    /**
+     * The number of CNDs validated.
+     */
+    public static final String VALIDATE_COUNT = "cnd.validate.count"; //$NON-NLS-1$
+
+    /**
+     * The time spent validating namespace mappings.
+     */
+    public static final String VALIDATE_NAMESPACES_NANOS = "cnd.validate.namespaces.nanos"; //$NON-NLS-1$
+
+    /**
+     * The time spent validating whole CNDs.
+     */
+    public static final String VALIDATE_NANOS = "cnd.validate.nanos"; //$NON-NLS-1$
+
+    /**
+     * The time spent validating node type definitions, including the time spent validating their super types, property
+     * definitions, and child node definitions.
+     */
+    public static final String VALIDATE_NODE_TYPES_NANOS = "cnd.validate.nodeTypes.nanos"; //$NON-NLS-1$
+
+    /**
+     * The time spent validating property definitions.
+     */
+    public static final String VALIDATE_PROPERTIES_NANOS = "cnd.validate.properties.nanos"; //$NON-NLS-1$
+
+    /**
+     * The time spent validating super types, including the super type cycle checks.
+     */
+    public static final String VALIDATE_SUPER_TYPES_NANOS = "cnd.validate.superTypes.nanos"; //$NON-NLS-1$
+
+    /**
+     * The debug option that turns on tracing of each CND validation.
+     */
+    public static final String VALIDATOR_OPTION = "org.jboss.tools.modeshape.jcr/debug/validator"; //$NON-NLS-1$
+
+    /**
+     * The number of times compiled value constraints were found in the cache.
+     */
+    public static final String VALUE_CONSTRAINT_CACHE_HITS = "cnd.valueConstraints.cache.hits"; //$NON-NLS-1$
+
+    /**
+     * The number of times value constraints had to be compiled.
+     */
+    public static final String VALUE_CONSTRAINT_CACHE_MISSES = "cnd.valueConstraints.cache.misses"; //$NON-NLS-1$
+
+    private static final CndMetrics _shared = new CndMetrics();
+
+    /**
+     * @return the metrics shared by all CND processing (never <code>null</code>)
+     */
+    public static CndMetrics get() {
+        return _shared;
+    }
+
+    /**
+     * @param option the full name of the debug option, including the plugin identifier (cannot be <code>null</code>)
+     * @return <code>true</code> if the platform is running in debug mode and the option is set to <code>true</code>
+     */
+    public static boolean isTracing( final String option ) {
+        return (Platform.isRunning() && Platform.inDebugMode() && Boolean.parseBoolean(Platform.getDebugOption(option)));
+    }
+
+    /**
+     * @param startNanos the value of {@link System#nanoTime()} when the timing started
+     * @return the number of milliseconds elapsed
+     */
+    public static long millisSince( final long startNanos ) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Writes a trace message to the console if the debug option is set.
+     *
+     * @param option the full name of the debug option, including the plugin identifier (cannot be <code>null</code>)
+     * @param message the trace message (cannot be <code>null</code>)
+     */
+    public static void trace( final String option,
+                              final String message ) {
+        if (isTracing(option)) {
+            System.out.println('[' + option + "] " + message); //$NON-NLS-1$
+        }
+    }
+
+    private final ConcurrentMap<String, LongAdder> values = new ConcurrentHashMap<String, LongAdder>();
+
+    /**
+     * Use {@link #get()} to obtain the shared metrics.
+     */
+    CndMetrics() {
+        // nothing to do
+    }
+
+    /**
+     * @param name the name of the value being increased (cannot be <code>null</code>)
+     * @param amount the amount being added
+     */
+    public void add( final String name,
+                     final long amount ) {
+        LongAdder adder = this.values.get(name);
+
+        if (adder == null) {
+            final LongAdder newAdder = new LongAdder();
+            adder = this.values.putIfAbsent(name, newAdder);
+
+            if (adder == null) {
+                adder = newAdder;
+            }
+        }
+
+        adder.add(amount);
+    }
+
+    /**
+     * @param name the name of the value being requested (cannot be <code>null</code>)
+     * @return the value or zero if nothing has been recorded
+     */
+    public long getValue( final String name ) {
+        final LongAdder adder = this.values.get(name);
+        return ((adder == null) ? 0 : adder.sum());
+    }
+
+    /**
+     * @param hitsName the name of the cache hits value (cannot be <code>null</code>)
+     * @param missesName the name of the cache misses value (cannot be <code>null</code>)
+     * @return the fraction, between zero and one, of cache lookups that were hits (zero if there have been no lookups)
+     */
+    public double getHitRate( final String hitsName,
+                              final String missesName ) {
+        final long hits = getValue(hitsName);
+        final long total = hits + getValue(missesName);
+        return ((total == 0) ? 0 : ((double)hits / total));
+    }
+
+    /**
+     * @param countName the name of the value being counted (cannot be <code>null</code>)
+     * @param nanosName the name of the time spent (cannot be <code>null</code>)
+     * @return the count per second of time spent (zero if no time has been recorded)
+     */
+    public double getRate( final String countName,
+                           final String nanosName ) {
+        final long nanos = getValue(nanosName);
+        return ((nanos == 0) ? 0 : ((getValue(countName) * (double)TimeUnit.SECONDS.toNanos(1)) / nanos));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see org.jboss.tools.modeshape.jcr.cnd.CndMetricsMXBean#getTokensPerSecond()
+     */
+    @Override
+    public double getTokensPerSecond() {
+        return getRate(IMPORT_TOKENS, IMPORT_TOKENIZE_NANOS);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see org.jboss.tools.modeshape.jcr.cnd.CndMetricsMXBean#getValueConstraintCacheHitRate()
+     */
+    @Override
+    public double getValueConstraintCacheHitRate() {
+        return getHitRate(VALUE_CONSTRAINT_CACHE_HITS, VALUE_CONSTRAINT_CACHE_MISSES);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see org.jboss.tools.modeshape.jcr.cnd.CndMetricsMXBean#getValues()
+     */
+    @Override
+    public Map<String, Long> getValues() {
+        final Map<String, Long> snapshot = new TreeMap<String, Long>();
+
+        for (final Entry<String, LongAdder> entry : this.values.entrySet()) {
+            snapshot.put(entry.getKey(), entry.getValue().sum());
+        }
+
+        return snapshot;
+    }
+
+    /**
+     * @param name the name of the value being incremented (cannot be <code>null</code>)
+     */
+    public void increment( final String name ) {
+        add(name, 1);
+    }
+
+    /**
+     * @param nanosName the name of the time spent (cannot be <code>null</code>)
+     * @param startNanos the value of {@link System#nanoTime()} when the timing started
+     * @return the number of nanoseconds elapsed
+     */
+    public long record( final String nanosName,
+                        final long startNanos ) {
+        final long elapsed = System.nanoTime() - startNanos;
+        add(nanosName, elapsed);
+        return elapsed;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see org.jboss.tools.modeshape.jcr.cnd.CndMetricsMXBean#reset()
+     */
+    @Override
+    public void reset() {
+        this.values.clear();
+    }
+}
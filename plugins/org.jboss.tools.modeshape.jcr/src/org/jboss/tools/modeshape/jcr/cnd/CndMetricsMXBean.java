@@ -0,0 +1,36 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ *
+ * See the LEGAL.txt file distributed with this work for information regarding copyright ownership and licensing.
+ *
+ * See the AUTHORS.txt file distributed with this work for a full listing of individual contributors.
+ */
+package org.jboss.tools.modeshape.jcr.cnd;
+
+import java.util.Map;
+
+/**
+ * The JMX view of the {@link CndMetrics CND metrics}.
+ */
+public interface CndMetricsMXBean {
+
+    /**
+     * @return the number of tokens produced per second of tokenizing
+     */
+    double getTokensPerSecond();
+
+    /**
+     * @return the fraction, between zero and one, of value constraint lookups that found compiled constraints in the cache
+     */
+    double getValueConstraintCacheHitRate();
+
+    /**
+     * @return a snapshot of all the values keyed by name (never <code>null</code>)
+     */
+    Map<String, Long> getValues();
+
+    /**
+     * Sets all values back to zero.
+     */
+    void reset();
+}
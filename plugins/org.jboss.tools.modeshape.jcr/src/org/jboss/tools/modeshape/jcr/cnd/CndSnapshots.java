@@ -0,0 +1,147 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ *
+ * See the LEGAL.txt file distributed with this work for information regarding copyright ownership and licensing.
+ *
+ * See the AUTHORS.txt file distributed with this work for a full listing of individual contributors.
+ */
+package org.jboss.tools.modeshape.jcr.cnd;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import org.jboss.tools.modeshape.jcr.NamespaceMapping;
+import org.jboss.tools.modeshape.jcr.NodeTypeDefinition;
+import org.jboss.tools.modeshape.jcr.Utils;
+
+/**
+ * Takes copies of a CND that can be read in another thread while the CND is being edited. A node type definition is only copied
+ * again after its change events show it has changed, so a snapshot taken after an edit costs about as much as copying the edited
+ * node type definitions. Snapshots share the copies of the node type definitions that have not changed and must never be changed.
+ * Namespace mappings are few and are always copied. This class is not thread-safe and must be used in the thread editing the CND.
+ */
+public final class CndSnapshots implements PropertyChangeListener {
+
+    /**
+     * Stops the indexes created while reading a snapshot, like the supertype graph created when validating, from listening to the
+     * shared node type definition copies. Can be called from the thread that read the snapshot.
+     *
+     * @param snapshot the snapshot that is no longer needed (cannot be <code>null</code>)
+     */
+    public static void release( final CompactNodeTypeDefinition snapshot ) {
+        Utils.verifyIsNotNull(snapshot, "snapshot"); //$NON-NLS-1$
+        snapshot.disposeIndexes();
+    }
+
+    private final CompactNodeTypeDefinition cnd;
+
+    /**
+     * The copy of each node type definition that has not changed since it was copied, keyed by the node type definition.
+     */
+    private final Map<NodeTypeDefinition, NodeTypeDefinition> copies = new IdentityHashMap<NodeTypeDefinition, NodeTypeDefinition>();
+
+    /**
+     * @param cnd the CND whose snapshots are taken (cannot be <code>null</code>)
+     */
+    public CndSnapshots( final CompactNodeTypeDefinition cnd ) {
+        Utils.verifyIsNotNull(cnd, "cnd"); //$NON-NLS-1$
+        this.cnd = cnd;
+        this.cnd.addListener(this);
+
+        for (final NodeTypeDefinition nodeTypeDefinition : this.cnd.getNodeTypeDefinitions()) {
+            nodeTypeDefinition.addListener(this);
+        }
+    }
+
+    /**
+     * Stops listening to the CND and forgets the copies.
+     */
+    public void dispose() {
+        this.cnd.removeListener(this);
+
+        for (final NodeTypeDefinition nodeTypeDefinition : this.cnd.getNodeTypeDefinitions()) {
+            nodeTypeDefinition.removeListener(this);
+        }
+
+        this.copies.clear();
+    }
+
+    /**
+     * @return the CND whose snapshots are taken (never <code>null</code>)
+     */
+    public CompactNodeTypeDefinition getCnd() {
+        return this.cnd;
+    }
+
+    /**
+     * @param value the value of a node type definitions change event (can be <code>null</code>)
+     * @return the node type definitions added or removed (never <code>null</code>)
+     */
+    private static List<NodeTypeDefinition> nodeTypeDefinitions( final Object value ) {
+        final List<NodeTypeDefinition> result = new ArrayList<NodeTypeDefinition>();
+
+        if (value instanceof NodeTypeDefinition) {
+            result.add((NodeTypeDefinition)value);
+        } else if (value instanceof Collection) {
+            for (final Object item : (Collection<?>)value) {
+                if (item instanceof NodeTypeDefinition) {
+                    result.add((NodeTypeDefinition)item);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see java.beans.PropertyChangeListener#propertyChange(java.beans.PropertyChangeEvent)
+     */
+    @Override
+    public void propertyChange( final PropertyChangeEvent e ) {
+        final Object source = e.getSource();
+
+        if (source instanceof NodeTypeDefinition) {
+            this.copies.remove(source);
+        } else if ((source == this.cnd)
+                   && CompactNodeTypeDefinition.PropertyName.NODE_TYPE_DEFINITIONS.toString().equals(e.getPropertyName())) {
+            for (final NodeTypeDefinition nodeTypeDefinition : nodeTypeDefinitions(e.getOldValue())) {
+                nodeTypeDefinition.removeListener(this);
+                this.copies.remove(nodeTypeDefinition);
+            }
+
+            for (final NodeTypeDefinition nodeTypeDefinition : nodeTypeDefinitions(e.getNewValue())) {
+                nodeTypeDefinition.addListener(this);
+            }
+        }
+    }
+
+    /**
+     * @return a copy of the CND that does not change when the CND changes (never <code>null</code>)
+     */
+    public CompactNodeTypeDefinition take() {
+        final CompactNodeTypeDefinition snapshot = new CompactNodeTypeDefinition();
+
+        for (final NamespaceMapping namespaceMapping : this.cnd.getNamespaceMappings()) {
+            snapshot.addNamespaceMapping(NamespaceMapping.copy(namespaceMapping));
+        }
+
+        for (final NodeTypeDefinition nodeTypeDefinition : this.cnd.getNodeTypeDefinitions()) {
+            NodeTypeDefinition copy = this.copies.get(nodeTypeDefinition);
+
+            if (copy == null) {
+                copy = NodeTypeDefinition.copy(nodeTypeDefinition);
+                this.copies.put(nodeTypeDefinition, copy);
+            }
+
+            snapshot.addNodeTypeDefinition(copy);
+        }
+
+        return snapshot;
+    }
+}
@@ -14,8 +14,11 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.StringTokenizer;
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.osgi.util.NLS;
@@ -34,6 +37,7 @@ import org.jboss.tools.modeshape.jcr.WorkspaceRegistry;
 import org.jboss.tools.modeshape.jcr.attributes.AttributeState.Value;
 import org.jboss.tools.modeshape.jcr.attributes.PropertyType;
 import org.jboss.tools.modeshape.jcr.attributes.QueryOperators.QueryOperator;
+import org.jboss.tools.modeshape.jcr.attributes.ValueConstraintPredicate;
 
 /**
  * Used to validate values stored in a CND.
@@ -305,6 +309,8 @@ public final class CndValidator {
          */
 
         final MultiValidationStatus status = new MultiValidationStatus();
+        final CndMetrics metrics = CndMetrics.get();
+        final long start = System.nanoTime();
         boolean noNamespaceMappings = false;
         boolean noNodeTypeDefinitions = false;
 
@@ -316,16 +322,21 @@ public final class CndValidator {
             } else {
                 validateNamespaceMappings(namespaceMappings, status);
             }
+
+            metrics.record(CndMetrics.VALIDATE_NAMESPACES_NANOS, start);
         }
 
         { // node type definitions
             final Collection<NodeTypeDefinition> nodeTypeDefinitions = cnd.getNodeTypeDefinitions();
+            final long nodeTypesStart = System.nanoTime();
 
             if (Utils.isEmpty(nodeTypeDefinitions)) {
                 noNodeTypeDefinitions = true;
             } else {
                 validateNodeTypeDefinitions(cnd, true, status);
             }
+
+            metrics.record(CndMetrics.VALIDATE_NODE_TYPES_NANOS, nodeTypesStart);
         }
 
         // WARNING - No namespace declarations or node type definitions exist
@@ -334,6 +345,15 @@ public final class CndValidator {
                                                              Messages.cndHasNoNamespacesOrNodeTypeDefinitions));
         }
 
+        metrics.increment(CndMetrics.VALIDATE_COUNT);
+        metrics.record(CndMetrics.VALIDATE_NANOS, start);
+
+        if (CndMetrics.isTracing(CndMetrics.VALIDATOR_OPTION)) {
+            final String message = "Validated " + cnd.getNodeTypeDefinitions().size() + " node types in " //$NON-NLS-1$ //$NON-NLS-2$
+                                   + CndMetrics.millisSince(start) + " ms"; //$NON-NLS-1$
+            CndMetrics.trace(CndMetrics.VALIDATOR_OPTION, message);
+        }
+
         return status;
     }
 
@@ -462,7 +482,8 @@ public final class CndValidator {
                                                                         propertyName)));
             }
 
-            validateDefaultValues(propertyName, propertyDefinition.getType(), defaultValues, validNamespacePrefixes, status);
+            validateDefaultValues(propertyName, propertyDefinition.getType(), defaultValues, validNamespacePrefixes,
+                                  propertyDefinition.getCompiledValueConstraints(), status);
 
             // ERROR - Cannot have explicit default values when default values is marked as a variant
             if (propertyDefinition.getState(PropertyDefinition.PropertyName.DEFAULT_VALUES) != Value.IS) {
@@ -491,6 +512,26 @@ public final class CndValidator {
         return status;
     }
 
+    /**
+     * Checks for duplicates, correct value for type, and that each value satisfies at least one value constraint.
+     * 
+     * @param propertyName the name of the property definition (can be <code>null</code> or empty)
+     * @param propertyType the property definition's property type (cannot be <code>null</code>)
+     * @param defaultValues the default values (can be <code>null</code>)
+     * @param validNamespacePrefixes the valid namespace prefixes (can be <code>null</code> or empty)
+     * @param valueConstraints the compiled value constraints (can be <code>null</code> or empty)
+     * @return the status (never <code>null</code>)
+     */
+    public static MultiValidationStatus validateDefaultValues( final String propertyName,
+                                                               final PropertyType propertyType,
+                                                               final Collection<String> defaultValues,
+                                                               final Collection<String> validNamespacePrefixes,
+                                                               final Collection<ValueConstraintPredicate> valueConstraints ) {
+        final MultiValidationStatus status = new MultiValidationStatus();
+        validateDefaultValues(propertyName, propertyType, defaultValues, validNamespacePrefixes, valueConstraints, status);
+        return status;
+    }
+
     /**
      * Checks for duplicates and correct value for type.
      * 
@@ -500,10 +541,29 @@ public final class CndValidator {
      * @param validNamespacePrefixes the valid namespace prefixes (can be <code>null</code> or empty)
      * @param status the status to add the new status to (cannot be <code>null</code>)
      */
+    public static void validateDefaultValues( final String propertyName,
+                                              final PropertyType propertyType,
+                                              final Collection<String> defaultValues,
+                                              final Collection<String> validNamespacePrefixes,
+                                              final MultiValidationStatus status ) {
+        validateDefaultValues(propertyName, propertyType, defaultValues, validNamespacePrefixes, null, status);
+    }
+
+    /**
+     * Checks for duplicates, correct value for type, and that each value satisfies at least one value constraint.
+     * 
+     * @param propertyName the name of the property definition (cannot be <code>null</code> or empty)
+     * @param propertyType the property definition's property type (cannot be <code>null</code>)
+     * @param defaultValues the default values (can be <code>null</code>)
+     * @param validNamespacePrefixes the valid namespace prefixes (can be <code>null</code> or empty)
+     * @param valueConstraints the compiled value constraints (can be <code>null</code> or empty)
+     * @param status the status to add the new status to (cannot be <code>null</code>)
+     */
     public static void validateDefaultValues( String propertyName,
                                               final PropertyType propertyType,
                                               final Collection<String> defaultValues,
                                               final Collection<String> validNamespacePrefixes,
+                                              final Collection<ValueConstraintPredicate> valueConstraints,
                                               final MultiValidationStatus status ) {
         Utils.verifyIsNotNull(propertyType, "propertyType"); //$NON-NLS-1$
 
@@ -543,6 +603,25 @@ public final class CndValidator {
                     }
                 }
 
+                // ERROR - Default value does not satisfy any value constraint
+                if (!Utils.isEmpty(valueConstraints) && !Utils.isEmpty(defaultValue)) {
+                    boolean satisfied = false;
+
+                    for (final ValueConstraintPredicate constraint : valueConstraints) {
+                        if (constraint.accepts(defaultValue)) {
+                            satisfied = true;
+                            break;
+                        }
+                    }
+
+                    if (!satisfied) {
+                        status.add(ValidationStatus.createErrorMessage(StatusCodes.DEFAULT_VALUE_DOES_NOT_SATISFY_VALUE_CONSTRAINTS,
+                                                                       NLS.bind(Messages.defaultValueDoesNotSatisfyValueConstraints,
+                                                                                propertyName,
+                                                                                defaultValue)));
+                    }
+                }
+
                 if (!Utils.isEmpty(defaultValue)) {
                     // ERROR - Duplicate default value
                     if (values.contains(defaultValue)) {
@@ -965,6 +1044,7 @@ public final class CndValidator {
 
         { // super types
             final Collection<QualifiedName> superTypeNames = nodeTypeDefinition.getSupertypes();
+            final long start = System.nanoTime();
 
             if (Utils.isEmpty(superTypeNames)) {
                 if (nodeTypeDefinition.getState(NodeTypeDefinition.PropertyName.SUPERTYPES) == Value.IS) {
@@ -982,8 +1062,22 @@ public final class CndValidator {
                     for (final QualifiedName superType : nodeTypeDefinition.getSupertypes()) {
                         status.add(validateSuperType(nodeTypeDefinition, superType.get(), cnd));
                     }
+
+                    // ERROR - Node type is part of a supertype cycle (being its own supertype is reported separately)
+                    if (!Utils.isEmpty(nodeTypeDefinition.getName())) {
+                        final List<String> cycle = cnd.getSuperTypeGraph().getCycleMembers(nodeTypeDefinition.getName());
+
+                        if (cycle.size() > 1) {
+                            status.add(ValidationStatus.createErrorMessage(StatusCodes.SUPER_TYPE_CYCLE,
+                                                                           NLS.bind(Messages.superTypeCycle,
+                                                                                    nodeTypeDefinitionName,
+                                                                                    cycle)));
+                        }
+                    }
                 }
             }
+
+            CndMetrics.get().record(CndMetrics.VALIDATE_SUPER_TYPES_NANOS, start);
         }
 
         { // primary item
@@ -1005,7 +1099,9 @@ public final class CndValidator {
                 final Collection<PropertyDefinition> propertyDefinitions = nodeTypeDefinition.getPropertyDefinitions();
 
                 if (!Utils.isEmpty(propertyDefinitions)) {
+                    final long start = System.nanoTime();
                     validatePropertyDefinitions(nodeTypeDefinitionName, validNamespacePrefixes, propertyDefinitions, status);
+                    CndMetrics.get().record(CndMetrics.VALIDATE_PROPERTIES_NANOS, start);
                 }
             }
 
@@ -1013,7 +1109,9 @@ public final class CndValidator {
                 final Collection<ChildNodeDefinition> childNodeDefinitions = nodeTypeDefinition.getChildNodeDefinitions();
 
                 if (!Utils.isEmpty(childNodeDefinitions)) {
+                    final long start = System.nanoTime();
                     validateChildNodeDefinitions(nodeTypeDefinitionName, validNamespacePrefixes, childNodeDefinitions, status);
+                    CndMetrics.get().record(CndMetrics.VALIDATE_CHILD_NODES_NANOS, start);
                 }
             }
         }
@@ -1029,6 +1127,20 @@ public final class CndValidator {
      */
     public static MultiValidationStatus validateNodeTypeDefinitions( final CompactNodeTypeDefinition cnd,
                                                                      final boolean validateEachPropertyAndChildNode ) {
+        return validateNodeTypeDefinitions(cnd, validateEachPropertyAndChildNode, (IProgressMonitor)null);
+    }
+
+    /**
+     * @param cnd the cnd whose node type definitions are being validated (cannot be <code>null</code>)
+     * @param validateEachPropertyAndChildNode indicates if property definition and child node definition validation should be
+     *        done
+     * @param monitor the monitor checked for cancellation before each node type definition is validated (can be <code>null</code>)
+     * @return the status (never <code>null</code>)
+     * @throws OperationCanceledException if the monitor is canceled
+     */
+    public static MultiValidationStatus validateNodeTypeDefinitions( final CompactNodeTypeDefinition cnd,
+                                                                     final boolean validateEachPropertyAndChildNode,
+                                                                     final IProgressMonitor monitor ) {
         Utils.verifyIsNotNull(cnd, "cnd"); //$NON-NLS-1$
 
         /**
@@ -1048,6 +1160,10 @@ public final class CndValidator {
         final Collection<String> names = new ArrayList<String>(nodeTypeDefinitions.size());
 
         for (final NodeTypeDefinition nodeTypeDefinition : nodeTypeDefinitions) {
+            if ((monitor != null) && monitor.isCanceled()) {
+                throw new OperationCanceledException();
+            }
+
             status.add(validateNodeTypeDefinition(nodeTypeDefinition, cnd, validateEachPropertyAndChildNode));
 
             { // ERROR - Duplicate node type definition names
@@ -1562,17 +1678,8 @@ public final class CndValidator {
 
         // make sure if mixin then supertype must be a mixin
         if (nodeTypeDefinition.isMixin()) {
-            // first check to see if supertype is in CND
-            NodeTypeDefinition superTypeNode = cnd.getNodeTypeDefinition(superTypeName);
-
-            // check to see if built-in node type
-            if (superTypeNode == null) {
-                try {
-                    superTypeNode = WorkspaceRegistry.get().getNodeTypeDefinition(superTypeName);
-                } catch (Exception e) {
-                    // should only happen if the registry does not load which would occur when the editor opens
-                }
-            }
+            // CND node types are found first and then built-in node types
+            final NodeTypeDefinition superTypeNode = cnd.getSuperTypeGraph().getNodeTypeDefinition(superTypeName);
 
             if ((superTypeNode != null) && !superTypeNode.isMixin()) {
                 return ValidationStatus.createErrorMessage(CndValidator.StatusCodes.SUPER_TYPE_NOT_A_MIXIN,
@@ -1712,6 +1819,30 @@ public final class CndValidator {
         return ValidationStatus.OK_STATUS;
     }
 
+    /**
+     * @param constraint the value constraint being validated (cannot be <code>null</code> or empty)
+     * @param propertyType the property type of the property definition owning the constraint (cannot be <code>null</code>)
+     * @return the status (never <code>null</code>)
+     */
+    public static ValidationStatus validateValueConstraint( final String constraint,
+                                                            final PropertyType propertyType ) {
+        Utils.verifyIsNotNull(propertyType, "propertyType"); //$NON-NLS-1$
+        final ValidationStatus status = validateValueConstraint(constraint);
+
+        if (status.isError()) {
+            return status;
+        }
+
+        try {
+            ValueConstraintPredicate.compile(constraint, propertyType);
+        } catch (final IllegalArgumentException e) {
+            return ValidationStatus.createErrorMessage(StatusCodes.INVALID_VALUE_CONSTRAINT,
+                                                       NLS.bind(Messages.invalidValueConstraint, constraint, propertyType));
+        }
+
+        return status;
+    }
+
     /**
      * @param constraint the value constraint being validated (cannot be <code>null</code> or empty)
      * @param status the status to add the new status to (never <code>null</code>)
@@ -1758,7 +1889,7 @@ public final class CndValidator {
                                                                NLS.bind(Messages.emptyValueConstraints, propertyName)));
             }
         } else {
-            validateValueConstraints(propertyName, Arrays.asList(valueConstraints), status);
+            validateValueConstraints(propertyName, propertyDefinition.getType(), Arrays.asList(valueConstraints), status);
 
             // ERROR - Cannot have explicit value constraints when value constraints is marked as a variant
             if (propertyDefinition.getState(PropertyDefinition.PropertyName.VALUE_CONSTRAINTS) != Value.IS) {
@@ -1783,6 +1914,23 @@ public final class CndValidator {
         return status;
     }
 
+    /**
+     * Checks for valid constraint syntax and duplicates.
+     * 
+     * @param propertyName the property definition name (can be <code>null</code> or empty)
+     * @param propertyType the property type (cannot be <code>null</code>)
+     * @param valueConstraints the value constraints (can be <code>null</code> or empty)
+     * @return the status (never <code>null</code>)
+     */
+    public static MultiValidationStatus validateValueConstraints( final String propertyName,
+                                                                  final PropertyType propertyType,
+                                                                  final Collection<String> valueConstraints ) {
+        Utils.verifyIsNotNull(propertyType, "propertyType"); //$NON-NLS-1$
+        final MultiValidationStatus status = new MultiValidationStatus();
+        validateValueConstraints(propertyName, propertyType, valueConstraints, status);
+        return status;
+    }
+
     /**
      * Checks for valid constraint and duplicates.
      * 
@@ -1790,7 +1938,22 @@ public final class CndValidator {
      * @param valueConstraints the value constraints (can be <code>null</code> or empty)
      * @param status the status to add the new status to (cannot be <code>null</code>)
      */
+    public static void validateValueConstraints( final String propertyName,
+                                                 final Collection<String> valueConstraints,
+                                                 final MultiValidationStatus status ) {
+        validateValueConstraints(propertyName, null, valueConstraints, status);
+    }
+
+    /**
+     * Checks for valid constraint and duplicates. When the property type is known the constraint syntax is also checked.
+     * 
+     * @param propertyName the property definition name (can be <code>null</code> or empty)
+     * @param propertyType the property type (can be <code>null</code> if constraint syntax should not be checked)
+     * @param valueConstraints the value constraints (can be <code>null</code> or empty)
+     * @param status the status to add the new status to (cannot be <code>null</code>)
+     */
     public static void validateValueConstraints( String propertyName,
+                                                 final PropertyType propertyType,
                                                  final Collection<String> valueConstraints,
                                                  final MultiValidationStatus status ) {
         if (propertyName == null) {
@@ -1802,7 +1965,15 @@ public final class CndValidator {
 
             for (final String constraint : valueConstraints) {
                 // ERROR - Invalid value constraint
-                validateValueConstraint(constraint, status);
+                if (propertyType == null) {
+                    validateValueConstraint(constraint, status);
+                } else {
+                    final ValidationStatus constraintStatus = validateValueConstraint(constraint, propertyType);
+
+                    if (!constraintStatus.isOk()) {
+                        status.add(constraintStatus);
+                    }
+                }
 
                 if (!Utils.isEmpty(constraint)) {
                     // ERROR - Duplicate value constraint
@@ -1870,6 +2041,9 @@ public final class CndValidator {
         int EMPTY_VALUE_CONSTRAINT = 300;
         int SUPER_TYPE_NOT_A_MIXIN = 305;
         int NODE_TYPE_CANNOT_BE_SUPER_TYPE_OF_ITSELF = 310;
+        int SUPER_TYPE_CYCLE = 315;
+        int INVALID_VALUE_CONSTRAINT = 320;
+        int DEFAULT_VALUE_DOES_NOT_SATISFY_VALUE_CONSTRAINTS = 325;
     }
 
 }
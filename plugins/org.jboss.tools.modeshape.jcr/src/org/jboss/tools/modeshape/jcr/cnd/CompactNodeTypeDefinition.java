@@ -23,7 +23,6 @@ import org.jboss.tools.modeshape.jcr.ItemDefinition;
 import org.jboss.tools.modeshape.jcr.NamespaceMapping;
 import org.jboss.tools.modeshape.jcr.NodeTypeDefinition;
 import org.jboss.tools.modeshape.jcr.PropertyDefinition;
-import org.jboss.tools.modeshape.jcr.QualifiedName;
 import org.jboss.tools.modeshape.jcr.Utils;
 import org.jboss.tools.modeshape.jcr.WorkspaceRegistry;
 import org.jboss.tools.modeshape.jcr.preference.JcrPreferenceConstants;
@@ -61,6 +60,11 @@ public class CompactNodeTypeDefinition implements CndElement {
      */
     private final CopyOnWriteArrayList<PropertyChangeListener> listeners;
 
+    /**
+     * The name completion index (can be <code>null</code> if not yet requested).
+     */
+    private QualifiedNameIndex nameIndex;
+
     /**
      * The namespace mappings (can be <code>null</code>).
      */
@@ -71,6 +75,11 @@ public class CompactNodeTypeDefinition implements CndElement {
      */
     private List<NodeTypeDefinition> nodeTypeDefinitions;
 
+    /**
+     * The supertype index (can be <code>null</code> if not yet requested).
+     */
+    private SuperTypeGraph superTypeGraph;
+
     /**
      * Constructs an instance with no namespace mappings or node type definitions.
      */
@@ -179,6 +188,22 @@ public class CompactNodeTypeDefinition implements CndElement {
         return wasCleared;
     }
 
+    /**
+     * Stops the name index and supertype graph, if they have been created, from listening to this CND and its node type
+     * definitions. They are created again if requested.
+     */
+    void disposeIndexes() {
+        if (this.nameIndex != null) {
+            this.nameIndex.dispose();
+            this.nameIndex = null;
+        }
+
+        if (this.superTypeGraph != null) {
+            this.superTypeGraph.dispose();
+            this.superTypeGraph = null;
+        }
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -238,16 +263,11 @@ public class CompactNodeTypeDefinition implements CndElement {
         // first add declared child nodes
         final Collection<ChildNodeDefinition> childNodes = new ArrayList<ChildNodeDefinition>(nodeType.getChildNodeDefinitions());
 
-        // now add inherited child nodes
+        // now add inherited child nodes (each ancestor contributes once even if inherited along more than one path)
         if (includeInherited) {
-            for (final QualifiedName superType : nodeType.getSupertypes()) {
-                final NodeTypeDefinition superTypeNodeType = getNodeTypeDefinition(superType.get());
-
-                if (superTypeNodeType == null) {
-                    // super type not found in CND so see if it is a built-in
-                    childNodes.addAll(WorkspaceRegistry.get().getChildNodeDefinitions(superType.get(), true));
-                } else if (!nodeTypeDefinitionName.equals(superTypeNodeType.getName())) {
-                    childNodes.addAll(getChildNodeDefinitions(superTypeNodeType.getName(), true));
+            for (final NodeTypeDefinition ancestor : getSuperTypeGraph().getAncestorDefinitions(nodeTypeDefinitionName)) {
+                if (ancestor != nodeType) {
+                    childNodes.addAll(ancestor.getChildNodeDefinitions());
                 }
             }
         }
@@ -391,16 +411,11 @@ public class CompactNodeTypeDefinition implements CndElement {
         // first add declared properties
         final Collection<PropertyDefinition> properties = new ArrayList<PropertyDefinition>(nodeType.getPropertyDefinitions());
 
-        // now add inherited properties
+        // now add inherited properties (each ancestor contributes once even if inherited along more than one path)
         if (includeInherited) {
-            for (final QualifiedName superType : nodeType.getSupertypes()) {
-                final NodeTypeDefinition superTypeNodeType = getNodeTypeDefinition(superType.get());
-
-                if (superTypeNodeType == null) {
-                    // super type not found in CND so see if it is a built-in
-                    properties.addAll(WorkspaceRegistry.get().getPropertyDefinitions(superType.get(), true));
-                } else if (!nodeTypeDefinitionName.equals(superTypeNodeType.getName())) {
-                    properties.addAll(getPropertyDefinitions(superTypeNodeType.getName(), true));
+            for (final NodeTypeDefinition ancestor : getSuperTypeGraph().getAncestorDefinitions(nodeTypeDefinitionName)) {
+                if (ancestor != nodeType) {
+                    properties.addAll(ancestor.getPropertyDefinitions());
                 }
             }
         }
@@ -408,6 +423,32 @@ public class CompactNodeTypeDefinition implements CndElement {
         return properties;
     }
 
+    /**
+     * The index is created the first time it is requested and then kept up-to-date as this CND changes.
+     *
+     * @return the index of the names of this CND's node types and items and of the built-in ones (never <code>null</code>)
+     */
+    public QualifiedNameIndex getNameIndex() {
+        if (this.nameIndex == null) {
+            this.nameIndex = new QualifiedNameIndex(this);
+        }
+
+        return this.nameIndex;
+    }
+
+    /**
+     * The graph is created the first time it is requested and then kept up-to-date as this CND changes.
+     *
+     * @return the index of the supertype hierarchy of this CND's node types and the built-in node types (never <code>null</code>)
+     */
+    public SuperTypeGraph getSuperTypeGraph() {
+        if (this.superTypeGraph == null) {
+            this.superTypeGraph = new SuperTypeGraph(this);
+        }
+
+        return this.superTypeGraph;
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -0,0 +1,581 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ *
+ * See the LEGAL.txt file distributed with this work for information regarding copyright ownership and licensing.
+ *
+ * See the AUTHORS.txt file distributed with this work for a full listing of individual contributors.
+ */
+package org.jboss.tools.modeshape.jcr.cnd;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.Status;
+import org.jboss.tools.modeshape.jcr.Activator;
+import org.jboss.tools.modeshape.jcr.ChildNodeDefinition;
+import org.jboss.tools.modeshape.jcr.NodeTypeDefinition;
+import org.jboss.tools.modeshape.jcr.PropertyDefinition;
+import org.jboss.tools.modeshape.jcr.QualifiedName;
+import org.jboss.tools.modeshape.jcr.Utils;
+import org.jboss.tools.modeshape.jcr.WorkspaceRegistry;
+
+/**
+ * An index of the node type, property definition, and child node definition names of a CND and of the built-in node types found
+ * in the {@link WorkspaceRegistry workspace registry}, used for name completion. The names of each kind are grouped by qualifier
+ * and kept in sorted maps keyed by the lower case name and by the name's camel case humps, so that a completion only looks at the
+ * names that match.
+ * <p>
+ * Matches are ranked: names starting with the pattern, then names starting with the pattern ignoring case, then names whose camel
+ * case humps start with the humps of the pattern (<code>NoTy</code> or <code>NT</code> match <code>NodeType</code>). Within a
+ * rank shorter names come first.
+ * <p>
+ * The index listens to its CND and to the CND's node type definitions and is updated incrementally as names are added, removed,
+ * or renamed. Property and child node definitions are not listened to: they are indexed by the name they had when they were
+ * added to their node type definition. Node types defined in other CNDs, like the other CND files of a project, can be
+ * {@link #setExternalNodeTypeNames(Collection) added}.
+ * <p>
+ * This class is not thread-safe.
+ */
+public final class QualifiedNameIndex implements PropertyChangeListener {
+
+    /**
+     * Orders matches within a rank by length and then by name.
+     */
+    private static final Comparator<Entry> RANK_SORTER = new Comparator<Entry>() {
+
+        /**
+         * {@inheritDoc}
+         *
+         * @see java.util.Comparator#compare(java.lang.Object, java.lang.Object)
+         */
+        @Override
+        public int compare( final Entry thisEntry,
+                            final Entry thatEntry ) {
+            final int result = (thisEntry.name.length() - thatEntry.name.length());
+            return ((result == 0) ? thisEntry.name.compareTo(thatEntry.name) : result);
+        }
+    };
+
+    /**
+     * Separates the sort part of a key from the name so that names that sort the same have different keys.
+     */
+    private static final char KEY_DELIM = '\u0000';
+
+    /**
+     * @param text the text whose camel case humps are being requested (never <code>null</code> or empty)
+     * @return the lower case first character of each hump (never <code>null</code> or empty)
+     */
+    static String humps( final String text ) {
+        final StringBuilder humps = new StringBuilder();
+        humps.append(Character.toLowerCase(text.charAt(0)));
+
+        for (int i = 1, size = text.length(); i < size; ++i) {
+            final char c = text.charAt(i);
+
+            if (Character.isUpperCase(c)) {
+                humps.append(Character.toLowerCase(c));
+            }
+        }
+
+        return humps.toString();
+    }
+
+    /**
+     * @param pattern the pattern whose humps must start the humps of the name (never <code>null</code> or empty)
+     * @param name the name being checked (never <code>null</code> or empty)
+     * @return <code>true</code> if each hump of the pattern starts the corresponding hump of the name, ignoring case
+     */
+    static boolean matchesHumps( final String pattern,
+                                 final String name ) {
+        int patternStart = 0;
+        int nameStart = 0;
+
+        while (patternStart < pattern.length()) {
+            if (nameStart >= name.length()) {
+                return false;
+            }
+
+            final int patternEnd = nextHump(pattern, patternStart);
+            final int nameEnd = nextHump(name, nameStart);
+            final int length = (patternEnd - patternStart);
+
+            if ((length > (nameEnd - nameStart)) || !name.regionMatches(true, nameStart, pattern, patternStart, length)) {
+                return false;
+            }
+
+            patternStart = patternEnd;
+            nameStart = nameEnd;
+        }
+
+        return true;
+    }
+
+    /**
+     * @param text the text being split into humps (never <code>null</code>)
+     * @param start the start of the current hump
+     * @return the start of the next hump or the length of the text
+     */
+    private static int nextHump( final String text,
+                                 final int start ) {
+        int i = (start + 1);
+
+        while ((i < text.length()) && !Character.isUpperCase(text.charAt(i))) {
+            ++i;
+        }
+
+        return i;
+    }
+
+    /**
+     * @param qualifier the qualifier whose key is being requested (can be <code>null</code> or empty)
+     * @return the key used to group the names with that qualifier (never <code>null</code>)
+     */
+    static String qualifierKey( final String qualifier ) {
+        return ((qualifier == null) ? Utils.EMPTY_STRING : qualifier);
+    }
+
+    private static String toLowerCase( final String text ) {
+        return text.toLowerCase(Locale.ENGLISH);
+    }
+
+    /**
+     * The child node definition names grouped by qualifier.
+     */
+    private final Names childNodeNames = new Names();
+
+    /**
+     * The CND whose names are being indexed (never <code>null</code>).
+     */
+    private final CompactNodeTypeDefinition cnd;
+
+    /**
+     * The names added by {@link #setExternalNodeTypeNames(Collection)} (never <code>null</code>).
+     */
+    private Collection<QualifiedName> externalNodeTypeNames = Collections.emptyList();
+
+    /**
+     * The indexed names of the property and child node definitions of the observed node types keyed by definition.
+     */
+    private final Map<Object, QualifiedName> itemNames = new IdentityHashMap<Object, QualifiedName>();
+
+    /**
+     * The node type definition names grouped by qualifier.
+     */
+    private final Names nodeTypeNames = new Names();
+
+    /**
+     * The indexed name of each CND node type definition this index is listening to keyed by node type.
+     */
+    private final Map<NodeTypeDefinition, QualifiedName> observedNodeTypes =
+        new IdentityHashMap<NodeTypeDefinition, QualifiedName>();
+
+    /**
+     * The property definition names grouped by qualifier.
+     */
+    private final Names propertyNames = new Names();
+
+    /**
+     * @param cnd the CND whose names are being indexed (cannot be <code>null</code>)
+     */
+    public QualifiedNameIndex( final CompactNodeTypeDefinition cnd ) {
+        Utils.verifyIsNotNull(cnd, "cnd"); //$NON-NLS-1$
+
+        this.cnd = cnd;
+        this.cnd.addListener(this);
+
+        for (final NodeTypeDefinition nodeType : this.cnd.getNodeTypeDefinitions()) {
+            observe(nodeType);
+        }
+
+        // built-in node types do not change
+        try {
+            for (final NodeTypeDefinition nodeType : WorkspaceRegistry.get().getNodeTypeDefinitions()) {
+                this.nodeTypeNames.add(nodeType.getQualifiedName());
+
+                for (final PropertyDefinition propDefn : nodeType.getPropertyDefinitions()) {
+                    this.propertyNames.add(propDefn.getQualifiedName());
+                }
+
+                for (final ChildNodeDefinition childNodeDefn : nodeType.getChildNodeDefinitions()) {
+                    this.childNodeNames.add(childNodeDefn.getQualifiedName());
+                }
+            }
+        } catch (final Exception e) {
+            if (Platform.isRunning()) {
+                Activator.get().getLog().log(new Status(IStatus.ERROR, Activator.PLUGIN_ID, null, e));
+            } else {
+                System.err.print(e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * @param items the property or child node definitions being indexed (never <code>null</code>)
+     * @param names the names the items are being added to (never <code>null</code>)
+     */
+    private void addItems( final Collection<?> items,
+                           final Names names ) {
+        for (final Object item : items) {
+            addItem(item, names);
+        }
+    }
+
+    private void addItem( final Object item,
+                          final Names names ) {
+        final QualifiedName name = itemName(item);
+
+        if ((name != null) && !this.itemNames.containsKey(item)) {
+            this.itemNames.put(item, name);
+            names.add(name);
+        }
+    }
+
+    /**
+     * Stops listening to the CND and its node type definitions. The index should not be used after it has been disposed.
+     */
+    public void dispose() {
+        this.cnd.removeListener(this);
+
+        for (final NodeTypeDefinition nodeType : this.observedNodeTypes.keySet()) {
+            nodeType.removeListener(this);
+        }
+
+        this.observedNodeTypes.clear();
+        this.itemNames.clear();
+    }
+
+    /**
+     * @param qualifier the qualifier the names must have (can be <code>null</code> or empty)
+     * @param pattern the pattern the unqualified names must match (can be <code>null</code> or empty)
+     * @return the ranked matching child node definition names (never <code>null</code> but can be empty)
+     */
+    public List<QualifiedName> findChildNodeNames( final String qualifier,
+                                                   final String pattern ) {
+        return this.childNodeNames.find(qualifier, pattern);
+    }
+
+    /**
+     * @param qualifier the qualifier the names must have (can be <code>null</code> or empty)
+     * @param pattern the pattern the unqualified names must match (can be <code>null</code> or empty)
+     * @return the ranked matching node type definition names (never <code>null</code> but can be empty)
+     */
+    public List<QualifiedName> findNodeTypeNames( final String qualifier,
+                                                  final String pattern ) {
+        return this.nodeTypeNames.find(qualifier, pattern);
+    }
+
+    /**
+     * @param qualifier the qualifier the names must have (can be <code>null</code> or empty)
+     * @param pattern the pattern the unqualified names must match (can be <code>null</code> or empty)
+     * @return the ranked matching property definition names (never <code>null</code> but can be empty)
+     */
+    public List<QualifiedName> findPropertyNames( final String qualifier,
+                                                  final String pattern ) {
+        return this.propertyNames.find(qualifier, pattern);
+    }
+
+    /**
+     * @param item a property or child node definition (can be <code>null</code>)
+     * @return the name of the item or <code>null</code> if the item is not a definition or does not have a name
+     */
+    private QualifiedName itemName( final Object item ) {
+        if ((item instanceof PropertyDefinition) && !Utils.isEmpty(((PropertyDefinition)item).getName())) {
+            return QualifiedName.parse(((PropertyDefinition)item).getName());
+        }
+
+        if ((item instanceof ChildNodeDefinition) && !Utils.isEmpty(((ChildNodeDefinition)item).getName())) {
+            return QualifiedName.parse(((ChildNodeDefinition)item).getName());
+        }
+
+        return null;
+    }
+
+    /**
+     * @param nodeType the CND node type definition being listened to and indexed (never <code>null</code>)
+     */
+    private void observe( final NodeTypeDefinition nodeType ) {
+        if (this.observedNodeTypes.containsKey(nodeType)) {
+            return; // the same instance may have been added to the CND more than once
+        }
+
+        final QualifiedName name = (Utils.isEmpty(nodeType.getName()) ? null : QualifiedName.parse(nodeType.getName()));
+        this.observedNodeTypes.put(nodeType, name);
+        this.nodeTypeNames.add(name);
+        addItems(nodeType.getPropertyDefinitions(), this.propertyNames);
+        addItems(nodeType.getChildNodeDefinitions(), this.childNodeNames);
+        nodeType.addListener(this);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see java.beans.PropertyChangeListener#propertyChange(java.beans.PropertyChangeEvent)
+     */
+    @Override
+    public void propertyChange( final PropertyChangeEvent e ) {
+        final String propName = e.getPropertyName();
+
+        if (e.getSource() == this.cnd) {
+            if (CompactNodeTypeDefinition.PropertyName.NODE_TYPE_DEFINITIONS.toString().equals(propName)) {
+                unobserve(e.getOldValue());
+
+                if (e.getNewValue() instanceof NodeTypeDefinition) {
+                    observe((NodeTypeDefinition)e.getNewValue());
+                }
+            }
+        } else if (e.getSource() instanceof NodeTypeDefinition) {
+            final NodeTypeDefinition nodeType = (NodeTypeDefinition)e.getSource();
+
+            if (!this.observedNodeTypes.containsKey(nodeType)) {
+                return;
+            }
+
+            if (NodeTypeDefinition.PropertyName.NAME.toString().equals(propName)) {
+                final QualifiedName newName = (Utils.isEmpty(nodeType.getName()) ? null : QualifiedName.parse(nodeType.getName()));
+                this.nodeTypeNames.remove(this.observedNodeTypes.put(nodeType, newName));
+                this.nodeTypeNames.add(newName);
+            } else if (NodeTypeDefinition.PropertyName.PROPERTY_DEFINITIONS.toString().equals(propName)) {
+                removeItem(e.getOldValue(), this.propertyNames);
+                addItem(e.getNewValue(), this.propertyNames);
+            } else if (NodeTypeDefinition.PropertyName.CHILD_NODES.toString().equals(propName)) {
+                removeItem(e.getOldValue(), this.childNodeNames);
+                addItem(e.getNewValue(), this.childNodeNames);
+            }
+        }
+    }
+
+    private void removeItem( final Object item,
+                             final Names names ) {
+        if (item != null) {
+            names.remove(this.itemNames.remove(item));
+        }
+    }
+
+    /**
+     * @param newExternalNodeTypeNames the names of the node types defined outside of the CND (can be <code>null</code> or empty)
+     */
+    public void setExternalNodeTypeNames( final Collection<String> newExternalNodeTypeNames ) {
+        for (final QualifiedName name : this.externalNodeTypeNames) {
+            this.nodeTypeNames.remove(name);
+        }
+
+        if (Utils.isEmpty(newExternalNodeTypeNames)) {
+            this.externalNodeTypeNames = Collections.emptyList();
+        } else {
+            this.externalNodeTypeNames = new ArrayList<QualifiedName>(newExternalNodeTypeNames.size());
+
+            for (final String name : newExternalNodeTypeNames) {
+                if (!Utils.isEmpty(name)) {
+                    final QualifiedName qname = QualifiedName.parse(name);
+                    this.externalNodeTypeNames.add(qname);
+                    this.nodeTypeNames.add(qname);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param oldValue a removed node type definition or a collection of removed node type definitions (can be <code>null</code>)
+     */
+    private void unobserve( final Object oldValue ) {
+        if (oldValue instanceof NodeTypeDefinition) {
+            final NodeTypeDefinition nodeType = (NodeTypeDefinition)oldValue;
+
+            // the same instance may have been added to the CND more than once
+            for (final NodeTypeDefinition remaining : this.cnd.getNodeTypeDefinitions()) {
+                if (remaining == nodeType) {
+                    return;
+                }
+            }
+
+            if (this.observedNodeTypes.containsKey(nodeType)) {
+                nodeType.removeListener(this);
+                this.nodeTypeNames.remove(this.observedNodeTypes.remove(nodeType));
+
+                for (final PropertyDefinition propDefn : nodeType.getPropertyDefinitions()) {
+                    removeItem(propDefn, this.propertyNames);
+                }
+
+                for (final ChildNodeDefinition childNodeDefn : nodeType.getChildNodeDefinitions()) {
+                    removeItem(childNodeDefn, this.childNodeNames);
+                }
+            }
+        } else if (oldValue instanceof Collection) {
+            for (final Object nodeType : (Collection<?>)oldValue) {
+                unobserve(nodeType);
+            }
+        }
+    }
+
+    /**
+     * An indexed name. A name can be added more than once, for example when a CND node type has the same name as a built-in node
+     * type, and stays in the index until it has been removed as many times.
+     */
+    private static final class Entry {
+
+        int count = 1;
+        final String name;
+        final QualifiedName qname;
+
+        Entry( final QualifiedName qname ) {
+            this.qname = qname;
+            this.name = qname.getUnqualifiedName();
+        }
+    }
+
+    /**
+     * The names of one kind grouped by qualifier.
+     */
+    private static final class Names {
+
+        private final Map<String, Qualified> byQualifier = new HashMap<String, Qualified>();
+
+        void add( final QualifiedName name ) {
+            if ((name == null) || Utils.isEmpty(name.getUnqualifiedName())) {
+                return;
+            }
+
+            final String qualifier = qualifierKey(name.getQualifier());
+            Qualified names = this.byQualifier.get(qualifier);
+
+            if (names == null) {
+                names = new Qualified();
+                this.byQualifier.put(qualifier, names);
+            }
+
+            names.add(name);
+        }
+
+        List<QualifiedName> find( final String qualifier,
+                                  final String pattern ) {
+            final Qualified names = this.byQualifier.get(qualifierKey(qualifier));
+            return ((names == null) ? Collections.<QualifiedName>emptyList() : names.find(pattern));
+        }
+
+        void remove( final QualifiedName name ) {
+            if ((name == null) || Utils.isEmpty(name.getUnqualifiedName())) {
+                return;
+            }
+
+            final String qualifier = qualifierKey(name.getQualifier());
+            final Qualified names = this.byQualifier.get(qualifier);
+
+            if ((names != null) && names.remove(name)) {
+                this.byQualifier.remove(qualifier);
+            }
+        }
+    }
+
+    /**
+     * The names having the same qualifier.
+     */
+    private static final class Qualified {
+
+        /**
+         * The entries keyed by the lower case first characters of their camel case humps.
+         */
+        private final TreeMap<String, Entry> byHumps = new TreeMap<String, Entry>();
+
+        /**
+         * The entries keyed by their lower case name.
+         */
+        private final TreeMap<String, Entry> byLowerCaseName = new TreeMap<String, Entry>();
+
+        void add( final QualifiedName qname ) {
+            final String name = qname.getUnqualifiedName();
+            final String key = (toLowerCase(name) + KEY_DELIM + name);
+            final Entry entry = this.byLowerCaseName.get(key);
+
+            if (entry == null) {
+                final Entry newEntry = new Entry(qname);
+                this.byLowerCaseName.put(key, newEntry);
+                this.byHumps.put(humps(name) + KEY_DELIM + name, newEntry);
+            } else {
+                ++entry.count;
+            }
+        }
+
+        List<QualifiedName> find( final String pattern ) {
+            if (Utils.isEmpty(pattern)) {
+                return toNames(this.byLowerCaseName.values());
+            }
+
+            final String lowerCasePattern = toLowerCase(pattern);
+            final List<Entry> prefixMatches = new ArrayList<Entry>();
+            final List<Entry> lowerCaseMatches = new ArrayList<Entry>();
+
+            for (final Entry entry : prefixRange(this.byLowerCaseName, lowerCasePattern)) {
+                if (entry.name.startsWith(pattern)) {
+                    prefixMatches.add(entry);
+                } else {
+                    lowerCaseMatches.add(entry);
+                }
+            }
+
+            Collections.sort(prefixMatches, RANK_SORTER);
+            Collections.sort(lowerCaseMatches, RANK_SORTER);
+            prefixMatches.addAll(lowerCaseMatches);
+
+            // camel case matching only makes sense when the pattern has more than one hump
+            final String patternHumps = humps(pattern);
+
+            if (patternHumps.length() > 1) {
+                final List<Entry> humpMatches = new ArrayList<Entry>();
+
+                for (final Entry entry : prefixRange(this.byHumps, patternHumps)) {
+                    if (!toLowerCase(entry.name).startsWith(lowerCasePattern) && matchesHumps(pattern, entry.name)) {
+                        humpMatches.add(entry);
+                    }
+                }
+
+                Collections.sort(humpMatches, RANK_SORTER);
+                prefixMatches.addAll(humpMatches);
+            }
+
+            return toNames(prefixMatches);
+        }
+
+        private Collection<Entry> prefixRange( final TreeMap<String, Entry> entries,
+                                               final String prefix ) {
+            return entries.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values();
+        }
+
+        /**
+         * @param qname the name being removed (never <code>null</code>)
+         * @return <code>true</code> if there are no names left
+         */
+        boolean remove( final QualifiedName qname ) {
+            final String name = qname.getUnqualifiedName();
+            final String key = (toLowerCase(name) + KEY_DELIM + name);
+            final Entry entry = this.byLowerCaseName.get(key);
+
+            if ((entry != null) && (--entry.count == 0)) {
+                this.byLowerCaseName.remove(key);
+                this.byHumps.remove(humps(name) + KEY_DELIM + name);
+            }
+
+            return this.byLowerCaseName.isEmpty();
+        }
+
+        private List<QualifiedName> toNames( final Collection<Entry> entries ) {
+            final List<QualifiedName> names = new ArrayList<QualifiedName>(entries.size());
+
+            for (final Entry entry : entries) {
+                names.add(entry.qname);
+            }
+
+            return names;
+        }
+    }
+}
@@ -0,0 +1,503 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ *
+ * See the LEGAL.txt file distributed with this work for information regarding copyright ownership and licensing.
+ *
+ * See the AUTHORS.txt file distributed with this work for a full listing of individual contributors.
+ */
+package org.jboss.tools.modeshape.jcr.cnd;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.Status;
+import org.jboss.tools.modeshape.jcr.Activator;
+import org.jboss.tools.modeshape.jcr.NodeTypeDefinition;
+import org.jboss.tools.modeshape.jcr.QualifiedName;
+import org.jboss.tools.modeshape.jcr.Utils;
+import org.jboss.tools.modeshape.jcr.WorkspaceRegistry;
+
+/**
+ * An index of the supertype relationships of the node type definitions of a CND and of the built-in node types found in the
+ * {@link WorkspaceRegistry workspace registry}. Cycles are found using Tarjan's strongly connected components algorithm and the
+ * ancestors of every node type are computed once, in reverse topological order, so that subtype, ancestor, and cycle queries do
+ * not walk the hierarchy. Node types defined in the CND hide built-in node types having the same name.
+ * <p>
+ * Node types defined in other CNDs, like the other CND files of a project, can be
+ * {@link #setExternalNodeTypeDefinitions(Collection) added} so that supertypes declared outside of the CND can be resolved.
+ * External node types hide built-in node types but are hidden by the CND's own node types. External node types are not listened
+ * to.
+ * <p>
+ * The graph listens to its CND and to the CND's node type definitions. A change to the node type definitions, a node type name, or
+ * a supertype invalidates the index, which is rebuilt in linear time by the next query.
+ */
+public final class SuperTypeGraph implements PropertyChangeListener {
+
+    private static final int UNVISITED = -1;
+
+    /**
+     * The ancestors of each strongly connected component indexed by component (<code>null</code> when the index is invalid).
+     */
+    private BitSet[] ancestors;
+
+    /**
+     * The CND whose node types are being indexed (never <code>null</code>).
+     */
+    private final CompactNodeTypeDefinition cnd;
+
+    /**
+     * The component of each node type indexed by node type (<code>null</code> when the index is invalid).
+     */
+    private int[] componentOf;
+
+    /**
+     * The node type members of each component indexed by component (<code>null</code> when the index is invalid).
+     */
+    private int[][] components;
+
+    /**
+     * Node types defined outside of the CND (never <code>null</code>).
+     */
+    private Collection<NodeTypeDefinition> externalNodeTypes = Collections.emptyList();
+
+    /**
+     * The indexed node types (<code>null</code> when the index is invalid).
+     */
+    private NodeTypeDefinition[] nodeTypes;
+
+    /**
+     * The node type index keyed by node type name (<code>null</code> when the index is invalid).
+     */
+    private Map<String, Integer> nodeTypeIndexes;
+
+    /**
+     * The CND node type definitions this graph is listening to (never <code>null</code>).
+     */
+    private final Map<NodeTypeDefinition, Object> observedNodeTypes;
+
+    /**
+     * @param cnd the CND whose supertype hierarchy is being indexed (cannot be <code>null</code>)
+     */
+    public SuperTypeGraph( final CompactNodeTypeDefinition cnd ) {
+        Utils.verifyIsNotNull(cnd, "cnd"); //$NON-NLS-1$
+
+        this.cnd = cnd;
+        this.observedNodeTypes = new IdentityHashMap<NodeTypeDefinition, Object>();
+        this.cnd.addListener(this);
+
+        for (final NodeTypeDefinition nodeType : this.cnd.getNodeTypeDefinitions()) {
+            observe(nodeType);
+        }
+    }
+
+    /**
+     * Builds the index if it has been invalidated.
+     */
+    private void build() {
+        if (this.ancestors != null) {
+            return; // index is valid
+        }
+
+        final Map<String, Integer> indexes = new HashMap<String, Integer>();
+        final List<NodeTypeDefinition> types = new ArrayList<NodeTypeDefinition>();
+
+        // CND node types first so that they hide built-ins having the same name
+        for (final NodeTypeDefinition nodeType : this.cnd.getNodeTypeDefinitions()) {
+            register(nodeType, indexes, types);
+        }
+
+        for (final NodeTypeDefinition nodeType : this.externalNodeTypes) {
+            register(nodeType, indexes, types);
+        }
+
+        try {
+            for (final NodeTypeDefinition nodeType : WorkspaceRegistry.get().getNodeTypeDefinitions()) {
+                register(nodeType, indexes, types);
+            }
+        } catch (final Exception e) {
+            if (Platform.isRunning()) {
+                Activator.get().getLog().log(new Status(IStatus.ERROR, Activator.PLUGIN_ID, null, e));
+            } else {
+                System.err.print(e.getMessage());
+            }
+        }
+
+        // supertype edges (supertypes that cannot be found are ignored)
+        final int size = types.size();
+        final int[][] edges = new int[size][];
+
+        for (int i = 0; i < size; ++i) {
+            final List<QualifiedName> superTypes = types.get(i).getSupertypes();
+            final int[] targets = new int[superTypes.size()];
+            int count = 0;
+
+            for (final QualifiedName superType : superTypes) {
+                final Integer target = indexes.get(superType.get());
+
+                if (target != null) {
+                    targets[count++] = target;
+                }
+            }
+
+            edges[i] = ((count == targets.length) ? targets : Arrays.copyOf(targets, count));
+        }
+
+        this.nodeTypeIndexes = indexes;
+        this.nodeTypes = types.toArray(new NodeTypeDefinition[size]);
+        findComponents(edges);
+        computeAncestors(edges);
+    }
+
+    /**
+     * Components are processed in the order Tarjan's algorithm completes them, which guarantees every component reachable from a
+     * component has already been processed.
+     *
+     * @param edges the supertype edges (never <code>null</code>)
+     */
+    private void computeAncestors( final int[][] edges ) {
+        final BitSet[] result = new BitSet[this.components.length];
+
+        for (int component = 0; component < this.components.length; ++component) {
+            final int[] members = this.components[component];
+            final BitSet bits = new BitSet();
+
+            for (final int member : members) {
+                for (final int superType : edges[member]) {
+                    final int superTypeComponent = this.componentOf[superType];
+
+                    if (superTypeComponent == component) {
+                        // in a cycle every member is an ancestor of every member
+                        for (final int cycleMember : members) {
+                            bits.set(cycleMember);
+                        }
+                    } else {
+                        bits.set(superType);
+                        bits.or(result[superTypeComponent]);
+                    }
+                }
+            }
+
+            result[component] = bits;
+        }
+
+        this.ancestors = result;
+    }
+
+    /**
+     * Stops listening to the CND and its node type definitions. The graph should not be used after it has been disposed.
+     */
+    public void dispose() {
+        this.cnd.removeListener(this);
+
+        for (final NodeTypeDefinition nodeType : this.observedNodeTypes.keySet()) {
+            nodeType.removeListener(this);
+        }
+
+        this.observedNodeTypes.clear();
+        invalidate();
+    }
+
+    /**
+     * An iterative version of Tarjan's algorithm so that very deep hierarchies do not overflow the stack.
+     *
+     * @param edges the supertype edges (never <code>null</code>)
+     */
+    private void findComponents( final int[][] edges ) {
+        final int size = edges.length;
+        final int[] order = new int[size];
+        final int[] lowLink = new int[size];
+        final int[] nextEdge = new int[size];
+        final int[] callStack = new int[size];
+        final int[] stack = new int[size];
+        final boolean[] onStack = new boolean[size];
+        final int[] component = new int[size];
+        final List<int[]> found = new ArrayList<int[]>();
+        int counter = 0;
+        int stackSize = 0;
+
+        Arrays.fill(order, UNVISITED);
+
+        for (int root = 0; root < size; ++root) {
+            if (order[root] != UNVISITED) {
+                continue;
+            }
+
+            int depth = 0;
+            callStack[depth] = root;
+            order[root] = lowLink[root] = counter++;
+            stack[stackSize++] = root;
+            onStack[root] = true;
+
+            while (depth >= 0) {
+                final int node = callStack[depth];
+
+                if (nextEdge[node] < edges[node].length) {
+                    final int superType = edges[node][nextEdge[node]++];
+
+                    if (order[superType] == UNVISITED) {
+                        order[superType] = lowLink[superType] = counter++;
+                        stack[stackSize++] = superType;
+                        onStack[superType] = true;
+                        callStack[++depth] = superType;
+                    } else if (onStack[superType]) {
+                        lowLink[node] = Math.min(lowLink[node], order[superType]);
+                    }
+                } else {
+                    if (lowLink[node] == order[node]) {
+                        // node is the root of a component
+                        int start = stackSize;
+
+                        do {
+                            --start;
+                        } while (stack[start] != node);
+
+                        final int[] members = Arrays.copyOfRange(stack, start, stackSize);
+
+                        for (final int member : members) {
+                            onStack[member] = false;
+                            component[member] = found.size();
+                        }
+
+                        found.add(members);
+                        stackSize = start;
+                    }
+
+                    if (--depth >= 0) {
+                        final int parent = callStack[depth];
+                        lowLink[parent] = Math.min(lowLink[parent], lowLink[node]);
+                    }
+                }
+            }
+        }
+
+        this.componentOf = component;
+        this.components = found.toArray(new int[found.size()][]);
+    }
+
+    /**
+     * @param nodeTypeName the name of the node type whose ancestors are being requested (cannot be <code>null</code> or empty)
+     * @return the definitions of all the direct and indirect supertypes that could be found (never <code>null</code> but can be
+     *         empty)
+     */
+    public List<NodeTypeDefinition> getAncestorDefinitions( final String nodeTypeName ) {
+        final BitSet bits = getAncestorIndexes(nodeTypeName);
+
+        if (bits.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        final List<NodeTypeDefinition> result = new ArrayList<NodeTypeDefinition>(bits.cardinality());
+
+        for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+            result.add(this.nodeTypes[i]);
+        }
+
+        return result;
+    }
+
+    /**
+     * @param nodeTypeName the name of the node type (cannot be <code>null</code> or empty)
+     * @return the ancestor indexes (never <code>null</code> and must not be modified)
+     */
+    private BitSet getAncestorIndexes( final String nodeTypeName ) {
+        Utils.verifyIsNotEmpty(nodeTypeName, "nodeTypeName"); //$NON-NLS-1$
+        build();
+
+        final Integer index = this.nodeTypeIndexes.get(nodeTypeName);
+
+        if (index == null) {
+            return new BitSet(0);
+        }
+
+        return this.ancestors[this.componentOf[index]];
+    }
+
+    /**
+     * @param nodeTypeName the name of the node type whose ancestors are being requested (cannot be <code>null</code> or empty)
+     * @return the names of all the direct and indirect supertypes that could be found (never <code>null</code> but can be empty)
+     */
+    public List<String> getAncestors( final String nodeTypeName ) {
+        final List<NodeTypeDefinition> definitions = getAncestorDefinitions(nodeTypeName);
+
+        if (definitions.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        final List<String> names = new ArrayList<String>(definitions.size());
+
+        for (final NodeTypeDefinition definition : definitions) {
+            names.add(definition.getName());
+        }
+
+        return names;
+    }
+
+    /**
+     * @param nodeTypeName the name of the node type being checked (cannot be <code>null</code> or empty)
+     * @return the names of the node types in the same supertype cycle, including the node type itself, or an empty collection if
+     *         the node type is not part of a cycle (never <code>null</code>)
+     */
+    public List<String> getCycleMembers( final String nodeTypeName ) {
+        Utils.verifyIsNotEmpty(nodeTypeName, "nodeTypeName"); //$NON-NLS-1$
+        build();
+
+        final Integer index = this.nodeTypeIndexes.get(nodeTypeName);
+
+        if ((index == null) || !this.ancestors[this.componentOf[index]].get(index)) {
+            return Collections.emptyList();
+        }
+
+        final int[] members = this.components[this.componentOf[index]];
+        final List<String> names = new ArrayList<String>(members.length);
+
+        for (final int member : members) {
+            names.add(this.nodeTypes[member].getName());
+        }
+
+        return names;
+    }
+
+    /**
+     * @param nodeTypeName the name of the node type definition being requested (cannot be <code>null</code> or empty)
+     * @return the CND node type definition or, if not found in the CND, the external or built-in node type definition
+     *         (<code>null</code> if not found)
+     */
+    public NodeTypeDefinition getNodeTypeDefinition( final String nodeTypeName ) {
+        Utils.verifyIsNotEmpty(nodeTypeName, "nodeTypeName"); //$NON-NLS-1$
+        build();
+
+        final Integer index = this.nodeTypeIndexes.get(nodeTypeName);
+        return ((index == null) ? null : this.nodeTypes[index]);
+    }
+
+    /**
+     * Marks the index as needing to be rebuilt.
+     */
+    private void invalidate() {
+        this.ancestors = null;
+        this.componentOf = null;
+        this.components = null;
+        this.nodeTypes = null;
+        this.nodeTypeIndexes = null;
+    }
+
+    /**
+     * @param nodeTypeName the name of the node type being checked (cannot be <code>null</code> or empty)
+     * @return <code>true</code> if the node type is a direct or indirect supertype of itself
+     */
+    public boolean isInCycle( final String nodeTypeName ) {
+        Utils.verifyIsNotEmpty(nodeTypeName, "nodeTypeName"); //$NON-NLS-1$
+        build();
+
+        final Integer index = this.nodeTypeIndexes.get(nodeTypeName);
+        return ((index != null) && this.ancestors[this.componentOf[index]].get(index));
+    }
+
+    /**
+     * @param nodeTypeName the name of the node type being checked (cannot be <code>null</code> or empty)
+     * @param superTypeName the name of the potential supertype (cannot be <code>null</code> or empty)
+     * @return <code>true</code> if the second node type is a direct or indirect supertype of the first node type
+     */
+    public boolean isSubtypeOf( final String nodeTypeName,
+                                final String superTypeName ) {
+        Utils.verifyIsNotEmpty(superTypeName, "superTypeName"); //$NON-NLS-1$
+        final BitSet bits = getAncestorIndexes(nodeTypeName);
+        final Integer index = this.nodeTypeIndexes.get(superTypeName);
+        return ((index != null) && bits.get(index));
+    }
+
+    /**
+     * @param nodeType the CND node type definition to start listening to (never <code>null</code>)
+     */
+    private void observe( final NodeTypeDefinition nodeType ) {
+        if (!this.observedNodeTypes.containsKey(nodeType)) {
+            this.observedNodeTypes.put(nodeType, null);
+            nodeType.addListener(this);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see java.beans.PropertyChangeListener#propertyChange(java.beans.PropertyChangeEvent)
+     */
+    @Override
+    public void propertyChange( final PropertyChangeEvent e ) {
+        final String propName = e.getPropertyName();
+
+        if (CompactNodeTypeDefinition.PropertyName.NODE_TYPE_DEFINITIONS.toString().equals(propName)) {
+            unobserve(e.getOldValue());
+
+            if (e.getNewValue() instanceof NodeTypeDefinition) {
+                observe((NodeTypeDefinition)e.getNewValue());
+            }
+
+            invalidate();
+        } else if (NodeTypeDefinition.PropertyName.NAME.toString().equals(propName)
+                   || NodeTypeDefinition.PropertyName.SUPERTYPES.toString().equals(propName)) {
+            invalidate();
+        }
+    }
+
+    /**
+     * @param newExternalNodeTypes the node type definitions defined outside of the CND (can be <code>null</code> or empty)
+     */
+    public void setExternalNodeTypeDefinitions( final Collection<NodeTypeDefinition> newExternalNodeTypes ) {
+        if (Utils.isEmpty(newExternalNodeTypes)) {
+            this.externalNodeTypes = Collections.emptyList();
+        } else {
+            this.externalNodeTypes = new ArrayList<NodeTypeDefinition>(newExternalNodeTypes);
+        }
+
+        invalidate();
+    }
+
+    /**
+     * @param nodeType the node type being registered (never <code>null</code>)
+     * @param indexes the node type indexes keyed by name (never <code>null</code>)
+     * @param types the registered node types (never <code>null</code>)
+     */
+    private void register( final NodeTypeDefinition nodeType,
+                           final Map<String, Integer> indexes,
+                           final List<NodeTypeDefinition> types ) {
+        final String name = nodeType.getName();
+
+        if (!Utils.isEmpty(name) && !indexes.containsKey(name)) {
+            indexes.put(name, types.size());
+            types.add(nodeType);
+        }
+    }
+
+    /**
+     * @param oldValue a removed node type definition or a collection of removed node type definitions (can be <code>null</code>)
+     */
+    private void unobserve( final Object oldValue ) {
+        if (oldValue instanceof NodeTypeDefinition) {
+            final NodeTypeDefinition nodeType = (NodeTypeDefinition)oldValue;
+
+            // the same instance may have been added to the CND more than once
+            for (final NodeTypeDefinition remaining : this.cnd.getNodeTypeDefinitions()) {
+                if (remaining == nodeType) {
+                    return;
+                }
+            }
+
+            this.observedNodeTypes.remove(nodeType);
+            nodeType.removeListener(this);
+        } else if (oldValue instanceof Collection) {
+            for (final Object nodeType : (Collection<?>)oldValue) {
+                unobserve(nodeType);
+            }
+        }
+    }
+}
@@ -43,7 +43,7 @@ public final class JcrPreferenceStore extends AbstractPreferenceInitializer {
     /**
      * @return the shared preference store (never <code>null</code>)
      */
-    public static JcrPreferenceStore get() {
+    public static synchronized JcrPreferenceStore get() {
         if (_store == null) {
             _store = new JcrPreferenceStore();
         }
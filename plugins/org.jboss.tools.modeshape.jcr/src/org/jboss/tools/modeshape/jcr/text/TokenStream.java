@@ -1499,6 +1499,13 @@ public class TokenStream {
         return this;
     }
 
+    /**
+     * @return the number of tokens in the stream (zero if the stream has not been {@link #start() started})
+     */
+    public int getTokenCount() {
+        return ((this.tokens == null) ? 0 : this.tokens.size());
+    }
+
     /**
      * @throws ParsingException
      */
@@ -11,11 +11,17 @@
  */
 package org.jboss.tools.modeshape.rest;
 
+import static org.jboss.tools.modeshape.rest.IUiConstants.Preferences.METADATA_CACHE_TIME_TO_LIVE;
+import static org.jboss.tools.modeshape.rest.IUiConstants.Preferences.PUBLISHING_RETRIES;
 import java.net.MalformedURLException;
 import java.net.URL;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.jface.resource.ImageDescriptor;
 import org.eclipse.jface.resource.ImageRegistry;
+import org.eclipse.jface.util.IPropertyChangeListener;
+import org.eclipse.jface.util.PropertyChangeEvent;
 import org.eclipse.osgi.util.NLS;
 import org.eclipse.swt.graphics.Image;
 import org.eclipse.ui.ISharedImages;
@@ -49,11 +55,36 @@ public final class Activator extends AbstractUIPlugin implements IUiConstants {
         return plugin;
     }
 
+    /**
+     * Applies changes to the metadata cache and publishing retries preferences to the server manager.
+     */
+    private final IPropertyChangeListener serverManagerPreferenceListener = new IPropertyChangeListener() {
+
+        /**
+         * {@inheritDoc}
+         *
+         * @see org.eclipse.jface.util.IPropertyChangeListener#propertyChange(org.eclipse.jface.util.PropertyChangeEvent)
+         */
+        @Override
+        public void propertyChange( PropertyChangeEvent event ) {
+            if (METADATA_CACHE_TIME_TO_LIVE.equals(event.getProperty())) {
+                updateMetadataTimeToLive();
+            } else if (PUBLISHING_RETRIES.equals(event.getProperty())) {
+                updateMaxRetries();
+            }
+        }
+    };
+
     /**
      * The image used when the requested image cannot be found.
      */
     private Image missingImage;
 
+    /**
+     * The index of which files have been published.
+     */
+    private PublishedStateIndex publishedStateIndex;
+
     /**
      * The manager in charge of the server registry.
      */
@@ -183,6 +214,14 @@ public final class Activator extends AbstractUIPlugin implements IUiConstants {
         return null;
     }
 
+    /**
+     * @return the published state index or <code>null</code> if activator has not been initialized or started
+     * @see #start(BundleContext)
+     */
+    public PublishedStateIndex getPublishedStateIndex() {
+        return this.publishedStateIndex;
+    }
+
     /**
      * @return the server manager or <code>null</code> if activator has not been initialized or started
      * @see #start(BundleContext)
@@ -221,6 +260,16 @@ public final class Activator extends AbstractUIPlugin implements IUiConstants {
         if (!status.isOk()) {
             log(status);
         }
+
+        this.publishedStateIndex = new PublishedStateIndex(this.serverMgr);
+        this.serverMgr.addRegistryListener(this.publishedStateIndex);
+        ResourcesPlugin.getWorkspace().addResourceChangeListener(this.publishedStateIndex, IResourceChangeEvent.POST_CHANGE);
+
+        updateMetadataTimeToLive();
+        updateMaxRetries();
+        getPreferenceStore().addPropertyChangeListener(this.serverManagerPreferenceListener);
+
+        this.serverMgr.getHealthMonitor().start();
     }
 
     /**
@@ -234,13 +283,24 @@ public final class Activator extends AbstractUIPlugin implements IUiConstants {
             missingImage.dispose();
         }
 
+        getPreferenceStore().removePropertyChangeListener(this.serverManagerPreferenceListener);
+
         if (this.serverMgr != null) {
+            this.serverMgr.getHealthMonitor().stop();
+
+            if (this.publishedStateIndex != null) {
+                this.serverMgr.removeRegistryListener(this.publishedStateIndex);
+                ResourcesPlugin.getWorkspace().removeResourceChangeListener(this.publishedStateIndex);
+                this.publishedStateIndex = null;
+            }
+
             Status status = this.serverMgr.saveState();
 
             if (!status.isOk()) {
                 log(status);
             }
 
+            this.serverMgr.dispose();
             this.serverMgr = null;
         }
 
@@ -249,4 +309,26 @@ public final class Activator extends AbstractUIPlugin implements IUiConstants {
         plugin = null;
     }
 
+    /**
+     * Sets the number of times a failed publishing request is retried using the current preference value.
+     */
+    private void updateMaxRetries() {
+        ServerManager manager = this.serverMgr;
+
+        if (manager != null) {
+            manager.setMaxRetries(Math.max(0, getPreferenceStore().getInt(PUBLISHING_RETRIES)));
+        }
+    }
+
+    /**
+     * Sets the time server metadata is cached using the current preference value.
+     */
+    private void updateMetadataTimeToLive() {
+        ServerManager manager = this.serverMgr;
+
+        if (manager != null) {
+            manager.setMetadataTimeToLive(getPreferenceStore().getInt(METADATA_CACHE_TIME_TO_LIVE) * 1000L);
+        }
+    }
+
 }
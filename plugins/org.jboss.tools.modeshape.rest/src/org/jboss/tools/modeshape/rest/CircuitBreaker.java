@@ -0,0 +1,205 @@
+/*
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.
+ *
+ * This software is made available by Red Hat, Inc. under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution and is
+ * available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * See the AUTHORS.txt file in the distribution for a full listing of
+ * individual contributors.
+ */
+package org.jboss.tools.modeshape.rest;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.jboss.tools.modeshape.rest.domain.ModeShapeServer;
+import org.modeshape.common.annotation.GuardedBy;
+import org.modeshape.common.annotation.ThreadSafe;
+import org.modeshape.common.util.CheckArg;
+
+/**
+ * The <code>CircuitBreaker</code> stops requests from being sent to a server that is known to be down. Each server has its own
+ * circuit. A circuit is opened after a number of consecutive failed requests. While it is open requests fail right away without
+ * contacting the server. Once the circuit has been open long enough, one request is let through to probe the server. If the
+ * probe succeeds the circuit is closed again and if it fails the circuit stays open for another period.
+ */
+@ThreadSafe
+final class CircuitBreaker {
+
+    /**
+     * The state of a server circuit.
+     */
+    enum State {
+        /**
+         * Indicates requests are sent to the server.
+         */
+        CLOSED,
+
+        /**
+         * Indicates requests fail without being sent to the server.
+         */
+        OPEN,
+
+        /**
+         * Indicates one request has been let through to probe the server and the other requests fail until it finishes.
+         */
+        HALF_OPEN
+    }
+
+    /**
+     * The default number of consecutive failed requests that opens a circuit.
+     */
+    static final int DEFAULT_FAILURE_THRESHOLD = 5;
+
+    /**
+     * The default number of milliseconds a circuit stays open before a request is let through to probe the server.
+     */
+    static final long DEFAULT_OPEN_TIME = 30000;
+
+    /**
+     * The circuits of the servers that have had a failed request keyed by server. Servers without a circuit are closed.
+     */
+    private final ConcurrentMap<ModeShapeServer, Circuit> circuits = new ConcurrentHashMap<ModeShapeServer, Circuit>();
+
+    /**
+     * The number of consecutive failed requests that opens a circuit.
+     */
+    private final int failureThreshold;
+
+    /**
+     * The number of milliseconds a circuit stays open before a request is let through to probe the server.
+     */
+    private final long openTime;
+
+    /**
+     * @param failureThreshold the number of consecutive failed requests that opens a circuit (must be positive)
+     * @param openTime the number of milliseconds a circuit stays open before a probe is let through (cannot be negative)
+     */
+    CircuitBreaker( int failureThreshold,
+                    long openTime ) {
+        CheckArg.isPositive(failureThreshold, "failureThreshold"); //$NON-NLS-1$
+        CheckArg.isNonNegative(openTime, "openTime"); //$NON-NLS-1$
+        this.failureThreshold = failureThreshold;
+        this.openTime = openTime;
+    }
+
+    /**
+     * Must be called before a request is sent. A request that is allowed <strong>MUST</strong> then be reported as
+     * {@link #succeeded(ModeShapeServer) succeeded} or {@link #failed(ModeShapeServer) failed}.
+     *
+     * @param server the server the request is being sent to (never <code>null</code>)
+     * @return <code>true</code> if the request can be sent
+     */
+    boolean allowRequest( ModeShapeServer server ) {
+        CheckArg.isNotNull(server, "server"); //$NON-NLS-1$
+        Circuit circuit = this.circuits.get(server);
+        return ((circuit == null) || circuit.allowRequest(this.openTime));
+    }
+
+    /**
+     * @param server the server the request was sent to (never <code>null</code>)
+     * @return <code>true</code> if this failure opened the circuit
+     */
+    boolean failed( ModeShapeServer server ) {
+        CheckArg.isNotNull(server, "server"); //$NON-NLS-1$
+        Circuit circuit = this.circuits.get(server);
+
+        if (circuit == null) {
+            Circuit newCircuit = new Circuit();
+            circuit = this.circuits.putIfAbsent(server, newCircuit);
+
+            if (circuit == null) {
+                circuit = newCircuit;
+            }
+        }
+
+        return circuit.failed(this.failureThreshold);
+    }
+
+    /**
+     * @return the number of milliseconds a circuit stays open before a request is let through to probe the server
+     */
+    long getOpenTime() {
+        return this.openTime;
+    }
+
+    /**
+     * @param server the server whose circuit state is being requested (never <code>null</code>)
+     * @return the state of the server circuit (never <code>null</code>)
+     */
+    State getState( ModeShapeServer server ) {
+        CheckArg.isNotNull(server, "server"); //$NON-NLS-1$
+        Circuit circuit = this.circuits.get(server);
+        return ((circuit == null) ? State.CLOSED : circuit.getState());
+    }
+
+    /**
+     * Closes the circuit of a server. Called when the server is known to be reachable again or is no longer registered.
+     *
+     * @param server the server whose circuit is being closed (never <code>null</code>)
+     */
+    void reset( ModeShapeServer server ) {
+        CheckArg.isNotNull(server, "server"); //$NON-NLS-1$
+        this.circuits.remove(server);
+    }
+
+    /**
+     * @param server the server the request was sent to (never <code>null</code>)
+     */
+    void succeeded( ModeShapeServer server ) {
+        CheckArg.isNotNull(server, "server"); //$NON-NLS-1$
+        this.circuits.remove(server); // the server responded so its circuit is closed
+    }
+
+    /**
+     * The circuit of one server.
+     */
+    private static final class Circuit {
+
+        /**
+         * The number of consecutive failed requests.
+         */
+        @GuardedBy("this")
+        private int failures;
+
+        /**
+         * The time the circuit was last opened.
+         */
+        @GuardedBy("this")
+        private long openedAt;
+
+        @GuardedBy("this")
+        private State state = State.CLOSED;
+
+        synchronized boolean allowRequest( long openTime ) {
+            if (this.state == State.CLOSED) {
+                return true;
+            }
+
+            if ((this.state == State.OPEN) && ((System.currentTimeMillis() - this.openedAt) >= openTime)) {
+                this.state = State.HALF_OPEN; // let this request probe the server
+                return true;
+            }
+
+            return false;
+        }
+
+        synchronized boolean failed( int failureThreshold ) {
+            ++this.failures;
+
+            if ((this.state == State.HALF_OPEN) || ((this.state == State.CLOSED) && (this.failures >= failureThreshold))) {
+                this.state = State.OPEN;
+                this.openedAt = System.currentTimeMillis();
+                return true;
+            }
+
+            return false;
+        }
+
+        synchronized State getState() {
+            return this.state;
+        }
+    }
+
+}
@@ -0,0 +1,29 @@
+/*
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.
+ *
+ * This software is made available by Red Hat, Inc. under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution and is
+ * available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * See the AUTHORS.txt file in the distribution for a full listing of
+ * individual contributors.
+ */
+package org.jboss.tools.modeshape.rest;
+
+/**
+ * The <code>IServerHealthListener</code> interface defines the API for a listener of server health changes.
+ *
+ * @see ServerHealthMonitor
+ */
+public interface IServerHealthListener {
+
+    /**
+     * Called by the thread that detected the change. Listeners updating the UI must do so in the UI thread.
+     *
+     * @param event the event being processed (never <code>null</code>)
+     * @return any errors caught during the processing or <code>null</code>
+     */
+    Exception[] serverHealthChanged( ServerHealthEvent event );
+
+}
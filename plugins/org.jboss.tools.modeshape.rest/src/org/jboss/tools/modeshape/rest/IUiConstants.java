@@ -143,6 +143,39 @@ public interface IUiConstants {
          */
         String IGNORED_RESOURCES_PREFERENCE_PAGE_ID = "org.jboss.tools.modeshape.rest.modeShapeIgnoredResourcesPreferencePage"; //$NON-NLS-1$
 
+        /**
+         * The largest number of seconds server metadata can be cached.
+         */
+        int MAX_METADATA_CACHE_TIME_TO_LIVE = 3600;
+
+        /**
+         * The largest number of times a failed publishing request can be retried.
+         */
+        int MAX_PUBLISHING_RETRIES = 10;
+
+        /**
+         * The largest number of files a publishing job can publish or unpublish at the same time.
+         */
+        int MAX_PUBLISHING_THREADS = 16;
+
+        /**
+         * A preference for the number of seconds the repositories, workspaces, and publish areas obtained from a server are cached.
+         * A value of zero obtains them from the server every time they are needed.
+         */
+        String METADATA_CACHE_TIME_TO_LIVE = "modeShape.preference.metadataCacheTimeToLive"; //$NON-NLS-1$
+
+        /**
+         * A preference for the number of times publishing or unpublishing a file is retried when the server cannot be reached. A
+         * value of zero does not retry.
+         */
+        String PUBLISHING_RETRIES = "modeShape.preference.publishingRetries"; //$NON-NLS-1$
+
+        /**
+         * A preference for the number of files a publishing job publishes or unpublishes at the same time. A value of one
+         * processes the files one at a time.
+         */
+        String PUBLISHING_THREADS = "modeShape.preference.publishingThreads"; //$NON-NLS-1$
+
         /**
          * The main ModeShape preference page ID.
          */
@@ -0,0 +1,204 @@
+/*
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.
+ *
+ * This software is made available by Red Hat, Inc. under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution and is
+ * available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * See the AUTHORS.txt file in the distribution for a full listing of
+ * individual contributors.
+ */
+package org.jboss.tools.modeshape.rest;
+
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import org.modeshape.common.annotation.ThreadSafe;
+import org.modeshape.common.util.CheckArg;
+
+/**
+ * The <code>MetadataCache</code> keeps the values obtained from a ModeShape server for a limited time. Concurrent requests for the
+ * same key share one load: the first request loads the value and the others wait for it. Failed loads are not cached.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+@ThreadSafe
+final class MetadataCache<K, V> {
+
+    /**
+     * The cache entries keyed by the key used to load them.
+     */
+    private final ConcurrentMap<K, Entry<V>> entries = new ConcurrentHashMap<K, Entry<V>>();
+
+    /**
+     * The number of milliseconds a loaded value is kept. Zero or less means values are not kept once loaded.
+     */
+    private volatile long timeToLive;
+
+    /**
+     * @param timeToLive the number of milliseconds a loaded value is kept (zero or less if values should not be kept)
+     */
+    MetadataCache( long timeToLive ) {
+        this.timeToLive = timeToLive;
+    }
+
+    /**
+     * @param key the key of the value being requested (never <code>null</code>)
+     * @param loader the loader used when the value is not cached or has expired (never <code>null</code>)
+     * @return the value (can be <code>null</code> if the loader returns <code>null</code>)
+     * @throws Exception if the value had to be loaded and the loader failed
+     */
+    V get( K key,
+           Loader<V> loader ) throws Exception {
+        CheckArg.isNotNull(key, "key"); //$NON-NLS-1$
+        CheckArg.isNotNull(loader, "loader"); //$NON-NLS-1$
+
+        while (true) {
+            Entry<V> entry = this.entries.get(key);
+
+            if ((entry != null) && !entry.isExpired(this.timeToLive)) {
+                return entry.getValue(); // waits if the value is still being loaded
+            }
+
+            Entry<V> newEntry = new Entry<V>(loader);
+            boolean loading = ((entry == null) ? (this.entries.putIfAbsent(key, newEntry) == null)
+                                               : this.entries.replace(key, entry, newEntry));
+
+            if (loading) {
+                try {
+                    return newEntry.load();
+                } catch (Exception e) {
+                    this.entries.remove(key, newEntry);
+                    throw e;
+                }
+            }
+
+            // another request started loading the value so try again
+        }
+    }
+
+    /**
+     * @return the keys of the cached values (never <code>null</code>)
+     */
+    Set<K> getKeys() {
+        return this.entries.keySet();
+    }
+
+    /**
+     * @param key the key of the value being removed (never <code>null</code>)
+     */
+    void invalidate( K key ) {
+        this.entries.remove(key);
+    }
+
+    /**
+     * Removes all values.
+     */
+    void invalidateAll() {
+        this.entries.clear();
+    }
+
+    /**
+     * @param newTimeToLive the number of milliseconds a loaded value is kept (zero or less if values should not be kept)
+     */
+    void setTimeToLive( long newTimeToLive ) {
+        this.timeToLive = newTimeToLive;
+    }
+
+    /**
+     * A cached value.
+     *
+     * @param <V> the value type
+     */
+    private static final class Entry<V> {
+
+        /**
+         * The time the value was loaded or a negative number if it has not been loaded.
+         */
+        private volatile long loadTime = -1;
+
+        private final FutureTask<V> task;
+
+        Entry( final Loader<V> loader ) {
+            this.task = new FutureTask<V>(new Callable<V>() {
+
+                /**
+                 * {@inheritDoc}
+                 *
+                 * @see java.util.concurrent.Callable#call()
+                 */
+                @Override
+                public V call() throws Exception {
+                    V value = loader.load();
+                    Entry.this.loadTime = System.currentTimeMillis();
+                    return value;
+                }
+            });
+        }
+
+        /**
+         * @return the value (can be <code>null</code>)
+         * @throws Exception if the value could not be loaded or the wait was interrupted
+         */
+        V getValue() throws Exception {
+            try {
+                return this.task.get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+
+                if (cause instanceof Exception) {
+                    throw (Exception)cause;
+                }
+
+                if (cause instanceof Error) {
+                    throw (Error)cause;
+                }
+
+                throw e;
+            }
+        }
+
+        /**
+         * @param timeToLive the number of milliseconds a loaded value is kept
+         * @return <code>true</code> if the value has been loaded and should no longer be used
+         */
+        boolean isExpired( long timeToLive ) {
+            if (!this.task.isDone()) {
+                return false; // share the load in progress
+            }
+
+            return ((this.loadTime < 0) || ((System.currentTimeMillis() - this.loadTime) >= timeToLive));
+        }
+
+        /**
+         * Loads the value in the calling thread.
+         *
+         * @return the value (can be <code>null</code>)
+         * @throws Exception if the value could not be loaded
+         */
+        V load() throws Exception {
+            this.task.run();
+            return getValue();
+        }
+    }
+
+    /**
+     * Loads a value from the server.
+     *
+     * @param <V> the value type
+     */
+    interface Loader<V> {
+
+        /**
+         * @return the value (can be <code>null</code>)
+         * @throws Exception if there is a problem loading the value
+         */
+        V load() throws Exception;
+    }
+
+}
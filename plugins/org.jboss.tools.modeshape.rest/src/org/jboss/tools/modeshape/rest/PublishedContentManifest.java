@@ -0,0 +1,260 @@
+/*
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.
+ *
+ * This software is made available by Red Hat, Inc. under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution and is
+ * available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * See the AUTHORS.txt file in the distribution for a full listing of
+ * individual contributors.
+ */
+package org.jboss.tools.modeshape.rest;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.StringTokenizer;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.QualifiedName;
+import org.jboss.tools.modeshape.rest.domain.ModeShapeWorkspace;
+import org.modeshape.common.util.CheckArg;
+
+/**
+ * The <code>PublishedContentManifest</code> remembers the content of a file when it was last published to a workspace location so
+ * that republishing an unchanged file can be skipped. The size, last modified time, and SHA-256 digest of the file are stored in a
+ * persistent property of the file. There is one property for each workspace location the file has been published to.
+ * <p>
+ * A file is unchanged when its size and last modified time are the same as when it was published. When only the last modified
+ * time is different the digest is computed and compared so that files that were touched but not changed are also skipped.
+ */
+public final class PublishedContentManifest {
+
+    /**
+     * The prefix of the name of the persisted file properties. The name is completed by a digest of the workspace location.
+     */
+    private static final String PROPERTY_PREFIX = "publishedContent."; //$NON-NLS-1$
+
+    /**
+     * Delimiter between the parts of a fingerprint.
+     */
+    private static final String DELIM = "$"; //$NON-NLS-1$
+
+    /**
+     * The digest algorithm used for the file contents and the workspace locations.
+     */
+    private static final String DIGEST_ALGORITHM = "SHA-256"; //$NON-NLS-1$
+
+    /**
+     * The number of hexadecimal characters of the workspace location digest used in the property name.
+     */
+    private static final int LOCATION_KEY_LENGTH = 32;
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray(); //$NON-NLS-1$
+
+    /**
+     * @param file the file whose content digest is being requested (never <code>null</code>)
+     * @return the hexadecimal SHA-256 digest of the file content (never <code>null</code>)
+     * @throws IOException if there is a problem reading the file
+     */
+    static String digest( File file ) throws IOException {
+        MessageDigest digest = getMessageDigest();
+        InputStream input = new FileInputStream(file);
+
+        try {
+            byte[] buffer = new byte[8192];
+
+            for (int count = input.read(buffer); count != -1; count = input.read(buffer)) {
+                digest.update(buffer, 0, count);
+            }
+        } finally {
+            input.close();
+        }
+
+        return toHex(digest.digest());
+    }
+
+    /**
+     * @param file the file whose fingerprint is being requested (never <code>null</code>)
+     * @return the size, last modified time, and content digest of the file (never <code>null</code>)
+     * @throws IOException if there is a problem reading the file
+     */
+    static String fingerprint( File file ) throws IOException {
+        return file.length() + DELIM + file.lastModified() + DELIM + digest(file);
+    }
+
+    private static MessageDigest getMessageDigest() {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform must support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @param file the file being checked (never <code>null</code>)
+     * @param fingerprint the fingerprint of the file when it was published (can be <code>null</code>)
+     * @return <code>true</code> if the file content is the same as when the fingerprint was taken
+     * @throws IOException if there is a problem reading the file
+     */
+    static boolean isUnchanged( File file,
+                                String fingerprint ) throws IOException {
+        return (refresh(file, fingerprint) != null);
+    }
+
+    /**
+     * @param file the file being checked (never <code>null</code>)
+     * @param fingerprint the fingerprint of the file when it was published (can be <code>null</code>)
+     * @return <code>null</code> if the file content has changed since the fingerprint was taken, the same fingerprint if the file
+     *         has not been modified, or a fingerprint with the new last modified time if the file was only touched
+     * @throws IOException if there is a problem reading the file
+     */
+    static String refresh( File file,
+                           String fingerprint ) throws IOException {
+        if (fingerprint == null) {
+            return null;
+        }
+
+        StringTokenizer tokenizer = new StringTokenizer(fingerprint, DELIM);
+
+        if (tokenizer.countTokens() != 3) {
+            return null;
+        }
+
+        String size = tokenizer.nextToken();
+        String lastModified = tokenizer.nextToken();
+        String digest = tokenizer.nextToken();
+
+        // a different size means different content so only compute the digest when the size is the same
+        if (!size.equals(Long.toString(file.length()))) {
+            return null;
+        }
+
+        long fileLastModified = file.lastModified();
+
+        if (lastModified.equals(Long.toString(fileLastModified))) {
+            return fingerprint;
+        }
+
+        if (!digest.equals(digest(file))) {
+            return null;
+        }
+
+        // same content so keep the digest with the new time to avoid computing the digest again next time
+        return size + DELIM + fileLastModified + DELIM + digest;
+    }
+
+    /**
+     * @param workspace the workspace where the file is published (never <code>null</code>)
+     * @param url the URL where the file is published (never <code>null</code>)
+     * @return the name of the property holding the fingerprint of the file published at that location (never <code>null</code>)
+     */
+    static QualifiedName propertyName( ModeShapeWorkspace workspace,
+                                       String url ) {
+        StringBuilder location = new StringBuilder();
+        location.append(workspace.getServer().getOriginalUrl()).append(DELIM).append(workspace.getServer().getUser()).append(DELIM);
+        location.append(workspace.getRepository().getName()).append(DELIM);
+        location.append(workspace.getName()).append(DELIM);
+        location.append(url);
+
+        // property names are kept short by using a digest of the location
+        String key = toHex(getMessageDigest().digest(location.toString().getBytes(StandardCharsets.UTF_8)));
+        return new QualifiedName(IUiConstants.PLUGIN_ID, PROPERTY_PREFIX + key.substring(0, LOCATION_KEY_LENGTH));
+    }
+
+    private static String toHex( byte[] bytes ) {
+        char[] chars = new char[bytes.length * 2];
+
+        for (int i = 0; i < bytes.length; ++i) {
+            chars[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0xF];
+            chars[(i * 2) + 1] = HEX_DIGITS[bytes[i] & 0xF];
+        }
+
+        return new String(chars);
+    }
+
+    /**
+     * The fingerprint should be taken before the file is published so that changes made while publishing are not missed.
+     *
+     * @param file the file whose fingerprint is being requested (never <code>null</code>)
+     * @return the size, last modified time, and content digest of the file (never <code>null</code>)
+     * @throws Exception if there is a problem reading the file
+     */
+    public String getFingerprint( IFile file ) throws Exception {
+        CheckArg.isNotNull(file, "file"); //$NON-NLS-1$
+        return fingerprint(file.getLocation().toFile());
+    }
+
+    /**
+     * @param file the file being checked (never <code>null</code>)
+     * @param workspace the workspace where the file would be published (never <code>null</code>)
+     * @param url the URL where the file would be published (never <code>null</code>)
+     * @return <code>true</code> if the file has been published to that location and has not changed since
+     * @throws Exception if there is a problem reading the file or its persistent property or updating its persistent property
+     */
+    public boolean isUnchanged( IFile file,
+                                ModeShapeWorkspace workspace,
+                                String url ) throws Exception {
+        CheckArg.isNotNull(file, "file"); //$NON-NLS-1$
+        CheckArg.isNotNull(workspace, "workspace"); //$NON-NLS-1$
+        CheckArg.isNotNull(url, "url"); //$NON-NLS-1$
+
+        QualifiedName propertyName = propertyName(workspace, url);
+        String fingerprint = file.getPersistentProperty(propertyName);
+        String current = refresh(file.getLocation().toFile(), fingerprint);
+
+        if (current == null) {
+            return false;
+        }
+
+        // file was only touched so remember its new last modified time
+        if (!current.equals(fingerprint)) {
+            file.setPersistentProperty(propertyName, current);
+        }
+
+        return true;
+    }
+
+    /**
+     * @param file the file that was just published (never <code>null</code>)
+     * @param workspace the workspace where the file was published (never <code>null</code>)
+     * @param url the URL where the file was published (never <code>null</code>)
+     * @param fingerprint the fingerprint taken before the file was published (never <code>null</code>)
+     * @throws CoreException if there is a problem setting the persistent property
+     * @see #getFingerprint(IFile)
+     */
+    public void published( IFile file,
+                           ModeShapeWorkspace workspace,
+                           String url,
+                           String fingerprint ) throws CoreException {
+        CheckArg.isNotNull(file, "file"); //$NON-NLS-1$
+        CheckArg.isNotNull(workspace, "workspace"); //$NON-NLS-1$
+        CheckArg.isNotNull(url, "url"); //$NON-NLS-1$
+        CheckArg.isNotNull(fingerprint, "fingerprint"); //$NON-NLS-1$
+
+        file.setPersistentProperty(propertyName(workspace, url), fingerprint);
+    }
+
+    /**
+     * @param file the file that was just unpublished (never <code>null</code>)
+     * @param workspace the workspace where the file was unpublished (never <code>null</code>)
+     * @param url the URL where the file was unpublished (never <code>null</code>)
+     * @throws CoreException if there is a problem removing the persistent property
+     */
+    public void unpublished( IFile file,
+                             ModeShapeWorkspace workspace,
+                             String url ) throws CoreException {
+        CheckArg.isNotNull(file, "file"); //$NON-NLS-1$
+        CheckArg.isNotNull(workspace, "workspace"); //$NON-NLS-1$
+        CheckArg.isNotNull(url, "url"); //$NON-NLS-1$
+
+        file.setPersistentProperty(propertyName(workspace, url), null);
+    }
+
+}
@@ -141,7 +141,7 @@ public final class PublishedResourceHelper {
                     // find server
                     ModeShapeServer server = this.serverManager.findServer(url, user);
 
-                    if ((server != null) && this.serverManager.ping(server).isOk()) {
+                    if ((server != null) && this.serverManager.getHealthMonitor().isAvailable(server)) {
                         Collection<ModeShapeRepository> repositories = this.serverManager.getRepositories(server);
 
                         // find repository
@@ -180,6 +180,46 @@ public final class PublishedResourceHelper {
         return publishedWorkspaceLocations;
     }
 
+    /**
+     * Only the local server registry is used, so servers are not contacted and the repositories and workspaces are not checked.
+     *
+     * @param file the file whose published status is being requested (never <code>null</code>)
+     * @return <code>true</code> if the file has been published to a server that is in the server registry
+     * @throws CoreException if there is a problem reading the file's persistent property
+     * @see PublishedStateIndex
+     */
+    public boolean isPublishedToRegisteredServer( IFile file ) throws CoreException {
+        CheckArg.isNotNull(file, "file"); //$NON-NLS-1$
+        return isPublishedToRegisteredServer(file.getPersistentProperty(PUBLISHED_RESOURCE_PROPERTY));
+    }
+
+    /**
+     * @param value the value of the published locations property (can be <code>null</code>)
+     * @return <code>true</code> if one of the locations is on a server that is in the server registry
+     */
+    boolean isPublishedToRegisteredServer( String value ) {
+        if (value == null) {
+            return false;
+        }
+
+        StringTokenizer wsTokenizer = new StringTokenizer(value, DELIM);
+
+        while (wsTokenizer.hasMoreTokens()) {
+            StringTokenizer propsTokenizer = new StringTokenizer(wsTokenizer.nextToken(), ID_DELIM);
+
+            if (propsTokenizer.countTokens() >= 2) {
+                String url = propsTokenizer.nextToken();
+                String user = propsTokenizer.nextToken();
+
+                if (this.serverManager.findServer(url, user) != null) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
     /**
      * @param file the file whose published status is being requested (never <code>null</code>)
      * @return <code>true</code> if the file has been published to a repository
@@ -0,0 +1,163 @@
+/*
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.
+ *
+ * This software is made available by Red Hat, Inc. under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution and is
+ * available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * See the AUTHORS.txt file in the distribution for a full listing of
+ * individual contributors.
+ */
+package org.jboss.tools.modeshape.rest;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.osgi.util.NLS;
+import org.modeshape.common.util.CheckArg;
+import org.modeshape.web.jcr.rest.client.Status;
+import org.modeshape.web.jcr.rest.client.Status.Severity;
+
+/**
+ * The <code>PublishedStateIndex</code> is an in-memory index of which files have been published. It is used by the decorator so
+ * that decorating a file never contacts a server. The state of a file is loaded from its persistent property the first time it is
+ * requested and is then kept until the {@link org.jboss.tools.modeshape.rest.jobs.PublishJob publishing job} changes it or the
+ * server registry changes.
+ * <p>
+ * A file is considered published when it has been published to a server that is in the server registry. Whether that server can be
+ * reached is not checked here. Server availability is tracked separately by the server view.
+ * <p>
+ * This class <strong>MUST</strong> be registered, and then unregistered, to receive server registry events and workspace resource
+ * change events. The entries of deleted files are removed when the resource change events are received.
+ */
+public final class PublishedStateIndex implements IResourceChangeListener, IServerRegistryListener {
+
+    /**
+     * The published state keyed by file. Accessed by the decorator threads and the publishing jobs.
+     */
+    private final ConcurrentMap<IFile, Boolean> publishedFiles = new ConcurrentHashMap<IFile, Boolean>();
+
+    /**
+     * The helper used to read the persistent property of the files (never <code>null</code>).
+     */
+    private final PublishedResourceHelper resourceHelper;
+
+    /**
+     * @param serverManager the server manager whose registry is used (never <code>null</code>)
+     */
+    public PublishedStateIndex( ServerManager serverManager ) {
+        CheckArg.isNotNull(serverManager, "serverManager"); //$NON-NLS-1$
+        this.resourceHelper = new PublishedResourceHelper(serverManager);
+    }
+
+    /**
+     * @param file the file whose published state is being requested (never <code>null</code>)
+     * @return <code>true</code> if the file has been published to a registered server
+     */
+    public boolean isPublished( IFile file ) {
+        CheckArg.isNotNull(file, "file"); //$NON-NLS-1$
+        Boolean published = this.publishedFiles.get(file);
+
+        if (published == null) {
+            // a refresh made while loading is newer than the loaded value so it must not be replaced
+            Boolean loaded = load(file);
+            published = this.publishedFiles.putIfAbsent(file, loaded);
+
+            if (published == null) {
+                published = loaded;
+            }
+        }
+
+        return published;
+    }
+
+    /**
+     * @param file the file whose published state is being loaded (never <code>null</code>)
+     * @return <code>true</code> if the persistent property indicates the file has been published to a registered server
+     */
+    private boolean load( IFile file ) {
+        try {
+            return (file.exists() && this.resourceHelper.isPublishedToRegisteredServer(file));
+        } catch (Exception e) {
+            Activator.getDefault().log(new Status(Severity.ERROR,
+                                                  NLS.bind(RestClientI18n.publishedResourcePropertyErrorMsg, file),
+                                                  e));
+        }
+
+        return false;
+    }
+
+    /**
+     * Reloads the published state of a file after its persistent property has changed.
+     *
+     * @param file the file whose published state has changed (never <code>null</code>)
+     */
+    public void refresh( IFile file ) {
+        CheckArg.isNotNull(file, "file"); //$NON-NLS-1$
+        this.publishedFiles.put(file, load(file));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Removes the entries of the deleted files.
+     *
+     * @see org.eclipse.core.resources.IResourceChangeListener#resourceChanged(org.eclipse.core.resources.IResourceChangeEvent)
+     */
+    @Override
+    public void resourceChanged( IResourceChangeEvent event ) {
+        IResourceDelta delta = event.getDelta();
+
+        if ((delta == null) || this.publishedFiles.isEmpty()) {
+            return;
+        }
+
+        try {
+            delta.accept(new IResourceDeltaVisitor() {
+
+                /**
+                 * {@inheritDoc}
+                 *
+                 * @see org.eclipse.core.resources.IResourceDeltaVisitor#visit(org.eclipse.core.resources.IResourceDelta)
+                 */
+                @SuppressWarnings("synthetic-access")
+                @Override
+                public boolean visit( IResourceDelta resourceDelta ) {
+                    IResource resource = resourceDelta.getResource();
+
+                    if ((resource.getType() == IResource.FILE) && (resourceDelta.getKind() == IResourceDelta.REMOVED)) {
+                        PublishedStateIndex.this.publishedFiles.remove(resource);
+                    }
+
+                    return true; // keep visiting
+                }
+            });
+        } catch (CoreException e) {
+            Activator.getDefault().log(new Status(Severity.ERROR,
+                                                  NLS.bind(RestClientI18n.publishedStateIndexResourceChangeErrorMsg,
+                                                           delta.getResource().getName()),
+                                                  e));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Servers being added, removed, or changed can change the published state of any file so the index is cleared.
+     *
+     * @see org.jboss.tools.modeshape.rest.IServerRegistryListener#serverRegistryChanged(org.jboss.tools.modeshape.rest.ServerRegistryEvent)
+     */
+    @Override
+    public Exception[] serverRegistryChanged( ServerRegistryEvent event ) {
+        this.publishedFiles.clear();
+        return null;
+    }
+
+}
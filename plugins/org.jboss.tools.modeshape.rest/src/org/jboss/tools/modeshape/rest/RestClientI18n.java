@@ -70,6 +70,8 @@ public final class RestClientI18n extends NLS {
     public static String newServerActionText;
     public static String newServerActionToolTip;
 
+    public static String pendingNodeName;
+
     public static String publishedLocationsDialogCopyUrlButton;
     public static String publishedLocationsDialogCopyUrlButtonToolTip;
     public static String publishedLocationsDialogFileUrlColumnHeader;
@@ -81,6 +83,7 @@ public final class RestClientI18n extends NLS {
     public static String publishedLocationsDialogWorkspaceColumnHeader;
 
     public static String publishedResourcePropertyErrorMsg;
+    public static String publishedStateIndexResourceChangeErrorMsg;
 
     public static String publishingConsoleName;
     public static String publishingConsoleProblemMsg;
@@ -95,6 +98,12 @@ public final class RestClientI18n extends NLS {
     public static String preferencePageEnableVersioningEditor;
     public static String preferencePageEnableVersioningEditorToolTip;
     public static String preferencePageMessage;
+    public static String preferencePageMetadataCacheEditor;
+    public static String preferencePageMetadataCacheEditorToolTip;
+    public static String preferencePagePublishingRetriesEditor;
+    public static String preferencePagePublishingRetriesEditorToolTip;
+    public static String preferencePagePublishingThreadsEditor;
+    public static String preferencePagePublishingThreadsEditorToolTip;
     public static String preferencePageTitle;
 
     public static String propertiesBundleLoadErrorMsg;
@@ -112,6 +121,7 @@ public final class RestClientI18n extends NLS {
     public static String publishJobPublishFileWarning;
     public static String publishJobPublishFinishedMsg;
     public static String publishJobPublishName;
+    public static String publishJobPublishSkippedMsg;
     public static String publishJobPublishTaskName;
     public static String publishJobUnexpectedErrorMsg;
     public static String publishJobUnpublish;
@@ -146,6 +156,8 @@ public final class RestClientI18n extends NLS {
     public static String publishPageRecurseProcessingErrorMsg;
     public static String publishPageRepositoryLabel;
     public static String publishPageRepositoryToolTip;
+    public static String publishPageRepublishUnchangedCheckBox;
+    public static String publishPageRepublishUnchangedCheckBoxToolTip;
     public static String publishPageServerLabel;
     public static String publishPageServerToolTip;
     public static String publishPageUnableToObtainWorkspaceAreas;
@@ -166,9 +178,10 @@ public final class RestClientI18n extends NLS {
     public static String publishWizardUnpublishTitle;
     public static String publishWizardUnpublishErrorMsg;
 
+    public static String reconnectJobFailedMsg;
     public static String reconnectJobTaskName;
 
-    public static String requestDialogTitle;
+    public static String runningPublishAreasQueryMsg;
     public static String runningRepositoriesQueryMsg;
     public static String runningServerRequestErrorMsg;
     public static String runningServerRequestErrorDialogMsg;
@@ -177,9 +190,13 @@ public final class RestClientI18n extends NLS {
     public static String runningServerRequestNewPasswordDialogTitle;
     public static String runningWorkspacesQueryMsg;
 
+    public static String serverCircuitOpenMsg;
     public static String serverEmptyUrlMsg;
     public static String serverEmptyUserMsg;
     public static String serverExistsMsg;
+    public static String serverHealthListenerError;
+    public static String serverRequestExecutorShutdownMsg;
+    public static String serverRequestTimeoutMsg;
     public static String serverInvalidUrlMsg;
     public static String serverInvalidUrlHostMsg;
     public static String serverInvalidUrlPortMsg;
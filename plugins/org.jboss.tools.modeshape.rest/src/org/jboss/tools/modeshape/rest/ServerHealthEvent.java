@@ -0,0 +1,91 @@
+/*
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.
+ *
+ * This software is made available by Red Hat, Inc. under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution and is
+ * available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * See the AUTHORS.txt file in the distribution for a full listing of
+ * individual contributors.
+ */
+package org.jboss.tools.modeshape.rest;
+
+import org.jboss.tools.modeshape.rest.ServerHealthMonitor.Health;
+import org.jboss.tools.modeshape.rest.domain.ModeShapeServer;
+import org.modeshape.common.util.CheckArg;
+
+/**
+ * The <code>ServerHealthEvent</code> class is the event that is broadcast from the {@link ServerHealthMonitor server health
+ * monitor} when a server goes online or offline.
+ */
+public final class ServerHealthEvent {
+
+    /**
+     * The health of the server after the change.
+     */
+    private final Health health;
+
+    /**
+     * The health of the server before the change.
+     */
+    private final Health previousHealth;
+
+    /**
+     * The server whose health has changed.
+     */
+    private final ModeShapeServer server;
+
+    /**
+     * @param server the server whose health has changed (never <code>null</code>)
+     * @param previousHealth the health before the change (never <code>null</code>)
+     * @param health the health after the change (never <code>null</code>)
+     */
+    public ServerHealthEvent( ModeShapeServer server,
+                              Health previousHealth,
+                              Health health ) {
+        CheckArg.isNotNull(server, "server"); //$NON-NLS-1$
+        CheckArg.isNotNull(previousHealth, "previousHealth"); //$NON-NLS-1$
+        CheckArg.isNotNull(health, "health"); //$NON-NLS-1$
+
+        this.server = server;
+        this.previousHealth = previousHealth;
+        this.health = health;
+    }
+
+    /**
+     * @return the health of the server after the change (never <code>null</code>)
+     */
+    public Health getHealth() {
+        return this.health;
+    }
+
+    /**
+     * @return the health of the server before the change (never <code>null</code>)
+     */
+    public Health getPreviousHealth() {
+        return this.previousHealth;
+    }
+
+    /**
+     * @return the server whose health has changed (never <code>null</code>)
+     */
+    public ModeShapeServer getServer() {
+        return this.server;
+    }
+
+    /**
+     * @return <code>true</code> if the server can no longer be reached
+     */
+    public boolean isOffline() {
+        return (this.health == Health.OFFLINE);
+    }
+
+    /**
+     * @return <code>true</code> if the server can be reached
+     */
+    public boolean isOnline() {
+        return (this.health == Health.ONLINE);
+    }
+
+}
@@ -0,0 +1,476 @@
+/*
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.
+ *
+ * This software is made available by Red Hat, Inc. under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution and is
+ * available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * See the AUTHORS.txt file in the distribution for a full listing of
+ * individual contributors.
+ */
+package org.jboss.tools.modeshape.rest;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jboss.tools.modeshape.rest.domain.ModeShapeServer;
+import org.modeshape.common.annotation.GuardedBy;
+import org.modeshape.common.annotation.ThreadSafe;
+import org.modeshape.common.util.CheckArg;
+import org.modeshape.web.jcr.rest.client.Status;
+import org.modeshape.web.jcr.rest.client.Status.Severity;
+
+/**
+ * The <code>ServerHealthMonitor</code> keeps track of which registered servers can be reached. Once {@link #start() started},
+ * {@link #HEARTBEAT_THREADS} background threads send a heartbeat to each server. Online servers are checked every
+ * {@link #HEARTBEAT_INTERVAL} milliseconds. Offline servers are retried after {@link #INITIAL_RETRY_DELAY} milliseconds and the
+ * delay is doubled after each failed retry up to {@link #MAX_RETRY_DELAY} milliseconds.
+ * <p>
+ * A heartbeat blocks its thread until the server answers or the connection times out, so no more than {@link #HEARTBEAT_THREADS}
+ * servers are pinged at the same time and the heartbeats of other servers may be late while that many servers are not answering.
+ * <p>
+ * Callers should use the cached {@link #getHealth(ModeShapeServer) health} instead of pinging a server. Callers whose server
+ * request fails should {@link #reportFailure(ModeShapeServer) report} it so that the server is marked offline right away.
+ * Registered {@link IServerHealthListener listeners} are notified when a server goes online or offline.
+ */
+@ThreadSafe
+public final class ServerHealthMonitor implements IServerRegistryListener {
+
+    /**
+     * The health of a server.
+     */
+    public enum Health {
+        /**
+         * Indicates the server has not been checked yet.
+         */
+        UNKNOWN,
+
+        /**
+         * Indicates the last check of the server succeeded.
+         */
+        ONLINE,
+
+        /**
+         * Indicates the last check of the server, or the last request sent to it, failed.
+         */
+        OFFLINE
+    }
+
+    /**
+     * The number of milliseconds between heartbeats of an online server.
+     */
+    public static final long HEARTBEAT_INTERVAL = 60000;
+
+    /**
+     * The number of threads sending heartbeats.
+     */
+    public static final int HEARTBEAT_THREADS = 4;
+
+    /**
+     * The number of milliseconds before the first retry of an offline server.
+     */
+    public static final long INITIAL_RETRY_DELAY = 5000;
+
+    /**
+     * The largest number of milliseconds between retries of an offline server.
+     */
+    public static final long MAX_RETRY_DELAY = 300000;
+
+    /**
+     * @param failures the number of consecutive failed checks of the server (must be at least one)
+     * @return the number of milliseconds to wait before checking the server again
+     */
+    static long getRetryDelay( int failures ) {
+        assert (failures > 0);
+
+        // limit the shift so that it cannot overflow
+        long delay = INITIAL_RETRY_DELAY << Math.min(failures - 1, 16);
+        return Math.min(delay, MAX_RETRY_DELAY);
+    }
+
+    /**
+     * Runs the heartbeats or <code>null</code> if the monitor has not been started.
+     */
+    @GuardedBy("this")
+    private ScheduledExecutorService executor;
+
+    /**
+     * The listeners registered to receive {@link ServerHealthEvent server health events}.
+     */
+    private final CopyOnWriteArrayList<IServerHealthListener> listeners = new CopyOnWriteArrayList<IServerHealthListener>();
+
+    /**
+     * The server manager whose registered servers are monitored.
+     */
+    private final ServerManager serverManager;
+
+    /**
+     * The state of each registered server that has been checked or scheduled to be checked.
+     */
+    private final ConcurrentMap<ModeShapeServer, ServerState> states = new ConcurrentHashMap<ModeShapeServer, ServerState>();
+
+    /**
+     * @param serverManager the server manager whose registered servers are monitored (never <code>null</code>)
+     */
+    ServerHealthMonitor( ServerManager serverManager ) {
+        assert (serverManager != null);
+        this.serverManager = serverManager;
+    }
+
+    /**
+     * @param listener the listener being registered to receive events (never <code>null</code>)
+     * @return <code>true</code> if listener was added
+     */
+    public boolean addHealthListener( IServerHealthListener listener ) {
+        CheckArg.isNotNull(listener, "listener"); //$NON-NLS-1$
+        return this.listeners.addIfAbsent(listener);
+    }
+
+    /**
+     * Pings the server now and updates its health. Only needed when the user explicitly asks to reconnect or when the health of
+     * a server must be known before a request is sent.
+     *
+     * @param server the server being checked (never <code>null</code>)
+     * @return the health of the server (never <code>null</code>)
+     */
+    public Health check( ModeShapeServer server ) {
+        CheckArg.isNotNull(server, "server"); //$NON-NLS-1$
+        Status status = this.serverManager.ping(server);
+        return update(server, status.isOk());
+    }
+
+    /**
+     * @param server the server whose earliest heartbeat check is being requested (never <code>null</code>)
+     * @return the time before which the heartbeat does not check the server or zero if it can be checked at any time
+     */
+    long getEarliestCheckTime( ModeShapeServer server ) {
+        ServerState state = this.states.get(server);
+
+        if (state == null) {
+            return 0;
+        }
+
+        synchronized (state) {
+            return state.noCheckBefore;
+        }
+    }
+
+    /**
+     * @param server the server whose health is being requested (never <code>null</code>)
+     * @return the last known health of the server (never <code>null</code>)
+     */
+    public Health getHealth( ModeShapeServer server ) {
+        CheckArg.isNotNull(server, "server"); //$NON-NLS-1$
+        ServerState state = this.states.get(server);
+
+        if (state == null) {
+            return Health.UNKNOWN;
+        }
+
+        synchronized (state) {
+            return state.health;
+        }
+    }
+
+    /**
+     * Servers that have not been checked yet are checked now.
+     *
+     * @param server the server being tested (never <code>null</code>)
+     * @return <code>true</code> if the server is online
+     */
+    public boolean isAvailable( ModeShapeServer server ) {
+        Health health = getHealth(server);
+
+        if (health == Health.UNKNOWN) {
+            health = check(server);
+        }
+
+        return (health == Health.ONLINE);
+    }
+
+    /**
+     * @param server the server being tested (never <code>null</code>)
+     * @return <code>true</code> if the server is known to be offline
+     */
+    public boolean isOffline( ModeShapeServer server ) {
+        return (getHealth(server) == Health.OFFLINE);
+    }
+
+    /**
+     * @param event the event being broadcast (never <code>null</code>)
+     */
+    private void notifyHealthListeners( ServerHealthEvent event ) {
+        for (IServerHealthListener l : this.listeners) {
+            Exception[] problems = null;
+
+            try {
+                problems = l.serverHealthChanged(event);
+            } catch (Exception e) {
+                problems = new Exception[] { e };
+            }
+
+            if (problems != null) {
+                for (Exception problem : problems) {
+                    Activator.getDefault().log(new Status(Severity.ERROR, RestClientI18n.serverHealthListenerError, problem));
+                }
+            }
+        }
+    }
+
+    /**
+     * @param listener the listener being unregistered and will no longer receive events (never <code>null</code>)
+     * @return <code>true</code> if listener was removed
+     */
+    public boolean removeHealthListener( IServerHealthListener listener ) {
+        CheckArg.isNotNull(listener, "listener"); //$NON-NLS-1$
+        return this.listeners.remove(listener);
+    }
+
+    /**
+     * Marks the server as offline after a request sent to it failed. The server is retried by the heartbeat.
+     *
+     * @param server the server that could not be reached (never <code>null</code>)
+     */
+    public void reportFailure( ModeShapeServer server ) {
+        CheckArg.isNotNull(server, "server"); //$NON-NLS-1$
+        update(server, false);
+    }
+
+    /**
+     * Marks the server as offline after a request sent to it failed and makes sure the heartbeat does not check the server again
+     * before the specified delay. Used when requests are being kept from the server for that long.
+     *
+     * @param server the server that could not be reached (never <code>null</code>)
+     * @param minRetryDelay the least number of milliseconds before the server is checked again by the heartbeat
+     */
+    public void reportFailure( ModeShapeServer server,
+                               long minRetryDelay ) {
+        CheckArg.isNotNull(server, "server"); //$NON-NLS-1$
+        update(server, false, minRetryDelay);
+    }
+
+    /**
+     * Must be called while holding the state lock.
+     *
+     * @param server the server being scheduled (never <code>null</code>)
+     * @param state the state of the server (never <code>null</code>)
+     * @param delay the number of milliseconds before the server is checked
+     */
+    private void schedule( final ModeShapeServer server,
+                           ServerState state,
+                           long delay ) {
+        if (state.heartbeat != null) {
+            state.heartbeat.cancel(false);
+            state.heartbeat = null;
+        }
+
+        ScheduledExecutorService service = null;
+
+        synchronized (this) {
+            service = this.executor;
+        }
+
+        if ((service != null) && !service.isShutdown()) {
+            state.heartbeat = service.schedule(new Runnable() {
+
+                /**
+                 * {@inheritDoc}
+                 *
+                 * @see java.lang.Runnable#run()
+                 */
+                @Override
+                public void run() {
+                    if (ServerHealthMonitor.this.states.containsKey(server)) {
+                        check(server);
+                    }
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * New servers are checked right away. Removed servers are no longer monitored.
+     *
+     * @see org.jboss.tools.modeshape.rest.IServerRegistryListener#serverRegistryChanged(org.jboss.tools.modeshape.rest.ServerRegistryEvent)
+     */
+    @Override
+    public Exception[] serverRegistryChanged( ServerRegistryEvent event ) {
+        if (event.isRemove() || event.isUpdate()) {
+            ServerState state = this.states.remove(event.getServer());
+
+            if (state != null) {
+                synchronized (state) {
+                    if (state.heartbeat != null) {
+                        state.heartbeat.cancel(false);
+                    }
+                }
+            }
+        }
+
+        if (event.isNew() || event.isUpdate()) {
+            ModeShapeServer server = (event.isNew() ? event.getServer() : event.getUpdatedServer());
+            ServerState state = getState(server);
+
+            synchronized (state) {
+                schedule(server, state, 0);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @param server the server whose state is being requested (never <code>null</code>)
+     * @return the state of the server (never <code>null</code>)
+     */
+    private ServerState getState( ModeShapeServer server ) {
+        ServerState state = this.states.get(server);
+
+        if (state == null) {
+            ServerState newState = new ServerState();
+            state = this.states.putIfAbsent(server, newState);
+
+            if (state == null) {
+                state = newState;
+            }
+        }
+
+        return state;
+    }
+
+    /**
+     * Starts sending heartbeats to the registered servers. Does nothing if already started.
+     */
+    public void start() {
+        synchronized (this) {
+            if (this.executor != null) {
+                return;
+            }
+
+            this.executor = Executors.newScheduledThreadPool(HEARTBEAT_THREADS, new ThreadFactory() {
+
+                private final AtomicInteger count = new AtomicInteger();
+
+                /**
+                 * {@inheritDoc}
+                 *
+                 * @see java.util.concurrent.ThreadFactory#newThread(java.lang.Runnable)
+                 */
+                @Override
+                public Thread newThread( Runnable runnable ) {
+                    Thread thread = new Thread(runnable, "ModeShape server health monitor " + this.count.incrementAndGet()); //$NON-NLS-1$
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+
+        for (ModeShapeServer server : this.serverManager.getServers()) {
+            ServerState state = getState(server);
+
+            synchronized (state) {
+                schedule(server, state, 0);
+            }
+        }
+    }
+
+    /**
+     * Stops sending heartbeats. The last known health of the servers is kept.
+     */
+    public void stop() {
+        ScheduledExecutorService service = null;
+
+        synchronized (this) {
+            service = this.executor;
+            this.executor = null;
+        }
+
+        if (service != null) {
+            service.shutdownNow();
+        }
+    }
+
+    /**
+     * @param server the server that was checked or sent a request (never <code>null</code>)
+     * @param online <code>true</code> if the server could be reached
+     * @return the new health of the server (never <code>null</code>)
+     */
+    Health update( ModeShapeServer server,
+                   boolean online ) {
+        return update(server, online, 0);
+    }
+
+    /**
+     * @param server the server that was checked or sent a request (never <code>null</code>)
+     * @param online <code>true</code> if the server could be reached
+     * @param minRetryDelay the least number of milliseconds before an offline server is checked again by the heartbeat
+     * @return the new health of the server (never <code>null</code>)
+     */
+    private Health update( ModeShapeServer server,
+                           boolean online,
+                           long minRetryDelay ) {
+        // only registered servers are monitored
+        if (!this.serverManager.isRegistered(server)) {
+            return (online ? Health.ONLINE : Health.OFFLINE);
+        }
+
+        ServerState state = getState(server);
+        Health previousHealth = null;
+        Health health = null;
+
+        synchronized (state) {
+            previousHealth = state.health;
+
+            if (online) {
+                state.health = Health.ONLINE;
+                state.failures = 0;
+                state.noCheckBefore = 0;
+                schedule(server, state, HEARTBEAT_INTERVAL);
+            } else {
+                long now = System.currentTimeMillis();
+                state.health = Health.OFFLINE;
+                ++state.failures;
+                state.noCheckBefore = Math.max(state.noCheckBefore, now + minRetryDelay);
+
+                // a later failure must not bring forward a check that was pushed back
+                schedule(server, state, Math.max(getRetryDelay(state.failures), state.noCheckBefore - now));
+            }
+
+            health = state.health;
+        }
+
+        if (previousHealth != health) {
+            notifyHealthListeners(new ServerHealthEvent(server, previousHealth, health));
+        }
+
+        return health;
+    }
+
+    /**
+     * The monitoring state of a server. Guarded by its own lock.
+     */
+    private static final class ServerState {
+
+        int failures;
+
+        Health health = Health.UNKNOWN;
+
+        ScheduledFuture<?> heartbeat;
+
+        /**
+         * The time before which the heartbeat does not check an offline server.
+         */
+        long noCheckBefore;
+
+    }
+
+}
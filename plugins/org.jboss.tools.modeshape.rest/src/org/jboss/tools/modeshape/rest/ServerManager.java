@@ -13,13 +13,20 @@ package org.jboss.tools.modeshape.rest;
 
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
 import java.net.URL;
+import java.net.UnknownHostException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import javax.xml.parsers.DocumentBuilder;
@@ -56,6 +63,27 @@ import org.w3c.dom.NodeList;
 
 /**
  * The <code>ServerManager</code> class manages the creation, deletion, and editing of servers hosting ModeShape repositories.
+ * <p>
+ * The repositories, workspaces, and publish areas obtained from the servers are cached for a
+ * {@link #setMetadataTimeToLive(long) limited time} and concurrent requests for the same metadata share one server call. The cached
+ * metadata of a server is discarded when the server is updated or removed and can be discarded on demand by
+ * {@link #invalidateMetadata(ModeShapeServer)}.
+ * <p>
+ * The {@link #getHealthMonitor() health monitor} keeps track of which registered servers can be reached.
+ * <p>
+ * Unversioned publishing and unpublishing of a file are retried when a connection to the server cannot be established, as the
+ * request has then not been sent. Versioned publishing is never retried since sending it twice could create an extra version.
+ * Failures after the request may have been received, like read timeouts, are not retried either. The delay before each
+ * {@link #setMaxRetries(int) retry} is doubled, starting at {@link #INITIAL_RETRY_DELAY} milliseconds, and is randomized so that
+ * concurrent requests do not retry at the same time. After {@value CircuitBreaker#DEFAULT_FAILURE_THRESHOLD} consecutive failures
+ * the server is considered down and publishing requests fail right away, without contacting the server, for
+ * {@value CircuitBreaker#DEFAULT_OPEN_TIME} milliseconds. The next request then probes the server. The server is marked offline
+ * in the health monitor while it is considered down.
+ * <p>
+ * The methods ending in <code>Async</code> send their request on a bounded pool of request threads and return right away. At
+ * most {@value ServerRequestExecutor#DEFAULT_MAX_REQUESTS_PER_SERVER} requests are sent to the same server at the same time and a
+ * request running longer than {@value ServerRequestExecutor#DEFAULT_TIMEOUT} milliseconds completes with a
+ * {@link java.util.concurrent.TimeoutException}. Canceling a returned future interrupts its request.
  */
 @ThreadSafe
 public final class ServerManager {
@@ -96,6 +124,91 @@ public final class ServerManager {
      */
     private static final String USER_TAG = "user"; //$NON-NLS-1$
 
+    /**
+     * The default number of milliseconds server metadata is cached.
+     */
+    public static final long DEFAULT_METADATA_TIME_TO_LIVE = 30000;
+
+    /**
+     * The default number of times a failed publishing request is retried.
+     */
+    public static final int DEFAULT_MAX_RETRIES = 3;
+
+    /**
+     * The number of milliseconds before the first retry of a failed publishing request.
+     */
+    public static final long INITIAL_RETRY_DELAY = 500;
+
+    /**
+     * The largest number of milliseconds before a retry of a failed publishing request.
+     */
+    public static final long MAX_RETRY_DELAY = 8000;
+
+    /**
+     * @param retry the number of retries already made (cannot be negative)
+     * @param random the number between zero and one used to randomize the delay
+     * @return the number of milliseconds to wait before retrying a failed publishing request
+     */
+    static long getRetryDelay( int retry,
+                               double random ) {
+        assert (retry >= 0);
+
+        // limit the shift so that it cannot overflow
+        long delay = Math.min(INITIAL_RETRY_DELAY << Math.min(retry, 16), MAX_RETRY_DELAY);
+
+        // wait at least half of the delay
+        return (delay / 2) + (long)(random * (delay / 2));
+    }
+
+    /**
+     * @param status the status of a request (never <code>null</code>)
+     * @return <code>true</code> if the request failed before it was sent because a connection to the server could not be made
+     */
+    static boolean isConnectionFailure( Status status ) {
+        if (!status.isError()) {
+            return false;
+        }
+
+        for (Throwable cause = status.getException(); cause != null; cause = cause.getCause()) {
+            if ((cause instanceof ConnectException) || (cause instanceof NoRouteToHostException)
+                || (cause instanceof UnknownHostException)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @param status the status of a request (never <code>null</code>)
+     * @return <code>true</code> if the request failed because the server could not be reached
+     */
+    static boolean isTransientFailure( Status status ) {
+        if (!status.isError()) {
+            return false;
+        }
+
+        // the REST client reports connection problems as I/O errors and server responses as other errors
+        for (Throwable cause = status.getException(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof IOException) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Stops publishing requests from being sent to servers that are down.
+     */
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker(CircuitBreaker.DEFAULT_FAILURE_THRESHOLD,
+                                                                     CircuitBreaker.DEFAULT_OPEN_TIME);
+
+    /**
+     * Keeps track of which registered servers can be reached.
+     */
+    private final ServerHealthMonitor healthMonitor;
+
     /**
      * The listeners registered to receive {@link ServerRegistryEvent server registry events}.
      */
@@ -106,6 +219,22 @@ public final class ServerManager {
      */
     private final IRestClient delegate;
 
+    /**
+     * The number of times a failed publishing request is retried.
+     */
+    private volatile int maxRetries = DEFAULT_MAX_RETRIES;
+
+    /**
+     * Sends the asynchronous requests.
+     */
+    private final ServerRequestExecutor requestExecutor;
+
+    /**
+     * The repositories keyed by server.
+     */
+    private final MetadataCache<ModeShapeServer, Collection<ModeShapeRepository>> repositoriesCache =
+        new MetadataCache<ModeShapeServer, Collection<ModeShapeRepository>>(DEFAULT_METADATA_TIME_TO_LIVE);
+
     /**
      * The path where the server registry is persisted or <code>null</code> if not persisted.
      */
@@ -122,6 +251,18 @@ public final class ServerManager {
      */
     private final ReadWriteLock serverLock = new ReentrantReadWriteLock();
 
+    /**
+     * The publish areas keyed by workspace.
+     */
+    private final MetadataCache<ModeShapeWorkspace, WorkspaceArea[]> workspaceAreasCache =
+        new MetadataCache<ModeShapeWorkspace, WorkspaceArea[]>(DEFAULT_METADATA_TIME_TO_LIVE);
+
+    /**
+     * The workspaces keyed by repository.
+     */
+    private final MetadataCache<ModeShapeRepository, Collection<ModeShapeWorkspace>> workspacesCache =
+        new MetadataCache<ModeShapeRepository, Collection<ModeShapeWorkspace>>(DEFAULT_METADATA_TIME_TO_LIVE);
+
     /**
      * @param stateLocationPath the directory where the {@link ModeShapeServer} registry} is persisted (may be <code>null</code> if
      *            persistence is not desired)
@@ -135,6 +276,29 @@ public final class ServerManager {
         this.stateLocationPath = stateLocationPath;
         this.delegate = restClient;
         this.listeners = new CopyOnWriteArrayList<IServerRegistryListener>();
+        this.healthMonitor = new ServerHealthMonitor(this);
+        this.listeners.add(this.healthMonitor);
+        this.healthMonitor.addHealthListener(new IServerHealthListener() {
+
+            /**
+             * {@inheritDoc}
+             * <p>
+             * A server that can be reached again no longer needs to be probed before publishing requests are sent to it.
+             *
+             * @see org.jboss.tools.modeshape.rest.IServerHealthListener#serverHealthChanged(org.jboss.tools.modeshape.rest.ServerHealthEvent)
+             */
+            @Override
+            public Exception[] serverHealthChanged( ServerHealthEvent event ) {
+                if (event.isOnline()) {
+                    ServerManager.this.circuitBreaker.reset(event.getServer());
+                }
+
+                return null;
+            }
+        });
+        this.requestExecutor = new ServerRequestExecutor(ServerRequestExecutor.DEFAULT_MAX_THREADS,
+                                                         ServerRequestExecutor.DEFAULT_MAX_REQUESTS_PER_SERVER,
+                                                         ServerRequestExecutor.DEFAULT_TIMEOUT);
     }
 
     /**
@@ -176,6 +340,13 @@ public final class ServerManager {
         return internalAddServer(server, true);
     }
 
+    /**
+     * Cancels the asynchronous requests that have not completed. Asynchronous requests made afterwards fail right away.
+     */
+    public void dispose() {
+        this.requestExecutor.shutdown();
+    }
+
     /**
      * @param url the original URL of the server being requested (never <code>null</code> )
      * @param user the user ID of the server being requested (never <code>null</code>)
@@ -195,6 +366,13 @@ public final class ServerManager {
         return null;
     }
 
+    /**
+     * @return the monitor tracking which registered servers can be reached (never <code>null</code>)
+     */
+    public ServerHealthMonitor getHealthMonitor() {
+        return this.healthMonitor;
+    }
+
     /**
      * @return an unmodifiable collection of registered servers (never <code>null</code>)
      */
@@ -225,22 +403,33 @@ public final class ServerManager {
      * @return the repositories (never <code>null</code>)
      * @throws Exception if server is not registered or if there is an unexpected problem obtaining the repositories
      */
-    public Collection<ModeShapeRepository> getRepositories( ModeShapeServer server ) throws Exception {
+    public Collection<ModeShapeRepository> getRepositories( final ModeShapeServer server ) throws Exception {
         CheckArg.isNotNull(server, "server"); //$NON-NLS-1$
 
         try {
             this.serverLock.readLock().lock();
 
             if (isRegistered(server)) {
-                // need to wrap each repository
-                Collection<Repository> repositories = this.delegate.getRepositories(server.getDelegate());
-                Collection<ModeShapeRepository> result = new ArrayList<ModeShapeRepository>(repositories.size());
-
-                for (Repository repository : repositories) {
-                    result.add(new ModeShapeRepository(repository, server));
-                }
+                return this.repositoriesCache.get(server, new MetadataCache.Loader<Collection<ModeShapeRepository>>() {
+
+                    /**
+                     * {@inheritDoc}
+                     *
+                     * @see org.jboss.tools.modeshape.rest.MetadataCache.Loader#load()
+                     */
+                    @Override
+                    public Collection<ModeShapeRepository> load() throws Exception {
+                        // need to wrap each repository
+                        Collection<Repository> repositories = ServerManager.this.delegate.getRepositories(server.getDelegate());
+                        Collection<ModeShapeRepository> result = new ArrayList<ModeShapeRepository>(repositories.size());
+
+                        for (Repository repository : repositories) {
+                            result.add(new ModeShapeRepository(repository, server));
+                        }
 
-                return Collections.unmodifiableCollection(result);
+                        return Collections.unmodifiableCollection(result);
+                    }
+                });
             }
 
             // server must be registered in order to obtain it's repositories
@@ -250,6 +439,28 @@ public final class ServerManager {
         }
     }
 
+    /**
+     * @param server the server whose repositories are being requested (never <code>null</code>)
+     * @return the future repositories (never <code>null</code>)
+     * @see #getRepositories(ModeShapeServer)
+     */
+    public CompletableFuture<Collection<ModeShapeRepository>> getRepositoriesAsync( final ModeShapeServer server ) {
+        CheckArg.isNotNull(server, "server"); //$NON-NLS-1$
+
+        return this.requestExecutor.submit(server, new Callable<Collection<ModeShapeRepository>>() {
+
+            /**
+             * {@inheritDoc}
+             *
+             * @see java.util.concurrent.Callable#call()
+             */
+            @Override
+            public Collection<ModeShapeRepository> call() throws Exception {
+                return getRepositories(server);
+            }
+        });
+    }
+
     /**
      * @param file the file whose URL is being requested (cannot be <code>null</code>)
      * @param path the repository path where the file path should start from
@@ -268,19 +479,55 @@ public final class ServerManager {
      * @return the workspace areas (never <code>null</code>)
      * @throws Exception if there is a problem obtaining the workspace areas
      */
-    public WorkspaceArea[] getWorkspaceAreas( ModeShapeWorkspace workspace ) throws Exception {
-        final String path = "jcr:path"; //$NON-NLS-1$
-        final String title = "jcr:title"; //$NON-NLS-1$
-        final String statement = "SELECT [" + path + "], " + '[' + title + ']' + " FROM [mode:publishArea]"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
-        List<QueryRow> rows = this.delegate.query(workspace.getDelegate(), IJcrConstants.JCR_SQL2, statement);
-        WorkspaceArea[] workspaceAreas = new WorkspaceArea[rows.size()];
+    public WorkspaceArea[] getWorkspaceAreas( final ModeShapeWorkspace workspace ) throws Exception {
+        WorkspaceArea[] workspaceAreas = this.workspaceAreasCache.get(workspace, new MetadataCache.Loader<WorkspaceArea[]>() {
+
+            /**
+             * {@inheritDoc}
+             *
+             * @see org.jboss.tools.modeshape.rest.MetadataCache.Loader#load()
+             */
+            @Override
+            public WorkspaceArea[] load() throws Exception {
+                final String path = "jcr:path"; //$NON-NLS-1$
+                final String title = "jcr:title"; //$NON-NLS-1$
+                final String statement = "SELECT [" + path + "], " + '[' + title + ']' + " FROM [mode:publishArea]"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+                List<QueryRow> rows = ServerManager.this.delegate.query(workspace.getDelegate(), IJcrConstants.JCR_SQL2, statement);
+                WorkspaceArea[] result = new WorkspaceArea[rows.size()];
+
+                for (int numRows = rows.size(), i = 0; i < numRows; ++i) {
+                    QueryRow row = rows.get(i);
+                    result[i] = new WorkspaceArea(workspace, (String)row.getValue(path), (String)row.getValue(title));
+                }
 
-        for (int numRows = rows.size(), i = 0; i < numRows; ++i) {
-            QueryRow row = rows.get(i);
-            workspaceAreas[i] = new WorkspaceArea(workspace, (String)row.getValue(path), (String)row.getValue(title));
-        }
+                return result;
+            }
+        });
+
+        // callers may change the array
+        return workspaceAreas.clone();
+    }
+
+    /**
+     * @param workspace the workspace whose publishing areas are being requested (never <code>null</code>)
+     * @return the future workspace areas (never <code>null</code>)
+     * @see #getWorkspaceAreas(ModeShapeWorkspace)
+     */
+    public CompletableFuture<WorkspaceArea[]> getWorkspaceAreasAsync( final ModeShapeWorkspace workspace ) {
+        CheckArg.isNotNull(workspace, "workspace"); //$NON-NLS-1$
+
+        return this.requestExecutor.submit(workspace.getServer(), new Callable<WorkspaceArea[]>() {
 
-        return workspaceAreas;
+            /**
+             * {@inheritDoc}
+             *
+             * @see java.util.concurrent.Callable#call()
+             */
+            @Override
+            public WorkspaceArea[] call() throws Exception {
+                return getWorkspaceAreas(workspace);
+            }
+        });
     }
 
     /**
@@ -288,22 +535,33 @@ public final class ServerManager {
      * @return the workspaces (never <code>null</code>)
      * @throws Exception if server is not registered or if there is an unexpected problem obtaining the workspaces
      */
-    public Collection<ModeShapeWorkspace> getWorkspaces( ModeShapeRepository repository ) throws Exception {
+    public Collection<ModeShapeWorkspace> getWorkspaces( final ModeShapeRepository repository ) throws Exception {
         CheckArg.isNotNull(repository, "repository"); //$NON-NLS-1$
 
         try {
             this.serverLock.readLock().lock();
 
             if (isRegistered(repository.getServer())) {
-                // wrap workspaces
-                Collection<Workspace> workspaces = this.delegate.getWorkspaces(repository.getDelegate());
-                Collection<ModeShapeWorkspace> result = new ArrayList<ModeShapeWorkspace>(workspaces.size());
-
-                for (Workspace workspace : workspaces) {
-                    result.add(new ModeShapeWorkspace(workspace, repository));
-                }
+                return this.workspacesCache.get(repository, new MetadataCache.Loader<Collection<ModeShapeWorkspace>>() {
+
+                    /**
+                     * {@inheritDoc}
+                     *
+                     * @see org.jboss.tools.modeshape.rest.MetadataCache.Loader#load()
+                     */
+                    @Override
+                    public Collection<ModeShapeWorkspace> load() throws Exception {
+                        // wrap workspaces
+                        Collection<Workspace> workspaces = ServerManager.this.delegate.getWorkspaces(repository.getDelegate());
+                        Collection<ModeShapeWorkspace> result = new ArrayList<ModeShapeWorkspace>(workspaces.size());
+
+                        for (Workspace workspace : workspaces) {
+                            result.add(new ModeShapeWorkspace(workspace, repository));
+                        }
 
-                return Collections.unmodifiableCollection(result);
+                        return Collections.unmodifiableCollection(result);
+                    }
+                });
             }
 
             // a repository's server must be registered in order to obtain it's workspaces
@@ -314,6 +572,28 @@ public final class ServerManager {
         }
     }
 
+    /**
+     * @param repository the repository whose workspaces are being requested (never <code>null</code>)
+     * @return the future workspaces (never <code>null</code>)
+     * @see #getWorkspaces(ModeShapeRepository)
+     */
+    public CompletableFuture<Collection<ModeShapeWorkspace>> getWorkspacesAsync( final ModeShapeRepository repository ) {
+        CheckArg.isNotNull(repository, "repository"); //$NON-NLS-1$
+
+        return this.requestExecutor.submit(repository.getServer(), new Callable<Collection<ModeShapeWorkspace>>() {
+
+            /**
+             * {@inheritDoc}
+             *
+             * @see java.util.concurrent.Callable#call()
+             */
+            @Override
+            public Collection<ModeShapeWorkspace> call() throws Exception {
+                return getWorkspaces(repository);
+            }
+        });
+    }
+
     /**
      * Registers the specified <code>Server</code>.
      *
@@ -381,6 +661,9 @@ public final class ServerManager {
         }
 
         if (removed) {
+            invalidateMetadata(server);
+            this.circuitBreaker.reset(server);
+
             // remove system property if no more servers
             if (getServers().isEmpty()) {
                 System.clearProperty(SERVER_EXISTS_PROPERTY);
@@ -401,6 +684,34 @@ public final class ServerManager {
                           null);
     }
 
+    /**
+     * Discards the cached repositories, workspaces, and publish areas of a server so that they are obtained from the server the
+     * next time they are requested.
+     *
+     * @param server the server whose cached metadata is being discarded (never <code>null</code>)
+     */
+    public void invalidateMetadata( ModeShapeServer server ) {
+        CheckArg.isNotNull(server, "server"); //$NON-NLS-1$
+
+        for (ModeShapeServer key : this.repositoriesCache.getKeys()) {
+            if (key.hasSameKey(server)) {
+                this.repositoriesCache.invalidate(key);
+            }
+        }
+
+        for (ModeShapeRepository key : this.workspacesCache.getKeys()) {
+            if (key.getServer().hasSameKey(server)) {
+                this.workspacesCache.invalidate(key);
+            }
+        }
+
+        for (ModeShapeWorkspace key : this.workspaceAreasCache.getKeys()) {
+            if (key.getServer().hasSameKey(server)) {
+                this.workspaceAreasCache.invalidate(key);
+            }
+        }
+    }
+
     /**
      * @param server the server being tested (never <code>null</code>)
      * @return <code>true</code> if the server has been registered
@@ -436,7 +747,37 @@ public final class ServerManager {
                                      final String path ) throws Exception {
         CheckArg.isNotNull(workspace, "workspace"); //$NON-NLS-1$
         CheckArg.isNotEmpty(path, "path"); //$NON-NLS-1$
-        return this.delegate.markAsPublishArea(workspace.getDelegate(), path, null, null);
+
+        try {
+            return this.delegate.markAsPublishArea(workspace.getDelegate(), path, null, null);
+        } finally {
+            this.workspaceAreasCache.invalidate(workspace);
+        }
+    }
+
+    /**
+     * @param workspace the workspace where the publish area is being created (cannot be <code>null</code>)
+     * @param path the workspace path of the publish area (cannot be <code>null</code> or empty)
+     * @return the future status indicating if the publish area was added (never <code>null</code>)
+     * @see #markAsPublishArea(ModeShapeWorkspace, String)
+     */
+    public CompletableFuture<Status> markAsPublishAreaAsync( final ModeShapeWorkspace workspace,
+                                                             final String path ) {
+        CheckArg.isNotNull(workspace, "workspace"); //$NON-NLS-1$
+        CheckArg.isNotEmpty(path, "path"); //$NON-NLS-1$
+
+        return this.requestExecutor.submit(workspace.getServer(), new Callable<Status>() {
+
+            /**
+             * {@inheritDoc}
+             *
+             * @see java.util.concurrent.Callable#call()
+             */
+            @Override
+            public Status call() throws Exception {
+                return markAsPublishArea(workspace, path);
+            }
+        });
     }
 
     /**
@@ -505,7 +846,7 @@ public final class ServerManager {
         CheckArg.isNotNull(server, "server"); //$NON-NLS-1$
 
         try {
-            this.delegate.getRepositories(server.getDelegate());
+            this.delegate.getRepositories(server.validateDelegate(this.delegate));
             return new Status(Severity.OK, RestClientI18n.serverManagerConnectionEstablishedMsg, null);
         } catch (Exception e) {
             return new Status(Severity.ERROR, NLS.bind(RestClientI18n.serverManagerConnectionFailedMsg, e), null);
@@ -519,10 +860,10 @@ public final class ServerManager {
      * @param version <code>true</code> if the file should be put under version control by ModeShape
      * @return the status of the outcome of this publishing operation
      */
-    public Status publish( ModeShapeWorkspace workspace,
-                           String path,
-                           File file,
-                           boolean version ) {
+    public Status publish( final ModeShapeWorkspace workspace,
+                           final String path,
+                           final File file,
+                           final boolean version ) {
         CheckArg.isNotNull(workspace, "workspace"); //$NON-NLS-1$
         CheckArg.isNotNull(path, "path"); //$NON-NLS-1$
         CheckArg.isNotNull(file, "file"); //$NON-NLS-1$
@@ -530,23 +871,144 @@ public final class ServerManager {
         ModeShapeServer server = workspace.getServer();
 
         if (isRegistered(server)) {
-            try {
-                if (version) {
-                    return this.delegate.publish(workspace.getDelegate(), path, file, true);
+            // a versioned file could get an extra version if sent twice
+            return send(server, !version, new Callable<Status>() {
+
+                /**
+                 * {@inheritDoc}
+                 *
+                 * @see java.util.concurrent.Callable#call()
+                 */
+                @Override
+                public Status call() throws Exception {
+                    if (version) {
+                        return ServerManager.this.delegate.publish(workspace.getDelegate(), path, file, true);
+                    }
+
+                    // If version is false it could mean that versioning is not supported by the repository, or it is not enabled
+                    // by the repository, or that the user does not want the file versioned. If repository is running on an older
+                    // server that did not have versioning, then the only publishing method available on the server was the publish
+                    // method without the version parameter.
+                    return ServerManager.this.delegate.publish(workspace.getDelegate(), path, file);
                 }
+            });
+        }
 
-                // If version is false it could mean that versioning is not supported by the repository, or it is not enabled by the
-                // by the repository, or that the user does not want the file versioned. If repository is running on an older server
-                // that did not have versioning, then the only publishing method available on the server was the publish method without
-                // the version parameter.
-                return this.delegate.publish(workspace.getDelegate(), path, file);
+        // server must be registered in order to publish
+        throw new RuntimeException(NLS.bind(RestClientI18n.serverManagerUnregisteredServer, server.getShortDescription()));
+    }
+
+    /**
+     * @param workspace the workspace where the file should be published (cannot be <code>null</code>)
+     * @param path the starting path in the repository (cannot be <code>null</code>)
+     * @param file the file being published (cannot be <code>null</code>)
+     * @param version <code>true</code> if the file should be put under version control by ModeShape
+     * @return the future status of the outcome of this publishing operation (never <code>null</code>)
+     * @see #publish(ModeShapeWorkspace, String, File, boolean)
+     */
+    public CompletableFuture<Status> publishAsync( final ModeShapeWorkspace workspace,
+                                                   final String path,
+                                                   final File file,
+                                                   final boolean version ) {
+        CheckArg.isNotNull(workspace, "workspace"); //$NON-NLS-1$
+        CheckArg.isNotNull(path, "path"); //$NON-NLS-1$
+        CheckArg.isNotNull(file, "file"); //$NON-NLS-1$
+
+        return this.requestExecutor.submit(workspace.getServer(), new Callable<Status>() {
+
+            /**
+             * {@inheritDoc}
+             *
+             * @see java.util.concurrent.Callable#call()
+             */
+            @Override
+            public Status call() {
+                return publish(workspace, path, file, version);
+            }
+        });
+    }
+
+    /**
+     * @param server the server whose circuit is open (never <code>null</code>)
+     * @return the status of a request that was not sent because the server is considered down (never <code>null</code>)
+     */
+    private Status createCircuitOpenStatus( ModeShapeServer server ) {
+        return new Status(Severity.ERROR, NLS.bind(RestClientI18n.serverCircuitOpenMsg, server.getShortDescription()), null);
+    }
+
+    /**
+     * Sends a publishing request to a server and tells the circuit breaker the outcome. When allowed, requests that could not
+     * connect to the server are retried.
+     *
+     * @param server the server the request is sent to (never <code>null</code>)
+     * @param retryable <code>true</code> if the request can be retried when a connection to the server cannot be made
+     * @param request the request (never <code>null</code>)
+     * @return the status of the last attempt (never <code>null</code>)
+     */
+    private Status send( ModeShapeServer server,
+                         boolean retryable,
+                         Callable<Status> request ) {
+        if (!this.circuitBreaker.allowRequest(server)) {
+            return createCircuitOpenStatus(server);
+        }
+
+        for (int retry = 0;; ++retry) {
+            Status status;
+
+            try {
+                status = request.call();
             } catch (Exception error) {
-                return new Status(Severity.ERROR, NLS.bind(RestClientI18n.serverValidationError, server.getOriginalUrl()), error);
+                status = new Status(Severity.ERROR, NLS.bind(RestClientI18n.serverValidationError, server.getOriginalUrl()), error);
+            }
+
+            if (!isTransientFailure(status)) {
+                // the server responded even if the request failed
+                this.circuitBreaker.succeeded(server);
+                return status;
+            }
+
+            if (this.circuitBreaker.failed(server)) {
+                // server is considered down so let the other requests fail fast and do not check it before the circuit half opens
+                this.healthMonitor.reportFailure(server, this.circuitBreaker.getOpenTime());
+                return status;
+            }
+
+            // only retry requests that never reached the server
+            if (!retryable || !isConnectionFailure(status) || (retry >= this.maxRetries)) {
+                return status;
+            }
+
+            try {
+                Thread.sleep(getRetryDelay(retry, ThreadLocalRandom.current().nextDouble()));
+            } catch (InterruptedException e) {
+                // request was canceled
+                Thread.currentThread().interrupt();
+                return status;
+            }
+
+            // another request may have opened the circuit while waiting
+            if (!this.circuitBreaker.allowRequest(server)) {
+                return createCircuitOpenStatus(server);
             }
         }
+    }
 
-        // server must be registered in order to publish
-        throw new RuntimeException(NLS.bind(RestClientI18n.serverManagerUnregisteredServer, server.getShortDescription()));
+    /**
+     * @param newMaxRetries the number of times a publishing request that failed because the server could not be reached is retried
+     *            (cannot be negative)
+     */
+    public void setMaxRetries( int newMaxRetries ) {
+        CheckArg.isNonNegative(newMaxRetries, "newMaxRetries"); //$NON-NLS-1$
+        this.maxRetries = newMaxRetries;
+    }
+
+    /**
+     * @param timeToLive the number of milliseconds server metadata is cached (zero or less if metadata should not be cached)
+     */
+    public void setMetadataTimeToLive( long timeToLive ) {
+        this.repositoriesCache.setTimeToLive(timeToLive);
+        this.workspacesCache.setTimeToLive(timeToLive);
+        this.workspaceAreasCache.setTimeToLive(timeToLive);
     }
 
     /**
@@ -675,7 +1137,34 @@ public final class ServerManager {
      */
     public Status unmarkAsPublishArea( final WorkspaceArea publishArea ) throws Exception {
         CheckArg.isNotNull(publishArea, "publishArea"); //$NON-NLS-1$
-        return this.delegate.unmarkAsPublishArea(publishArea.getWorkspace().getDelegate(), publishArea.getName());
+
+        try {
+            return this.delegate.unmarkAsPublishArea(publishArea.getWorkspace().getDelegate(), publishArea.getName());
+        } finally {
+            this.workspaceAreasCache.invalidate(publishArea.getWorkspace());
+        }
+    }
+
+    /**
+     * @param publishArea the workspace area being removed as a publish area (cannot be <code>null</code>)
+     * @return the future status indicating if the path was successfully unmarked as a publish area (never <code>null</code>)
+     * @see #unmarkAsPublishArea(WorkspaceArea)
+     */
+    public CompletableFuture<Status> unmarkAsPublishAreaAsync( final WorkspaceArea publishArea ) {
+        CheckArg.isNotNull(publishArea, "publishArea"); //$NON-NLS-1$
+
+        return this.requestExecutor.submit(publishArea.getWorkspace().getServer(), new Callable<Status>() {
+
+            /**
+             * {@inheritDoc}
+             *
+             * @see java.util.concurrent.Callable#call()
+             */
+            @Override
+            public Status call() throws Exception {
+                return unmarkAsPublishArea(publishArea);
+            }
+        });
     }
 
     /**
@@ -684,9 +1173,9 @@ public final class ServerManager {
      * @param file the file being unpublished (cannot be <code>null</code>)
      * @return the status of the outcome of this unpublishing operation
      */
-    public Status unpublish( ModeShapeWorkspace workspace,
-                             String path,
-                             File file ) {
+    public Status unpublish( final ModeShapeWorkspace workspace,
+                             final String path,
+                             final File file ) {
         CheckArg.isNotNull(workspace, "workspace"); //$NON-NLS-1$
         CheckArg.isNotNull(path, "path"); //$NON-NLS-1$
         CheckArg.isNotNull(file, "file"); //$NON-NLS-1$
@@ -694,17 +1183,52 @@ public final class ServerManager {
         ModeShapeServer server = workspace.getServer();
 
         if (isRegistered(server)) {
-            try {
-                return this.delegate.unpublish(workspace.getDelegate(), path, file);
-            } catch (Exception error) {
-                return new Status(Severity.ERROR, NLS.bind(RestClientI18n.serverValidationError, server.getOriginalUrl()), error);
-            }
+            return send(server, true, new Callable<Status>() {
+
+                /**
+                 * {@inheritDoc}
+                 *
+                 * @see java.util.concurrent.Callable#call()
+                 */
+                @Override
+                public Status call() throws Exception {
+                    return ServerManager.this.delegate.unpublish(workspace.getDelegate(), path, file);
+                }
+            });
         }
 
         // server must be registered in order to unpublish
         throw new RuntimeException(NLS.bind(RestClientI18n.serverManagerUnregisteredServer, server.getShortDescription()));
     }
 
+    /**
+     * @param workspace the workspace where the file should be unpublished from (cannot be <code>null</code>)
+     * @param path the starting path in the repository (cannot be <code>null</code>)
+     * @param file the file being unpublished (cannot be <code>null</code>)
+     * @return the future status of the outcome of this unpublishing operation (never <code>null</code>)
+     * @see #unpublish(ModeShapeWorkspace, String, File)
+     */
+    public CompletableFuture<Status> unpublishAsync( final ModeShapeWorkspace workspace,
+                                                     final String path,
+                                                     final File file ) {
+        CheckArg.isNotNull(workspace, "workspace"); //$NON-NLS-1$
+        CheckArg.isNotNull(path, "path"); //$NON-NLS-1$
+        CheckArg.isNotNull(file, "file"); //$NON-NLS-1$
+
+        return this.requestExecutor.submit(workspace.getServer(), new Callable<Status>() {
+
+            /**
+             * {@inheritDoc}
+             *
+             * @see java.util.concurrent.Callable#call()
+             */
+            @Override
+            public Status call() {
+                return unpublish(workspace, path, file);
+            }
+        });
+    }
+
     /**
      * Updates the server registry with a new version of a server.
      *
@@ -0,0 +1,394 @@
+/*
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.
+ *
+ * This software is made available by Red Hat, Inc. under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution and is
+ * available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * See the AUTHORS.txt file in the distribution for a full listing of
+ * individual contributors.
+ */
+package org.jboss.tools.modeshape.rest;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import org.eclipse.osgi.util.NLS;
+import org.jboss.tools.modeshape.rest.domain.ModeShapeServer;
+import org.modeshape.common.annotation.GuardedBy;
+import org.modeshape.common.annotation.ThreadSafe;
+import org.modeshape.common.util.CheckArg;
+
+/**
+ * The <code>ServerRequestExecutor</code> runs server requests on a bounded pool of threads and returns their results as
+ * {@link CompletableFuture futures}. At most a fixed number of requests are sent to the same server at the same time. The other
+ * requests for that server wait in the order they were submitted. A request that runs longer than the timeout is interrupted and
+ * its future completes with a {@link TimeoutException}. Canceling a future interrupts its request. The timeout starts when the
+ * request starts running, not while it waits for a thread. A request keeps its server slot until it actually returns, even after
+ * it has timed out or been canceled, as its thread may be blocked in I/O that ignores interrupts.
+ */
+@ThreadSafe
+final class ServerRequestExecutor {
+
+    /**
+     * The default number of threads sending requests.
+     */
+    static final int DEFAULT_MAX_THREADS = 8;
+
+    /**
+     * The default number of requests sent to the same server at the same time.
+     */
+    static final int DEFAULT_MAX_REQUESTS_PER_SERVER = 4;
+
+    /**
+     * The default number of milliseconds a request can run before it is interrupted.
+     */
+    static final long DEFAULT_TIMEOUT = 60000;
+
+    /**
+     * The number of seconds an idle thread is kept.
+     */
+    private static final long KEEP_ALIVE = 30;
+
+    /**
+     * @param name the prefix of the thread names (never <code>null</code>)
+     * @return a factory of daemon threads so that requests never keep the platform from exiting (never <code>null</code>)
+     */
+    private static ThreadFactory createThreadFactory( final String name ) {
+        return new ThreadFactory() {
+
+            private final AtomicInteger count = new AtomicInteger();
+
+            /**
+             * {@inheritDoc}
+             *
+             * @see java.util.concurrent.ThreadFactory#newThread(java.lang.Runnable)
+             */
+            @Override
+            public Thread newThread( Runnable runnable ) {
+                Thread thread = new Thread(runnable, name + ' ' + this.count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+
+    /**
+     * Runs the requests.
+     */
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * The number of requests sent to the same server at the same time.
+     */
+    private final int maxRequestsPerServer;
+
+    /**
+     * The requests of each server that has running or waiting requests.
+     */
+    @GuardedBy("this")
+    private final Map<ModeShapeServer, ServerQueue> queues = new HashMap<ModeShapeServer, ServerQueue>();
+
+    /**
+     * Indicates if the executor has been shut down.
+     */
+    @GuardedBy("this")
+    private boolean shutdown;
+
+    /**
+     * The number of milliseconds a request can run before it is interrupted.
+     */
+    private final long timeout;
+
+    /**
+     * Interrupts the requests that run longer than the timeout.
+     */
+    private final ScheduledThreadPoolExecutor timer;
+
+    /**
+     * @param maxThreads the number of threads sending requests (must be positive)
+     * @param maxRequestsPerServer the number of requests sent to the same server at the same time (must be positive)
+     * @param timeout the number of milliseconds a request can run before it is interrupted (must be positive)
+     */
+    ServerRequestExecutor( int maxThreads,
+                           int maxRequestsPerServer,
+                           long timeout ) {
+        CheckArg.isPositive(maxThreads, "maxThreads"); //$NON-NLS-1$
+        CheckArg.isPositive(maxRequestsPerServer, "maxRequestsPerServer"); //$NON-NLS-1$
+        CheckArg.isPositive(timeout, "timeout"); //$NON-NLS-1$
+
+        this.maxRequestsPerServer = maxRequestsPerServer;
+        this.timeout = timeout;
+
+        // the per server limit bounds the number of queued requests to the number of servers times that limit
+        this.executor = new ThreadPoolExecutor(maxThreads, maxThreads, KEEP_ALIVE, TimeUnit.SECONDS,
+                                               new LinkedBlockingQueue<Runnable>(),
+                                               createThreadFactory("ModeShape server request")); //$NON-NLS-1$
+        this.executor.allowCoreThreadTimeOut(true);
+
+        this.timer = new ScheduledThreadPoolExecutor(1, createThreadFactory("ModeShape server request timer")); //$NON-NLS-1$
+        this.timer.setKeepAliveTime(KEEP_ALIVE, TimeUnit.SECONDS);
+        this.timer.allowCoreThreadTimeOut(true);
+        this.timer.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Must be called while holding the executor lock.
+     *
+     * @param request the request being run (never <code>null</code>)
+     */
+    private void dispatch( final Request<?> request ) {
+        FutureTask<Void> task = new FutureTask<Void>(request, null) {
+
+            /**
+             * {@inheritDoc}
+             * <p>
+             * A task canceled before it started never runs the request so its server slot is freed here. A request that has
+             * started frees its slot itself when it returns.
+             *
+             * @see java.util.concurrent.FutureTask#done()
+             */
+            @Override
+            protected void done() {
+                if (request.started.compareAndSet(false, true)) {
+                    finished(request);
+                }
+            }
+        };
+
+        request.task = task;
+        this.executor.execute(task);
+    }
+
+    /**
+     * Frees the server slot of the request and runs the next waiting request of that server.
+     *
+     * @param request the request that has returned or will never run (never <code>null</code>)
+     */
+    void finished( Request<?> request ) {
+        synchronized (this) {
+            ServerQueue queue = this.queues.get(request.server);
+
+            if (queue == null) {
+                return; // shut down
+            }
+
+            Request<?> next = queue.waiting.poll();
+
+            if (next == null) {
+                if (--queue.running == 0) {
+                    this.queues.remove(request.server);
+                }
+            } else if (!this.shutdown) {
+                dispatch(next); // next request takes over the slot
+            }
+        }
+    }
+
+    /**
+     * Cancels the waiting and running requests. Requests submitted afterwards fail right away.
+     */
+    void shutdown() {
+        synchronized (this) {
+            this.shutdown = true;
+
+            for (ServerQueue queue : this.queues.values()) {
+                for (Request<?> request : queue.waiting) {
+                    request.result.cancel(false);
+                }
+            }
+
+            this.queues.clear();
+        }
+
+        for (Runnable task : this.executor.shutdownNow()) {
+            ((Future<?>)task).cancel(false);
+        }
+
+        this.timer.shutdownNow();
+    }
+
+    /**
+     * @param <T> the result type
+     * @param server the server the request is sent to (never <code>null</code>)
+     * @param request the request (never <code>null</code>)
+     * @return the future result of the request (never <code>null</code>)
+     */
+    <T> CompletableFuture<T> submit( ModeShapeServer server,
+                                     Callable<T> request ) {
+        CheckArg.isNotNull(server, "server"); //$NON-NLS-1$
+        CheckArg.isNotNull(request, "request"); //$NON-NLS-1$
+
+        Request<T> newRequest = new Request<T>(server, request);
+
+        synchronized (this) {
+            if (this.shutdown) {
+                newRequest.result.completeExceptionally(new IllegalStateException(RestClientI18n.serverRequestExecutorShutdownMsg));
+                return newRequest.result;
+            }
+
+            ServerQueue queue = this.queues.get(server);
+
+            if (queue == null) {
+                queue = new ServerQueue();
+                this.queues.put(server, queue);
+            }
+
+            if (queue.running < this.maxRequestsPerServer) {
+                ++queue.running;
+                dispatch(newRequest);
+            } else {
+                queue.waiting.add(newRequest);
+            }
+        }
+
+        return newRequest.result;
+    }
+
+    /**
+     * A request and its future result.
+     *
+     * @param <T> the result type
+     */
+    final class Request<T> implements Runnable {
+
+        final Callable<T> callable;
+
+        final CompletableFuture<T> result = new CompletableFuture<T>();
+
+        final ModeShapeServer server;
+
+        /**
+         * Indicates if the request has started running or its task was canceled before it could start.
+         */
+        final AtomicBoolean started = new AtomicBoolean();
+
+        /**
+         * The task running the request or <code>null</code> if the request is waiting.
+         */
+        volatile Future<?> task;
+
+        Request( ModeShapeServer server,
+                 Callable<T> callable ) {
+            this.server = server;
+            this.callable = callable;
+
+            // interrupt the request when the caller cancels the future
+            this.result.whenComplete(new BiConsumer<T, Throwable>() {
+
+                /**
+                 * {@inheritDoc}
+                 *
+                 * @see java.util.function.BiConsumer#accept(java.lang.Object, java.lang.Object)
+                 */
+                @Override
+                public void accept( T value,
+                                    Throwable error ) {
+                    Future<?> runningTask = Request.this.task;
+
+                    if (Request.this.result.isCancelled() && (runningTask != null)) {
+                        runningTask.cancel(true);
+                    }
+                }
+            });
+        }
+
+        /**
+         * {@inheritDoc}
+         *
+         * @see java.lang.Runnable#run()
+         */
+        @Override
+        public void run() {
+            if (!this.started.compareAndSet(false, true)) {
+                return; // task was canceled and its slot already freed
+            }
+
+            try {
+                // the future is already done when it was canceled while waiting
+                if (this.result.isDone()) {
+                    return;
+                }
+
+                Future<?> timeoutTask = scheduleTimeout();
+
+                try {
+                    this.result.complete(this.callable.call());
+                } catch (Throwable e) {
+                    this.result.completeExceptionally(e);
+                } finally {
+                    if (timeoutTask != null) {
+                        timeoutTask.cancel(false);
+                    }
+                }
+            } finally {
+                // only free the slot once the request has actually returned
+                finished(this);
+            }
+        }
+
+        /**
+         * @return the task that interrupts the request when it takes too long or <code>null</code> if shutting down
+         */
+        private Future<?> scheduleTimeout() {
+            try {
+                return ServerRequestExecutor.this.timer.schedule(new Runnable() {
+
+                    /**
+                     * {@inheritDoc}
+                     *
+                     * @see java.lang.Runnable#run()
+                     */
+                    @Override
+                    public void run() {
+                        timedOut();
+                    }
+                }, ServerRequestExecutor.this.timeout, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                return null; // timer has been shut down
+            }
+        }
+
+        void timedOut() {
+            String msg = NLS.bind(RestClientI18n.serverRequestTimeoutMsg,
+                                  this.server.getShortDescription(),
+                                  ServerRequestExecutor.this.timeout);
+
+            if (this.result.completeExceptionally(new TimeoutException(msg))) {
+                Future<?> runningTask = this.task;
+
+                if (runningTask != null) {
+                    runningTask.cancel(true);
+                }
+            }
+        }
+    }
+
+    /**
+     * The running and waiting requests of a server.
+     */
+    private static final class ServerQueue {
+
+        int running;
+
+        final Queue<Request<?>> waiting = new ArrayDeque<Request<?>>();
+
+    }
+
+}
@@ -84,6 +84,10 @@ public final class ReconnectToServerAction extends BaseSelectionListenerAction {
     @Override
     public void run() {
         final ModeShapeServer server = (ModeShapeServer)getStructuredSelection().getFirstElement();
+
+        // make sure the refreshed tree shows what is currently on the server
+        Activator.getDefault().getServerManager().invalidateMetadata(server);
+
         final ReconnectJob job = new ReconnectJob(server);
 
         // add listener so we can refresh tree
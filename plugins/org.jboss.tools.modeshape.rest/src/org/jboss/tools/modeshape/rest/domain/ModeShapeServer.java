@@ -15,6 +15,7 @@ import org.eclipse.core.runtime.IAdaptable;
 import org.eclipse.ui.views.properties.IPropertySource;
 import org.jboss.tools.modeshape.rest.properties.ModeShapePropertySource;
 import org.modeshape.common.annotation.Immutable;
+import org.modeshape.web.jcr.rest.client.IRestClient;
 import org.modeshape.web.jcr.rest.client.domain.Server;
 import org.modeshape.web.jcr.rest.client.json.JsonRestClient;
 
@@ -174,8 +175,17 @@ public final class ModeShapeServer implements IAdaptable, ModeShapeDomainObject
     }
 
     public Server validateDelegate() throws Exception {
+        return validateDelegate(new JsonRestClient());
+    }
+
+    /**
+     * @param restClient the client used to validate the server if it has not been validated yet (never <code>null</code>)
+     * @return the validated ModeShape server's server object (never <code>null</code>)
+     * @throws Exception if there is a problem validating the server delegate
+     */
+    public Server validateDelegate( IRestClient restClient ) throws Exception {
         if (!this.delegate.isValidated()) {
-            this.delegate = new JsonRestClient().validate(this.delegate);
+            this.delegate = restClient.validate(this.delegate);
         }
 
         return this.delegate;
@@ -13,9 +13,25 @@ package org.jboss.tools.modeshape.rest.jobs;
 
 import static org.jboss.tools.modeshape.rest.IUiConstants.PLUGIN_ID;
 import static org.jboss.tools.modeshape.rest.IUiConstants.PUBLISHING_JOB_FAMILY;
+import static org.jboss.tools.modeshape.rest.IUiConstants.Preferences.MAX_PUBLISHING_THREADS;
+import static org.jboss.tools.modeshape.rest.IUiConstants.Preferences.PUBLISHING_THREADS;
 import java.io.File;
 import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.runtime.IPath;
@@ -24,6 +40,7 @@ import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.osgi.util.NLS;
 import org.jboss.tools.modeshape.rest.Activator;
+import org.jboss.tools.modeshape.rest.PublishedContentManifest;
 import org.jboss.tools.modeshape.rest.PublishedResourceHelper;
 import org.jboss.tools.modeshape.rest.RestClientI18n;
 import org.jboss.tools.modeshape.rest.ServerManager;
@@ -32,9 +49,13 @@ import org.jboss.tools.modeshape.rest.views.ModeShapeContentProvider;
 import org.jboss.tools.modeshape.rest.views.ModeShapeMessageConsole;
 import org.modeshape.common.util.CheckArg;
 import org.modeshape.web.jcr.rest.client.Status;
+import org.modeshape.web.jcr.rest.client.Status.Severity;
 
 /**
- * The <code>PublishJob</code> publishes or unpublishes one or more files using the {@link ServerManager}.
+ * The <code>PublishJob</code> publishes or unpublishes one or more files using the {@link ServerManager}. The server requests are
+ * made by a pool of worker threads whose size is set by the <code>PUBLISHING_THREADS</code> preference. The outcome
+ * of each file, including progress, persistent properties, and console messages, is processed by the job in the order of the
+ * files. Unless requested otherwise, files that have not changed since they were last published to the same location are skipped.
  */
 public final class PublishJob extends Job {
 
@@ -58,6 +79,16 @@ public final class PublishJob extends Job {
      */
     private static final AtomicInteger JOB_ID = new AtomicInteger();
 
+    /**
+     * The number of publishing operations each worker thread can have queued or running.
+     */
+    private static final int OPERATIONS_PER_THREAD = 2;
+
+    /**
+     * The number of milliseconds to wait for an operation to finish before checking if the job has been canceled.
+     */
+    private static final long CANCEL_POLL_INTERVAL = 100;
+
     /**
      * @param type the job type (never <code>null</code>)
      * @param jobId the job identifier
@@ -75,11 +106,21 @@ public final class PublishJob extends Job {
         return NLS.bind(RestClientI18n.publishJobUnpublishName, jobId);
     }
 
+    /**
+     * The repository folders that files have been published to by this job. Accessed by the worker threads.
+     */
+    private final Set<String> existingFolders = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
     /**
      * The files being published or unpublished.
      */
     private final List<IFile> files;
 
+    /**
+     * Held while publishing the first file of a folder so that only one worker at a time creates folders.
+     */
+    private final Object folderCreationLock = new Object();
+
     /**
      * Indicates if the published path should include the Eclipse workspace project.
      */
@@ -90,6 +131,21 @@ public final class PublishJob extends Job {
      */
     private final int jobId;
 
+    /**
+     * Remembers the content of the files when they were published (never <code>null</code>).
+     */
+    private final PublishedContentManifest manifest = new PublishedContentManifest();
+
+    /**
+     * The number of unchanged files that were not republished. Only accessed by the job thread.
+     */
+    private int numSkipped;
+
+    /**
+     * Indicates if files that have not changed since they were last published to the same location should be published again.
+     */
+    private final boolean republishUnchanged;
+
     /**
      * The job type.
      */
@@ -117,13 +173,16 @@ public final class PublishJob extends Job {
      * @param workspaceArea the path segment prepended to the file project path (maybe be <code>null</code> or empty)
      * @param includeProjectPath <true> if the Eclipse project should be included in the published path
      * @param version <true> if published resources should be versioned
+     * @param republishUnchanged <code>true</code> if files that have not changed since they were last published should be
+     *        published again
      */
     public PublishJob( Type type,
                        List<IFile> files,
                        ModeShapeWorkspace workspace,
                        String workspaceArea,
                        boolean includeProjectPath,
-                       boolean version ) {
+                       boolean version,
+                       boolean republishUnchanged ) {
         super(getJobName(type, JOB_ID.incrementAndGet()));
 
         CheckArg.isNotNull(files, "files"); //$NON-NLS-1$
@@ -134,6 +193,7 @@ public final class PublishJob extends Job {
         this.workspace = workspace;
         this.includeProjectPath = includeProjectPath;
         this.version = version;
+        this.republishUnchanged = republishUnchanged;
         this.jobId = JOB_ID.get();
 
         // setup the workspace area and remove trailing separator if necessary
@@ -158,6 +218,14 @@ public final class PublishJob extends Job {
         return PUBLISHING_JOB_FAMILY.equals(family);
     }
 
+    /**
+     * @return the number of files to publish or unpublish at the same time (at least one)
+     */
+    private int getPublishingThreads() {
+        int threads = Activator.getDefault().getPreferenceStore().getInt(PUBLISHING_THREADS);
+        return Math.max(1, Math.min(threads, MAX_PUBLISHING_THREADS));
+    }
+
     /**
      * @return the server manager
      */
@@ -205,60 +273,68 @@ public final class PublishJob extends Job {
             }
 
             PublishedResourceHelper resourceHelper = new PublishedResourceHelper(getServerManager());
-
-            // process the files
-            for (IFile eclipseFile : this.files) {
-                if (monitor.isCanceled()) {
-                    canceled = true;
-                    throw new InterruptedException(NLS.bind(RestClientI18n.publishJobCanceled, jobId));
+            int threads = getPublishingThreads();
+            ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+
+                private final AtomicInteger threadId = new AtomicInteger();
+
+                /**
+                 * {@inheritDoc}
+                 *
+                 * @see java.util.concurrent.ThreadFactory#newThread(java.lang.Runnable)
+                 */
+                @Override
+                public Thread newThread( Runnable runnable ) {
+                    Thread thread = new Thread(runnable, getName() + " - " + this.threadId.incrementAndGet()); //$NON-NLS-1$
+                    thread.setDaemon(true);
+                    return thread;
                 }
+            });
+
+            // the operations that have been submitted but whose outcome has not been processed in file order
+            Deque<Operation> pending = new ArrayDeque<Operation>();
+            Iterator<IFile> itr = this.files.iterator();
+
+            try {
+                // process the files
+                while (itr.hasNext() || !pending.isEmpty()) {
+                    // keep the workers busy without queueing all the files
+                    while (itr.hasNext() && (pending.size() < (threads * OPERATIONS_PER_THREAD)) && !monitor.isCanceled()) {
+                        Operation operation = new Operation(itr.next());
+                        operation.future = executor.submit(operation);
+                        pending.add(operation);
+                    }
 
-                File file = eclipseFile.getLocation().toFile();
-                String path = this.workspaceArea;
-                IPath parentPath = eclipseFile.getParent().getFullPath();
-
-                if (this.includeProjectPath) {
-                    path += parentPath;
-                } else {
-                    // strip off project which is first segment
-                    path += '/' + parentPath.removeFirstSegments(1).toString();
-                }
-
-                URL url = getServerManager().getUrl(file, path, this.workspace);
-                Status status = null;
-
-                if (isPublishing()) {
-                    status = getServerManager().publish(this.workspace, path, file, this.version);
+                    if (monitor.isCanceled()) {
+                        canceled = true;
 
-                    // set persistent property on resource indicating it has been published
-                    if (!status.isError()) {
-                        resourceHelper.addPublishedProperty(eclipseFile, this.workspace, url.toString());
-                    }
-                } else {
-                    status = getServerManager().unpublish(this.workspace, path, file);
+                        // operations already running cannot be stopped so their outcome is still processed
+                        for (Operation operation : pending) {
+                            if (!operation.future.cancel(false)) {
+                                processed(operation, getStatus(operation.future), resourceHelper);
+                                ++numProcessed;
+                            }
+                        }
 
-                    // clear persistent property on resource indicating it has been unpublished
-                    if (!status.isError()) {
-                        resourceHelper.removePublishedProperty(eclipseFile, this.workspace, url.toString());
+                        throw new InterruptedException(NLS.bind(RestClientI18n.publishJobCanceled, jobId));
                     }
-                }
 
-                ++numProcessed;
-                monitor.worked(1);
+                    Operation operation = pending.peek();
+                    Status status = null;
 
-                // let decorator know publishing state has changed on this file
-                ModeShapeContentProvider decorator = ModeShapeContentProvider.getDecorator();
+                    try {
+                        status = getStatus(operation.future, CANCEL_POLL_INTERVAL);
+                    } catch (TimeoutException e) {
+                        continue; // check for cancel again
+                    }
 
-                if (decorator != null) {
-                    decorator.refresh(eclipseFile);
-                }
-
-                // write outcome message to console
-                if (isPublishing() && status.isOk()) {
-                    writeToConsole(eclipseFile, url, status);
-                } else {
-                    writeToConsole(eclipseFile, null, status);
+                    pending.remove();
+                    processed(operation, status, resourceHelper);
+                    ++numProcessed;
+                    monitor.worked(1);
                 }
+            } finally {
+                executor.shutdownNow();
             }
 
             return org.eclipse.core.runtime.Status.OK_STATUS;
@@ -292,6 +368,11 @@ public final class PublishJob extends Job {
                 duration = RestClientI18n.publishJobDurationShortMsg;
             }
 
+            if (this.numSkipped != 0) {
+                ModeShapeMessageConsole.writeln(NLS.bind(RestClientI18n.publishJobPublishSkippedMsg, new Object[] { this.jobId,
+                        this.numSkipped, this.files.size() }));
+            }
+
             if (canceled) {
                 if (isPublishing()) {
                     ModeShapeMessageConsole.writeln(NLS.bind(RestClientI18n.publishJobPublishCanceledMsg, new Object[] {
@@ -310,6 +391,102 @@ public final class PublishJob extends Job {
         }
     }
 
+    /**
+     * @param future the future of the operation whose status is being requested (never <code>null</code>)
+     * @return the status of the operation (never <code>null</code>)
+     * @throws Exception if the operation failed or the wait was interrupted
+     */
+    private Status getStatus( Future<Status> future ) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    /**
+     * @param future the future of the operation whose status is being requested (never <code>null</code>)
+     * @param timeout the number of milliseconds to wait for the operation to finish
+     * @return the status of the operation (never <code>null</code>)
+     * @throws TimeoutException if the operation did not finish in time
+     * @throws Exception if the operation failed or the wait was interrupted
+     */
+    private Status getStatus( Future<Status> future,
+                              long timeout ) throws Exception {
+        try {
+            return future.get(timeout, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    /**
+     * Sets the persistent property, lets the decorator know, and writes to the console after a file was published or unpublished.
+     *
+     * @param operation the operation that finished (never <code>null</code>)
+     * @param status the status of the operation (never <code>null</code>)
+     * @param resourceHelper the helper used to set the persistent property (never <code>null</code>)
+     * @throws Exception if there is a problem setting the persistent property
+     */
+    private void processed( Operation operation,
+                            Status status,
+                            PublishedResourceHelper resourceHelper ) throws Exception {
+        IFile eclipseFile = operation.eclipseFile;
+        URL url = operation.url;
+
+        // nothing changed on the server or locally
+        if (operation.skipped) {
+            ++this.numSkipped;
+            return;
+        }
+
+        if (isPublishing()) {
+            // set persistent properties on resource indicating it has been published and with what content
+            if (!status.isError()) {
+                resourceHelper.addPublishedProperty(eclipseFile, this.workspace, url.toString());
+
+                if (operation.fingerprint != null) {
+                    this.manifest.published(eclipseFile, this.workspace, url.toString(), operation.fingerprint);
+                }
+            }
+        } else {
+            // clear persistent properties on resource indicating it has been unpublished
+            if (!status.isError()) {
+                resourceHelper.removePublishedProperty(eclipseFile, this.workspace, url.toString());
+                this.manifest.unpublished(eclipseFile, this.workspace, url.toString());
+            }
+        }
+
+        // let decorator know publishing state has changed on this file
+        Activator.getDefault().getPublishedStateIndex().refresh(eclipseFile);
+        ModeShapeContentProvider decorator = ModeShapeContentProvider.getDecorator();
+
+        if (decorator != null) {
+            decorator.refresh(eclipseFile);
+        }
+
+        // write outcome message to console
+        if (isPublishing() && status.isOk()) {
+            writeToConsole(eclipseFile, url, status);
+        } else {
+            writeToConsole(eclipseFile, null, status);
+        }
+    }
+
+    /**
+     * @param e the exception thrown by an operation (never <code>null</code>)
+     * @return the exception thrown by the operation (never <code>null</code>)
+     */
+    private Exception unwrap( ExecutionException e ) {
+        Throwable cause = e.getCause();
+
+        if (cause instanceof Exception) {
+            return (Exception)cause;
+        }
+
+        return e;
+    }
+
     /**
      * Create a hyperlink in console.
      *
@@ -362,4 +539,106 @@ public final class PublishJob extends Job {
         ModeShapeMessageConsole.writeln(message, file);
     }
 
+    /**
+     * Publishes or unpublishes one file on a worker thread.
+     */
+    private final class Operation implements Callable<Status> {
+
+        final IFile eclipseFile;
+        final File file;
+
+        /**
+         * The content of the file before it was published or <code>null</code> if not known.
+         */
+        String fingerprint;
+
+        Future<Status> future;
+        final String path;
+
+        /**
+         * Indicates if the file was not published because it has not changed.
+         */
+        boolean skipped = false;
+
+        final URL url;
+
+        /**
+         * @param eclipseFile the file being published or unpublished (never <code>null</code>)
+         * @throws Exception if the URL of the file cannot be determined
+         */
+        Operation( IFile eclipseFile ) throws Exception {
+            this.eclipseFile = eclipseFile;
+            this.file = eclipseFile.getLocation().toFile();
+
+            String path = PublishJob.this.workspaceArea;
+            IPath parentPath = eclipseFile.getParent().getFullPath();
+
+            if (PublishJob.this.includeProjectPath) {
+                path += parentPath;
+            } else {
+                // strip off project which is first segment
+                path += '/' + parentPath.removeFirstSegments(1).toString();
+            }
+
+            this.path = path;
+            this.url = getServerManager().getUrl(this.file, this.path, PublishJob.this.workspace);
+        }
+
+        /**
+         * {@inheritDoc}
+         *
+         * @see java.util.concurrent.Callable#call()
+         */
+        @Override
+        public Status call() {
+            if (isPublishing()) {
+                try {
+                    if (!PublishJob.this.republishUnchanged
+                        && PublishJob.this.manifest.isUnchanged(this.eclipseFile, PublishJob.this.workspace, this.url.toString())) {
+                        this.skipped = true;
+                        return Status.OK_STATUS;
+                    }
+
+                    this.fingerprint = PublishJob.this.manifest.getFingerprint(this.eclipseFile);
+                } catch (Exception e) {
+                    // publish anyway as the file content is not known
+                    Activator.getDefault().log(new Status(Severity.ERROR, e.getMessage(), e));
+                }
+
+                return publish();
+            }
+
+            return getServerManager().unpublish(PublishJob.this.workspace, this.path, this.file);
+        }
+
+        /**
+         * Publishing a file creates its folder, and any missing parent folders, when needed. Workers publishing to a new folder,
+         * or to new folders with a common parent, would race to create the same folder and all but one would fail. So the first
+         * file of each folder is published while no other worker can create folders. Once a file has been published to a folder
+         * the other files of that folder are published concurrently.
+         *
+         * @return the status of publishing the file (never <code>null</code>)
+         */
+        private Status publish() {
+            if (!PublishJob.this.existingFolders.contains(this.path)) {
+                synchronized (PublishJob.this.folderCreationLock) {
+                    if (!PublishJob.this.existingFolders.contains(this.path)) {
+                        Status status = getServerManager().publish(PublishJob.this.workspace,
+                                                                   this.path,
+                                                                   this.file,
+                                                                   PublishJob.this.version);
+
+                        if (!status.isError()) {
+                            PublishJob.this.existingFolders.add(this.path);
+                        }
+
+                        return status;
+                    }
+                }
+            }
+
+            return getServerManager().publish(PublishJob.this.workspace, this.path, this.file, PublishJob.this.version);
+        }
+    }
+
 }
@@ -21,9 +21,11 @@ import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.osgi.util.NLS;
 import org.jboss.tools.modeshape.rest.Activator;
 import org.jboss.tools.modeshape.rest.RestClientI18n;
+import org.jboss.tools.modeshape.rest.ServerHealthMonitor.Health;
 import org.jboss.tools.modeshape.rest.ServerManager;
 import org.jboss.tools.modeshape.rest.domain.ModeShapeServer;
 import org.modeshape.web.jcr.rest.client.Status;
+import org.modeshape.web.jcr.rest.client.Status.Severity;
 
 /**
  * The <code>ReconnectJob</code> attempts to reconnect to the selected {@link ModeShapeServer server(s)}.
@@ -66,10 +68,12 @@ public final class ReconnectJob extends Job {
             String taskName = NLS.bind(reconnectJobTaskName, this.server.getShortDescription());
             monitor.beginTask(taskName, 1);
             monitor.setTaskName(taskName);
-            Status status = serverManager.ping(this.server);
-
-            if (status.isError()) {
-                Activator.getDefault().log(status);
+            // the health monitor notifies its listeners if the server is now online
+            if (serverManager.getHealthMonitor().check(this.server) != Health.ONLINE) {
+                Activator.getDefault().log(new Status(Severity.ERROR,
+                                                      NLS.bind(RestClientI18n.reconnectJobFailedMsg,
+                                                               this.server.getShortDescription()),
+                                                      null));
             }
         } catch (Exception e) {
             Activator.getDefault().getLog().log(new org.eclipse.core.runtime.Status(IStatus.ERROR,
@@ -14,15 +14,32 @@ package org.jboss.tools.modeshape.rest.preferences;
 import static org.jboss.tools.modeshape.rest.IUiConstants.ModeShape_IMAGE_16x;
 import static org.jboss.tools.modeshape.rest.IUiConstants.HelpContexts.PREFERENCE_PAGE_HELP_CONTEXT;
 import static org.jboss.tools.modeshape.rest.IUiConstants.Preferences.ENABLE_RESOURCE_VERSIONING;
+import static org.jboss.tools.modeshape.rest.IUiConstants.Preferences.MAX_METADATA_CACHE_TIME_TO_LIVE;
+import static org.jboss.tools.modeshape.rest.IUiConstants.Preferences.MAX_PUBLISHING_RETRIES;
+import static org.jboss.tools.modeshape.rest.IUiConstants.Preferences.MAX_PUBLISHING_THREADS;
+import static org.jboss.tools.modeshape.rest.IUiConstants.Preferences.METADATA_CACHE_TIME_TO_LIVE;
+import static org.jboss.tools.modeshape.rest.IUiConstants.Preferences.PUBLISHING_RETRIES;
+import static org.jboss.tools.modeshape.rest.IUiConstants.Preferences.PUBLISHING_THREADS;
 import static org.jboss.tools.modeshape.rest.RestClientI18n.preferencePageDescription;
 import static org.jboss.tools.modeshape.rest.RestClientI18n.preferencePageEnableVersioningEditor;
 import static org.jboss.tools.modeshape.rest.RestClientI18n.preferencePageEnableVersioningEditorToolTip;
 import static org.jboss.tools.modeshape.rest.RestClientI18n.preferencePageMessage;
+import static org.jboss.tools.modeshape.rest.RestClientI18n.preferencePageMetadataCacheEditor;
+import static org.jboss.tools.modeshape.rest.RestClientI18n.preferencePageMetadataCacheEditorToolTip;
+import static org.jboss.tools.modeshape.rest.RestClientI18n.preferencePagePublishingRetriesEditor;
+import static org.jboss.tools.modeshape.rest.RestClientI18n.preferencePagePublishingRetriesEditorToolTip;
+import static org.jboss.tools.modeshape.rest.RestClientI18n.preferencePagePublishingThreadsEditor;
+import static org.jboss.tools.modeshape.rest.RestClientI18n.preferencePagePublishingThreadsEditorToolTip;
 import static org.jboss.tools.modeshape.rest.RestClientI18n.preferencePageTitle;
 
 import org.eclipse.jface.preference.BooleanFieldEditor;
+import org.eclipse.jface.preference.FieldEditor;
 import org.eclipse.jface.preference.IPreferenceStore;
+import org.eclipse.jface.preference.IntegerFieldEditor;
 import org.eclipse.jface.preference.PreferencePage;
+import org.eclipse.jface.util.IPropertyChangeListener;
+import org.eclipse.jface.util.PropertyChangeEvent;
+import org.eclipse.osgi.util.NLS;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.graphics.Image;
 import org.eclipse.swt.layout.GridData;
@@ -44,6 +61,21 @@ public final class ModeShapePreferencePage extends PreferencePage implements IWo
      */
     private BooleanFieldEditor enableVersioningEditor;
 
+    /**
+     * The editor used to set the number of seconds server metadata is cached.
+     */
+    private IntegerFieldEditor metadataCacheEditor;
+
+    /**
+     * The editor used to set the number of times a failed publishing request is retried.
+     */
+    private IntegerFieldEditor publishingRetriesEditor;
+
+    /**
+     * The editor used to set the number of files published or unpublished at the same time.
+     */
+    private IntegerFieldEditor publishingThreadsEditor;
+
     /**
      * {@inheritDoc}
      * 
@@ -52,18 +84,80 @@ public final class ModeShapePreferencePage extends PreferencePage implements IWo
     @Override
     protected Control createContents( Composite parent ) {
         Composite panel = new Composite(parent, SWT.NONE);
-        panel.setLayout(new GridLayout(2, false));
+        panel.setLayout(new GridLayout());
         panel.setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, true));
 
-        // create the field editor
+        // create the field editors (each needs its own composite as field editors set the layout of their parent)
+        Composite versioningPanel = new Composite(panel, SWT.NONE);
+        versioningPanel.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
         this.enableVersioningEditor = new BooleanFieldEditor(ENABLE_RESOURCE_VERSIONING,
                                                              preferencePageEnableVersioningEditor,
-                                                             panel);
+                                                             versioningPanel);
         this.enableVersioningEditor.setPreferenceStore(getPreferenceStore());
-        this.enableVersioningEditor.getDescriptionControl(panel).setToolTipText(preferencePageEnableVersioningEditorToolTip);
+        this.enableVersioningEditor.getDescriptionControl(versioningPanel)
+                                   .setToolTipText(preferencePageEnableVersioningEditorToolTip);
+
+        Composite threadsPanel = new Composite(panel, SWT.NONE);
+        threadsPanel.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
+        this.publishingThreadsEditor = new IntegerFieldEditor(PUBLISHING_THREADS,
+                                                              preferencePagePublishingThreadsEditor,
+                                                              threadsPanel,
+                                                              2);
+        this.publishingThreadsEditor.setValidRange(1, MAX_PUBLISHING_THREADS);
+        this.publishingThreadsEditor.setPreferenceStore(getPreferenceStore());
+        this.publishingThreadsEditor.setPage(this);
+        this.publishingThreadsEditor.getLabelControl(threadsPanel)
+                                    .setToolTipText(NLS.bind(preferencePagePublishingThreadsEditorToolTip, MAX_PUBLISHING_THREADS));
+
+        Composite retriesPanel = new Composite(panel, SWT.NONE);
+        retriesPanel.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
+        this.publishingRetriesEditor = new IntegerFieldEditor(PUBLISHING_RETRIES,
+                                                              preferencePagePublishingRetriesEditor,
+                                                              retriesPanel,
+                                                              2);
+        this.publishingRetriesEditor.setValidRange(0, MAX_PUBLISHING_RETRIES);
+        this.publishingRetriesEditor.setPreferenceStore(getPreferenceStore());
+        this.publishingRetriesEditor.setPage(this);
+        this.publishingRetriesEditor.getLabelControl(retriesPanel)
+                                    .setToolTipText(NLS.bind(preferencePagePublishingRetriesEditorToolTip, MAX_PUBLISHING_RETRIES));
+
+        Composite cachePanel = new Composite(panel, SWT.NONE);
+        cachePanel.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
+        this.metadataCacheEditor = new IntegerFieldEditor(METADATA_CACHE_TIME_TO_LIVE,
+                                                          preferencePageMetadataCacheEditor,
+                                                          cachePanel,
+                                                          4);
+        this.metadataCacheEditor.setValidRange(0, MAX_METADATA_CACHE_TIME_TO_LIVE);
+        this.metadataCacheEditor.setPreferenceStore(getPreferenceStore());
+        this.metadataCacheEditor.setPage(this);
+        String cacheToolTip = NLS.bind(preferencePageMetadataCacheEditorToolTip, MAX_METADATA_CACHE_TIME_TO_LIVE);
+        this.metadataCacheEditor.getLabelControl(cachePanel).setToolTipText(cacheToolTip);
+
+        IPropertyChangeListener validityListener = new IPropertyChangeListener() {
+
+            /**
+             * {@inheritDoc}
+             *
+             * @see org.eclipse.jface.util.IPropertyChangeListener#propertyChange(org.eclipse.jface.util.PropertyChangeEvent)
+             */
+            @Override
+            public void propertyChange( PropertyChangeEvent event ) {
+                if (FieldEditor.IS_VALID.equals(event.getProperty())) {
+                    setValid(ModeShapePreferencePage.this.publishingThreadsEditor.isValid()
+                             && ModeShapePreferencePage.this.publishingRetriesEditor.isValid()
+                             && ModeShapePreferencePage.this.metadataCacheEditor.isValid());
+                }
+            }
+        };
+        this.publishingThreadsEditor.setPropertyChangeListener(validityListener);
+        this.publishingRetriesEditor.setPropertyChangeListener(validityListener);
+        this.metadataCacheEditor.setPropertyChangeListener(validityListener);
 
-        // populate the editor with current preference value
+        // populate the editors with current preference values
         this.enableVersioningEditor.load();
+        this.publishingThreadsEditor.load();
+        this.publishingRetriesEditor.load();
+        this.metadataCacheEditor.load();
 
         // register with the help system
         IWorkbenchHelpSystem helpSystem = Activator.getDefault().getWorkbench().getHelpSystem();
@@ -140,6 +234,9 @@ public final class ModeShapePreferencePage extends PreferencePage implements IWo
     @Override
     protected void performDefaults() {
         this.enableVersioningEditor.loadDefault();
+        this.publishingThreadsEditor.loadDefault();
+        this.publishingRetriesEditor.loadDefault();
+        this.metadataCacheEditor.loadDefault();
         super.performDefaults();
     }
 
@@ -151,6 +248,9 @@ public final class ModeShapePreferencePage extends PreferencePage implements IWo
     @Override
     public boolean performOk() {
         this.enableVersioningEditor.store();
+        this.publishingThreadsEditor.store();
+        this.publishingRetriesEditor.store();
+        this.metadataCacheEditor.store();
         return super.performOk();
     }
     
@@ -12,22 +12,18 @@
 package org.jboss.tools.modeshape.rest.views;
 
 import static org.jboss.tools.modeshape.rest.IUiConstants.PUBLISHED_OVERLAY_IMAGE;
-import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.ConcurrentHashMap;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jface.dialogs.ErrorDialog;
 import org.eclipse.jface.dialogs.IDialogConstants;
 import org.eclipse.jface.dialogs.MessageDialog;
-import org.eclipse.jface.dialogs.ProgressMonitorDialog;
-import org.eclipse.jface.operation.IRunnableWithProgress;
 import org.eclipse.jface.resource.ImageDescriptor;
 import org.eclipse.jface.viewers.ColumnLabelProvider;
 import org.eclipse.jface.viewers.IDecoration;
@@ -52,10 +48,12 @@ import org.eclipse.swt.widgets.Shell;
 import org.eclipse.swt.widgets.Text;
 import org.eclipse.ui.IDecoratorManager;
 import org.jboss.tools.modeshape.rest.Activator;
+import org.jboss.tools.modeshape.rest.IServerHealthListener;
 import org.jboss.tools.modeshape.rest.IServerRegistryListener;
 import org.jboss.tools.modeshape.rest.IUiConstants;
-import org.jboss.tools.modeshape.rest.PublishedResourceHelper;
 import org.jboss.tools.modeshape.rest.RestClientI18n;
+import org.jboss.tools.modeshape.rest.ServerHealthEvent;
+import org.jboss.tools.modeshape.rest.ServerHealthMonitor.Health;
 import org.jboss.tools.modeshape.rest.ServerManager;
 import org.jboss.tools.modeshape.rest.ServerRegistryEvent;
 import org.jboss.tools.modeshape.rest.domain.ModeShapeDomainObject;
@@ -63,43 +61,33 @@ import org.jboss.tools.modeshape.rest.domain.ModeShapeRepository;
 import org.jboss.tools.modeshape.rest.domain.ModeShapeServer;
 import org.jboss.tools.modeshape.rest.domain.ModeShapeWorkspace;
 import org.jboss.tools.modeshape.rest.domain.WorkspaceArea;
-import org.modeshape.common.annotation.GuardedBy;
 
 /**
  * The <code>ModeShapeContentProvider</code> is a content and label provider for the repositories. This class <strong>MUST</strong>
- * be registered, and then unregistered, to receive server registry events.
+ * be registered, and then unregistered, to receive server registry and server health events.
+ * <p>
+ * The children of a server, repository, or workspace are obtained from the server once each time the viewer asks for the number of
+ * children, which happens when the node is expanded or refreshed. They are kept so that the viewer asking for each child does not
+ * make another server request.
+ * <p>
+ * Server requests are made by background jobs so that the UI is never blocked. A pending node is shown until the children of a
+ * node have been obtained for the first time. Different nodes are loaded concurrently and each load can be canceled from the
+ * progress view.
  */
 public final class ModeShapeContentProvider extends ColumnLabelProvider implements ILightweightLabelDecorator,
-        IServerRegistryListener, ILazyTreeContentProvider {
+        IServerRegistryListener, IServerHealthListener, ILazyTreeContentProvider {
 
     /**
      * The decorator ID.
      */
     private static final String ID = "org.jboss.tools.modeshape.rest.decorator"; //$NON-NLS-1$
 
-    /**
-     * If a server connection cannot be established, wait this amount of time before trying again.
-     */
-    private static final long RETRY_DURATION = 5000;
-
     /**
      * Indicates if the Eclipse lazy content provider has already called this provider. This occurs when the associated viewer of
      * this provider has been shown once or if the Eclipse window loses focus.
      */
     private static boolean _alreadyCalledByFramework;
 
-    /**
-     * Servers that a connection can't be established. Value is the last time a establishing a connection was tried.
-     */
-    @GuardedBy("offlineServersLock")
-    private final static Map<ModeShapeServer, Long> _offlineServerMap = new HashMap<ModeShapeServer, Long>();
-
-    /**
-     * Lock used for when accessing the offline server map. The map will be accessed in different threads as the decorator runs in
-     * its own thread (not the UI thread).
-     */
-    private final static ReadWriteLock _offlineServersLock = new ReentrantReadWriteLock();
-
     /**
      * @return the decorator
      */
@@ -113,6 +101,16 @@ public final class ModeShapeContentProvider extends ColumnLabelProvider implemen
         return null;
     }
 
+    /**
+     * The children obtained from the server keyed by parent. Accessed by the UI thread and the server operation threads.
+     */
+    private final Map<Object, Object[]> childrenCache = new ConcurrentHashMap<Object, Object[]>();
+
+    /**
+     * The jobs obtaining children from the server keyed by parent. There is at most one job per parent.
+     */
+    private final Map<Object, LoadChildrenJob> loadJobs = new ConcurrentHashMap<Object, LoadChildrenJob>();
+
     /**
      * The server manager where the server registry is managed.
      */
@@ -121,20 +119,10 @@ public final class ModeShapeContentProvider extends ColumnLabelProvider implemen
     private TreeViewer viewer;
 
     /**
-     * @param server the server that is offline
+     * @param server the server that could not be reached
      */
     void addOfflineServer( final ModeShapeServer server ) {
-        if (this.viewer != null) {
-            this.viewer.setHasChildren(server, false); // get rid of the expansion button
-        }
-
-        try {
-            _offlineServersLock.writeLock().lock();
-            _offlineServerMap.put(server, System.currentTimeMillis());
-            refresh(server);
-        } finally {
-            _offlineServersLock.writeLock().unlock();
-        }
+        getServerManager().getHealthMonitor().reportFailure(server);
     }
 
     /**
@@ -156,19 +144,14 @@ public final class ModeShapeContentProvider extends ColumnLabelProvider implemen
             final ModeShapeServer server = (ModeShapeServer)element;
 
             // if server is offline then decorate with error overlay
-            try {
-                _offlineServersLock.readLock().lock();
-
-                if (_offlineServerMap.containsKey(server)) {
-                    overlay = Activator.getDefault().getImageDescriptor(IUiConstants.ERROR_OVERLAY_IMAGE);
-                }
-            } finally {
-                _offlineServersLock.readLock().unlock();
+            if (getServerManager().getHealthMonitor().isOffline(server)) {
+                overlay = Activator.getDefault().getImageDescriptor(IUiConstants.ERROR_OVERLAY_IMAGE);
             }
         } else if (element instanceof IFile) {
             final IFile file = (IFile)element;
 
-            if (file.exists() && !file.isHidden() && new PublishedResourceHelper(getServerManager()).isPublished((IFile)element)) {
+            // only local state is used as decorating must not wait on a server
+            if (file.exists() && !file.isHidden() && Activator.getDefault().getPublishedStateIndex().isPublished(file)) {
                 overlay = Activator.getDefault().getImageDescriptor(PUBLISHED_OVERLAY_IMAGE);
             }
         }
@@ -185,7 +168,67 @@ public final class ModeShapeContentProvider extends ColumnLabelProvider implemen
      */
     @Override
     public void dispose() {
-        // nothing to do
+        for (final Job job : this.loadJobs.values()) {
+            job.cancel();
+        }
+
+        this.childrenCache.clear();
+    }
+
+    /**
+     * Asks for a password when the server does not have one.
+     *
+     * @param server the server about to be connected to (never <code>null</code>)
+     * @return the server to connect to which is a new server instance when the password was changed (never <code>null</code>)
+     */
+    private ModeShapeServer ensurePassword( final ModeShapeServer server ) {
+        if ((server.getPassword() == null) || server.getPassword().isEmpty()) {
+            if (MessageDialog.openQuestion(getShell(), RestClientI18n.missingServerPasswordDialogTitle,
+                                           RestClientI18n.missingServerPasswordDialogMsg)) {
+                final NewPasswordDialog dialog = new NewPasswordDialog(getShell());
+
+                if (dialog.open() == Window.OK) {
+                    getServerManager().updateServer(server,
+                                                    new ModeShapeServer(server.getOriginalUrl(),
+                                                                        server.getUser(),
+                                                                        dialog.getNewPassword(),
+                                                                        server.isPasswordBeingPersisted()));
+
+                    // need to obtain changed server from server manager as servers are not mutable
+                    for (final ModeShapeServer registeredServer : getServerManager().getServers()) {
+                        if (registeredServer.hasSameKey(server)) {
+                            return registeredServer;
+                        }
+                    }
+                }
+            }
+        }
+
+        return server;
+    }
+
+    /**
+     * Obtains the children from the server. Called by the load jobs.
+     *
+     * @param parent the server, repository, or workspace whose children are being requested (never <code>null</code>)
+     * @return the children (never <code>null</code>)
+     * @throws Exception if there is a problem obtaining the children from the server
+     */
+    Object[] fetchChildren( final Object parent ) throws Exception {
+        Object[] children = null;
+
+        if (parent instanceof ModeShapeServer) {
+            children = getServerManager().getRepositories((ModeShapeServer)parent).toArray();
+        } else if (parent instanceof ModeShapeRepository) {
+            children = getServerManager().getWorkspaces((ModeShapeRepository)parent).toArray();
+        } else if (parent instanceof ModeShapeWorkspace) {
+            children = getServerManager().getWorkspaceAreas((ModeShapeWorkspace)parent);
+        } else {
+            assert false : "unexpected parent=" + parent.getClass(); //$NON-NLS-1$
+            children = new Object[0];
+        }
+
+        return children;
     }
 
     /**
@@ -195,9 +238,29 @@ public final class ModeShapeContentProvider extends ColumnLabelProvider implemen
      */
     @Override
     public Image getImage( final Object element ) {
+        if (element instanceof PendingElement) {
+            return null;
+        }
+
         return Activator.getDefault().getImage(element);
     }
 
+    /**
+     * @param parent the server, repository, or workspace whose children are being loaded (never <code>null</code>)
+     * @return the name of the job loading the children (never <code>null</code>)
+     */
+    static String getLoadJobName( final Object parent ) {
+        if (parent instanceof ModeShapeServer) {
+            return RestClientI18n.runningRepositoriesQueryMsg;
+        }
+
+        if (parent instanceof ModeShapeRepository) {
+            return RestClientI18n.runningWorkspacesQueryMsg;
+        }
+
+        return RestClientI18n.runningPublishAreasQueryMsg;
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -205,6 +268,10 @@ public final class ModeShapeContentProvider extends ColumnLabelProvider implemen
      */
     @Override
     public Object getParent( final Object element ) {
+        if (element instanceof PendingElement) {
+            return ((PendingElement)element).getParent();
+        }
+
         assert (element instanceof ModeShapeDomainObject);
 
         if (element instanceof WorkspaceArea) {
@@ -235,6 +302,26 @@ public final class ModeShapeContentProvider extends ColumnLabelProvider implemen
         return this.serverManager;
     }
 
+    /**
+     * @param parent the server, repository, or workspace (never <code>null</code>)
+     * @return the server hosting the parent or <code>null</code> if the parent is not a server, repository, or workspace
+     */
+    static ModeShapeServer getServer( final Object parent ) {
+        if (parent instanceof ModeShapeServer) {
+            return (ModeShapeServer)parent;
+        }
+
+        if (parent instanceof ModeShapeRepository) {
+            return ((ModeShapeRepository)parent).getServer();
+        }
+
+        if (parent instanceof ModeShapeWorkspace) {
+            return ((ModeShapeWorkspace)parent).getServer();
+        }
+
+        return null;
+    }
+
     Shell getShell() {
         return this.viewer.getTree().getShell();
     }
@@ -246,6 +333,10 @@ public final class ModeShapeContentProvider extends ColumnLabelProvider implemen
      */
     @Override
     public String getText( final Object element ) {
+        if (element instanceof PendingElement) {
+            return RestClientI18n.pendingNodeName;
+        }
+
         assert (element instanceof ModeShapeDomainObject);
         return ((ModeShapeDomainObject)element).getName();
     }
@@ -298,49 +389,87 @@ public final class ModeShapeContentProvider extends ColumnLabelProvider implemen
     public void inputChanged( final Viewer viewer,
                               final Object oldInput,
                               final Object newInput ) {
-        // nothing to do
+        this.childrenCache.clear();
     }
 
     /**
-     * Determines if a try to connect to a server should be done based on the last time a try was done and failed.
+     * Servers known to be offline are not connected to until the health monitor finds they are online again.
      *
      * @param server the server being checked
      * @return <code>true</code> if it is OK to try and connect
      */
     private boolean isOkToConnect( final ModeShapeServer server ) {
-        boolean check = false; // check map for time
+        return !getServerManager().getHealthMonitor().isOffline(server);
+    }
 
-        try {
-            _offlineServersLock.readLock().lock();
-            check = _offlineServerMap.containsKey(server);
-        } finally {
-            _offlineServersLock.readLock().unlock();
+    /**
+     * Shows the children kept for the parent, or a pending node if there are none, and schedules a job that obtains the children
+     * from the server. Must be called in the UI thread.
+     *
+     * @param parent the server, repository, or workspace whose children are being loaded (never <code>null</code>)
+     */
+    private void loadChildren( final Object parent ) {
+        if (!this.childrenCache.containsKey(parent)) {
+            this.viewer.setChildCount(parent, 1);
+            this.viewer.replace(parent, 0, new PendingElement(parent));
         }
 
-        if (check) {
-            try {
-                _offlineServersLock.writeLock().lock();
+        final LoadChildrenJob job = new LoadChildrenJob(parent);
 
-                if (_offlineServerMap.containsKey(server)) {
-                    final long checkTime = _offlineServerMap.get(server);
+        if (this.loadJobs.putIfAbsent(parent, job) == null) {
+            job.schedule();
+        }
+    }
 
-                    // OK to try and connect if last failed attempt was too long ago
-                    if ((System.currentTimeMillis() - checkTime) > RETRY_DURATION) {
-                        _offlineServerMap.remove(server);
-                        refresh(server);
-                        return true;
-                    }
+    /**
+     * Called by a load job when it is done.
+     *
+     * @param job the job that is done (never <code>null</code>)
+     * @param children the children obtained from the server or <code>null</code> if the job failed or was canceled
+     */
+    void loaded( final LoadChildrenJob job,
+                 final Object[] children ) {
+        final Object parent = job.getParent();
 
-                    // don't try and connect because we just tried and failed
-                    return false;
-                }
-            } finally {
-                _offlineServersLock.writeLock().unlock();
-            }
+        if (children != null) {
+            this.childrenCache.put(parent, children);
         }
 
-        // OK to try and connect
-        return true;
+        this.loadJobs.remove(parent, job);
+        final Display display = Display.getDefault();
+
+        if (display.isDisposed()) {
+            return;
+        }
+
+        display.asyncExec(new Runnable() {
+
+            /**
+             * {@inheritDoc}
+             *
+             * @see java.lang.Runnable#run()
+             */
+            @SuppressWarnings("synthetic-access")
+            @Override
+            public void run() {
+                if ((ModeShapeContentProvider.this.viewer == null) || ModeShapeContentProvider.this.viewer.getTree().isDisposed()) {
+                    return;
+                }
+
+                final Object[] currentChildren = ModeShapeContentProvider.this.childrenCache.get(parent);
+
+                if (currentChildren == null) {
+                    // remove pending node
+                    ModeShapeContentProvider.this.viewer.setChildCount(parent, 0);
+                } else {
+                    ModeShapeContentProvider.this.viewer.setChildCount(parent, currentChildren.length);
+
+                    for (int i = 0; i < currentChildren.length; ++i) {
+                        replace(parent, i, currentChildren[i]);
+                    }
+                }
+            }
+        });
     }
 
     public void refresh( final Object element ) {
@@ -364,66 +493,50 @@ public final class ModeShapeContentProvider extends ColumnLabelProvider implemen
         });
     }
 
-    private void run( final ServerOperation op,
-                      final boolean enforceNonEmptyPassword ) {
-        try {
-            final ModeShapeServer server = op.getServer();
-
-            if (enforceNonEmptyPassword && ((server.getPassword() == null) || server.getPassword().isEmpty())) {
-                if (MessageDialog.openQuestion(getShell(), RestClientI18n.missingServerPasswordDialogTitle,
-                                               RestClientI18n.missingServerPasswordDialogMsg)) {
-                    final NewPasswordDialog dialog = new NewPasswordDialog(getShell());
-
-                    if (dialog.open() == Window.OK) {
-                        getServerManager().updateServer(server,
-                                                        new ModeShapeServer(server.getOriginalUrl(),
-                                                                            server.getUser(),
-                                                                            dialog.getNewPassword(),
-                                                                            server.isPasswordBeingPersisted()));
-
-                        // need to obtain changed server from server manager as servers are not mutable
-                        for (final ModeShapeServer registeredServer : getServerManager().getServers()) {
-                            if (registeredServer.hasSameKey(server)) {
-                                op.setUpdatedServer(registeredServer);
-                                break;
-                            }
-                        }
-                    }
-                }
-            }
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Offline servers lose their expansion button and servers that come back online are refreshed so their children are loaded.
+     *
+     * @see org.jboss.tools.modeshape.rest.IServerHealthListener#serverHealthChanged(org.jboss.tools.modeshape.rest.ServerHealthEvent)
+     */
+    @Override
+    public Exception[] serverHealthChanged( final ServerHealthEvent event ) {
+        final ModeShapeServer server = event.getServer();
+        refresh(server);
 
-            final ProgressMonitorDialog dialog = new ProgressMonitorDialog(getShell()) {
+        final Display display = Display.getDefault();
 
-                /**
-                 * {@inheritDoc}
-                 *
-                 * @see org.eclipse.jface.dialogs.ProgressMonitorDialog#configureShell(org.eclipse.swt.widgets.Shell)
-                 */
-                @Override
-                protected void configureShell( final Shell shell ) {
-                    super.configureShell(shell);
-                    shell.setText(RestClientI18n.requestDialogTitle);
+        if (display.isDisposed()) {
+            return null;
+        }
+
+        display.asyncExec(new Runnable() {
+
+            /**
+             * {@inheritDoc}
+             *
+             * @see java.lang.Runnable#run()
+             */
+            @SuppressWarnings("synthetic-access")
+            @Override
+            public void run() {
+                final TreeViewer treeViewer = ModeShapeContentProvider.this.viewer;
+
+                if ((treeViewer == null) || treeViewer.getTree().isDisposed()) {
+                    return;
                 }
-            };
 
-            dialog.run(true, false, op);
-        } catch (final InvocationTargetException e) {
-            // should not happen as ServerOperation handles this but just in case
-            if (op.getUpdatedServer() == null) {
-                addOfflineServer(op.getServer());
-            } else {
-                addOfflineServer(op.getUpdatedServer());
+                if (event.isOffline()) {
+                    treeViewer.setHasChildren(server, false); // get rid of the expansion button
+                } else if (event.isOnline() && (event.getPreviousHealth() == Health.OFFLINE)) {
+                    treeViewer.setHasChildren(server, true);
+                    treeViewer.refresh(server);
+                }
             }
+        });
 
-            final org.eclipse.core.runtime.Status error = new org.eclipse.core.runtime.Status(IStatus.ERROR,
-                                                                                              IUiConstants.PLUGIN_ID,
-                                                                                              RestClientI18n.runningServerRequestErrorMsg,
-                                                                                              e.getCause());
-            ErrorDialog.openError(getShell(), RestClientI18n.runningServerRequestErrorDialogTitle,
-                                  RestClientI18n.runningServerRequestErrorDialogMsg, error);
-        } catch (final InterruptedException e) {
-            // won't happen as runnable is not cancelable
-        }
+        return null;
     }
 
     /**
@@ -433,21 +546,46 @@ public final class ModeShapeContentProvider extends ColumnLabelProvider implemen
      */
     @Override
     public Exception[] serverRegistryChanged( final ServerRegistryEvent event ) {
-        Exception[] errors = null;
-
         // only care about servers being removed or updated
         if (event.isRemove() || event.isUpdate()) {
-            try {
-                _offlineServersLock.writeLock().lock();
-                _offlineServerMap.remove(event.getServer());
-            } catch (final Exception e) {
-                errors = new Exception[] { e };
-            } finally {
-                _offlineServersLock.writeLock().unlock();
+            removeChildren(event.getServer());
+        }
+
+        return null;
+    }
+
+    /**
+     * Discards the children kept for a server and for its repositories and workspaces.
+     *
+     * @param server the server whose children are no longer valid (never <code>null</code>)
+     */
+    private void removeChildren( final ModeShapeServer server ) {
+        for (final LoadChildrenJob job : this.loadJobs.values()) {
+            if (getServer(job.getParent()).hasSameKey(server)) {
+                job.cancel();
+            }
+        }
+
+        for (final Object parent : this.childrenCache.keySet()) {
+            if (getServer(parent).hasSameKey(server)) {
+                this.childrenCache.remove(parent);
             }
         }
+    }
+
+    /**
+     * @param parent the parent of the child (never <code>null</code>)
+     * @param index the index of the child
+     * @param child the child being shown at that index (never <code>null</code>)
+     */
+    void replace( final Object parent,
+                  final int index,
+                  final Object child ) {
+        this.viewer.replace(parent, index, child);
 
-        return errors;
+        if (!(child instanceof WorkspaceArea)) {
+            this.viewer.setHasChildren(child, true);
+        }
     }
 
     void setViewer( final TreeViewer viewer ) {
@@ -480,149 +618,11 @@ public final class ModeShapeContentProvider extends ColumnLabelProvider implemen
             final ModeShapeServer server = (ModeShapeServer)element;
 
             if (isOkToConnect(server)) {
-                try {
-                    final ServerOperation op = new ServerOperation(server) {
-
-                        /**
-                         * {@inheritDoc}
-                         *
-                         * @see org.jboss.tools.modeshape.rest.views.ModeShapeContentProvider.ServerOperation#doRun(org.eclipse.core.runtime.IProgressMonitor)
-                         */
-                        @Override
-                        void doRun( final IProgressMonitor monitor ) throws InvocationTargetException, InterruptedException {
-                            if (monitor.isCanceled()) {
-                                throw new InterruptedException();
-                            }
-
-                            monitor.beginTask(RestClientI18n.runningRepositoriesQueryMsg, IProgressMonitor.UNKNOWN);
-                            final ModeShapeServer serverToQuery = ((getUpdatedServer() == null) ? server : getUpdatedServer());
-
-                            try {
-                                final Collection<ModeShapeRepository> repositories = getServerManager().getRepositories(serverToQuery);
-
-                                if (repositories.size() != currentChildCount) {
-                                    getViewer().setChildCount(serverToQuery, repositories.size());
-                                }
-                            } catch (final Exception e) {
-                                throw new InvocationTargetException(e);
-                            } finally {
-                                monitor.done();
-                            }
-                        }
-
-                        /**
-                         * {@inheritDoc}
-                         *
-                         * @see org.jboss.tools.modeshape.rest.views.ModeShapeContentProvider.ServerOperation#getDisplay()
-                         */
-                        @Override
-                        Display getDisplay() {
-                            return getViewer().getTree().getDisplay();
-                        }
-                    };
-
-                    run(op, true);
-                } catch (final Exception e) {
-                    addOfflineServer(server);
-                }
+                loadChildren(ensurePassword(server));
             }
-        } else if (element instanceof ModeShapeRepository) {
-            final ModeShapeRepository repository = (ModeShapeRepository)element;
-
-            if (isOkToConnect(repository.getServer())) {
-                try {
-                    final ServerOperation op = new ServerOperation(repository.getServer()) {
-
-                        /**
-                         * {@inheritDoc}
-                         *
-                         * @see org.jboss.tools.modeshape.rest.views.ModeShapeContentProvider.ServerOperation#doRun(org.eclipse.core.runtime.IProgressMonitor)
-                         */
-                        @Override
-                        void doRun( final IProgressMonitor monitor ) throws InvocationTargetException, InterruptedException {
-                            if (monitor.isCanceled()) {
-                                throw new InterruptedException();
-                            }
-
-                            monitor.beginTask(RestClientI18n.runningWorkspacesQueryMsg, IProgressMonitor.UNKNOWN);
-
-                            try {
-                                final Collection<ModeShapeWorkspace> workspaces = getServerManager().getWorkspaces(repository);
-
-                                if (workspaces.size() != currentChildCount) {
-                                    getViewer().setChildCount(repository, workspaces.size());
-                                }
-                            } catch (final Exception e) {
-                                throw new InvocationTargetException(e);
-                            } finally {
-                                monitor.done();
-                            }
-                        }
-
-                        /**
-                         * {@inheritDoc}
-                         *
-                         * @see org.jboss.tools.modeshape.rest.views.ModeShapeContentProvider.ServerOperation#getDisplay()
-                         */
-                        @Override
-                        Display getDisplay() {
-                            return getViewer().getTree().getDisplay();
-                        }
-                    };
-
-                    run(op, true);
-                } catch (final Exception e) {
-                    addOfflineServer(repository.getServer());
-                }
-            }
-        } else if (element instanceof ModeShapeWorkspace) {
-            final ModeShapeWorkspace workspace = (ModeShapeWorkspace)element;
-
-            if (isOkToConnect(workspace.getServer())) {
-                try {
-                    final ServerOperation op = new ServerOperation(workspace.getServer()) {
-
-                        /**
-                         * {@inheritDoc}
-                         *
-                         * @see org.jboss.tools.modeshape.rest.views.ModeShapeContentProvider.ServerOperation#doRun(org.eclipse.core.runtime.IProgressMonitor)
-                         */
-                        @Override
-                        void doRun( final IProgressMonitor monitor ) throws InvocationTargetException, InterruptedException {
-                            if (monitor.isCanceled()) {
-                                throw new InterruptedException();
-                            }
-
-                            monitor.beginTask(RestClientI18n.runningWorkspacesQueryMsg, IProgressMonitor.UNKNOWN);
-
-                            try {
-                                final WorkspaceArea[] workspaceAreas = getServerManager().getWorkspaceAreas(workspace);
-
-                                if (workspaceAreas.length != currentChildCount) {
-                                    getViewer().setChildCount(workspace, workspaceAreas.length);
-                                }
-                            } catch (final Exception e) {
-                                throw new InvocationTargetException(e);
-                            } finally {
-                                monitor.done();
-                            }
-                        }
-
-                        /**
-                         * {@inheritDoc}
-                         *
-                         * @see org.jboss.tools.modeshape.rest.views.ModeShapeContentProvider.ServerOperation#getDisplay()
-                         */
-                        @Override
-                        Display getDisplay() {
-                            return getViewer().getTree().getDisplay();
-                        }
-                    };
-
-                    run(op, true);
-                } catch (final Exception e) {
-                    addOfflineServer(workspace.getServer());
-                }
+        } else if ((element instanceof ModeShapeRepository) || (element instanceof ModeShapeWorkspace)) {
+            if (isOkToConnect(getServer(element))) {
+                loadChildren(element);
             }
         }
     }
@@ -641,41 +641,93 @@ public final class ModeShapeContentProvider extends ColumnLabelProvider implemen
             final ModeShapeServer server = new ArrayList<ModeShapeServer>(this.serverManager.getServers()).get(index);
             this.viewer.replace(this.serverManager, index, server);
             this.viewer.setHasChildren(server, true);
-        } else if (parent instanceof ModeShapeServer) {
-            final ModeShapeServer server = (ModeShapeServer)parent;
+        } else {
+            final Object[] children = this.childrenCache.get(parent);
 
-            if (isOkToConnect(server)) {
-                try {
-                    final ModeShapeRepository repository = new ArrayList<ModeShapeRepository>(this.serverManager.getRepositories(server)).get(index);
-                    this.viewer.replace(server, index, repository);
-                    this.viewer.setHasChildren(repository, true);
-                } catch (final Exception e) {
-                    addOfflineServer(server);
+            if (children == null) {
+                if (this.loadJobs.containsKey(parent)) {
+                    this.viewer.replace(parent, index, new PendingElement(parent));
                 }
+            } else if (index < children.length) {
+                replace(parent, index, children[index]);
             }
-        } else if (parent instanceof ModeShapeRepository) {
-            final ModeShapeRepository repository = (ModeShapeRepository)parent;
-
-            if (isOkToConnect(repository.getServer())) {
-                try {
-                    final ModeShapeWorkspace workspace = new ArrayList<ModeShapeWorkspace>(this.serverManager.getWorkspaces(repository)).get(index);
-                    this.viewer.replace(repository, index, workspace);
-                    this.viewer.setHasChildren(workspace, true);
-                } catch (final Exception e) {
-                    addOfflineServer(repository.getServer());
+        }
+    }
+
+    /**
+     * Obtains the children of a node from the server.
+     */
+    final class LoadChildrenJob extends Job {
+
+        private final Object parent;
+
+        LoadChildrenJob( final Object parent ) {
+            super(getLoadJobName(parent));
+            this.parent = parent;
+        }
+
+        Object getParent() {
+            return this.parent;
+        }
+
+        /**
+         * {@inheritDoc}
+         *
+         * @see org.eclipse.core.runtime.jobs.Job#run(org.eclipse.core.runtime.IProgressMonitor)
+         */
+        @Override
+        protected IStatus run( final IProgressMonitor monitor ) {
+            Object[] children = null;
+
+            try {
+                if (monitor.isCanceled()) {
+                    return Status.CANCEL_STATUS;
                 }
-            }
-        } else if (parent instanceof ModeShapeWorkspace) {
-            final ModeShapeWorkspace workspace = (ModeShapeWorkspace)parent;
-
-            if (isOkToConnect(workspace.getServer())) {
-                try {
-                    final WorkspaceArea workspaceArea = Arrays.asList(this.serverManager.getWorkspaceAreas(workspace)).get(index);
-                    this.viewer.replace(workspace, index, workspaceArea);
-                } catch (final Exception e) {
-                    addOfflineServer(workspace.getServer());
+
+                monitor.beginTask(getName(), IProgressMonitor.UNKNOWN);
+                children = fetchChildren(this.parent);
+
+                // the request cannot be interrupted so just ignore the result when canceled
+                if (monitor.isCanceled()) {
+                    children = null;
+                    return Status.CANCEL_STATUS;
                 }
+
+                return Status.OK_STATUS;
+            } catch (final Exception e) {
+                failed(e);
+                return Status.OK_STATUS; // error has been reported
+            } finally {
+                monitor.done();
+                loaded(this, children);
+            }
+        }
+
+        private void failed( final Exception e ) {
+            addOfflineServer(getServer(this.parent));
+            final Display display = Display.getDefault();
+
+            if (display.isDisposed()) {
+                return;
             }
+
+            display.asyncExec(new Runnable() {
+
+                /**
+                 * {@inheritDoc}
+                 *
+                 * @see java.lang.Runnable#run()
+                 */
+                @Override
+                public void run() {
+                    final Status error = new Status(IStatus.ERROR,
+                                                    IUiConstants.PLUGIN_ID,
+                                                    RestClientI18n.runningServerRequestErrorMsg,
+                                                    e);
+                    ErrorDialog.openError(getShell(), RestClientI18n.runningServerRequestErrorDialogTitle,
+                                          RestClientI18n.runningServerRequestErrorDialogMsg, error);
+                }
+            });
         }
     }
 
@@ -762,66 +814,20 @@ public final class ModeShapeContentProvider extends ColumnLabelProvider implemen
         }
     }
 
-    abstract class ServerOperation implements IRunnableWithProgress {
-        private ModeShapeServer updatedServer;
-        private final ModeShapeServer server;
-
-        public ServerOperation( final ModeShapeServer server ) {
-            this.server = server;
-        }
-
-        abstract void doRun( IProgressMonitor monitor ) throws InvocationTargetException, InterruptedException;
-
-        abstract Display getDisplay();
-
-        ModeShapeServer getServer() {
-            return this.server;
-        }
-
-        ModeShapeServer getUpdatedServer() {
-            return this.updatedServer;
-        }
-
-        /**
-         * {@inheritDoc}
-         *
-         * @see org.eclipse.jface.operation.IRunnableWithProgress#run(org.eclipse.core.runtime.IProgressMonitor)
-         */
-        @Override
-        public final void run( final IProgressMonitor monitor ) {
-            getDisplay().asyncExec(new Runnable() {
+    /**
+     * The child shown while the children of a node are being obtained from the server.
+     */
+    static final class PendingElement {
 
-                /**
-                 * {@inheritDoc}
-                 *
-                 * @see java.lang.Runnable#run()
-                 */
-                @Override
-                public void run() {
-                    try {
-                        doRun(monitor);
-                    } catch (final InvocationTargetException e) {
-                        if (getUpdatedServer() == null) {
-                            addOfflineServer(getServer());
-                        } else {
-                            addOfflineServer(getUpdatedServer());
-                        }
+        private final Object parent;
 
-                        final org.eclipse.core.runtime.Status error = new org.eclipse.core.runtime.Status(IStatus.ERROR,
-                                                                                                          IUiConstants.PLUGIN_ID,
-                                                                                                          RestClientI18n.runningServerRequestErrorMsg,
-                                                                                                          e.getCause());
-                        ErrorDialog.openError(getShell(), RestClientI18n.runningServerRequestErrorDialogTitle,
-                                              RestClientI18n.runningServerRequestErrorDialogMsg, error);
-                    } catch (final InterruptedException e) {
-                        // should not happen has monitor is not cancelable
-                    }
-                }
-            });
+        PendingElement( final Object parent ) {
+            this.parent = parent;
         }
 
-        void setUpdatedServer( final ModeShapeServer updatedServer ) {
-            this.updatedServer = updatedServer;
+        Object getParent() {
+            return this.parent;
         }
     }
+
 }
@@ -233,6 +233,7 @@ public final class ServerView extends ViewPart implements IServerRegistryListene
         // register to receive changes to the server registry
         getServerManager().addRegistryListener(this);
         getServerManager().addRegistryListener(this.provider);
+        getServerManager().getHealthMonitor().addHealthListener(this.provider);
 
         // register with the help system
         IWorkbenchHelpSystem helpSystem = Activator.getDefault().getWorkbench().getHelpSystem();
@@ -250,6 +251,7 @@ public final class ServerView extends ViewPart implements IServerRegistryListene
 
         if (this.provider != null) {
             getServerManager().removeRegistryListener(this.provider);
+            getServerManager().getHealthMonitor().removeHealthListener(this.provider);
         }
 
         super.dispose();
@@ -327,6 +327,11 @@ public final class PublishPage extends WizardPage implements IServerRegistryList
      */
     private boolean recurse = true;
 
+    /**
+     * Indicates if files that have not changed since they were last published to the workspace should be published again.
+     */
+    private boolean republishUnchanged = false;
+
     /**
      * A collection of repositories for the selected server (never <code>null</code>).
      */
@@ -548,6 +553,7 @@ public final class PublishPage extends WizardPage implements IServerRegistryList
         // row 3: include project name in publised path
         // row 4: recurse chkbox
         // row 5: versioning chkbox and link (only when publishing)
+        // row 6: republish unchanged files chkbox (only when publishing)
 
         { // row 1
             Label lbl = new Label(pnl, SWT.LEFT);
@@ -706,6 +712,24 @@ public final class PublishPage extends WizardPage implements IServerRegistryList
                     handleOpenPreferencePage();
                 }
             });
+
+            // row 6 republish unchanged files chkbox
+            Button chkRepublishUnchanged = new Button(pnl, SWT.CHECK);
+            chkRepublishUnchanged.setLayoutData(new GridData(SWT.LEFT, SWT.CENTER, false, false));
+            chkRepublishUnchanged.setText(RestClientI18n.publishPageRepublishUnchangedCheckBox);
+            chkRepublishUnchanged.setToolTipText(RestClientI18n.publishPageRepublishUnchangedCheckBoxToolTip);
+            chkRepublishUnchanged.setSelection(this.republishUnchanged);
+            chkRepublishUnchanged.addSelectionListener(new SelectionAdapter() {
+                /**
+                 * {@inheritDoc}
+                 * 
+                 * @see org.eclipse.swt.events.SelectionAdapter#widgetSelected(org.eclipse.swt.events.SelectionEvent)
+                 */
+                @Override
+                public void widgetSelected( SelectionEvent e ) {
+                    handleRepublishUnchangedChanged(((Button)e.widget).getSelection());
+                }
+            });
         }
     }
 
@@ -910,6 +934,15 @@ public final class PublishPage extends WizardPage implements IServerRegistryList
         updateState();
     }
 
+    /**
+     * Saves the republish unchanged files setting.
+     * 
+     * @param selected the flag indicating the new republish unchanged files setting
+     */
+    void handleRepublishUnchangedChanged( boolean selected ) {
+        this.republishUnchanged = selected;
+    }
+
     /**
      * Saves the versioning setting.
      * 
@@ -1021,6 +1054,13 @@ public final class PublishPage extends WizardPage implements IServerRegistryList
         return this.recurse;
     }
 
+    /**
+     * @return <code>true</code> if files that have not changed since they were last published should be published again
+     */
+    boolean isRepublishingUnchanged() {
+        return this.republishUnchanged;
+    }
+
     /**
      * @return <code>true</code> if versioning of published resources should be done
      */
@@ -132,7 +132,7 @@ public final class PublishWizard extends Wizard {
         List<IFile> files = this.page.getFiles();
         String workspaceArea = this.page.getWorkspaceArea();
         PublishJob job = new PublishJob(this.type, files, workspace, workspaceArea, this.page.isIncludingProjectPath(),
-                                        this.page.isVersioning());
+                                        this.page.isVersioning(), this.page.isRepublishingUnchanged());
         job.schedule();
 
         return true;
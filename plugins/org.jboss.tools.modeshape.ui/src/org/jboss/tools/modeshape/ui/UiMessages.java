@@ -39,6 +39,11 @@ public class UiMessages extends NLS {
      */
     public static String exportMessagesToolTip;
 
+    /**
+     * The name of the background job that filters the rows of a table.
+     */
+    public static String filterTableJobName;
+
     /**
      * The title of a generic information message dialog.
      */
@@ -135,7 +135,22 @@ public final class FormUtils {
      */
     public static Table createTable( final FormToolkit toolkit,
                                      final Composite parent ) {
-        final Table table = toolkit.createTable(parent, Styles.VIEWER_STYLE);
+        return createTable(toolkit, parent, SWT.NONE);
+    }
+
+    /**
+     * Table is created with header and lines visible using the default {@link Styles#VIEWER_STYLE style} combined with the
+     * additional style.
+     *
+     * @param toolkit the toolkit used to create the form objects (cannot be <code>null</code>)
+     * @param parent the parent container for the new section (cannot be <code>null</code>)
+     * @param style the additional style bits (for instance, {@link SWT#VIRTUAL})
+     * @return the table created by the toolkit (never <code>null</code>)
+     */
+    public static Table createTable( final FormToolkit toolkit,
+                                     final Composite parent,
+                                     final int style ) {
+        final Table table = toolkit.createTable(parent, Styles.VIEWER_STYLE | style);
         table.setHeaderVisible(true);
         table.setLinesVisible(true);
         table.setLayoutData(new GridLayout());
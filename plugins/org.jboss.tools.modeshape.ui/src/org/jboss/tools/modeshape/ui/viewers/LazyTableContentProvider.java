@@ -0,0 +1,657 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ *
+ * See the LEGAL.txt file distributed with this work for information regarding copyright ownership and licensing.
+ *
+ * See the AUTHORS.txt file distributed with this work for a full listing of individual contributors.
+ */
+package org.jboss.tools.modeshape.ui.viewers;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jface.viewers.ILazyContentProvider;
+import org.eclipse.jface.viewers.IStructuredSelection;
+import org.eclipse.jface.viewers.StructuredSelection;
+import org.eclipse.jface.viewers.TableViewer;
+import org.eclipse.jface.viewers.Viewer;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Table;
+import org.eclipse.swt.widgets.TableItem;
+import org.jboss.tools.modeshape.ui.UiMessages;
+
+/**
+ * A content provider for {@link org.eclipse.swt.SWT#VIRTUAL virtual} tables. The elements are sorted once when they are loaded
+ * and the filter produces an array of indexes into the sorted elements, so changing the filter never sorts again. Only the rows
+ * the table asks for are handed to the viewer, so only visible rows are materialized and labeled. Viewers using this provider
+ * must not have sorters or filters, and must use {@link #refresh()}, {@link #refilter()}, and {@link #select(Object, boolean)}
+ * instead of the viewer's own methods when the elements change.
+ * <p>
+ * When a single element is added, removed, or changed, {@link #add(Object)}, {@link #remove(Object)}, and {@link #update(Object)}
+ * touch only that element's row instead of loading, sorting, and relabeling all rows. An element whose sort key changed is moved
+ * so that the elements stay sorted.
+ * <p>
+ * A filter can also be applied in the background with {@link #refilter(long)}. Only the last request is run, and when the new
+ * filter {@link #narrows(Object, Object) narrows} the filter already applied only the rows already shown are checked.
+ */
+public abstract class LazyTableContentProvider implements ILazyContentProvider {
+
+    /**
+     * The number of elements checked between checks for cancellation of a background filter.
+     */
+    private static final int CANCEL_CHECK_INTERVAL = 1024;
+
+    private static final Object[] NO_ELEMENTS = new Object[0];
+
+    /**
+     * Sorts elements by their natural order.
+     */
+    private static final Comparator<Object> NATURAL_ORDER = new Comparator<Object>() {
+
+        /**
+         * {@inheritDoc}
+         *
+         * @see java.util.Comparator#compare(java.lang.Object, java.lang.Object)
+         */
+        @SuppressWarnings( {"rawtypes", "unchecked"} )
+        @Override
+        public int compare( final Object thisElement,
+                            final Object thatElement ) {
+            return ((Comparable)thisElement).compareTo(thatElement);
+        }
+    };
+
+    /**
+     * The loaded elements in sort order (never <code>null</code>).
+     */
+    private Object[] elements = NO_ELEMENTS;
+
+    /**
+     * The filter that produced the visible indexes (<code>null</code> if not filtering).
+     */
+    private Object filter;
+
+    /**
+     * The pending or running background filter (<code>null</code> if none). Only accessed in the UI thread.
+     */
+    private Job filterJob;
+
+    private final boolean sort;
+
+    private TableViewer viewer;
+
+    /**
+     * The indexes into the sorted elements of the elements that pass the filter, in sort order (<code>null</code> if all elements
+     * pass the filter).
+     */
+    private int[] visible;
+
+    /**
+     * @param sort <code>true</code> if the elements should be sorted by their natural order or by {@link #getComparator()}
+     */
+    protected LazyTableContentProvider( final boolean sort ) {
+        this.sort = sort;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see org.eclipse.jface.viewers.IContentProvider#dispose()
+     */
+    @Override
+    public void dispose() {
+        cancelFilterJob();
+        this.elements = NO_ELEMENTS;
+        this.filter = null;
+        this.visible = null;
+        this.viewer = null;
+    }
+
+    /**
+     * Adds an element that was added to the model. The element is inserted at its sorted position and only its row is created.
+     *
+     * @param element the element being added (cannot be <code>null</code>)
+     */
+    public void add( final Object element ) {
+        if (this.viewer == null) {
+            return;
+        }
+
+        // a pending background filter was computed without the element
+        if (this.filterJob != null) {
+            refresh();
+            return;
+        }
+
+        int index = this.elements.length;
+
+        if (this.sort) {
+            final int found = Arrays.binarySearch(this.elements, element, getComparator());
+            index = ((found < 0) ? (-found - 1) : found);
+        }
+
+        final Object[] newElements = new Object[this.elements.length + 1];
+        System.arraycopy(this.elements, 0, newElements, 0, index);
+        newElements[index] = element;
+        System.arraycopy(this.elements, index, newElements, index + 1, this.elements.length - index);
+        this.elements = newElements;
+
+        int row = index;
+
+        if (this.visible != null) {
+            final boolean shown = select(element, this.filter);
+            final int[] newVisible = new int[this.visible.length + (shown ? 1 : 0)];
+            row = -1;
+            int j = 0;
+
+            // indexes after the new element move down by one
+            for (final int visibleIndex : this.visible) {
+                if (shown && (row == -1) && (visibleIndex >= index)) {
+                    row = j;
+                    newVisible[j++] = index;
+                }
+
+                newVisible[j++] = ((visibleIndex >= index) ? (visibleIndex + 1) : visibleIndex);
+            }
+
+            if (shown && (row == -1)) {
+                row = j;
+                newVisible[j] = index;
+            }
+
+            this.visible = newVisible;
+        }
+
+        final Table table = this.viewer.getTable();
+
+        if ((row != -1) && !table.isDisposed()) {
+            new TableItem(table, SWT.NONE, row); // the viewer asks for the element when the row is shown
+        }
+    }
+
+    private void cancelFilterJob() {
+        if (this.filterJob != null) {
+            this.filterJob.cancel();
+            this.filterJob = null;
+        }
+    }
+
+    private void filter() {
+        cancelFilterJob();
+        this.filter = getFilter();
+        this.visible = ((this.filter == null) ? null : filter(this.elements, null, this.filter, null));
+    }
+
+    /**
+     * @param elementsToFilter the sorted elements (cannot be <code>null</code>)
+     * @param candidates the indexes of the elements that need to be checked or <code>null</code> if all elements need to be checked
+     * @param filterToApply the filter (cannot be <code>null</code>)
+     * @param monitor the monitor checked for cancellation (can be <code>null</code>)
+     * @return the indexes of the elements that pass the filter or <code>null</code> if canceled
+     */
+    private int[] filter( final Object[] elementsToFilter,
+                          final int[] candidates,
+                          final Object filterToApply,
+                          final IProgressMonitor monitor ) {
+        final int size = ((candidates == null) ? elementsToFilter.length : candidates.length);
+        final int[] indexes = new int[size];
+        int count = 0;
+
+        for (int i = 0; i < size; ++i) {
+            if ((monitor != null) && ((i % CANCEL_CHECK_INTERVAL) == 0) && monitor.isCanceled()) {
+                return null;
+            }
+
+            final int index = ((candidates == null) ? i : candidates[i]);
+
+            if (select(elementsToFilter[index], filterToApply)) {
+                indexes[count++] = index;
+            }
+        }
+
+        return Arrays.copyOf(indexes, count);
+    }
+
+    /**
+     * Override to sort by something other than the natural order of the elements.
+     *
+     * @return the comparator used to sort the elements (never <code>null</code>)
+     */
+    protected Comparator<Object> getComparator() {
+        return NATURAL_ORDER;
+    }
+
+    /**
+     * Called in the UI thread when a filter is requested. The returned object is passed to
+     * {@link #select(Object, Object)}, possibly in a background thread, so it must not change once returned.
+     *
+     * @return an object describing the current filter or <code>null</code> if all elements should be shown
+     */
+    protected Object getFilter() {
+        return null;
+    }
+
+    /**
+     * @param index the row index
+     * @return the element shown in that row (<code>null</code> if the index is out of range)
+     */
+    public Object getElement( final int index ) {
+        if ((index < 0) || (index >= getElementCount())) {
+            return null;
+        }
+
+        return this.elements[(this.visible == null) ? index : this.visible[index]];
+    }
+
+    /**
+     * @return the number of rows (the elements that pass the filter)
+     */
+    public int getElementCount() {
+        return ((this.visible == null) ? this.elements.length : this.visible.length);
+    }
+
+    /**
+     * Called when the elements are loaded. Calls are made from the UI thread.
+     *
+     * @return the unsorted and unfiltered elements (never <code>null</code>)
+     */
+    protected abstract Object[] getElements();
+
+    /**
+     * @param element the element whose row is being requested (can be <code>null</code>)
+     * @return the row index or <code>-1</code> if the element is not shown
+     */
+    public int indexOf( final Object element ) {
+        return getRow(indexOfElement(element));
+    }
+
+    /**
+     * @param element the element being found (can be <code>null</code>)
+     * @return the index into the sorted elements or <code>-1</code> if not loaded
+     */
+    private int indexOfElement( final Object element ) {
+        if (element == null) {
+            return -1;
+        }
+
+        // look for the element among the elements that sort the same
+        if (this.sort) {
+            final int found = Arrays.binarySearch(this.elements, element, getComparator());
+
+            if (found >= 0) {
+                final Comparator<Object> comparator = getComparator();
+
+                for (int i = found; (i >= 0) && (comparator.compare(this.elements[i], element) == 0); --i) {
+                    if (this.elements[i] == element) {
+                        return i;
+                    }
+                }
+
+                for (int i = found + 1; (i < this.elements.length) && (comparator.compare(this.elements[i], element) == 0); ++i) {
+                    if (this.elements[i] == element) {
+                        return i;
+                    }
+                }
+            }
+        }
+
+        // not sorted or the element changed so that it no longer sorts the same
+        for (int i = 0; i < this.elements.length; ++i) {
+            if (this.elements[i] == element) {
+                return i;
+            }
+        }
+
+        for (int i = 0; i < this.elements.length; ++i) {
+            if (element.equals(this.elements[i])) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * @param index the index into the sorted elements
+     * @return the row index or <code>-1</code> if the element is not shown
+     */
+    private int getRow( final int index ) {
+        if ((index == -1) || (this.visible == null)) {
+            return index;
+        }
+
+        final int row = Arrays.binarySearch(this.visible, index);
+        return ((row < 0) ? -1 : row);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see org.eclipse.jface.viewers.IContentProvider#inputChanged(org.eclipse.jface.viewers.Viewer, java.lang.Object,
+     *      java.lang.Object)
+     */
+    @Override
+    public void inputChanged( final Viewer newViewer,
+                              final Object oldInput,
+                              final Object newInput ) {
+        this.viewer = (TableViewer)newViewer;
+
+        if (newInput == null) {
+            cancelFilterJob();
+            this.elements = NO_ELEMENTS;
+            this.filter = null;
+            this.visible = null;
+        } else {
+            load();
+
+            // the viewer refreshes the rows once the input is set
+            this.viewer.setItemCount(getElementCount());
+        }
+    }
+
+    /**
+     * Override when applying a filter that only removes rows from the rows shown for another filter is common. For example, a
+     * name pattern narrows all the patterns it extends.
+     *
+     * @param oldFilter the filter already applied (never <code>null</code>)
+     * @param newFilter the filter being applied (never <code>null</code>)
+     * @return <code>true</code> if every element that passes the new filter also passes the old filter
+     */
+    protected boolean narrows( final Object oldFilter,
+                               final Object newFilter ) {
+        return false;
+    }
+
+    private void load() {
+        final Object[] newElements = getElements();
+        this.elements = ((newElements.length == 0) ? NO_ELEMENTS : newElements.clone());
+
+        if (this.sort) {
+            Arrays.sort(this.elements, getComparator());
+        }
+
+        filter();
+    }
+
+    /**
+     * Filters the loaded elements again without loading or sorting them. Call after the filter changes.
+     */
+    public void refilter() {
+        if (this.viewer != null) {
+            filter();
+            refreshViewer();
+        }
+    }
+
+    /**
+     * Filters the loaded elements again in a background job after a delay. A new request, {@link #refresh()}, or
+     * {@link #refilter()} cancels the pending request. When the job finishes the rows are updated in the UI thread and the
+     * selected element is selected again if it is still shown. Must be called from the UI thread.
+     *
+     * @param delay the number of milliseconds to wait before filtering, so that a quick series of requests only filters once
+     */
+    public void refilter( final long delay ) {
+        if (this.viewer == null) {
+            return;
+        }
+
+        cancelFilterJob();
+
+        final Object newFilter = getFilter();
+
+        if (newFilter == null) {
+            this.filter = null;
+            this.visible = null;
+            refreshViewer();
+            return;
+        }
+
+        final Object[] snapshot = this.elements;
+        final int[] candidates = (((this.filter != null) && narrows(this.filter, newFilter)) ? this.visible : null);
+        final Display display = this.viewer.getTable().getDisplay();
+
+        this.filterJob = new Job(UiMessages.filterTableJobName) {
+
+            /**
+             * {@inheritDoc}
+             *
+             * @see org.eclipse.core.runtime.jobs.Job#run(org.eclipse.core.runtime.IProgressMonitor)
+             */
+            @Override
+            protected IStatus run( final IProgressMonitor monitor ) {
+                final int[] indexes = filter(snapshot, candidates, newFilter, monitor);
+
+                if ((indexes == null) || display.isDisposed()) {
+                    return Status.CANCEL_STATUS;
+                }
+
+                final Job job = this;
+
+                display.asyncExec(new Runnable() {
+
+                    /**
+                     * {@inheritDoc}
+                     *
+                     * @see java.lang.Runnable#run()
+                     */
+                    @Override
+                    public void run() {
+                        applyFilter(job, snapshot, newFilter, indexes);
+                    }
+                });
+
+                return Status.OK_STATUS;
+            }
+        };
+
+        this.filterJob.setSystem(true);
+        this.filterJob.schedule(delay);
+    }
+
+    void applyFilter( final Job job,
+                      final Object[] filteredElements,
+                      final Object newFilter,
+                      final int[] indexes ) {
+        // ignore if canceled or if the elements were loaded again after the job was scheduled
+        if ((this.filterJob != job) || (this.elements != filteredElements) || (this.viewer == null)) {
+            return;
+        }
+
+        this.filterJob = null;
+        final IStructuredSelection selection = (IStructuredSelection)this.viewer.getSelection();
+        this.filter = newFilter;
+        this.visible = indexes;
+        refreshViewer();
+
+        if (!selection.isEmpty()) {
+            select(selection.getFirstElement(), false);
+        }
+    }
+
+    /**
+     * Loads, sorts, and filters the elements again. Call after elements are added, removed, or renamed.
+     */
+    public void refresh() {
+        if (this.viewer != null) {
+            load();
+            refreshViewer();
+        }
+    }
+
+    private void refreshViewer() {
+        if ((this.viewer.getTable() != null) && !this.viewer.getTable().isDisposed()) {
+            this.viewer.setItemCount(getElementCount());
+            this.viewer.refresh(); // clears the materialized rows
+        }
+    }
+
+    /**
+     * Removes an element that was removed from the model. Only the element's row is removed. If the element was selected the
+     * selection is cleared and selection listeners are notified.
+     *
+     * @param element the element being removed (cannot be <code>null</code>)
+     */
+    public void remove( final Object element ) {
+        if (this.viewer == null) {
+            return;
+        }
+
+        // a pending background filter was computed with the element
+        if (this.filterJob != null) {
+            refresh();
+            return;
+        }
+
+        final int index = indexOfElement(element);
+
+        if ((index != -1) && delete(index)) {
+            this.viewer.setSelection(StructuredSelection.EMPTY);
+        }
+    }
+
+    /**
+     * Removes a loaded element and its row. Selection listeners are not notified.
+     *
+     * @param index the index into the sorted elements of the element being removed
+     * @return <code>true</code> if the element's row was selected
+     */
+    private boolean delete( final int index ) {
+        final int row = getRow(index);
+        final Object[] newElements = new Object[this.elements.length - 1];
+        System.arraycopy(this.elements, 0, newElements, 0, index);
+        System.arraycopy(this.elements, index + 1, newElements, index, newElements.length - index);
+        this.elements = ((newElements.length == 0) ? NO_ELEMENTS : newElements);
+
+        if (this.visible != null) {
+            final int[] newVisible = new int[this.visible.length - ((row == -1) ? 0 : 1)];
+            int j = 0;
+
+            // indexes after the removed element move up by one
+            for (final int visibleIndex : this.visible) {
+                if (visibleIndex != index) {
+                    newVisible[j++] = ((visibleIndex > index) ? (visibleIndex - 1) : visibleIndex);
+                }
+            }
+
+            this.visible = newVisible;
+        }
+
+        final Table table = this.viewer.getTable();
+
+        if ((row == -1) || table.isDisposed()) {
+            return false;
+        }
+
+        final boolean selected = table.isSelected(row);
+        table.remove(row);
+        return selected;
+    }
+
+    /**
+     * Selects an element. The element's row is materialized first so that the viewer does not have to materialize all rows to
+     * find it.
+     *
+     * @param element the element being selected (can be <code>null</code>)
+     * @param reveal <code>true</code> if the table should scroll to the element
+     * @return <code>true</code> if the element is shown and was selected
+     */
+    public boolean select( final Object element,
+                           final boolean reveal ) {
+        final int index = indexOf(element);
+
+        if ((index == -1) || (this.viewer == null)) {
+            return false;
+        }
+
+        updateElement(index);
+        this.viewer.setSelection(new StructuredSelection(element), reveal);
+        return true;
+    }
+
+    /**
+     * Override when {@link #getFilter()} is overridden. May be called in a background thread.
+     *
+     * @param element the element being checked (never <code>null</code>)
+     * @param filterToApply the object returned by {@link #getFilter()} (never <code>null</code>)
+     * @return <code>true</code> if the element passes the filter
+     */
+    protected boolean select( final Object element,
+                              final Object filterToApply ) {
+        return true;
+    }
+
+    /**
+     * @param index the index into the sorted elements
+     * @return <code>true</code> if the element at that index does not sort before the previous element or after the next element
+     */
+    private boolean isInSortOrder( final int index ) {
+        if (!this.sort) {
+            return true;
+        }
+
+        final Comparator<Object> comparator = getComparator();
+        final Object element = this.elements[index];
+
+        return (((index == 0) || (comparator.compare(this.elements[index - 1], element) <= 0))
+                && ((index == (this.elements.length - 1)) || (comparator.compare(element, this.elements[index + 1]) <= 0)));
+    }
+
+    /**
+     * Updates the row of an element that changed. When the element no longer sorts the same, or no longer passes or now passes
+     * the filter, its row is moved to its new position and the element stays selected. Otherwise only its row is relabeled.
+     *
+     * @param element the element that changed (cannot be <code>null</code>)
+     */
+    public void update( final Object element ) {
+        if (this.viewer == null) {
+            return;
+        }
+
+        // a pending background filter may have been computed with the old sort key
+        if (this.filterJob != null) {
+            refresh();
+            return;
+        }
+
+        final int index = indexOfElement(element);
+
+        if (index == -1) {
+            return;
+        }
+
+        final int row = getRow(index);
+
+        if (isInSortOrder(index) && ((this.visible == null) || ((row != -1) == select(element, this.filter)))) {
+            if (row != -1) {
+                this.viewer.replace(element, row);
+            }
+
+            return;
+        }
+
+        final boolean selected = delete(index);
+        add(element);
+
+        if (selected && !select(element, true)) {
+            this.viewer.setSelection(StructuredSelection.EMPTY);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see org.eclipse.jface.viewers.ILazyContentProvider#updateElement(int)
+     */
+    @Override
+    public void updateElement( final int index ) {
+        final Object element = getElement(index);
+
+        if ((element != null) && (this.viewer != null)) {
+            this.viewer.replace(element, index);
+        }
+    }
+}
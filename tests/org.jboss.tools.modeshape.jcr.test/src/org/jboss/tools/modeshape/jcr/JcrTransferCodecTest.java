@@ -0,0 +1,325 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ *
+ * See the LEGAL.txt file distributed with this work for information regarding copyright ownership and licensing.
+ *
+ * See the AUTHORS.txt file distributed with this work for a full listing of individual contributors.
+ */
+package org.jboss.tools.modeshape.jcr;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import java.io.IOException;
+import java.util.Arrays;
+import javax.jcr.PropertyType;
+import javax.jcr.version.OnParentVersionAction;
+import org.junit.Test;
+
+/**
+ *
+ */
+public class JcrTransferCodecTest {
+
+    private static final String NODE_TYPE_NAME = "nt:resource"; //$NON-NLS-1$
+
+    private static ChildNodeDefinition createChildNodeDefinition( final ItemOwnerProvider owner ) {
+        final ChildNodeDefinition childNodeDefn = new ChildNodeDefinition(owner);
+        childNodeDefn.setName("jcr:content"); //$NON-NLS-1$
+        childNodeDefn.setComment("the content"); //$NON-NLS-1$
+        childNodeDefn.setAutoCreated(true);
+        childNodeDefn.setMandatory(true);
+        childNodeDefn.setProtected(true);
+        childNodeDefn.setOnParentVersion(OnParentVersionAction.VERSION);
+        childNodeDefn.setSameNameSiblings(true);
+        childNodeDefn.setDefaultPrimaryTypeName("nt:unstructured"); //$NON-NLS-1$
+        childNodeDefn.setRequiredPrimaryTypeNames(new String[] { "nt:base", "mix:title" }); //$NON-NLS-1$ //$NON-NLS-2$
+        return childNodeDefn;
+    }
+
+    private static NamespaceMapping createNamespaceMapping() {
+        final NamespaceMapping namespaceMapping = new NamespaceMapping("jcr", "http://www.jcp.org/jcr/1.0"); //$NON-NLS-1$ //$NON-NLS-2$
+        namespaceMapping.setComment("the JCR namespace"); //$NON-NLS-1$
+        return namespaceMapping;
+    }
+
+    private static NodeTypeDefinition createNodeTypeDefinition() {
+        final NodeTypeDefinition nodeTypeDefn = new NodeTypeDefinition();
+        nodeTypeDefn.setName(NODE_TYPE_NAME);
+        nodeTypeDefn.setComment("a resource"); //$NON-NLS-1$
+        nodeTypeDefn.setAbstract(true);
+        nodeTypeDefn.setMixin(true);
+        nodeTypeDefn.setOrderableChildNodes(true);
+        nodeTypeDefn.setQueryable(false);
+        nodeTypeDefn.setPrimaryItemName("jcr:data"); //$NON-NLS-1$
+        nodeTypeDefn.addSuperType("nt:base"); //$NON-NLS-1$
+        nodeTypeDefn.addSuperType("mix:mimeType"); //$NON-NLS-1$
+        nodeTypeDefn.addPropertyDefinition(createPropertyDefinition(nodeTypeDefn));
+
+        final PropertyDefinition propDefn = new PropertyDefinition(nodeTypeDefn);
+        propDefn.setName("jcr:encoding"); //$NON-NLS-1$
+        nodeTypeDefn.addPropertyDefinition(propDefn);
+
+        nodeTypeDefn.addChildNodeDefinition(createChildNodeDefinition(nodeTypeDefn));
+        return nodeTypeDefn;
+    }
+
+    private static PropertyDefinition createPropertyDefinition( final ItemOwnerProvider owner ) {
+        final PropertyDefinition propDefn = new PropertyDefinition(owner);
+        propDefn.setName("jcr:data"); //$NON-NLS-1$
+        propDefn.setComment("the data, in a language other than English: \u00e9\u4e2d"); //$NON-NLS-1$
+        propDefn.setAutoCreated(true);
+        propDefn.setMandatory(true);
+        propDefn.setMultiple(true);
+        propDefn.setFullTextSearchable(false);
+        propDefn.setQueryOrderable(false);
+        propDefn.setProtected(true);
+        propDefn.setOnParentVersion(OnParentVersionAction.ABORT);
+        propDefn.setAvailableQueryOperators(new String[] { "=", "<>" }); //$NON-NLS-1$ //$NON-NLS-2$
+        propDefn.setRequiredType(PropertyType.LONG);
+        propDefn.addDefaultValue("-1"); //$NON-NLS-1$
+        propDefn.addDefaultValue("42"); //$NON-NLS-1$
+        propDefn.addValueConstraint("[-1,)"); //$NON-NLS-1$
+        return propDefn;
+    }
+
+    private static ItemOwnerProvider createOwner() {
+        return new ItemOwnerProvider() {
+
+            @Override
+            public QualifiedName getOwnerQualifiedName() {
+                return QualifiedName.parse(NODE_TYPE_NAME);
+            }
+        };
+    }
+
+    private static void assertNotRead( final byte[] payload ) {
+        try {
+            final JcrTransferCodec.Input in = new JcrTransferCodec.Input(payload);
+
+            for (int i = in.readHeader(); i > 0; --i) {
+                in.readNodeTypeDefinition();
+            }
+
+            fail();
+        } catch (final IOException e) {
+            // expected
+        }
+    }
+
+    private static byte[] writeNodeTypeDefinitions( final NodeTypeDefinition... nodeTypeDefns ) throws Exception {
+        final JcrTransferCodec.Output out = new JcrTransferCodec.Output();
+        out.writeHeader(nodeTypeDefns.length);
+
+        for (final NodeTypeDefinition nodeTypeDefn : nodeTypeDefns) {
+            out.writeNodeTypeDefinition(nodeTypeDefn);
+        }
+
+        return out.toByteArray();
+    }
+
+    @Test
+    public void shouldNotReadInvalidStringReference() throws Exception {
+        final JcrTransferCodec.Output out = new JcrTransferCodec.Output();
+        out.writeHeader(1);
+        out.writeSize(2); // the first new string must be 1
+
+        assertNotRead(out.toByteArray());
+    }
+
+    @Test
+    public void shouldNotReadNegativeSize() throws Exception {
+        final JcrTransferCodec.Output out = new JcrTransferCodec.Output();
+        out.writeSize(JcrTransferCodec.VERSION);
+        out.writeInt(1 << 30); // zigzag encoded with the sign bit set
+
+        assertNotRead(out.toByteArray());
+    }
+
+    @Test
+    public void shouldNotReadSizeLargerThanPayload() throws Exception {
+        final JcrTransferCodec.Output out = new JcrTransferCodec.Output();
+        out.writeHeader(Integer.MAX_VALUE);
+
+        assertNotRead(out.toByteArray());
+    }
+
+    @Test
+    public void shouldNotReadStringLengthLargerThanPayload() throws Exception {
+        final JcrTransferCodec.Output out = new JcrTransferCodec.Output();
+        out.writeHeader(1);
+        out.writeSize(1);
+        out.writeSize(Integer.MAX_VALUE);
+
+        assertNotRead(out.toByteArray());
+    }
+
+    @Test
+    public void shouldNotReadStringsCountLargerThanPayload() throws Exception {
+        final JcrTransferCodec.Output out = new JcrTransferCodec.Output();
+        out.writeSize(Integer.MAX_VALUE);
+
+        try {
+            new JcrTransferCodec.Input(out.toByteArray()).readStrings();
+            fail();
+        } catch (final IOException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void shouldNotReadTooLongVarInt() {
+        assertNotRead(new byte[] { (byte)0xFF, (byte)0xFF, (byte)0xFF, (byte)0xFF, (byte)0xFF, 0 });
+    }
+
+    @Test
+    public void shouldNotReadTruncatedPayload() throws Exception {
+        final byte[] payload = writeNodeTypeDefinitions(createNodeTypeDefinition());
+
+        for (int length = 0; length < payload.length; ++length) {
+            assertNotRead(Arrays.copyOf(payload, length));
+        }
+    }
+
+    @Test
+    public void shouldNotReadUnsupportedVersion() throws Exception {
+        final JcrTransferCodec.Output out = new JcrTransferCodec.Output();
+        out.writeSize(JcrTransferCodec.VERSION + 1);
+        out.writeSize(0);
+
+        assertNotRead(out.toByteArray());
+    }
+
+    @Test
+    public void shouldRoundTripArrayOfObjects() throws Exception {
+        final NodeTypeDefinition first = createNodeTypeDefinition();
+        final NodeTypeDefinition second = createNodeTypeDefinition();
+        second.setName("nt:resource2"); //$NON-NLS-1$
+
+        final JcrTransferCodec.Input in = new JcrTransferCodec.Input(writeNodeTypeDefinitions(first, second));
+        assertThat(in.readHeader(), is(2));
+        assertThat(in.readNodeTypeDefinition(), is(first));
+        assertThat(in.readNodeTypeDefinition(), is(second));
+    }
+
+    @Test
+    public void shouldRoundTripChildNodeDefinition() throws Exception {
+        final ChildNodeDefinition childNodeDefn = createChildNodeDefinition(createOwner());
+        final JcrTransferCodec.Output out = new JcrTransferCodec.Output();
+        out.writeChildNodeDefinition(childNodeDefn);
+
+        final ChildNodeDefinition copy = new JcrTransferCodec.Input(out.toByteArray()).readChildNodeDefinition();
+        assertThat(copy, is(childNodeDefn));
+        assertThat(copy.getDeclaringNodeTypeDefinitionName(), is(QualifiedName.parse(NODE_TYPE_NAME)));
+    }
+
+    @Test
+    public void shouldRoundTripIntegersAndSizes() throws Exception {
+        final int[] ints = { 0, 1, -1, 63, -64, 64, -65, Integer.MAX_VALUE, Integer.MIN_VALUE };
+        final int[] sizes = { 0, 1, 127, 128, 16383, 16384 };
+
+        final JcrTransferCodec.Output out = new JcrTransferCodec.Output();
+
+        for (final int value : ints) {
+            out.writeInt(value);
+        }
+
+        for (final int size : sizes) {
+            out.writeSize(size);
+        }
+
+        // enough bytes follow that every size is a valid length
+        out.writeStrings(new String[] { new String(new char[16384]).replace('\0', 'x') });
+
+        final JcrTransferCodec.Input in = new JcrTransferCodec.Input(out.toByteArray());
+
+        for (final int value : ints) {
+            assertThat(in.readInt(), is(value));
+        }
+
+        for (final int size : sizes) {
+            assertThat(in.readSize(), is(size));
+        }
+    }
+
+    @Test
+    public void shouldRoundTripNamespaceMapping() throws Exception {
+        final NamespaceMapping namespaceMapping = createNamespaceMapping();
+        final JcrTransferCodec.Output out = new JcrTransferCodec.Output();
+        out.writeNamespaceMapping(namespaceMapping);
+
+        assertThat(new JcrTransferCodec.Input(out.toByteArray()).readNamespaceMapping(), is(namespaceMapping));
+    }
+
+    @Test
+    public void shouldRoundTripNodeTypeDefinition() throws Exception {
+        final NodeTypeDefinition nodeTypeDefn = createNodeTypeDefinition();
+        final JcrTransferCodec.Input in = new JcrTransferCodec.Input(writeNodeTypeDefinitions(nodeTypeDefn));
+        assertThat(in.readHeader(), is(1));
+
+        final NodeTypeDefinition copy = in.readNodeTypeDefinition();
+        assertThat(copy, is(nodeTypeDefn));
+        assertThat(copy.getPropertyDefinitions().size(), is(2));
+        assertThat(copy.getChildNodeDefinitions().size(), is(1));
+
+        // the item definitions read belong to the node type read
+        copy.setName("nt:renamed"); //$NON-NLS-1$
+
+        for (final ItemDefinition itemDefn : copy.getItemDefinitions()) {
+            assertThat(itemDefn.getDeclaringNodeTypeDefinitionName(), is(copy.getQualifiedName()));
+        }
+    }
+
+    @Test
+    public void shouldRoundTripObjectsWithoutNamesOrValues() throws Exception {
+        final NodeTypeDefinition nodeTypeDefn = new NodeTypeDefinition();
+        nodeTypeDefn.setQueryable(true); // variant attribute states are not part of the format
+        final PropertyDefinition propDefn = new PropertyDefinition(createOwner());
+        final ChildNodeDefinition childNodeDefn = new ChildNodeDefinition(createOwner());
+        final NamespaceMapping namespaceMapping = new NamespaceMapping();
+
+        final JcrTransferCodec.Output out = new JcrTransferCodec.Output();
+        out.writeNodeTypeDefinition(nodeTypeDefn);
+        out.writePropertyDefinition(propDefn);
+        out.writeChildNodeDefinition(childNodeDefn);
+        out.writeNamespaceMapping(namespaceMapping);
+
+        final JcrTransferCodec.Input in = new JcrTransferCodec.Input(out.toByteArray());
+        assertThat(in.readNodeTypeDefinition(), is(nodeTypeDefn));
+        assertThat(in.readPropertyDefinition(), is(propDefn));
+        assertThat(in.readChildNodeDefinition(), is(childNodeDefn));
+        assertThat(in.readNamespaceMapping(), is(namespaceMapping));
+    }
+
+    @Test
+    public void shouldRoundTripPropertyDefinition() throws Exception {
+        final PropertyDefinition propDefn = createPropertyDefinition(createOwner());
+        final JcrTransferCodec.Output out = new JcrTransferCodec.Output();
+        out.writePropertyDefinition(propDefn);
+
+        final PropertyDefinition copy = new JcrTransferCodec.Input(out.toByteArray()).readPropertyDefinition();
+        assertThat(copy, is(propDefn));
+        assertThat(copy.getDeclaringNodeTypeDefinitionName(), is(QualifiedName.parse(NODE_TYPE_NAME)));
+    }
+
+    @Test
+    public void shouldWriteRepeatedStringsOnce() throws Exception {
+        final String value = "a string longer than a reference"; //$NON-NLS-1$
+        final JcrTransferCodec.Output out = new JcrTransferCodec.Output();
+        out.writeString(value);
+        final int onceLength = out.toByteArray().length;
+        out.writeString(value);
+
+        // the second time is a one byte reference into the string table
+        final byte[] payload = out.toByteArray();
+        assertThat(payload.length, is(onceLength + 1));
+
+        final JcrTransferCodec.Input in = new JcrTransferCodec.Input(payload);
+        final String first = in.readString();
+        assertThat(first, is(value));
+        assertThat(in.readString(), is(sameInstance(first)));
+        assertTrue(payload.length < (2 * value.length()));
+    }
+}
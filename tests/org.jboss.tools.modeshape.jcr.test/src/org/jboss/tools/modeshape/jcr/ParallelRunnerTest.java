@@ -0,0 +1,272 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ *
+ * See the LEGAL.txt file distributed with this work for information regarding copyright ownership and licensing.
+ *
+ * See the AUTHORS.txt file distributed with this work for a full listing of individual contributors.
+ */
+package org.jboss.tools.modeshape.jcr;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.jobs.Job;
+import org.jboss.tools.modeshape.jcr.cnd.CndImporter;
+import org.jboss.tools.modeshape.jcr.cnd.CndValidator;
+import org.jboss.tools.modeshape.jcr.cnd.CompactNodeTypeDefinition;
+import org.jboss.tools.modeshape.jcr.preference.JcrPreferenceStore;
+import org.junit.Test;
+
+/**
+ *
+ */
+public class ParallelRunnerTest {
+
+    private static final String JOB_NAME = "test"; //$NON-NLS-1$
+    private static final int MAX_JOBS = 4;
+    private static final int NUM_ITEMS = 200;
+
+    private static List<Integer> createItems() {
+        final List<Integer> items = new ArrayList<Integer>();
+
+        for (int i = 0; i < NUM_ITEMS; ++i) {
+            items.add(i);
+        }
+
+        return items;
+    }
+
+    private static void pause() {
+        try {
+            Thread.sleep(2);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Validates each CND file of the test data and records the validation messages.
+     */
+    private static Map<File, List<ValidationStatus>> validate( final List<File> cndFiles,
+                                                               final int maxJobs,
+                                                               final Set<Object> singletons ) throws Exception {
+        final ConcurrentMap<File, List<ValidationStatus>> results = new ConcurrentHashMap<File, List<ValidationStatus>>();
+
+        ParallelRunner.run(cndFiles, new ParallelRunner.Task<File>() {
+
+            @Override
+            public String getName( final File cndFile ) {
+                return cndFile.getName();
+            }
+
+            @Override
+            public void run( final File cndFile ) {
+                try {
+                    synchronized (singletons) {
+                        singletons.add(WorkspaceRegistry.get());
+                        singletons.add(JcrPreferenceStore.get());
+                    }
+
+                    final CompactNodeTypeDefinition cnd = new CndImporter().importFrom(cndFile, new ArrayList<Throwable>());
+                    final List<ValidationStatus> statuses = new ArrayList<ValidationStatus>();
+
+                    if (cnd != null) {
+                        statuses.addAll(CndValidator.validateCnd(cnd).getAll());
+                    }
+
+                    results.put(cndFile, statuses);
+                } catch (final Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        }, maxJobs, JOB_NAME, null);
+
+        return new HashMap<File, List<ValidationStatus>>(results);
+    }
+
+    @Test
+    public void shouldFailWhenJobsStopBeforeAllItemsAreProcessed() {
+        final RecordingMonitor monitor = new RecordingMonitor(-1);
+
+        try {
+            ParallelRunner.run(createItems(), new RecordingTask() {
+
+                @Override
+                public void run( final Integer item ) {
+                    super.run(item);
+
+                    // someone else cancels the jobs
+                    Job.getJobManager().currentJob().getJobGroup().cancel();
+                }
+            }, MAX_JOBS, JOB_NAME, monitor);
+            fail();
+        } catch (final CoreException e) {
+            assertTrue(monitor.names.size() < NUM_ITEMS);
+        }
+    }
+
+    @Test
+    public void shouldReportEveryItemExactlyOnceInParallel() throws Exception {
+        final RecordingMonitor monitor = new RecordingMonitor(-1);
+        final RecordingTask task = new RecordingTask();
+        ParallelRunner.run(createItems(), task, MAX_JOBS, JOB_NAME, monitor);
+
+        assertThat(task.runs.size(), is(NUM_ITEMS));
+        assertThat(monitor.names.size(), is(NUM_ITEMS));
+
+        for (final Integer count : monitor.names.values()) {
+            assertThat(count, is(1));
+        }
+    }
+
+    @Test
+    public void shouldReportEveryItemExactlyOnceSerially() throws Exception {
+        final RecordingMonitor monitor = new RecordingMonitor(-1);
+        final RecordingTask task = new RecordingTask();
+        ParallelRunner.run(createItems(), task, 1, JOB_NAME, monitor);
+
+        assertThat(task.runs.size(), is(NUM_ITEMS));
+        assertThat(monitor.names.size(), is(NUM_ITEMS));
+
+        for (final Integer count : monitor.names.values()) {
+            assertThat(count, is(1));
+        }
+    }
+
+    @Test
+    public void shouldRethrowTaskFailureAfterJobsStop() throws Exception {
+        final RecordingMonitor monitor = new RecordingMonitor(-1);
+        final RecordingTask task = new RecordingTask() {
+
+            @Override
+            public void run( final Integer item ) {
+                super.run(item);
+
+                if (item.intValue() == 10) {
+                    throw new IllegalStateException();
+                }
+            }
+        };
+
+        try {
+            ParallelRunner.run(createItems(), task, MAX_JOBS, JOB_NAME, monitor);
+            fail();
+        } catch (final IllegalStateException e) {
+            assertThat(task.running.get(), is(0));
+            assertTrue(task.runs.size() < NUM_ITEMS);
+
+            // every item that was run, including the failed one, is reported once
+            assertThat(monitor.names.size(), is(task.runs.size()));
+        }
+    }
+
+    @Test
+    public void shouldStopWorkersWhenCanceled() throws Exception {
+        final RecordingMonitor monitor = new RecordingMonitor(10);
+        final RecordingTask task = new RecordingTask();
+
+        try {
+            ParallelRunner.run(createItems(), task, MAX_JOBS, JOB_NAME, monitor);
+            fail();
+        } catch (final OperationCanceledException e) {
+            assertThat(task.running.get(), is(0));
+
+            final int runs = task.runs.size();
+            assertTrue(runs < NUM_ITEMS);
+
+            // no worker is left taking items
+            Thread.sleep(50);
+            assertThat(task.runs.size(), is(runs));
+        }
+    }
+
+    @Test
+    public void shouldValidateInParallelWithSameResultsAsSerially() throws Exception {
+        final List<File> cndFiles = new ArrayList<File>();
+
+        for (final File file : new File("testdata").listFiles()) { //$NON-NLS-1$
+            if (file.getName().endsWith(".cnd")) { //$NON-NLS-1$
+                cndFiles.add(file);
+            }
+        }
+
+        assertTrue(cndFiles.size() > 1);
+
+        final Set<Object> singletons = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+        final Map<File, List<ValidationStatus>> parallel = validate(cndFiles, MAX_JOBS, singletons);
+        final Map<File, List<ValidationStatus>> serial = validate(cndFiles, 1, singletons);
+
+        assertThat(parallel, is(serial));
+        assertThat(parallel.size(), is(cndFiles.size()));
+
+        // one registry and one preference store however many threads ask for them
+        assertThat(singletons.size(), is(2));
+    }
+
+    /**
+     * Records the sub task names reported and cancels itself after a number of items have been reported.
+     */
+    private static class RecordingMonitor extends NullProgressMonitor {
+
+        private final int cancelAfter;
+        final Map<String, Integer> names = new HashMap<String, Integer>();
+
+        /**
+         * @param cancelAfter the number of reported items after which the monitor is canceled (negative if never)
+         */
+        RecordingMonitor( final int cancelAfter ) {
+            this.cancelAfter = cancelAfter;
+        }
+
+        @Override
+        public void subTask( final String name ) {
+            final Integer count = this.names.get(name);
+            this.names.put(name, (count == null) ? 1 : (count + 1));
+
+            if (this.names.size() == this.cancelAfter) {
+                setCanceled(true);
+            }
+        }
+    }
+
+    /**
+     * Records the items that were run and how many items are being run.
+     */
+    private static class RecordingTask implements ParallelRunner.Task<Integer> {
+
+        final AtomicInteger running = new AtomicInteger();
+        final Set<Integer> runs = Collections.newSetFromMap(new ConcurrentHashMap<Integer, Boolean>());
+
+        @Override
+        public String getName( final Integer item ) {
+            return item.toString();
+        }
+
+        @Override
+        public void run( final Integer item ) {
+            this.running.incrementAndGet();
+
+            try {
+                this.runs.add(item);
+                pause();
+            } finally {
+                this.running.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,264 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ *
+ * See the LEGAL.txt file distributed with this work for information regarding copyright ownership and licensing.
+ *
+ * See the AUTHORS.txt file distributed with this work for a full listing of individual contributors.
+ */
+package org.jboss.tools.modeshape.jcr.cnd;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import org.jboss.tools.modeshape.jcr.ChildNodeDefinition;
+import org.jboss.tools.modeshape.jcr.NamespaceMapping;
+import org.jboss.tools.modeshape.jcr.NodeTypeDefinition;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ */
+public class CndDependencyGraphTest {
+
+    private CndDependencyGraph graph;
+
+    private CompactNodeTypeDefinition createCnd( final String prefix,
+                                                 final String nodeTypeName,
+                                                 final String... superTypes ) {
+        final CompactNodeTypeDefinition cnd = new CompactNodeTypeDefinition();
+
+        if (prefix != null) {
+            cnd.addNamespaceMapping(new NamespaceMapping(prefix, "http://" + prefix)); //$NON-NLS-1$
+        }
+
+        final NodeTypeDefinition nodeType = new NodeTypeDefinition();
+        nodeType.setName(nodeTypeName);
+
+        for (final String superType : superTypes) {
+            nodeType.addSuperType(superType);
+        }
+
+        cnd.addNodeTypeDefinition(nodeType);
+        return cnd;
+    }
+
+    /**
+     * Builds a project where b.cnd extends a node type of a.cnd, c.cnd extends a node type of b.cnd, and d.cnd depends on
+     * nothing.
+     */
+    private void fullBuild() {
+        final Map<String, CompactNodeTypeDefinition> cnds = new LinkedHashMap<String, CompactNodeTypeDefinition>();
+        cnds.put("a.cnd", createCnd("a", "a:base")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        cnds.put("b.cnd", createCnd("b", "b:sub", "a:base")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+        cnds.put("c.cnd", createCnd("c", "c:leaf", "b:sub")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+        cnds.put("d.cnd", createCnd("d", "d:other")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        this.graph.update(cnds, null);
+    }
+
+    private CndDependencyGraph reload( final CndDependencyGraph graphToReload ) throws IOException {
+        final StringWriter writer = new StringWriter();
+        graphToReload.write(writer);
+        return CndDependencyGraph.read(new StringReader(writer.toString()));
+    }
+
+    private String toText( final CndDependencyGraph graphToWrite ) throws IOException {
+        final StringWriter writer = new StringWriter();
+        graphToWrite.write(writer);
+        return writer.toString();
+    }
+
+    @Before
+    public void beforeEach() {
+        this.graph = new CndDependencyGraph();
+    }
+
+    @Test
+    public void shouldFindDependentsOfChangedCndInIncrementalBuild() {
+        fullBuild();
+
+        // renaming the node type changes what b.cnd and, through b.cnd, c.cnd depend on
+        final Set<String> dependents = this.graph.update(Collections.singletonMap("a.cnd", createCnd("a", "a:renamed")), //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+                                                         null);
+        assertEquals(new HashSet<String>(Arrays.asList("b.cnd", "c.cnd")), dependents); //$NON-NLS-1$ //$NON-NLS-2$
+        assertEquals(Collections.singleton("a:renamed"), this.graph.getDeclaredNodeTypes("a.cnd")); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    @Test
+    public void shouldFindDependentsOfRemovedCndInIncrementalBuild() {
+        fullBuild();
+
+        final Set<String> dependents = this.graph.update(null, Collections.singleton("a.cnd")); //$NON-NLS-1$
+        assertEquals(new HashSet<String>(Arrays.asList("b.cnd", "c.cnd")), dependents); //$NON-NLS-1$ //$NON-NLS-2$
+        assertFalse(this.graph.contains("a.cnd")); //$NON-NLS-1$
+        assertTrue(this.graph.getDeclaringPaths("a:base").isEmpty()); //$NON-NLS-1$
+    }
+
+    @Test
+    public void shouldFindDependentsOfUnparsableCndInIncrementalBuild() {
+        fullBuild();
+
+        final Map<String, CompactNodeTypeDefinition> changed = new LinkedHashMap<String, CompactNodeTypeDefinition>();
+        changed.put("b.cnd", null); //$NON-NLS-1$
+
+        assertEquals(Collections.singleton("c.cnd"), this.graph.update(changed, null)); //$NON-NLS-1$
+        assertFalse(this.graph.contains("b.cnd")); //$NON-NLS-1$
+    }
+
+    @Test
+    public void shouldNotFindDependentsOfIndependentCndInIncrementalBuild() {
+        fullBuild();
+        assertTrue(this.graph.update(Collections.singletonMap("d.cnd", createCnd("d", "d:other")), null).isEmpty()); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    }
+
+    @Test
+    public void shouldReloadSameGraphAfterIncrementalBuilds() throws Exception {
+        fullBuild();
+        this.graph.update(Collections.singletonMap("b.cnd", createCnd("b", "b:sub", "a:base", "d:other")), //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+                          Collections.singleton("c.cnd")); //$NON-NLS-1$
+
+        final CndDependencyGraph copy = reload(this.graph);
+        assertEquals(toText(this.graph), toText(copy));
+        assertEquals(this.graph.getPaths(), copy.getPaths());
+
+        for (final String path : this.graph.getPaths()) {
+            assertEquals(this.graph.getDeclaredNodeTypes(path), copy.getDeclaredNodeTypes(path));
+            assertEquals(this.graph.getDeclaredPrefixes(path), copy.getDeclaredPrefixes(path));
+            assertEquals(this.graph.getReferencedNodeTypes(path), copy.getReferencedNodeTypes(path));
+        }
+
+        // the reloaded graph finds the same dependents on the next incremental build
+        final Map<String, CompactNodeTypeDefinition> changed = Collections.singletonMap("d.cnd", createCnd("d", "d:changed")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        assertEquals(Collections.singleton("b.cnd"), copy.update(changed, null)); //$NON-NLS-1$
+        assertEquals(Collections.singleton("b.cnd"), this.graph.update(changed, null)); //$NON-NLS-1$
+        assertEquals(toText(this.graph), toText(copy));
+    }
+
+    @Test
+    public void shouldFindDeclaringPaths() {
+        this.graph.update("a.cnd", createCnd("a", "a:base")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        assertEquals(Collections.singleton("a.cnd"), this.graph.getDeclaringPaths("a:base")); //$NON-NLS-1$ //$NON-NLS-2$
+        assertTrue(this.graph.getDeclaringPaths("b:base").isEmpty()); //$NON-NLS-1$
+    }
+
+    @Test
+    public void shouldFindTransitiveDependents() {
+        this.graph.update("a.cnd", createCnd("a", "a:base")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        this.graph.update("b.cnd", createCnd("b", "b:middle", "a:base")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+        this.graph.update("c.cnd", createCnd("c", "c:leaf", "b:middle")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+        this.graph.update("d.cnd", createCnd("d", "d:other")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+        final Set<String> dependents = this.graph.getDependentPaths(this.graph.getDeclaredNodeTypes("a.cnd"), null); //$NON-NLS-1$
+        assertEquals(2, dependents.size());
+        assertTrue(dependents.contains("b.cnd")); //$NON-NLS-1$
+        assertTrue(dependents.contains("c.cnd")); //$NON-NLS-1$
+        assertTrue(this.graph.getDependentPaths(this.graph.getDeclaredNodeTypes("c.cnd"), null).isEmpty()); //$NON-NLS-1$
+    }
+
+    @Test
+    public void shouldFindPrefixDependents() {
+        this.graph.update("a.cnd", createCnd("a", "a:base")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        this.graph.update("b.cnd", createCnd(null, "a:other")); //$NON-NLS-1$ //$NON-NLS-2$
+
+        assertEquals(Collections.singleton("b.cnd"), //$NON-NLS-1$
+                     this.graph.getDependentPaths(null, Collections.singleton("a"))); //$NON-NLS-1$
+    }
+
+    @Test
+    public void shouldNotLoopOnCyclicDependencies() {
+        this.graph.update("a.cnd", createCnd(null, "a", "b")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        this.graph.update("b.cnd", createCnd(null, "b", "a")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+        assertEquals(2, this.graph.getDependentPaths(Collections.singleton("a"), null).size()); //$NON-NLS-1$
+    }
+
+    @Test
+    public void shouldNotRecordReferencesToOwnDeclarations() {
+        final CompactNodeTypeDefinition cnd = createCnd("a", "a:base"); //$NON-NLS-1$ //$NON-NLS-2$
+        final NodeTypeDefinition nodeType = createCnd(null, "a:sub", "a:base", "nt:base").getNodeTypeDefinitions().get(0); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        cnd.addNodeTypeDefinition(nodeType);
+        this.graph.update("a.cnd", cnd); //$NON-NLS-1$
+
+        assertEquals(Collections.singleton("nt:base"), this.graph.getReferencedNodeTypes("a.cnd")); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    @Test
+    public void shouldRecordChildNodeTypeReferences() {
+        final CompactNodeTypeDefinition cnd = createCnd(null, "parent"); //$NON-NLS-1$
+        final NodeTypeDefinition nodeType = cnd.getNodeTypeDefinitions().get(0);
+        final ChildNodeDefinition child = new ChildNodeDefinition(nodeType);
+        child.setName("child"); //$NON-NLS-1$
+        child.addRequiredType("required"); //$NON-NLS-1$
+        child.setDefaultPrimaryTypeName("default"); //$NON-NLS-1$
+        nodeType.addChildNodeDefinition(child);
+        this.graph.update("a.cnd", cnd); //$NON-NLS-1$
+
+        final Set<String> referenced = this.graph.getReferencedNodeTypes("a.cnd"); //$NON-NLS-1$
+        assertTrue(referenced.contains("required")); //$NON-NLS-1$
+        assertTrue(referenced.contains("default")); //$NON-NLS-1$
+    }
+
+    @Test
+    public void shouldRemoveDependencies() {
+        this.graph.update("a.cnd", createCnd("a", "a:base")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        this.graph.update("b.cnd", createCnd(null, "b", "a:base")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+        assertTrue(this.graph.remove("b.cnd")); //$NON-NLS-1$
+        assertFalse(this.graph.contains("b.cnd")); //$NON-NLS-1$
+        assertTrue(this.graph.getDependentPaths(Collections.singleton("a:base"), null).isEmpty()); //$NON-NLS-1$
+        assertFalse(this.graph.remove("b.cnd")); //$NON-NLS-1$
+    }
+
+    @Test
+    public void shouldReplaceDependenciesWhenUpdated() {
+        this.graph.update("a.cnd", createCnd(null, "a", "x")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        this.graph.update("a.cnd", createCnd(null, "a", "y")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+        assertTrue(this.graph.getDependentPaths(Collections.singleton("x"), null).isEmpty()); //$NON-NLS-1$
+        assertEquals(1, this.graph.getDependentPaths(Collections.singleton("y"), null).size()); //$NON-NLS-1$
+    }
+
+    @Test
+    public void shouldRoundTripThroughWriteAndRead() throws Exception {
+        this.graph.update("dir/a.cnd", createCnd("a", "a:base")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        this.graph.update("dir/b.cnd", createCnd("b", "b:sub", "a:base")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+
+        final StringWriter writer = new StringWriter();
+        this.graph.write(writer);
+        final CndDependencyGraph copy = CndDependencyGraph.read(new StringReader(writer.toString()));
+
+        assertEquals(this.graph.getPaths(), copy.getPaths());
+        assertEquals(Collections.singleton("dir/b.cnd"), copy.getDependentPaths(Collections.singleton("a:base"), null)); //$NON-NLS-1$ //$NON-NLS-2$
+        assertEquals(this.graph.getDeclaredPrefixes("dir/b.cnd"), copy.getDeclaredPrefixes("dir/b.cnd")); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    @Test
+    public void shouldRoundTripPathsWithSpecialCharacters() throws Exception {
+        final String path = "dir\\a\tb\nc.cnd"; //$NON-NLS-1$
+        this.graph.update(path, createCnd("a", "a:base")); //$NON-NLS-1$ //$NON-NLS-2$
+
+        final StringWriter writer = new StringWriter();
+        this.graph.write(writer);
+
+        // one header line, one path line, one declared type line, and one declared prefix line
+        assertEquals(4, writer.toString().split("\n").length); //$NON-NLS-1$
+
+        final CndDependencyGraph copy = CndDependencyGraph.read(new StringReader(writer.toString()));
+        assertEquals(Collections.singleton(path), copy.getPaths());
+        assertEquals(Collections.singleton(path), copy.getDeclaringPaths("a:base")); //$NON-NLS-1$
+    }
+
+    @Test( expected = IOException.class )
+    public void shouldNotReadUnknownFormat() throws Exception {
+        CndDependencyGraph.read(new StringReader("unknown\n")); //$NON-NLS-1$
+    }
+}
@@ -0,0 +1,310 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ *
+ * See the LEGAL.txt file distributed with this work for information regarding copyright ownership and licensing.
+ *
+ * See the AUTHORS.txt file distributed with this work for a full listing of individual contributors.
+ */
+package org.jboss.tools.modeshape.jcr.cnd;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import java.util.Arrays;
+import org.jboss.tools.modeshape.jcr.NamespaceMapping;
+import org.jboss.tools.modeshape.jcr.NodeTypeDefinition;
+import org.jboss.tools.modeshape.jcr.PropertyDefinition;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ */
+public class CndHistoryTest {
+
+    private CompactNodeTypeDefinition cnd;
+    private CndHistory history;
+    private NodeTypeDefinition nodeType;
+
+    @After
+    public void afterEach() {
+        this.history.dispose();
+    }
+
+    @Before
+    public void beforeEach() {
+        this.cnd = new CompactNodeTypeDefinition();
+        this.cnd.addNamespaceMapping(new NamespaceMapping("a", "http://a")); //$NON-NLS-1$ //$NON-NLS-2$
+        this.nodeType = new NodeTypeDefinition();
+        this.nodeType.setName("a:base"); //$NON-NLS-1$
+        this.cnd.addNodeTypeDefinition(this.nodeType);
+        this.history = new CndHistory(this.cnd);
+    }
+
+    @Test
+    public void shouldDropOldestChangesWhenOverBudget() {
+        this.history.dispose();
+        this.history = new CndHistory(this.cnd, 100, 300);
+
+        for (int i = 0; i < 10; ++i) {
+            this.cnd.addNamespaceMapping(new NamespaceMapping("p" + i, "http://p" + i)); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+
+        assertTrue(this.history.getUndoCount() < 10);
+        assertTrue(this.history.getSize() <= 300);
+
+        while (this.history.undo()) {
+            // undo all that can be undone
+        }
+
+        // oldest mappings could not be undone
+        assertTrue(this.cnd.getNamespaceMappings().size() > 1);
+    }
+
+    @Test
+    public void shouldDropOldestChangesWhenOverLimit() {
+        this.history.dispose();
+        this.history = new CndHistory(this.cnd, 3, CndHistory.DEFAULT_BUDGET);
+
+        for (int i = 0; i < 5; ++i) {
+            this.cnd.addNamespaceMapping(new NamespaceMapping("p" + i, "http://p" + i)); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+
+        assertEquals(3, this.history.getUndoCount());
+
+        while (this.history.undo()) {
+            // undo all that can be undone
+        }
+
+        assertEquals(3, this.cnd.getNamespaceMappings().size());
+    }
+
+    @Test
+    public void shouldMergeTextChangesOfSameProperty() {
+        this.nodeType.setComment("a"); //$NON-NLS-1$
+        this.nodeType.setComment("ab"); //$NON-NLS-1$
+        this.nodeType.setComment("abc"); //$NON-NLS-1$
+        assertEquals(1, this.history.getUndoCount());
+
+        this.history.undo();
+        assertNull(this.nodeType.getComment());
+
+        this.history.redo();
+        assertEquals("abc", this.nodeType.getComment()); //$NON-NLS-1$
+    }
+
+    @Test
+    public void shouldNotMergeAfterStopMerging() {
+        this.nodeType.setComment("a"); //$NON-NLS-1$
+        this.history.stopMerging();
+        this.nodeType.setComment("ab"); //$NON-NLS-1$
+        assertEquals(2, this.history.getUndoCount());
+
+        this.history.undo();
+        assertEquals("a", this.nodeType.getComment()); //$NON-NLS-1$
+    }
+
+    @Test
+    public void shouldNotMergeAfterMergedChangesRestoreOriginalValue() {
+        this.nodeType.setComment("a"); //$NON-NLS-1$
+        this.history.stopMerging();
+        this.nodeType.setComment("ab"); //$NON-NLS-1$
+        this.nodeType.setComment("a"); //$NON-NLS-1$
+        this.nodeType.setComment("abc"); //$NON-NLS-1$
+        assertEquals(2, this.history.getUndoCount());
+
+        this.history.undo();
+        assertEquals("a", this.nodeType.getComment()); //$NON-NLS-1$
+    }
+
+    @Test
+    public void shouldNotRecordEmptyCompoundChange() {
+        this.history.beginCompound();
+        this.history.endCompound();
+        assertFalse(this.history.canUndo());
+    }
+
+    @Test
+    public void shouldNotRecordMergedChangesThatRestoreOriginalValue() {
+        this.nodeType.setName("a:bas"); //$NON-NLS-1$
+        this.nodeType.setName("a:base"); //$NON-NLS-1$
+        assertFalse(this.history.canUndo());
+    }
+
+    @Test
+    public void shouldClearRedoAfterNewChange() {
+        this.nodeType.setAbstract(true);
+        this.history.undo();
+        assertTrue(this.history.canRedo());
+
+        this.nodeType.setMixin(true);
+        assertFalse(this.history.canRedo());
+        assertEquals(1, this.history.getUndoCount());
+    }
+
+    @Test
+    public void shouldRecordChangesOfAddedNodeTypes() {
+        final NodeTypeDefinition added = new NodeTypeDefinition();
+        this.cnd.addNodeTypeDefinition(added);
+        added.setName("a:added"); //$NON-NLS-1$
+        assertEquals(2, this.history.getUndoCount());
+        assertTrue(this.history.getUndoSource() == added);
+
+        this.history.undo();
+        this.history.undo();
+        assertFalse(this.cnd.getNodeTypeDefinitions().contains(added));
+
+        // node type readded by redo is still recorded
+        this.history.redo();
+        this.history.redo();
+        added.setMixin(true);
+        assertEquals(3, this.history.getUndoCount());
+    }
+
+    @Test
+    public void shouldNotRecordChangesOfRemovedNodeTypes() {
+        this.cnd.removeNodeTypeDefinition(this.nodeType);
+        this.nodeType.setMixin(true);
+        assertEquals(1, this.history.getUndoCount());
+    }
+
+    @Test
+    public void shouldUndoAndRedoAttributeChange() {
+        this.nodeType.setAbstract(true);
+        assertTrue(this.history.undo());
+        assertFalse(this.nodeType.isAbstract());
+
+        assertTrue(this.history.redo());
+        assertTrue(this.nodeType.isAbstract());
+    }
+
+    @Test
+    public void shouldUndoAndRedoClearedNamespaceMappings() {
+        final CompactNodeTypeDefinition expected = CompactNodeTypeDefinition.copy(this.cnd);
+        this.cnd.clearNamespaceMappings();
+        this.history.undo();
+        assertEquals(expected, this.cnd);
+
+        this.history.redo();
+        assertTrue(this.cnd.getNamespaceMappings().isEmpty());
+    }
+
+    @Test
+    public void shouldUndoAndRedoCompoundChangeAsOneChange() {
+        final PropertyDefinition propDefn = new PropertyDefinition(this.nodeType);
+        propDefn.setName("a:prop"); //$NON-NLS-1$
+        this.nodeType.addPropertyDefinition(propDefn);
+
+        final PropertyDefinition editedPropDefn = new PropertyDefinition(this.nodeType);
+        editedPropDefn.setName("a:edited"); //$NON-NLS-1$
+
+        this.history.beginCompound();
+
+        try {
+            this.nodeType.removePropertyDefinition(propDefn);
+            this.nodeType.addPropertyDefinition(editedPropDefn);
+        } finally {
+            this.history.endCompound();
+        }
+
+        assertEquals(2, this.history.getUndoCount());
+        assertTrue(this.history.getUndoSource() == this.nodeType);
+
+        this.history.undo();
+        assertEquals(Arrays.asList(propDefn), this.nodeType.getPropertyDefinitions());
+
+        this.history.redo();
+        assertEquals(Arrays.asList(editedPropDefn), this.nodeType.getPropertyDefinitions());
+    }
+
+    @Test
+    public void shouldUndoNestedCompoundChangesAsOneChange() {
+        final CompactNodeTypeDefinition expected = CompactNodeTypeDefinition.copy(this.cnd);
+        this.history.beginCompound();
+
+        try {
+            this.cnd.addNamespaceMapping(new NamespaceMapping("b", "http://b")); //$NON-NLS-1$ //$NON-NLS-2$
+            this.history.beginCompound();
+
+            try {
+                this.cnd.addNamespaceMapping(new NamespaceMapping("c", "http://c")); //$NON-NLS-1$ //$NON-NLS-2$
+            } finally {
+                this.history.endCompound();
+            }
+
+            this.nodeType.setComment("a"); //$NON-NLS-1$
+        } finally {
+            this.history.endCompound();
+        }
+
+        assertEquals(1, this.history.getUndoCount());
+
+        // the next text change is not merged into the compound change
+        this.nodeType.setComment("ab"); //$NON-NLS-1$
+        assertEquals(2, this.history.getUndoCount());
+
+        this.history.undo();
+        this.history.undo();
+        assertEquals(expected, this.cnd);
+    }
+
+    @Test( expected = IllegalStateException.class )
+    public void shouldNotAllowEndCompoundWithoutBegin() {
+        this.history.endCompound();
+    }
+
+    @Test
+    public void shouldUndoAndRedoNodeTypeRemoval() {
+        final CompactNodeTypeDefinition expected = CompactNodeTypeDefinition.copy(this.cnd);
+        this.cnd.removeNodeTypeDefinition(this.nodeType);
+        this.history.undo();
+        assertEquals(expected, this.cnd);
+        assertTrue(this.cnd.getNodeTypeDefinitions().get(0) == this.nodeType);
+
+        this.history.redo();
+        assertTrue(this.cnd.getNodeTypeDefinitions().isEmpty());
+    }
+
+    @Test
+    public void shouldUndoAndRedoPropertyDefinitionAdd() {
+        final PropertyDefinition propDefn = new PropertyDefinition(this.nodeType);
+        propDefn.setName("a:prop"); //$NON-NLS-1$
+        this.nodeType.addPropertyDefinition(propDefn);
+
+        this.history.undo();
+        assertTrue(this.nodeType.getPropertyDefinitions().isEmpty());
+
+        this.history.redo();
+        assertEquals(Arrays.asList(propDefn), this.nodeType.getPropertyDefinitions());
+    }
+
+    @Test
+    public void shouldUndoAndRedoSuperTypeChanges() {
+        this.nodeType.addSuperType("a:one"); //$NON-NLS-1$
+        this.nodeType.setDeclaredSuperTypeNames(new String[] { "a:two", "a:three" }); //$NON-NLS-1$ //$NON-NLS-2$
+
+        this.history.undo();
+        assertTrue(Arrays.equals(new String[] { "a:one" }, this.nodeType.getDeclaredSupertypeNames())); //$NON-NLS-1$
+
+        this.history.undo();
+        assertEquals(0, this.nodeType.getDeclaredSupertypeNames().length);
+
+        this.history.redo();
+        this.history.redo();
+        final String[] expected = new String[] { "a:two", "a:three" }; //$NON-NLS-1$ //$NON-NLS-2$
+        assertTrue(Arrays.equals(expected, this.nodeType.getDeclaredSupertypeNames()));
+    }
+
+    @Test
+    public void shouldUndoMergedRename() {
+        this.nodeType.setName("a:b"); //$NON-NLS-1$
+        this.nodeType.setName("a:bar"); //$NON-NLS-1$
+        assertEquals(1, this.history.getUndoCount());
+
+        this.history.undo();
+        assertEquals("a:base", this.nodeType.getName()); //$NON-NLS-1$
+        assertFalse(this.history.canUndo());
+    }
+}
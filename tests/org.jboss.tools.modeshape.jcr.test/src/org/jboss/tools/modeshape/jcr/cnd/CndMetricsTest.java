@@ -0,0 +1,89 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ *
+ * See the LEGAL.txt file distributed with this work for information regarding copyright ownership and licensing.
+ *
+ * See the AUTHORS.txt file distributed with this work for a full listing of individual contributors.
+ */
+package org.jboss.tools.modeshape.jcr.cnd;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import java.util.ArrayList;
+import java.util.Collection;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ */
+public class CndMetricsTest {
+
+    private CndMetrics metrics;
+
+    @Before
+    public void beforeEach() {
+        this.metrics = new CndMetrics();
+        CndMetrics.get().reset();
+    }
+
+    @Test
+    public void shouldAddValues() {
+        this.metrics.increment("a"); //$NON-NLS-1$
+        this.metrics.add("a", 4); //$NON-NLS-1$
+        assertEquals(5, this.metrics.getValue("a")); //$NON-NLS-1$
+        assertEquals(0, this.metrics.getValue("b")); //$NON-NLS-1$
+        assertEquals(1, this.metrics.getValues().size());
+    }
+
+    @Test
+    public void shouldCalculateHitRate() {
+        assertEquals(0, this.metrics.getHitRate("hits", "misses"), 0); //$NON-NLS-1$ //$NON-NLS-2$
+        this.metrics.add("hits", 3); //$NON-NLS-1$
+        this.metrics.increment("misses"); //$NON-NLS-1$
+        assertEquals(0.75, this.metrics.getHitRate("hits", "misses"), 0); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    @Test
+    public void shouldCalculateRate() {
+        assertEquals(0, this.metrics.getRate("count", CndMetrics.NANOS_SUFFIX), 0); //$NON-NLS-1$
+        this.metrics.add("count", 10); //$NON-NLS-1$
+        this.metrics.add("time.nanos", 500000000L); //$NON-NLS-1$
+        assertEquals(20, this.metrics.getRate("count", "time.nanos"), 0); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    @Test
+    public void shouldRecordImportMetrics() {
+        final Collection<Throwable> problems = new ArrayList<Throwable>();
+        new CndImporter().importFrom("<ns = 'http://ns'> [ns:type] - ns:prop", problems, "test"); //$NON-NLS-1$ //$NON-NLS-2$
+        assertTrue(problems.isEmpty());
+
+        final CndMetrics shared = CndMetrics.get();
+        assertEquals(1, shared.getValue(CndMetrics.IMPORT_COUNT));
+        assertEquals(0, shared.getValue(CndMetrics.IMPORT_ERRORS));
+        assertTrue(shared.getValue(CndMetrics.IMPORT_TOKENS) > 0);
+        assertTrue(shared.getValue(CndMetrics.IMPORT_CHARACTERS) > 0);
+        assertTrue(shared.getValue(CndMetrics.IMPORT_PARSE_NANOS) >= shared.getValue(CndMetrics.IMPORT_TOKENIZE_NANOS));
+    }
+
+    @Test
+    public void shouldRecordImportErrors() {
+        new CndImporter().importFrom("bogus", new ArrayList<Throwable>(), "test"); //$NON-NLS-1$ //$NON-NLS-2$
+        assertEquals(1, CndMetrics.get().getValue(CndMetrics.IMPORT_ERRORS));
+    }
+
+    @Test
+    public void shouldRecordValidationMetrics() {
+        final CompactNodeTypeDefinition cnd = new CndImporter().importFrom("[type] - prop", new ArrayList<Throwable>(), "test"); //$NON-NLS-1$ //$NON-NLS-2$
+        CndValidator.validateCnd(cnd);
+        assertEquals(1, CndMetrics.get().getValue(CndMetrics.VALIDATE_COUNT));
+        assertTrue(CndMetrics.get().getValues().containsKey(CndMetrics.VALIDATE_PROPERTIES_NANOS));
+    }
+
+    @Test
+    public void shouldResetValues() {
+        this.metrics.increment("a"); //$NON-NLS-1$
+        this.metrics.reset();
+        assertTrue(this.metrics.getValues().isEmpty());
+    }
+}
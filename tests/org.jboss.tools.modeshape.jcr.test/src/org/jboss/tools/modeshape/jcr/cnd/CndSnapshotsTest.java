@@ -0,0 +1,174 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ *
+ * See the LEGAL.txt file distributed with this work for information regarding copyright ownership and licensing.
+ *
+ * See the AUTHORS.txt file distributed with this work for a full listing of individual contributors.
+ */
+package org.jboss.tools.modeshape.jcr.cnd;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import org.jboss.tools.modeshape.jcr.NamespaceMapping;
+import org.jboss.tools.modeshape.jcr.NodeTypeDefinition;
+import org.jboss.tools.modeshape.jcr.PropertyDefinition;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ */
+public class CndSnapshotsTest {
+
+    private CompactNodeTypeDefinition cnd;
+    private NodeTypeDefinition base;
+    private NodeTypeDefinition derived;
+    private CndSnapshots snapshots;
+
+    @After
+    public void afterEach() {
+        this.snapshots.dispose();
+    }
+
+    @Before
+    public void beforeEach() {
+        this.cnd = new CompactNodeTypeDefinition();
+        this.cnd.addNamespaceMapping(new NamespaceMapping("a", "http://a")); //$NON-NLS-1$ //$NON-NLS-2$
+
+        this.base = new NodeTypeDefinition();
+        this.base.setName("a:base"); //$NON-NLS-1$
+        this.cnd.addNodeTypeDefinition(this.base);
+
+        this.derived = new NodeTypeDefinition();
+        this.derived.setName("a:derived"); //$NON-NLS-1$
+        this.derived.addSuperType("a:base"); //$NON-NLS-1$
+        this.cnd.addNodeTypeDefinition(this.derived);
+
+        this.snapshots = new CndSnapshots(this.cnd);
+    }
+
+    @Test
+    public void shouldCopyAddedNodeTypeAndDropRemovedNodeType() {
+        this.snapshots.take();
+
+        final NodeTypeDefinition added = new NodeTypeDefinition();
+        added.setName("a:added"); //$NON-NLS-1$
+        this.cnd.addNodeTypeDefinition(added);
+        this.cnd.removeNodeTypeDefinition(this.base);
+
+        final CompactNodeTypeDefinition snapshot = this.snapshots.take();
+        assertEquals(this.cnd, snapshot);
+        assertEquals(2, snapshot.getNodeTypeDefinitions().size());
+        assertNotSame(added, snapshot.getNodeTypeDefinitions().get(1));
+
+        // an added node type is listened to
+        added.setComment("added comment"); //$NON-NLS-1$
+        assertEquals(this.cnd, this.snapshots.take());
+    }
+
+    @Test
+    public void shouldCopyChangedNodeTypeAgain() {
+        final CompactNodeTypeDefinition first = this.snapshots.take();
+        this.base.setComment("changed comment"); //$NON-NLS-1$
+
+        final CompactNodeTypeDefinition second = this.snapshots.take();
+        assertEquals(this.cnd, second);
+        assertNotSame(first.getNodeTypeDefinitions().get(0), second.getNodeTypeDefinitions().get(0));
+        assertSame(first.getNodeTypeDefinitions().get(1), second.getNodeTypeDefinitions().get(1));
+    }
+
+    @Test
+    public void shouldCopyNodeTypeWhoseItemsChanged() {
+        this.snapshots.take();
+
+        final PropertyDefinition propDefn = new PropertyDefinition(this.derived);
+        propDefn.setName("a:prop"); //$NON-NLS-1$
+        this.derived.addPropertyDefinition(propDefn);
+
+        final CompactNodeTypeDefinition snapshot = this.snapshots.take();
+        assertEquals(this.cnd, snapshot);
+        assertEquals(1, snapshot.getNodeTypeDefinitions().get(1).getPropertyDefinitions().size());
+    }
+
+    @Test
+    public void shouldCopyReaddedNodeTypeAgain() {
+        this.snapshots.take();
+        this.cnd.removeNodeTypeDefinition(this.base);
+
+        // as when an undo adds back a node type that changed while it was removed
+        this.base.setComment("changed while removed"); //$NON-NLS-1$
+        this.cnd.addNodeTypeDefinition(this.base);
+
+        assertEquals(this.cnd, this.snapshots.take());
+    }
+
+    @Test
+    public void shouldCreateIndexesAgainAfterRelease() {
+        final CompactNodeTypeDefinition snapshot = this.snapshots.take();
+        final SuperTypeGraph graph = snapshot.getSuperTypeGraph();
+        CndSnapshots.release(snapshot);
+
+        assertNotSame(graph, snapshot.getSuperTypeGraph());
+        CndSnapshots.release(snapshot);
+    }
+
+    @Test
+    public void shouldNotChangeSnapshotWhenCndChanges() {
+        final CompactNodeTypeDefinition snapshot = this.snapshots.take();
+        this.base.setComment("changed comment"); //$NON-NLS-1$
+        this.cnd.addNamespaceMapping(new NamespaceMapping("b", "http://b")); //$NON-NLS-1$ //$NON-NLS-2$
+        this.cnd.removeNodeTypeDefinition(this.derived);
+
+        assertFalse(this.cnd.equals(snapshot));
+        assertEquals(1, snapshot.getNamespaceMappings().size());
+        assertEquals(2, snapshot.getNodeTypeDefinitions().size());
+        assertNull(snapshot.getNodeTypeDefinitions().get(0).getComment());
+    }
+
+    @Test
+    public void shouldReuseCopiesOfUnchangedNodeTypes() {
+        final CompactNodeTypeDefinition first = this.snapshots.take();
+        final CompactNodeTypeDefinition second = this.snapshots.take();
+
+        assertNotSame(first, second);
+        assertEquals(this.cnd, second);
+        assertNotSame(this.base, first.getNodeTypeDefinitions().get(0));
+        assertSame(first.getNodeTypeDefinitions().get(0), second.getNodeTypeDefinitions().get(0));
+        assertSame(first.getNodeTypeDefinitions().get(1), second.getNodeTypeDefinitions().get(1));
+    }
+
+    @Test
+    public void shouldValidateSnapshotsOfTestDataLikeTheirCnds() throws Exception {
+        for (final File file : new File("testdata").listFiles()) { //$NON-NLS-1$
+            if (!file.getName().endsWith(".cnd")) { //$NON-NLS-1$
+                continue;
+            }
+
+            final CompactNodeTypeDefinition testCnd = new CndImporter().importFrom(file, new ArrayList<Throwable>());
+
+            if (testCnd == null) {
+                continue;
+            }
+
+            final CndSnapshots testSnapshots = new CndSnapshots(testCnd);
+
+            try {
+                final CompactNodeTypeDefinition snapshot = testSnapshots.take();
+                assertEquals(testCnd, snapshot);
+
+                final List<?> expected = CndValidator.validateCnd(testCnd).getAll();
+                assertEquals(expected, CndValidator.validateCnd(snapshot).getAll());
+                CndSnapshots.release(snapshot);
+            } finally {
+                testSnapshots.dispose();
+            }
+        }
+    }
+}
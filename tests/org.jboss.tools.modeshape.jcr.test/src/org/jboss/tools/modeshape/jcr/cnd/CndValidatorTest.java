@@ -9,6 +9,9 @@ package org.jboss.tools.modeshape.jcr.cnd;
 
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.jboss.tools.modeshape.jcr.ChildNodeDefinition;
 import org.jboss.tools.modeshape.jcr.ItemDefinition;
 import org.jboss.tools.modeshape.jcr.NamespaceMapping;
@@ -166,6 +169,28 @@ public class CndValidatorTest {
         assertTrue("Code is " + status.getCode(), status.containsCode(StatusCodes.NAME_QUALIFIER_NOT_FOUND)); //$NON-NLS-1$
     }
 
+    @Test
+    public void defaultValueNotSatisfyingAnyValueConstraintShouldBeAnError() {
+        // setup
+        this.propertyDefinition.setName("name"); //$NON-NLS-1$
+        this.propertyDefinition.setType(PropertyType.LONG);
+        this.propertyDefinition.addValueConstraint("[0,10)"); //$NON-NLS-1$
+        this.propertyDefinition.addValueConstraint("[100,]"); //$NON-NLS-1$
+        this.propertyDefinition.addDefaultValue("10"); //$NON-NLS-1$
+        ValidationStatus status = CndValidator.validateDefaultValues(this.propertyDefinition, null);
+
+        // tests
+        assertTrue(status.isError());
+        assertTrue("Code is " + status.getCode(), //$NON-NLS-1$
+                   status.containsCode(StatusCodes.DEFAULT_VALUE_DOES_NOT_SATISFY_VALUE_CONSTRAINTS));
+
+        // satisfies second constraint
+        this.propertyDefinition.removeDefaultValue("10"); //$NON-NLS-1$
+        this.propertyDefinition.addDefaultValue("100"); //$NON-NLS-1$
+        status = CndValidator.validateDefaultValues(this.propertyDefinition, null);
+        assertFalse(status.isError());
+    }
+
     @Test
     public void defaultValueWithInvalidQualifierShouldBeAnError() {
         // setup
@@ -228,6 +253,20 @@ public class CndValidatorTest {
         assertTrue("Code is " + status.getCode(), status.containsCode(StatusCodes.EMPTY_VALUE_CONSTRAINT)); //$NON-NLS-1$
     }
 
+    @Test
+    public void invalidValueConstraintSyntaxShouldBeAnError() {
+        // setup
+        this.propertyDefinition.setName("name"); //$NON-NLS-1$
+        this.propertyDefinition.setType(PropertyType.DOUBLE);
+        this.propertyDefinition.addValueConstraint("[1.5,abc]"); //$NON-NLS-1$
+        final ValidationStatus status = CndValidator.validateValueConstraints(this.propertyDefinition);
+
+        // tests
+        assertTrue(status.isError());
+        assertTrue("Code is " + status.getCode(), status.containsCode(StatusCodes.INVALID_VALUE_CONSTRAINT)); //$NON-NLS-1$
+        assertTrue(CndValidator.validateValueConstraint("[1.5,2.5)", PropertyType.DOUBLE).isOk()); //$NON-NLS-1$
+    }
+
     @Test
     public void invalidQualifiedNameQualifierShouldBeAnError() {
         // setup
@@ -340,6 +379,24 @@ public class CndValidatorTest {
         assertTrue("Code is " + status.getCode(), status.containsCode(StatusCodes.SUPER_TYPE_NOT_A_MIXIN)); //$NON-NLS-1$
     }
 
+    @Test
+    public void nodeTypeDefinitionCannotBeAnIndirectSupertypeOfItself() {
+        // setup
+        this.nodeTypeDefinition.setName(Constants.QUALIFIED_NAME1.get());
+
+        final NodeTypeDefinition superType = new NodeTypeDefinition();
+        superType.setName(Constants.QUALIFIED_NAME2.get());
+        superType.addSuperType(this.nodeTypeDefinition.getName());
+        this.cnd.addNodeTypeDefinition(superType);
+        this.nodeTypeDefinition.addSuperType(superType.getName());
+
+        final ValidationStatus status = CndValidator.validateNodeTypeDefinition(this.nodeTypeDefinition, this.cnd, false);
+
+        // tests
+        assertTrue(status.isError());
+        assertTrue("Code is " + status.getCode(), status.containsCode(StatusCodes.SUPER_TYPE_CYCLE)); //$NON-NLS-1$
+    }
+
     @Test
     public void nodeTypeDefinitionCannotHaveItselfAsASupertype() {
         this.nodeTypeDefinition.setName(Constants.QUALIFIED_NAME1.get());
@@ -455,6 +512,16 @@ public class CndValidatorTest {
         assertTrue("Code is " + status.getCode(), status.containsCode(StatusCodes.NAME_QUALIFIER_NOT_FOUND)); //$NON-NLS-1$
     }
 
+    @Test( expected = OperationCanceledException.class )
+    public void nodeTypeValidationShouldStopWhenCanceled() {
+        // setup
+        final IProgressMonitor monitor = new NullProgressMonitor();
+        monitor.setCanceled(true);
+
+        // tests
+        CndValidator.validateNodeTypeDefinitions(this.cnd, true, monitor);
+    }
+
     @Test
     public void nullQueryOperatorShouldBeAnError() {
         // setup
@@ -0,0 +1,174 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ *
+ * See the LEGAL.txt file distributed with this work for information regarding copyright ownership and licensing.
+ *
+ * See the AUTHORS.txt file distributed with this work for a full listing of individual contributors.
+ */
+package org.jboss.tools.modeshape.jcr.cnd;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.jboss.tools.modeshape.jcr.ChildNodeDefinition;
+import org.jboss.tools.modeshape.jcr.NodeTypeDefinition;
+import org.jboss.tools.modeshape.jcr.PropertyDefinition;
+import org.jboss.tools.modeshape.jcr.QualifiedName;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ */
+public class QualifiedNameIndexTest {
+
+    private CompactNodeTypeDefinition cnd;
+    private QualifiedNameIndex index;
+
+    @After
+    public void afterEach() {
+        this.index.dispose();
+    }
+
+    @Before
+    public void beforeEach() {
+        this.cnd = new CompactNodeTypeDefinition();
+        this.index = new QualifiedNameIndex(this.cnd);
+    }
+
+    private NodeTypeDefinition addNodeType( final String name ) {
+        final NodeTypeDefinition nodeType = new NodeTypeDefinition();
+        nodeType.setName(name);
+        this.cnd.addNodeTypeDefinition(nodeType);
+        return nodeType;
+    }
+
+    private List<String> names( final List<QualifiedName> qnames ) {
+        final List<String> names = new ArrayList<String>(qnames.size());
+
+        for (final QualifiedName qname : qnames) {
+            names.add(qname.getUnqualifiedName());
+        }
+
+        return names;
+    }
+
+    @Test
+    public void shouldFindAllNamesWithQualifierWhenPatternIsEmpty() {
+        addNodeType("a:one"); //$NON-NLS-1$
+        addNodeType("a:two"); //$NON-NLS-1$
+        addNodeType("b:three"); //$NON-NLS-1$
+        assertEquals(Arrays.asList("one", "two"), names(this.index.findNodeTypeNames("a", null))); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    }
+
+    @Test
+    public void shouldFindBuiltInNodeTypeNames() {
+        final List<String> names = names(this.index.findNodeTypeNames("nt", "f")); //$NON-NLS-1$ //$NON-NLS-2$
+        assertTrue(names.contains("file")); //$NON-NLS-1$
+        assertTrue(names.contains("folder")); //$NON-NLS-1$
+    }
+
+    @Test
+    public void shouldFindCamelCaseMatches() {
+        addNodeType("a:nodeType"); //$NON-NLS-1$
+        addNodeType("a:nodeTypeTemplate"); //$NON-NLS-1$
+        addNodeType("a:nameTable"); //$NON-NLS-1$
+        addNodeType("a:noTable"); //$NON-NLS-1$
+
+        assertEquals(Arrays.asList("nodeType", "nodeTypeTemplate"), //$NON-NLS-1$ //$NON-NLS-2$
+                     names(this.index.findNodeTypeNames("a", "noTy"))); //$NON-NLS-1$ //$NON-NLS-2$
+        assertEquals(Arrays.asList("nodeTypeTemplate"), names(this.index.findNodeTypeNames("a", "nTT"))); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        assertEquals(Arrays.asList("noTable", "nodeType", "nameTable", "nodeTypeTemplate"), //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+                     names(this.index.findNodeTypeNames("a", "nT"))); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    @Test
+    public void shouldIndexItemsOfAddedNodeTypes() {
+        final NodeTypeDefinition nodeType = new NodeTypeDefinition();
+        nodeType.setName("a:nodeType"); //$NON-NLS-1$
+        final PropertyDefinition propDefn = new PropertyDefinition(nodeType);
+        propDefn.setName("a:prop"); //$NON-NLS-1$
+        nodeType.addPropertyDefinition(propDefn);
+        this.cnd.addNodeTypeDefinition(nodeType);
+
+        final ChildNodeDefinition childNodeDefn = new ChildNodeDefinition(nodeType);
+        childNodeDefn.setName("a:child"); //$NON-NLS-1$
+        nodeType.addChildNodeDefinition(childNodeDefn);
+
+        assertEquals(Arrays.asList("prop"), names(this.index.findPropertyNames("a", "p"))); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        assertEquals(Arrays.asList("child"), names(this.index.findChildNodeNames("a", "c"))); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+        nodeType.removePropertyDefinition(propDefn);
+        assertTrue(this.index.findPropertyNames("a", "p").isEmpty()); //$NON-NLS-1$ //$NON-NLS-2$
+
+        this.cnd.removeNodeTypeDefinition(nodeType);
+        assertTrue(this.index.findChildNodeNames("a", "c").isEmpty()); //$NON-NLS-1$ //$NON-NLS-2$
+        assertTrue(this.index.findNodeTypeNames("a", "n").isEmpty()); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    @Test
+    public void shouldKeepNameUntilAllNodeTypesWithThatNameAreRemoved() {
+        final NodeTypeDefinition first = addNodeType("a:same"); //$NON-NLS-1$
+        final NodeTypeDefinition second = addNodeType("a:same"); //$NON-NLS-1$
+        assertEquals(1, this.index.findNodeTypeNames("a", "s").size()); //$NON-NLS-1$ //$NON-NLS-2$
+
+        this.cnd.removeNodeTypeDefinition(first);
+        assertEquals(1, this.index.findNodeTypeNames("a", "s").size()); //$NON-NLS-1$ //$NON-NLS-2$
+
+        this.cnd.removeNodeTypeDefinition(second);
+        assertTrue(this.index.findNodeTypeNames("a", "s").isEmpty()); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    @Test
+    public void shouldRankPrefixMatchesBeforeCaseInsensitiveMatches() {
+        addNodeType("a:Resource"); //$NON-NLS-1$
+        addNodeType("a:reservedName"); //$NON-NLS-1$
+        addNodeType("a:res"); //$NON-NLS-1$
+        addNodeType("a:other"); //$NON-NLS-1$
+
+        assertEquals(Arrays.asList("res", "reservedName", "Resource"), //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+                     names(this.index.findNodeTypeNames("a", "res"))); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    @Test
+    public void shouldReplaceExternalNodeTypeNames() {
+        this.index.setExternalNodeTypeNames(Arrays.asList("a:external", "a:other")); //$NON-NLS-1$ //$NON-NLS-2$
+        assertEquals(2, this.index.findNodeTypeNames("a", null).size()); //$NON-NLS-1$
+
+        this.index.setExternalNodeTypeNames(null);
+        assertTrue(this.index.findNodeTypeNames("a", null).isEmpty()); //$NON-NLS-1$
+    }
+
+    @Test
+    public void shouldUpdateRenamedNodeType() {
+        final NodeTypeDefinition nodeType = addNodeType("a:before"); //$NON-NLS-1$
+        nodeType.setName("b:after"); //$NON-NLS-1$
+
+        assertTrue(this.index.findNodeTypeNames("a", null).isEmpty()); //$NON-NLS-1$
+        assertEquals(Arrays.asList("after"), names(this.index.findNodeTypeNames("b", "AF"))); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    }
+
+    @Test
+    public void shouldStopIndexingAfterClearAndDispose() {
+        final NodeTypeDefinition nodeType = addNodeType("a:one"); //$NON-NLS-1$
+        this.cnd.clearNodeTypeDefinitions();
+        nodeType.setName("a:two"); //$NON-NLS-1$
+        assertTrue(this.index.findNodeTypeNames("a", null).isEmpty()); //$NON-NLS-1$
+
+        this.index.dispose();
+        addNodeType("a:three"); //$NON-NLS-1$
+        assertTrue(this.index.findNodeTypeNames("a", null).isEmpty()); //$NON-NLS-1$
+    }
+
+    @Test
+    public void shouldMatchHumps() {
+        assertTrue(QualifiedNameIndex.matchesHumps("NoTy", "nodeType")); //$NON-NLS-1$ //$NON-NLS-2$
+        assertFalse(QualifiedNameIndex.matchesHumps("NoTyp", "nodeTy")); //$NON-NLS-1$ //$NON-NLS-2$
+        assertFalse(QualifiedNameIndex.matchesHumps("nTT", "nodeType")); //$NON-NLS-1$ //$NON-NLS-2$
+        assertEquals("ntt", QualifiedNameIndex.humps("nodeTypeTemplate")); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ *
+ * See the LEGAL.txt file distributed with this work for information regarding copyright ownership and licensing.
+ *
+ * See the AUTHORS.txt file distributed with this work for a full listing of individual contributors.
+ */
+package org.jboss.tools.modeshape.jcr.cnd;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import java.util.Collections;
+import java.util.List;
+import org.jboss.tools.modeshape.jcr.NodeTypeDefinition;
+import org.jboss.tools.modeshape.jcr.PropertyDefinition;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ */
+public class SuperTypeGraphTest {
+
+    private CompactNodeTypeDefinition cnd;
+    private SuperTypeGraph graph;
+
+    private NodeTypeDefinition addNodeType( final String name,
+                                            final String... superTypes ) {
+        final NodeTypeDefinition nodeType = new NodeTypeDefinition();
+        nodeType.setName(name);
+
+        for (final String superType : superTypes) {
+            nodeType.addSuperType(superType);
+        }
+
+        this.cnd.addNodeTypeDefinition(nodeType);
+        return nodeType;
+    }
+
+    @Before
+    public void beforeEach() {
+        this.cnd = new CompactNodeTypeDefinition();
+        this.graph = this.cnd.getSuperTypeGraph();
+    }
+
+    @Test
+    public void shouldFindBuiltInAncestors() {
+        addNodeType("a", "nt:file"); //$NON-NLS-1$ //$NON-NLS-2$
+        final List<String> ancestors = this.graph.getAncestors("a"); //$NON-NLS-1$
+
+        assertEquals(3, ancestors.size());
+        assertTrue(ancestors.contains("nt:hierarchyNode")); //$NON-NLS-1$
+        assertTrue(ancestors.contains("mix:created")); //$NON-NLS-1$
+        assertTrue(this.graph.isSubtypeOf("a", "mix:created")); //$NON-NLS-1$ //$NON-NLS-2$
+        assertTrue(this.graph.isSubtypeOf("nt:folder", "mix:created")); //$NON-NLS-1$ //$NON-NLS-2$
+        assertFalse(this.graph.isSubtypeOf("mix:created", "a")); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    @Test
+    public void shouldFindExternalAncestors() {
+        final NodeTypeDefinition mixin = new NodeTypeDefinition();
+        mixin.setName("ext:mixin"); //$NON-NLS-1$
+        mixin.setMixin(true);
+        mixin.addSuperType("mix:created"); //$NON-NLS-1$
+
+        addNodeType("a", "ext:mixin"); //$NON-NLS-1$ //$NON-NLS-2$
+        assertFalse(this.graph.isSubtypeOf("a", "mix:created")); //$NON-NLS-1$ //$NON-NLS-2$
+
+        this.graph.setExternalNodeTypeDefinitions(Collections.singletonList(mixin));
+        assertSame(mixin, this.graph.getNodeTypeDefinition("ext:mixin")); //$NON-NLS-1$
+        assertTrue(this.graph.isSubtypeOf("a", "mix:created")); //$NON-NLS-1$ //$NON-NLS-2$
+
+        // CND node types hide external node types
+        final NodeTypeDefinition local = addNodeType("ext:mixin"); //$NON-NLS-1$
+        assertSame(local, this.graph.getNodeTypeDefinition("ext:mixin")); //$NON-NLS-1$
+        assertFalse(this.graph.isSubtypeOf("a", "mix:created")); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    @Test
+    public void shouldFindIndirectAncestors() {
+        addNodeType("a", "b", "c"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        addNodeType("b", "d"); //$NON-NLS-1$ //$NON-NLS-2$
+        addNodeType("c", "d"); //$NON-NLS-1$ //$NON-NLS-2$
+        addNodeType("d"); //$NON-NLS-1$
+
+        assertEquals(3, this.graph.getAncestors("a").size()); //$NON-NLS-1$
+        assertTrue(this.graph.isSubtypeOf("a", "d")); //$NON-NLS-1$ //$NON-NLS-2$
+        assertFalse(this.graph.isSubtypeOf("b", "c")); //$NON-NLS-1$ //$NON-NLS-2$
+        assertFalse(this.graph.isInCycle("a")); //$NON-NLS-1$
+        assertTrue(this.graph.getAncestors("d").isEmpty()); //$NON-NLS-1$
+    }
+
+    @Test
+    public void shouldFindCycleMembers() {
+        addNodeType("a", "b"); //$NON-NLS-1$ //$NON-NLS-2$
+        addNodeType("b", "c"); //$NON-NLS-1$ //$NON-NLS-2$
+        addNodeType("c", "a"); //$NON-NLS-1$ //$NON-NLS-2$
+        addNodeType("d", "a"); //$NON-NLS-1$ //$NON-NLS-2$
+
+        assertTrue(this.graph.isInCycle("a")); //$NON-NLS-1$
+        assertEquals(3, this.graph.getCycleMembers("b").size()); //$NON-NLS-1$
+        assertTrue(this.graph.getCycleMembers("d").isEmpty()); //$NON-NLS-1$
+        assertTrue(this.graph.isSubtypeOf("d", "c")); //$NON-NLS-1$ //$NON-NLS-2$
+        assertTrue(this.graph.isSubtypeOf("a", "a")); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    @Test
+    public void shouldHandleDeepHierarchies() {
+        final int depth = 10000;
+        addNodeType("type0"); //$NON-NLS-1$
+
+        for (int i = 1; i < depth; ++i) {
+            addNodeType("type" + i, "type" + (i - 1)); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+
+        assertEquals(depth - 1, this.graph.getAncestors("type" + (depth - 1)).size()); //$NON-NLS-1$
+        assertTrue(this.graph.isSubtypeOf("type" + (depth - 1), "type0")); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    @Test
+    public void shouldNotLoopWhenCollectingInheritedItemsOfCyclicHierarchy() throws Exception {
+        final NodeTypeDefinition a = addNodeType("a", "b"); //$NON-NLS-1$ //$NON-NLS-2$
+        final NodeTypeDefinition b = addNodeType("b", "a"); //$NON-NLS-1$ //$NON-NLS-2$
+
+        final PropertyDefinition propA = new PropertyDefinition(a);
+        propA.setName("propA"); //$NON-NLS-1$
+        a.addPropertyDefinition(propA);
+
+        final PropertyDefinition propB = new PropertyDefinition(b);
+        propB.setName("propB"); //$NON-NLS-1$
+        b.addPropertyDefinition(propB);
+
+        assertEquals(2, this.cnd.getPropertyDefinitions("a", true).size()); //$NON-NLS-1$
+    }
+
+    @Test
+    public void shouldPreferCndNodeTypesOverBuiltIns() {
+        final NodeTypeDefinition base = addNodeType("nt:base"); //$NON-NLS-1$
+        assertSame(base, this.graph.getNodeTypeDefinition("nt:base")); //$NON-NLS-1$
+        assertNotNull(this.graph.getNodeTypeDefinition("nt:file")); //$NON-NLS-1$
+    }
+
+    @Test
+    public void shouldUpdateWhenNodeTypesAreRemoved() {
+        addNodeType("a", "b"); //$NON-NLS-1$ //$NON-NLS-2$
+        final NodeTypeDefinition b = addNodeType("b", "a"); //$NON-NLS-1$ //$NON-NLS-2$
+        assertTrue(this.graph.isInCycle("a")); //$NON-NLS-1$
+
+        this.cnd.removeNodeTypeDefinition(b);
+        assertFalse(this.graph.isInCycle("a")); //$NON-NLS-1$
+        assertTrue(this.graph.getAncestors("a").isEmpty()); //$NON-NLS-1$
+
+        // no longer affects graph
+        b.setName("c"); //$NON-NLS-1$
+        b.addSuperType("a"); //$NON-NLS-1$
+        assertFalse(this.graph.isInCycle("a")); //$NON-NLS-1$
+    }
+
+    @Test
+    public void shouldUpdateWhenSuperTypesChange() {
+        final NodeTypeDefinition a = addNodeType("a"); //$NON-NLS-1$
+        addNodeType("b", "a"); //$NON-NLS-1$ //$NON-NLS-2$
+        assertFalse(this.graph.isInCycle("a")); //$NON-NLS-1$
+
+        a.addSuperType("b"); //$NON-NLS-1$
+        assertTrue(this.graph.isInCycle("a")); //$NON-NLS-1$
+
+        a.removeSuperType("b"); //$NON-NLS-1$
+        assertFalse(this.graph.isInCycle("a")); //$NON-NLS-1$
+
+        a.setName("c"); //$NON-NLS-1$
+        assertFalse(this.graph.isSubtypeOf("b", "c")); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+}
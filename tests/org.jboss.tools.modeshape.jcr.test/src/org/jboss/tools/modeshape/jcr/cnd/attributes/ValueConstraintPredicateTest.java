@@ -0,0 +1,113 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ *
+ * See the LEGAL.txt file distributed with this work for information regarding copyright ownership and licensing.
+ *
+ * See the AUTHORS.txt file distributed with this work for a full listing of individual contributors.
+ */
+package org.jboss.tools.modeshape.jcr.cnd.attributes;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import java.util.List;
+import org.jboss.tools.modeshape.jcr.attributes.PropertyType;
+import org.jboss.tools.modeshape.jcr.attributes.ValueConstraintPredicate;
+import org.jboss.tools.modeshape.jcr.attributes.ValueConstraints;
+import org.junit.Test;
+
+/**
+ *
+ */
+public class ValueConstraintPredicateTest {
+
+    @Test
+    public void binaryRangeShouldConstrainLength() {
+        final ValueConstraintPredicate predicate = ValueConstraintPredicate.compile("[2,4]", PropertyType.BINARY); //$NON-NLS-1$
+        assertFalse(predicate.accepts("a")); //$NON-NLS-1$
+        assertTrue(predicate.accepts("abcd")); //$NON-NLS-1$
+    }
+
+    @Test
+    public void booleanConstraintShouldMatchIgnoringCase() {
+        final ValueConstraintPredicate predicate = ValueConstraintPredicate.compile("true", PropertyType.BOOLEAN); //$NON-NLS-1$
+        assertTrue(predicate.accepts("TRUE")); //$NON-NLS-1$
+        assertFalse(predicate.accepts("false")); //$NON-NLS-1$
+    }
+
+    @Test
+    public void dateRangeShouldAcceptDatesInRange() {
+        final ValueConstraintPredicate predicate = ValueConstraintPredicate.compile("[2012-01-01,2012-12-31T23:59:59Z]", //$NON-NLS-1$
+                                                                                   PropertyType.DATE);
+        assertTrue(predicate.accepts("2012-06-15T12:00:00.000-05:00")); //$NON-NLS-1$
+        assertTrue(predicate.accepts("2012-01-01")); //$NON-NLS-1$
+        assertFalse(predicate.accepts("2013-01-01")); //$NON-NLS-1$
+        assertFalse(predicate.accepts("notADate")); //$NON-NLS-1$
+    }
+
+    @Test
+    public void numericRangeShouldHonorInclusiveAndExclusiveBounds() {
+        final ValueConstraintPredicate predicate = ValueConstraintPredicate.compile("(0,10]", PropertyType.LONG); //$NON-NLS-1$
+        assertFalse(predicate.accepts("0")); //$NON-NLS-1$
+        assertTrue(predicate.accepts("1")); //$NON-NLS-1$
+        assertTrue(predicate.accepts("10")); //$NON-NLS-1$
+        assertFalse(predicate.accepts("11")); //$NON-NLS-1$
+        assertFalse(predicate.accepts("notANumber")); //$NON-NLS-1$
+    }
+
+    @Test
+    public void numericRangeShouldAllowMissingBounds() {
+        assertTrue(ValueConstraintPredicate.compile("[,0)", PropertyType.DECIMAL).accepts("-1000.5")); //$NON-NLS-1$ //$NON-NLS-2$
+        assertTrue(ValueConstraintPredicate.compile("[1.5,]", PropertyType.DOUBLE).accepts("1.5")); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    @Test
+    public void pathConstraintShouldMatchDescendants() {
+        final ValueConstraintPredicate predicate = ValueConstraintPredicate.compile("/a/b/*", PropertyType.PATH); //$NON-NLS-1$
+        assertTrue(predicate.accepts("/a/b")); //$NON-NLS-1$
+        assertTrue(predicate.accepts("/a/b/c/d")); //$NON-NLS-1$
+        assertFalse(predicate.accepts("/a/bc")); //$NON-NLS-1$
+        assertFalse(ValueConstraintPredicate.compile("/a/b", PropertyType.PATH).accepts("/a/b/c")); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    @Test
+    public void referenceConstraintShouldAcceptAllValues() {
+        assertTrue(ValueConstraintPredicate.compile("nt:base", PropertyType.REFERENCE).accepts("anything")); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    @Test
+    public void stringConstraintShouldMatchWholeValue() {
+        final ValueConstraintPredicate predicate = ValueConstraintPredicate.compile("ab+c", PropertyType.STRING); //$NON-NLS-1$
+        assertTrue(predicate.accepts("abbbc")); //$NON-NLS-1$
+        assertFalse(predicate.accepts("xabcx")); //$NON-NLS-1$
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void shouldNotCompileInvalidRange() {
+        ValueConstraintPredicate.compile("1,10", PropertyType.LONG); //$NON-NLS-1$
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void shouldNotCompileInvalidRegularExpression() {
+        ValueConstraintPredicate.compile("[a-", PropertyType.STRING); //$NON-NLS-1$
+    }
+
+    @Test
+    public void valueConstraintsShouldCacheCompiledPredicates() {
+        final ValueConstraints constraints = new ValueConstraints();
+        constraints.add("[0,10]"); //$NON-NLS-1$
+        constraints.add("bad"); //$NON-NLS-1$
+
+        final List<ValueConstraintPredicate> predicates = constraints.getPredicates(PropertyType.LONG);
+        assertEquals(1, predicates.size()); // invalid constraint skipped
+        assertSame(predicates, constraints.getPredicates(PropertyType.LONG));
+
+        constraints.add("[20,30]"); //$NON-NLS-1$
+        assertEquals(2, constraints.getPredicates(PropertyType.LONG).size());
+        assertEquals(3, constraints.getPredicates(PropertyType.STRING).size());
+
+        constraints.clear();
+        assertTrue(constraints.getPredicates(PropertyType.STRING).isEmpty());
+    }
+}
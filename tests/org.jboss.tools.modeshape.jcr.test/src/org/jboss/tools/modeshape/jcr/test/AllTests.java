@@ -7,9 +7,15 @@
  */
 package org.jboss.tools.modeshape.jcr.test;
 
+import org.jboss.tools.modeshape.jcr.JcrTransferCodecTest;
 import org.jboss.tools.modeshape.jcr.MultiValidationStatusTest;
+import org.jboss.tools.modeshape.jcr.ParallelRunnerTest;
 import org.jboss.tools.modeshape.jcr.cnd.ChildNodeDefinitionTest;
+import org.jboss.tools.modeshape.jcr.cnd.CndDependencyGraphTest;
+import org.jboss.tools.modeshape.jcr.cnd.CndHistoryTest;
 import org.jboss.tools.modeshape.jcr.cnd.CndImporterTest;
+import org.jboss.tools.modeshape.jcr.cnd.CndMetricsTest;
+import org.jboss.tools.modeshape.jcr.cnd.CndSnapshotsTest;
 import org.jboss.tools.modeshape.jcr.cnd.CndTokenizerTest;
 import org.jboss.tools.modeshape.jcr.cnd.CndValidatorTest;
 import org.jboss.tools.modeshape.jcr.cnd.CompactNodeTypeDefinitionTest;
@@ -17,7 +23,9 @@ import org.jboss.tools.modeshape.jcr.cnd.LocalNameTest;
 import org.jboss.tools.modeshape.jcr.cnd.NamespaceMappingTest;
 import org.jboss.tools.modeshape.jcr.cnd.NodeTypeDefinitionTest;
 import org.jboss.tools.modeshape.jcr.cnd.PropertyDefinitionTest;
+import org.jboss.tools.modeshape.jcr.cnd.QualifiedNameIndexTest;
 import org.jboss.tools.modeshape.jcr.cnd.QualifiedNameTest;
+import org.jboss.tools.modeshape.jcr.cnd.SuperTypeGraphTest;
 import org.jboss.tools.modeshape.jcr.cnd.WorkspaceRegistryTest;
 import org.jboss.tools.modeshape.jcr.cnd.attributes.AbstractTest;
 import org.jboss.tools.modeshape.jcr.cnd.attributes.AutocreatedTest;
@@ -40,6 +48,7 @@ import org.jboss.tools.modeshape.jcr.cnd.attributes.QueryableTest;
 import org.jboss.tools.modeshape.jcr.cnd.attributes.RequiredTypesTest;
 import org.jboss.tools.modeshape.jcr.cnd.attributes.SameNameSiblingsTest;
 import org.jboss.tools.modeshape.jcr.cnd.attributes.SuperTypesTest;
+import org.jboss.tools.modeshape.jcr.cnd.attributes.ValueConstraintPredicateTest;
 import org.jboss.tools.modeshape.jcr.cnd.attributes.ValueConstraintsTest;
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
@@ -50,16 +59,24 @@ import org.junit.runners.Suite;
 @RunWith(Suite.class)
 @Suite.SuiteClasses({ 
     ChildNodeDefinitionTest.class, 
+    CndDependencyGraphTest.class,
+    CndHistoryTest.class,
     CndImporterTest.class, 
+    CndMetricsTest.class,
+    CndSnapshotsTest.class,
     CndTokenizerTest.class, 
     CndValidatorTest.class,
     CompactNodeTypeDefinitionTest.class, 
+    JcrTransferCodecTest.class,
     LocalNameTest.class, 
     MultiValidationStatusTest.class,
     NamespaceMappingTest.class, 
     NodeTypeDefinitionTest.class,
+    ParallelRunnerTest.class,
     PropertyDefinitionTest.class,
+    QualifiedNameIndexTest.class,
     QualifiedNameTest.class, 
+    SuperTypeGraphTest.class,
     WorkspaceRegistryTest.class,
     AbstractTest.class, 
     AutocreatedTest.class, 
@@ -82,6 +99,7 @@ import org.junit.runners.Suite;
     RequiredTypesTest.class,
     SameNameSiblingsTest.class, 
     SuperTypesTest.class, 
+    ValueConstraintPredicateTest.class,
     ValueConstraintsTest.class })
 public class AllTests {
     // nothing to do
@@ -0,0 +1,112 @@
+/*
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.
+ *
+ * This software is made available by Red Hat, Inc. under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution and is
+ * available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * See the AUTHORS.txt file in the distribution for a full listing of
+ * individual contributors.
+ */
+package org.jboss.tools.modeshape.rest;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import org.jboss.tools.modeshape.rest.CircuitBreaker.State;
+import org.jboss.tools.modeshape.rest.domain.ModeShapeServer;
+import org.junit.Before;
+import org.junit.Test;
+
+public final class CircuitBreakerTest {
+
+    private static final int THRESHOLD = 3;
+
+    private ModeShapeServer server;
+
+    @Before
+    public void beforeEach() {
+        this.server = new ModeShapeServer("http://server", "user", "pswd", false); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    }
+
+    private void open( CircuitBreaker breaker ) {
+        for (int i = 1; i < THRESHOLD; ++i) {
+            assertThat(breaker.failed(this.server), is(false));
+        }
+
+        assertThat(breaker.failed(this.server), is(true));
+    }
+
+    @Test
+    public void shouldAllowOnlyOneProbeWhenHalfOpen() {
+        CircuitBreaker breaker = new CircuitBreaker(THRESHOLD, 0);
+        open(breaker);
+        assertThat(breaker.allowRequest(this.server), is(true));
+        assertThat(breaker.getState(this.server), is(State.HALF_OPEN));
+        assertThat(breaker.allowRequest(this.server), is(false));
+    }
+
+    @Test
+    public void shouldBeClosedInitially() {
+        CircuitBreaker breaker = new CircuitBreaker(THRESHOLD, 0);
+        assertThat(breaker.getState(this.server), is(State.CLOSED));
+        assertThat(breaker.allowRequest(this.server), is(true));
+    }
+
+    @Test
+    public void shouldCloseWhenProbeSucceeds() {
+        CircuitBreaker breaker = new CircuitBreaker(THRESHOLD, 0);
+        open(breaker);
+        breaker.allowRequest(this.server);
+        breaker.succeeded(this.server);
+        assertThat(breaker.getState(this.server), is(State.CLOSED));
+        assertThat(breaker.allowRequest(this.server), is(true));
+    }
+
+    @Test
+    public void shouldCloseWhenReset() {
+        CircuitBreaker breaker = new CircuitBreaker(THRESHOLD, 60000);
+        open(breaker);
+        breaker.reset(this.server);
+        assertThat(breaker.allowRequest(this.server), is(true));
+    }
+
+    @Test
+    public void shouldNotAllowRequestsWhenOpen() {
+        CircuitBreaker breaker = new CircuitBreaker(THRESHOLD, 60000);
+        open(breaker);
+        assertThat(breaker.getState(this.server), is(State.OPEN));
+        assertThat(breaker.allowRequest(this.server), is(false));
+    }
+
+    @Test
+    public void shouldNotOpenWhenFailuresAreNotConsecutive() {
+        CircuitBreaker breaker = new CircuitBreaker(THRESHOLD, 60000);
+
+        for (int i = 1; i < THRESHOLD; ++i) {
+            breaker.failed(this.server);
+        }
+
+        breaker.succeeded(this.server);
+        assertThat(breaker.failed(this.server), is(false));
+        assertThat(breaker.getState(this.server), is(State.CLOSED));
+    }
+
+    @Test
+    public void shouldReopenWhenProbeFails() {
+        CircuitBreaker breaker = new CircuitBreaker(THRESHOLD, 0);
+        open(breaker);
+        breaker.allowRequest(this.server);
+        assertThat(breaker.failed(this.server), is(true));
+        assertThat(breaker.getState(this.server), is(State.OPEN));
+    }
+
+    @Test
+    public void shouldTrackEachServerSeparately() {
+        CircuitBreaker breaker = new CircuitBreaker(THRESHOLD, 60000);
+        open(breaker);
+        ModeShapeServer other = new ModeShapeServer("http://other", "user", "pswd", false); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        assertThat(breaker.allowRequest(other), is(true));
+    }
+
+}
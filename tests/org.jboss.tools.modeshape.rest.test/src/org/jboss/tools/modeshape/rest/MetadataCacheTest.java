@@ -0,0 +1,127 @@
+/*
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.
+ *
+ * This software is made available by Red Hat, Inc. under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution and is
+ * available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * See the AUTHORS.txt file in the distribution for a full listing of
+ * individual contributors.
+ */
+package org.jboss.tools.modeshape.rest;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+public final class MetadataCacheTest {
+
+    private static final String KEY = "key"; //$NON-NLS-1$
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private final MetadataCache.Loader<Integer> loader = new MetadataCache.Loader<Integer>() {
+
+        @Override
+        public Integer load() {
+            return MetadataCacheTest.this.loads.incrementAndGet();
+        }
+    };
+
+    @Test
+    public void shouldCacheValueUntilItExpires() throws Exception {
+        MetadataCache<String, Integer> cache = new MetadataCache<String, Integer>(50);
+        assertThat(cache.get(KEY, this.loader), is(1));
+        assertThat(cache.get(KEY, this.loader), is(1));
+
+        Thread.sleep(100);
+        assertThat(cache.get(KEY, this.loader), is(2));
+    }
+
+    @Test
+    public void shouldLoadAgainAfterInvalidate() throws Exception {
+        MetadataCache<String, Integer> cache = new MetadataCache<String, Integer>(60000);
+        assertThat(cache.get(KEY, this.loader), is(1));
+
+        cache.invalidate(KEY);
+        assertThat(cache.getKeys().isEmpty(), is(true));
+        assertThat(cache.get(KEY, this.loader), is(2));
+    }
+
+    @Test
+    public void shouldLoadEveryTimeWhenTimeToLiveIsZero() throws Exception {
+        MetadataCache<String, Integer> cache = new MetadataCache<String, Integer>(0);
+        assertThat(cache.get(KEY, this.loader), is(1));
+        assertThat(cache.get(KEY, this.loader), is(2));
+    }
+
+    @Test
+    public void shouldNotCacheFailedLoad() throws Exception {
+        MetadataCache<String, Integer> cache = new MetadataCache<String, Integer>(60000);
+
+        try {
+            cache.get(KEY, new MetadataCache.Loader<Integer>() {
+
+                @Override
+                public Integer load() throws Exception {
+                    throw new IllegalStateException();
+                }
+            });
+            fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+
+        assertThat(cache.get(KEY, this.loader), is(1));
+    }
+
+    @Test
+    public void shouldShareConcurrentLoads() throws Exception {
+        final MetadataCache<String, Integer> cache = new MetadataCache<String, Integer>(0);
+        final CountDownLatch loading = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final MetadataCache.Loader<Integer> slowLoader = new MetadataCache.Loader<Integer>() {
+
+            @Override
+            public Integer load() throws Exception {
+                loading.countDown();
+                release.await();
+                return MetadataCacheTest.this.loads.incrementAndGet();
+            }
+        };
+        Callable<Integer> request = new Callable<Integer>() {
+
+            @Override
+            public Integer call() throws Exception {
+                return cache.get(KEY, slowLoader);
+            }
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            Future<Integer> first = executor.submit(request);
+            assertThat(loading.await(5, TimeUnit.SECONDS), is(true));
+            Future<Integer> second = executor.submit(request);
+
+            // give the second request time to find the load in progress
+            Thread.sleep(100);
+            release.countDown();
+
+            assertThat(first.get(5, TimeUnit.SECONDS), is(1));
+            assertThat(second.get(5, TimeUnit.SECONDS), is(1));
+            assertThat(this.loads.get(), is(1));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+}
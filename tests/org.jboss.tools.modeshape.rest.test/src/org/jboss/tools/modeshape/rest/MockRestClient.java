@@ -25,10 +25,16 @@ import org.modeshape.web.jcr.rest.client.domain.Server;
 import org.modeshape.web.jcr.rest.client.domain.Workspace;
 
 /**
- * The <code>MockRestClient</code> class is a test <code>IRestClient</code> implementation that does nothing.
+ * The <code>MockRestClient</code> class is a test <code>IRestClient</code> implementation that does nothing. It can be made
+ * {@link #setUnreachable(boolean) unreachable} so that requests for repositories, like the ones used to ping a server, fail.
  */
 public final class MockRestClient implements IRestClient {
 
+    /**
+     * Indicates if requests for repositories fail.
+     */
+    private volatile boolean unreachable;
+
     /**
      * {@inheritDoc}
      *
@@ -46,6 +52,10 @@ public final class MockRestClient implements IRestClient {
      */
     @Override
     public Collection<Repository> getRepositories( Server server ) throws Exception {
+        if (this.unreachable) {
+            throw new Exception("server unreachable"); //$NON-NLS-1$
+        }
+
         return null;
     }
 
@@ -99,6 +109,13 @@ public final class MockRestClient implements IRestClient {
         return null;
     }
 
+    /**
+     * @param newUnreachable <code>true</code> if requests for repositories should fail
+     */
+    public void setUnreachable( boolean newUnreachable ) {
+        this.unreachable = newUnreachable;
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -0,0 +1,116 @@
+/*
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.
+ *
+ * This software is made available by Red Hat, Inc. under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution and is
+ * available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * See the AUTHORS.txt file in the distribution for a full listing of
+ * individual contributors.
+ */
+package org.jboss.tools.modeshape.rest;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public final class PublishedContentManifestTest {
+
+    private File file;
+
+    @After
+    public void afterEach() {
+        this.file.delete();
+    }
+
+    @Before
+    public void beforeEach() throws Exception {
+        this.file = File.createTempFile("manifest", ".txt"); //$NON-NLS-1$ //$NON-NLS-2$
+        write("content"); //$NON-NLS-1$
+    }
+
+    private void write( String content ) throws IOException {
+        OutputStream output = new FileOutputStream(this.file);
+
+        try {
+            output.write(content.getBytes(StandardCharsets.UTF_8));
+        } finally {
+            output.close();
+        }
+    }
+
+    @Test
+    public void shouldBeChangedWhenContentChangesWithSameSize() throws Exception {
+        String fingerprint = PublishedContentManifest.fingerprint(this.file);
+        write("CONTENT"); //$NON-NLS-1$
+        this.file.setLastModified(this.file.lastModified() + 10000);
+        assertThat(PublishedContentManifest.isUnchanged(this.file, fingerprint), is(false));
+    }
+
+    @Test
+    public void shouldBeChangedWhenNeverPublished() throws Exception {
+        assertThat(PublishedContentManifest.isUnchanged(this.file, null), is(false));
+    }
+
+    @Test
+    public void shouldBeChangedWhenSizeChanges() throws Exception {
+        String fingerprint = PublishedContentManifest.fingerprint(this.file);
+        write("more content"); //$NON-NLS-1$
+        assertThat(PublishedContentManifest.isUnchanged(this.file, fingerprint), is(false));
+    }
+
+    @Test
+    public void shouldBeChangedWhenFingerprintIsInvalid() throws Exception {
+        assertThat(PublishedContentManifest.isUnchanged(this.file, "garbage"), is(false)); //$NON-NLS-1$
+    }
+
+    @Test
+    public void shouldBeUnchangedWhenNotModified() throws Exception {
+        String fingerprint = PublishedContentManifest.fingerprint(this.file);
+        assertThat(PublishedContentManifest.isUnchanged(this.file, fingerprint), is(true));
+    }
+
+    @Test
+    public void shouldBeUnchangedWhenOnlyTouched() throws Exception {
+        String fingerprint = PublishedContentManifest.fingerprint(this.file);
+        this.file.setLastModified(this.file.lastModified() + 10000);
+        assertThat(PublishedContentManifest.isUnchanged(this.file, fingerprint), is(true));
+    }
+
+    @Test
+    public void shouldKeepFingerprintWhenNotModified() throws Exception {
+        String fingerprint = PublishedContentManifest.fingerprint(this.file);
+        assertThat(PublishedContentManifest.refresh(this.file, fingerprint), is(fingerprint));
+    }
+
+    @Test
+    public void shouldNotRefreshFingerprintWhenContentChanges() throws Exception {
+        String fingerprint = PublishedContentManifest.fingerprint(this.file);
+        write("CONTENT"); //$NON-NLS-1$
+        this.file.setLastModified(this.file.lastModified() + 10000);
+        assertThat(PublishedContentManifest.refresh(this.file, fingerprint), is(nullValue()));
+    }
+
+    @Test
+    public void shouldRefreshFingerprintWhenOnlyTouched() throws Exception {
+        String fingerprint = PublishedContentManifest.fingerprint(this.file);
+        this.file.setLastModified(this.file.lastModified() + 10000);
+        assertThat(PublishedContentManifest.refresh(this.file, fingerprint), is(PublishedContentManifest.fingerprint(this.file)));
+    }
+
+    @Test
+    public void shouldComputeSha256Digest() throws Exception {
+        assertThat(PublishedContentManifest.digest(this.file),
+                   is("ed7002b439e9ac845f22357d822bac1444730fbdb6016d3ec9432297b9ec9f73")); //$NON-NLS-1$
+    }
+
+}
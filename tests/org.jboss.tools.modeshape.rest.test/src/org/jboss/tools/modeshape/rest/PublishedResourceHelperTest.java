@@ -0,0 +1,57 @@
+/*
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.
+ *
+ * This software is made available by Red Hat, Inc. under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution and is
+ * available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * See the AUTHORS.txt file in the distribution for a full listing of
+ * individual contributors.
+ */
+package org.jboss.tools.modeshape.rest;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import org.jboss.tools.modeshape.rest.domain.ModeShapeServer;
+import org.junit.Before;
+import org.junit.Test;
+
+public final class PublishedResourceHelperTest {
+
+    private static final String LOCATION = "http://server$user$repo$ws$http://server/repo/ws/file|"; //$NON-NLS-1$
+
+    private PublishedResourceHelper helper;
+
+    private ServerManager serverManager;
+
+    @Before
+    public void beforeEach() {
+        this.serverManager = new ServerManager(null, new MockRestClient());
+        this.helper = new PublishedResourceHelper(this.serverManager);
+    }
+
+    @Test
+    public void shouldBePublishedWhenOneServerIsRegistered() {
+        this.serverManager.addServer(new ModeShapeServer("http://server", "user", "pswd", false)); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        String value = "http://other$user$repo$ws$http://other/repo/ws/file|" + LOCATION; //$NON-NLS-1$
+        assertThat(this.helper.isPublishedToRegisteredServer(value), is(true));
+    }
+
+    @Test
+    public void shouldNotBePublishedWhenNoProperty() {
+        assertThat(this.helper.isPublishedToRegisteredServer((String)null), is(false));
+    }
+
+    @Test
+    public void shouldNotBePublishedWhenServerIsNotRegistered() {
+        assertThat(this.helper.isPublishedToRegisteredServer(LOCATION), is(false));
+    }
+
+    @Test
+    public void shouldNotBePublishedWhenUserIsDifferent() {
+        this.serverManager.addServer(new ModeShapeServer("http://server", "other", "pswd", false)); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        assertThat(this.helper.isPublishedToRegisteredServer(LOCATION), is(false));
+    }
+
+}
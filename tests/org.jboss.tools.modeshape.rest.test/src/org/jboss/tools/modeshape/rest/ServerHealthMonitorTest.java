@@ -0,0 +1,153 @@
+/*
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.
+ *
+ * This software is made available by Red Hat, Inc. under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution and is
+ * available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * See the AUTHORS.txt file in the distribution for a full listing of
+ * individual contributors.
+ */
+package org.jboss.tools.modeshape.rest;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import java.util.ArrayList;
+import java.util.List;
+import org.jboss.tools.modeshape.rest.ServerHealthMonitor.Health;
+import org.jboss.tools.modeshape.rest.domain.ModeShapeServer;
+import org.junit.Before;
+import org.junit.Test;
+
+public final class ServerHealthMonitorTest {
+
+    private final List<ServerHealthEvent> events = new ArrayList<ServerHealthEvent>();
+
+    private ServerHealthMonitor monitor;
+
+    private MockRestClient restClient;
+
+    private ModeShapeServer server;
+
+    private ServerManager serverManager;
+
+    @Before
+    public void beforeEach() {
+        this.restClient = new MockRestClient();
+        this.serverManager = new ServerManager(null, this.restClient);
+        this.server = new ModeShapeServer("http://server", "user", "pswd", false); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        this.serverManager.addServer(this.server);
+
+        this.monitor = this.serverManager.getHealthMonitor();
+        this.monitor.addHealthListener(new IServerHealthListener() {
+
+            @Override
+            public Exception[] serverHealthChanged( ServerHealthEvent event ) {
+                ServerHealthMonitorTest.this.events.add(event);
+                return null;
+            }
+        });
+    }
+
+    @Test
+    public void shouldBeOfflineAfterFailureIsReported() {
+        this.monitor.reportFailure(this.server);
+        assertThat(this.monitor.getHealth(this.server), is(Health.OFFLINE));
+        assertThat(this.monitor.isOffline(this.server), is(true));
+        assertThat(this.events.size(), is(1));
+        assertThat(this.events.get(0).getServer(), is(this.server));
+        assertThat(this.events.get(0).getPreviousHealth(), is(Health.UNKNOWN));
+        assertThat(this.events.get(0).isOffline(), is(true));
+    }
+
+    @Test
+    public void shouldBeOnlineAfterSuccessfulHeartbeat() {
+        this.monitor.reportFailure(this.server);
+        assertThat(this.monitor.update(this.server, true), is(Health.ONLINE));
+        assertThat(this.events.size(), is(2));
+        assertThat(this.events.get(1).getPreviousHealth(), is(Health.OFFLINE));
+        assertThat(this.events.get(1).isOnline(), is(true));
+    }
+
+    @Test
+    public void shouldBeUnknownBeforeFirstCheck() {
+        assertThat(this.monitor.getHealth(this.server), is(Health.UNKNOWN));
+        assertThat(this.monitor.isOffline(this.server), is(false));
+    }
+
+    @Test
+    public void shouldBeOfflineWhenAvailabilityCheckFails() {
+        this.restClient.setUnreachable(true);
+        assertThat(this.monitor.isAvailable(this.server), is(false));
+        assertThat(this.monitor.getHealth(this.server), is(Health.OFFLINE));
+        assertThat(this.events.size(), is(1));
+        assertThat(this.events.get(0).getServer(), is(this.server));
+        assertThat(this.events.get(0).getPreviousHealth(), is(Health.UNKNOWN));
+        assertThat(this.events.get(0).isOffline(), is(true));
+    }
+
+    @Test
+    public void shouldBeOnlineWhenAvailabilityCheckSucceeds() {
+        assertThat(this.monitor.isAvailable(this.server), is(true));
+        assertThat(this.monitor.getHealth(this.server), is(Health.ONLINE));
+        assertThat(this.events.size(), is(1));
+        assertThat(this.events.get(0).getServer(), is(this.server));
+        assertThat(this.events.get(0).getPreviousHealth(), is(Health.UNKNOWN));
+        assertThat(this.events.get(0).isOnline(), is(true));
+    }
+
+    @Test
+    public void shouldNotCheckKnownServerWhenAvailabilityIsRequested() {
+        this.monitor.reportFailure(this.server);
+        assertThat(this.monitor.isAvailable(this.server), is(false));
+        assertThat(this.monitor.getHealth(this.server), is(Health.OFFLINE));
+        assertThat(this.events.size(), is(1));
+    }
+
+    @Test
+    public void shouldDoubleRetryDelayUpToMaximum() {
+        assertThat(ServerHealthMonitor.getRetryDelay(1), is(ServerHealthMonitor.INITIAL_RETRY_DELAY));
+        assertThat(ServerHealthMonitor.getRetryDelay(2), is(ServerHealthMonitor.INITIAL_RETRY_DELAY * 2));
+        assertThat(ServerHealthMonitor.getRetryDelay(3), is(ServerHealthMonitor.INITIAL_RETRY_DELAY * 4));
+        assertThat(ServerHealthMonitor.getRetryDelay(100), is(ServerHealthMonitor.MAX_RETRY_DELAY));
+    }
+
+    @Test
+    public void shouldNotCheckBeforeRequestedDelayAfterLaterFailure() {
+        long start = System.currentTimeMillis();
+        this.monitor.reportFailure(this.server, 30000);
+        this.monitor.reportFailure(this.server);
+        assertThat(this.monitor.getEarliestCheckTime(this.server) >= (start + 30000), is(true));
+    }
+
+    @Test
+    public void shouldCheckAnyTimeAfterServerIsOnline() {
+        this.monitor.reportFailure(this.server, 30000);
+        this.monitor.update(this.server, true);
+        assertThat(this.monitor.getEarliestCheckTime(this.server), is(0L));
+    }
+
+    @Test
+    public void shouldForgetHealthOfRemovedServer() {
+        this.monitor.reportFailure(this.server);
+        this.serverManager.removeServer(this.server);
+        assertThat(this.monitor.getHealth(this.server), is(Health.UNKNOWN));
+    }
+
+    @Test
+    public void shouldNotMonitorUnregisteredServer() {
+        ModeShapeServer other = new ModeShapeServer("http://other", "user", "pswd", false); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        this.monitor.reportFailure(other);
+        assertThat(this.monitor.getHealth(other), is(Health.UNKNOWN));
+        assertThat(this.events.isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldNotNotifyWhenHealthDoesNotChange() {
+        this.monitor.reportFailure(this.server);
+        this.monitor.reportFailure(this.server);
+        assertThat(this.events.size(), is(1));
+    }
+
+}
@@ -18,11 +18,15 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
 import org.jboss.tools.modeshape.rest.domain.ModeShapeRepository;
 import org.jboss.tools.modeshape.rest.domain.ModeShapeServer;
 import org.junit.Before;
 import org.junit.Test;
 import org.modeshape.web.jcr.rest.client.Status;
+import org.modeshape.web.jcr.rest.client.Status.Severity;
 import org.modeshape.web.jcr.rest.client.domain.Repository;
 
 /**
@@ -96,6 +100,47 @@ public final class ServerManagerTest {
         assertTrue(this.serverManager.getServers().isEmpty());
     }
 
+    @Test
+    public void shouldDoubleRetryDelayUpToMaximum() {
+        assertThat(ServerManager.getRetryDelay(0, 1), is(ServerManager.INITIAL_RETRY_DELAY));
+        assertThat(ServerManager.getRetryDelay(1, 1), is(ServerManager.INITIAL_RETRY_DELAY * 2));
+        assertThat(ServerManager.getRetryDelay(100, 1), is(ServerManager.MAX_RETRY_DELAY));
+    }
+
+    @Test
+    public void shouldWaitAtLeastHalfOfRetryDelay() {
+        assertThat(ServerManager.getRetryDelay(0, 0), is(ServerManager.INITIAL_RETRY_DELAY / 2));
+        assertThat(ServerManager.getRetryDelay(100, 0), is(ServerManager.MAX_RETRY_DELAY / 2));
+    }
+
+    @Test
+    public void shouldBeTransientFailureWhenServerCannotBeReached() {
+        Status status = new Status(Severity.ERROR, "error", new RuntimeException(new ConnectException())); //$NON-NLS-1$
+        assertThat(ServerManager.isTransientFailure(status), is(true));
+    }
+
+    @Test
+    public void shouldBeConnectionFailureWhenRequestWasNotSent() {
+        Status status = new Status(Severity.ERROR, "error", new RuntimeException(new ConnectException())); //$NON-NLS-1$
+        assertThat(ServerManager.isConnectionFailure(status), is(true));
+        status = new Status(Severity.ERROR, "error", new UnknownHostException()); //$NON-NLS-1$
+        assertThat(ServerManager.isConnectionFailure(status), is(true));
+    }
+
+    @Test
+    public void shouldNotBeConnectionFailureWhenRequestMayHaveBeenReceived() {
+        Status status = new Status(Severity.ERROR, "error", new SocketTimeoutException()); //$NON-NLS-1$
+        assertThat(ServerManager.isConnectionFailure(status), is(false));
+        assertThat(ServerManager.isTransientFailure(status), is(true));
+    }
+
+    @Test
+    public void shouldNotBeTransientFailureWhenServerResponds() {
+        Status status = new Status(Severity.ERROR, "error", new RuntimeException("404")); //$NON-NLS-1$ //$NON-NLS-2$
+        assertThat(ServerManager.isTransientFailure(status), is(false));
+        assertThat(ServerManager.isTransientFailure(Status.OK_STATUS), is(false));
+    }
+
     @Test
     public void shouldHaveServerExistsSystemPropertyIfThereIsARegisteredServer() {
         this.serverManager.addServer(SERVER1);
@@ -0,0 +1,207 @@
+/*
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.
+ *
+ * This software is made available by Red Hat, Inc. under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution and is
+ * available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * See the AUTHORS.txt file in the distribution for a full listing of
+ * individual contributors.
+ */
+package org.jboss.tools.modeshape.rest;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsInstanceOf.instanceOf;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.jboss.tools.modeshape.rest.domain.ModeShapeServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public final class ServerRequestExecutorTest {
+
+    private static final long WAIT = 10;
+
+    private ServerRequestExecutor executor;
+
+    private ModeShapeServer server1;
+
+    private ModeShapeServer server2;
+
+    @After
+    public void afterEach() {
+        this.executor.shutdown();
+    }
+
+    @Before
+    public void beforeEach() {
+        this.executor = new ServerRequestExecutor(4, 1, 10000);
+        this.server1 = new ModeShapeServer("http://server1", "user", "pswd", false); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        this.server2 = new ModeShapeServer("http://server2", "user", "pswd", false); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    }
+
+    private Callable<String> waitFor( final CountDownLatch started,
+                                      final CountDownLatch release,
+                                      final String value ) {
+        return new Callable<String>() {
+
+            @Override
+            public String call() throws Exception {
+                started.countDown();
+                release.await();
+                return value;
+            }
+        };
+    }
+
+    @Test
+    public void shouldKeepServerSlotUntilTimedOutRequestReturns() throws Exception {
+        this.executor.shutdown();
+        this.executor = new ServerRequestExecutor(2, 1, 100);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        // a request blocked in I/O that ignores interrupts
+        Future<String> result1 = this.executor.submit(this.server1, new Callable<String>() {
+
+            @Override
+            public String call() {
+                while (true) {
+                    try {
+                        release.await();
+                        return "one"; //$NON-NLS-1$
+                    } catch (InterruptedException e) {
+                        // keep waiting
+                    }
+                }
+            }
+        });
+
+        try {
+            result1.get(WAIT, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(TimeoutException.class));
+        }
+
+        CountDownLatch started2 = new CountDownLatch(1);
+        Future<String> result2 = this.executor.submit(this.server1, waitFor(started2, new CountDownLatch(0), "two")); //$NON-NLS-1$
+        assertThat(started2.await(300, TimeUnit.MILLISECONDS), is(false));
+
+        release.countDown();
+        assertThat(result2.get(WAIT, TimeUnit.SECONDS), is("two")); //$NON-NLS-1$
+    }
+
+    @Test
+    public void shouldNotTimeOutWhileWaitingForThread() throws Exception {
+        this.executor.shutdown();
+        this.executor = new ServerRequestExecutor(1, 1, 200);
+        CountDownLatch started1 = new CountDownLatch(1);
+        CountDownLatch release1 = new CountDownLatch(1);
+        Future<String> result1 = this.executor.submit(this.server1, waitFor(started1, release1, "one")); //$NON-NLS-1$
+        assertThat(started1.await(WAIT, TimeUnit.SECONDS), is(true));
+
+        // the only thread is busy so this request waits before it runs and then runs for less than the timeout
+        Future<String> result2 = this.executor.submit(this.server2, new Callable<String>() {
+
+            @Override
+            public String call() throws Exception {
+                Thread.sleep(120);
+                return "two"; //$NON-NLS-1$
+            }
+        });
+        Thread.sleep(150);
+        release1.countDown();
+
+        assertThat(result1.get(WAIT, TimeUnit.SECONDS), is("one")); //$NON-NLS-1$
+        assertThat(result2.get(WAIT, TimeUnit.SECONDS), is("two")); //$NON-NLS-1$
+    }
+
+    @Test
+    public void shouldFailWhenRequestFails() throws Exception {
+        Future<String> result = this.executor.submit(this.server1, new Callable<String>() {
+
+            @Override
+            public String call() throws Exception {
+                throw new IllegalArgumentException();
+            }
+        });
+
+        try {
+            result.get(WAIT, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(IllegalArgumentException.class));
+        }
+    }
+
+    @Test
+    public void shouldFailWhenSubmittedAfterShutdown() throws Exception {
+        this.executor.shutdown();
+        Future<String> result = this.executor.submit(this.server1, waitFor(new CountDownLatch(1), new CountDownLatch(0), "value")); //$NON-NLS-1$
+
+        try {
+            result.get(WAIT, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(IllegalStateException.class));
+        }
+    }
+
+    @Test
+    public void shouldLimitRequestsPerServer() throws Exception {
+        CountDownLatch release1 = new CountDownLatch(1);
+        CountDownLatch started1 = new CountDownLatch(1);
+        CountDownLatch started2 = new CountDownLatch(1);
+        CountDownLatch started3 = new CountDownLatch(1);
+
+        Future<String> result1 = this.executor.submit(this.server1, waitFor(started1, release1, "one")); //$NON-NLS-1$
+        assertThat(started1.await(WAIT, TimeUnit.SECONDS), is(true));
+
+        // second request to the same server waits for the first
+        Future<String> result2 = this.executor.submit(this.server1, waitFor(started2, new CountDownLatch(0), "two")); //$NON-NLS-1$
+
+        // request to a different server is not held up
+        Future<String> result3 = this.executor.submit(this.server2, waitFor(started3, new CountDownLatch(0), "three")); //$NON-NLS-1$
+        assertThat(result3.get(WAIT, TimeUnit.SECONDS), is("three")); //$NON-NLS-1$
+        assertThat(started2.getCount(), is(1L));
+        assertThat(result2.isDone(), is(false));
+
+        release1.countDown();
+        assertThat(result1.get(WAIT, TimeUnit.SECONDS), is("one")); //$NON-NLS-1$
+        assertThat(result2.get(WAIT, TimeUnit.SECONDS), is("two")); //$NON-NLS-1$
+    }
+
+    @Test
+    public void shouldReturnRequestValue() throws Exception {
+        Future<String> result = this.executor.submit(this.server1, waitFor(new CountDownLatch(1), new CountDownLatch(0), "value")); //$NON-NLS-1$
+        assertThat(result.get(WAIT, TimeUnit.SECONDS), is("value")); //$NON-NLS-1$
+    }
+
+    @Test
+    public void shouldTimeOutLongRequest() throws Exception {
+        this.executor.shutdown();
+        this.executor = new ServerRequestExecutor(1, 1, 100);
+        CountDownLatch started = new CountDownLatch(1);
+        Future<String> result = this.executor.submit(this.server1, waitFor(started, new CountDownLatch(1), "value")); //$NON-NLS-1$
+
+        try {
+            result.get(WAIT, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(TimeoutException.class));
+        }
+
+        // the timed out request no longer holds the server slot
+        result = this.executor.submit(this.server1, waitFor(new CountDownLatch(1), new CountDownLatch(0), "next")); //$NON-NLS-1$
+        assertThat(result.get(WAIT, TimeUnit.SECONDS), is("next")); //$NON-NLS-1$
+    }
+
+}
@@ -1,8 +1,14 @@
 package org.jboss.tools.modeshape.rest.test;
 
+import org.jboss.tools.modeshape.rest.CircuitBreakerTest;
+import org.jboss.tools.modeshape.rest.MetadataCacheTest;
 import org.jboss.tools.modeshape.rest.MockRestClientTest;
+import org.jboss.tools.modeshape.rest.PublishedContentManifestTest;
+import org.jboss.tools.modeshape.rest.PublishedResourceHelperTest;
+import org.jboss.tools.modeshape.rest.ServerHealthMonitorTest;
 import org.jboss.tools.modeshape.rest.ServerManagerTest;
 import org.jboss.tools.modeshape.rest.ServerRegistryEventTest;
+import org.jboss.tools.modeshape.rest.ServerRequestExecutorTest;
 import org.jboss.tools.modeshape.rest.domain.ModeShapeServerTest;
 import org.jboss.tools.modeshape.rest.preferences.IgnoredResourcesModelTest;
 import org.jboss.tools.modeshape.rest.preferences.PublishingFileFilterTest;
@@ -11,8 +17,10 @@ import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 
 @RunWith( Suite.class )
-@Suite.SuiteClasses( {IgnoredResourcesModelTest.class, MockRestClientTest.class, ModeShapeServerTest.class,
-    PublishingFileFilterTest.class, ResourcePatternTest.class, ServerManagerTest.class, ServerRegistryEventTest.class} )
+@Suite.SuiteClasses( {CircuitBreakerTest.class, IgnoredResourcesModelTest.class, MetadataCacheTest.class,
+    MockRestClientTest.class, ModeShapeServerTest.class, PublishedContentManifestTest.class, PublishedResourceHelperTest.class,
+    PublishingFileFilterTest.class, ResourcePatternTest.class, ServerHealthMonitorTest.class, ServerManagerTest.class,
+    ServerRegistryEventTest.class, ServerRequestExecutorTest.class} )
 public class AllTests {
     // nothing to do
 }